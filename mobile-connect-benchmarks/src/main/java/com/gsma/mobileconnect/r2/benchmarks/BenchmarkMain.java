@@ -0,0 +1,51 @@
+/*
+* SOFTWARE USE PERMISSION
+*
+* By downloading and accessing this software and associated documentation files ("Software") you are granted the
+* unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+* sublicense and grant such rights to third parties, subject to the following conditions:
+*
+* The following copyright notice and this permission notice shall be included in all copies, modifications or
+* substantial portions of this Software: Copyright © 2016 GSM Association.
+*
+* THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+* HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+* INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+*/
+package com.gsma.mobileconnect.r2.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected on the command line, as the JMH main class does, always reporting
+ * the allocation rate per operation alongside the throughput.
+ *
+ * @since 2.0
+ */
+public final class BenchmarkMain
+{
+    private BenchmarkMain()
+    {
+        /*
+        Private default constructor since all methods are static
+         */
+    }
+
+    public static void main(final String[] args)
+        throws CommandLineOptionException, RunnerException
+    {
+        final Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+* SOFTWARE USE PERMISSION
+*
+* By downloading and accessing this software and associated documentation files ("Software") you are granted the
+* unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+* sublicense and grant such rights to third parties, subject to the following conditions:
+*
+* The following copyright notice and this permission notice shall be included in all copies, modifications or
+* substantial portions of this Software: Copyright © 2016 GSM Association.
+*
+* THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+* HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+* INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+*/
+package com.gsma.mobileconnect.r2.claims;
+
+import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.JsonWebToken;
+import com.gsma.mobileconnect.r2.validation.IdTokenClaims;
+import com.gsma.mobileconnect.r2.validation.TokenFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks deserializing the claims of an id token, to a full {@link Claims} map from a String
+ * and to {@link IdTokenClaims} from the decoded bytes.
+ *
+ * @since 2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClaimsBenchmark
+{
+    private final JacksonJsonService jsonService = new JacksonJsonService();
+
+    private String claimsJson;
+    private byte[] claimsBytes;
+
+    @Setup
+    public void setup() throws GeneralSecurityException
+    {
+        final JsonWebToken token =
+            new JsonWebToken(TokenFixtures.generate().getIdToken(), new DefaultEncodeDecoder());
+        this.claimsJson = token.getClaims();
+        this.claimsBytes = token.getClaimsBytes();
+    }
+
+    @Benchmark
+    public Claims deserializeClaims() throws JsonDeserializationException
+    {
+        return this.jsonService.deserialize(this.claimsJson, Claims.class);
+    }
+
+    @Benchmark
+    public IdTokenClaims deserializeIdTokenClaims() throws JsonDeserializationException
+    {
+        return this.jsonService.deserialize(this.claimsBytes, IdTokenClaims.class);
+    }
+}
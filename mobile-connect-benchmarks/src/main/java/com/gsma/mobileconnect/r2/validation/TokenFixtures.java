@@ -0,0 +1,146 @@
+/*
+* SOFTWARE USE PERMISSION
+*
+* By downloading and accessing this software and associated documentation files ("Software") you are granted the
+* unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+* sublicense and grant such rights to third parties, subject to the following conditions:
+*
+* The following copyright notice and this permission notice shall be included in all copies, modifications or
+* substantial portions of this Software: Copyright © 2016 GSM Association.
+*
+* THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+* HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+* INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+*/
+package com.gsma.mobileconnect.r2.validation;
+
+import org.apache.commons.codec.binary.Base64;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates an RS256 signed id token, and the keyset it verifies against, for use by the
+ * benchmarks.  The token's claims are representative of those returned by an operator, and its
+ * signing key is one of several in the keyset, as during key rollover.
+ *
+ * @since 2.0
+ */
+public final class TokenFixtures
+{
+    public static final String CLIENT_ID = "x-ZWRhNjU3OWI3MGIwYTRh";
+    public static final String ISSUER = "https://reference.mobileconnect.io/mobileconnect";
+    public static final String NONCE = "81991496-48bb-4d13-bd0c-117d994411a6";
+    public static final long MAX_AGE = TimeUnit.DAYS.toSeconds(365L);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int KEY_SIZE = 2048;
+    private static final int KEY_COUNT = 4;
+
+    private final String jwksJson;
+    private final String idToken;
+
+    private TokenFixtures(final String jwksJson, final String idToken)
+    {
+        this.jwksJson = jwksJson;
+        this.idToken = idToken;
+    }
+
+    /**
+     * Generate new keys and a token signed by one of them.
+     *
+     * @return the fixtures.
+     * @throws GeneralSecurityException if the keys cannot be generated or the token signed.
+     */
+    public static TokenFixtures generate() throws GeneralSecurityException
+    {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(KEY_SIZE);
+
+        final StringBuilder jwks = new StringBuilder("{\"keys\":[");
+        KeyPair signingKey = null;
+        for (int i = 0; i < KEY_COUNT; i++)
+        {
+            final KeyPair keyPair = generator.generateKeyPair();
+            final RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+            if (i > 0)
+            {
+                jwks.append(',');
+            }
+            jwks
+                .append("{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"")
+                .append(keyId(i))
+                .append("\",\"n\":\"")
+                .append(encode(publicKey.getModulus()))
+                .append("\",\"e\":\"")
+                .append(encode(publicKey.getPublicExponent()))
+                .append("\"}");
+            signingKey = keyPair;
+        }
+        jwks.append("]}");
+
+        final long issuedAt = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        final String header =
+            "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"" + keyId(KEY_COUNT - 1) + "\"}";
+        final String claims = "{\"iss\":\"" + ISSUER
+            + "\",\"sub\":\"411421B0-38D6-6568-A53A-DF99691B7EB6\",\"aud\":\"" + CLIENT_ID
+            + "\",\"exp\":" + (issuedAt + MAX_AGE) + ",\"iat\":" + issuedAt + ",\"nonce\":\""
+            + NONCE
+            + "\",\"at_hash\":\"56F1z7F6wyhTaHUcVFcLIA\",\"auth_time\":" + issuedAt
+            + ",\"acr\":\"2\",\"amr\":[\"SIM_PIN\"],\"azp\":\"" + CLIENT_ID + "\"}";
+
+        final String signingInput = encode(header.getBytes(UTF8)) + "." + encode(
+            claims.getBytes(UTF8));
+        final Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(signingKey.getPrivate());
+        signer.update(signingInput.getBytes(UTF8));
+
+        return new TokenFixtures(jwks.toString(), signingInput + "." + encode(signer.sign()));
+    }
+
+    /**
+     * @return json of the keyset the token verifies against.
+     */
+    public String getJwksJson()
+    {
+        return this.jwksJson;
+    }
+
+    /**
+     * @return the signed id token.
+     */
+    public String getIdToken()
+    {
+        return this.idToken;
+    }
+
+    private static String keyId(final int index)
+    {
+        return "PHPOP-0" + index;
+    }
+
+    private static String encode(final BigInteger value)
+    {
+        final byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0)
+        {
+            final byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            return encode(unsigned);
+        }
+        return encode(bytes);
+    }
+
+    private static String encode(final byte[] value)
+    {
+        return Base64.encodeBase64URLSafeString(value);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+* SOFTWARE USE PERMISSION
+*
+* By downloading and accessing this software and associated documentation files ("Software") you are granted the
+* unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+* sublicense and grant such rights to third parties, subject to the following conditions:
+*
+* The following copyright notice and this permission notice shall be included in all copies, modifications or
+* substantial portions of this Software: Copyright © 2016 GSM Association.
+*
+* THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+* HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+* INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+*/
+package com.gsma.mobileconnect.r2.validation;
+
+import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
+import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
+import com.gsma.mobileconnect.r2.exceptions.MobileConnectInvalidJWKException;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.JsonWebToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the stages of id token validation: the whole of {@link
+ * TokenValidation#validateIdToken(String, String, String, String, long, JWKeyset,
+ * com.gsma.mobileconnect.r2.json.IJsonService, IMobileConnectEncodeDecoder)}, its claims and
+ * signature validation separately, and the RSA verification of {@link JWKey#verify(byte[],
+ * byte[], String, IMobileConnectEncodeDecoder)} alone.
+ *
+ * @since 2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenValidationBenchmark
+{
+    private final IMobileConnectEncodeDecoder encodeDecoder = new DefaultEncodeDecoder();
+    private final JacksonJsonService jsonService = new JacksonJsonService();
+
+    private String idToken;
+    private JWKeyset keyset;
+    private JWKey jwKey;
+    private byte[] signingInput;
+    private byte[] signature;
+
+    @Setup
+    public void setup() throws GeneralSecurityException, JsonDeserializationException
+    {
+        final TokenFixtures fixtures = TokenFixtures.generate();
+        this.idToken = fixtures.getIdToken();
+        this.keyset = this.jsonService.deserialize(fixtures.getJwksJson(), JWKeyset.class);
+
+        final JsonWebToken token = new JsonWebToken(this.idToken, this.encodeDecoder);
+        this.jwKey = this.keyset.getKey(TokenValidation.extractKeyId(token, this.jsonService),
+            "RS256");
+        this.signingInput = token.getSigningInput();
+        this.signature = token.getSignatureBytes();
+
+        final TokenValidationResult result = this.validateIdToken();
+        if (result != TokenValidationResult.VALID)
+        {
+            throw new IllegalStateException("Fixture token did not validate: " + result);
+        }
+    }
+
+    @Benchmark
+    public TokenValidationResult validateIdToken() throws JsonDeserializationException
+    {
+        return TokenValidation.validateIdToken(this.idToken, TokenFixtures.CLIENT_ID,
+            TokenFixtures.ISSUER, TokenFixtures.NONCE, TokenFixtures.MAX_AGE, this.keyset,
+            this.jsonService, this.encodeDecoder);
+    }
+
+    @Benchmark
+    public TokenValidationResult validateIdTokenClaims() throws JsonDeserializationException
+    {
+        return TokenValidation.validateIdTokenClaims(this.idToken, TokenFixtures.CLIENT_ID,
+            TokenFixtures.ISSUER, TokenFixtures.NONCE, TokenFixtures.MAX_AGE, this.jsonService,
+            this.encodeDecoder);
+    }
+
+    @Benchmark
+    public TokenValidationResult validateIdTokenSignature() throws JsonDeserializationException
+    {
+        return TokenValidation.validateIdTokenSignature(this.idToken, this.keyset,
+            this.jsonService, this.encodeDecoder);
+    }
+
+    @Benchmark
+    public boolean verify()
+        throws MobileConnectInvalidJWKException, NoSuchAlgorithmException, InvalidKeySpecException
+    {
+        return this.jwKey.verify(this.signingInput, this.signature, "RS256", this.encodeDecoder);
+    }
+}
@@ -31,7 +31,6 @@ import com.gsma.mobileconnect.r2.utils.LogUtils;
 import com.gsma.mobileconnect.r2.web.MobileConnectWebResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.http.MediaType;
@@ -76,7 +75,7 @@ public class DemoAppController
             final HttpServletRequest request)
     {
         LOGGER.info("* Attempting discovery for msisdn={}, mcc={}, mnc={}",
-                LogUtils.mask(msisdn, LOGGER, Level.INFO), sourceIp);
+                LogUtils.masked(msisdn), sourceIp);
 
         MobileConnectRequestOptions requestOptions =
                 new MobileConnectRequestOptions.Builder()
@@ -100,7 +99,7 @@ public class DemoAppController
     ) throws JsonDeserializationException {
 
         LOGGER.info("* Attempting discovery for clientId={}, clientSecret={}, clientName={}",
-                LogUtils.mask(clientId, LOGGER, Level.INFO), clientSecret, clientName);
+                LogUtils.masked(clientId), clientSecret, clientName);
 
         this.clientName = clientName;
         DiscoveryResponse discoveryResponse = this.mobileConnectWebInterface.generateDiscoveryManually(clientSecret,
@@ -120,7 +119,7 @@ public class DemoAppController
             final HttpServletRequest request) throws JsonDeserializationException {
 
         LOGGER.info("* Starting authentication for sdkSession={}, subscriberId={}, scope={}",
-                LogUtils.mask(subId, LOGGER, Level.INFO), Scopes.MOBILECONNECT);
+                LogUtils.masked(subId), Scopes.MOBILECONNECT);
         OperatorUrls operatorUrlsWD = new OperatorUrls.Builder()
                 .withAuthorizationUrl(operatorUrls.getAuthorizationUrl())
                 .withRequestTokenUrl(operatorUrls.getRequestTokenUrl())
@@ -199,7 +198,7 @@ public class DemoAppController
             @RequestParam(required = false) final String scope, final HttpServletRequest request)
     {
         LOGGER.info("* Starting authentication for sdkSession={}, subscriberId={}, scope={}",
-                sdkSession, LogUtils.mask(subscriberId, LOGGER, Level.INFO), scope);
+                sdkSession, LogUtils.masked(subscriberId), scope);
 
         if (scope == null && operatorUrls.getProviderMetadataUri() == null) {
             apiVersion = DefaultOptions.VERSION_MOBILECONNECTAUTHN;
@@ -231,7 +230,7 @@ public class DemoAppController
     {
 
         LOGGER.info("* Starting authentication for sdkSession={}, subscriberId={}, scope={}",
-                sdkSession, LogUtils.mask(subscriberId, LOGGER, Level.INFO), Scopes.MOBILECONNECT);
+                sdkSession, LogUtils.masked(subscriberId), Scopes.MOBILECONNECT);
 
         final MobileConnectRequestOptions options = new MobileConnectRequestOptions.Builder()
                 .withAuthenticationOptions(new AuthenticationOptions.Builder()
@@ -254,7 +253,7 @@ public class DemoAppController
             @RequestParam(required = false) final String scope, final HttpServletRequest request)
     {
         LOGGER.info("* Starting authentication for sdkSession={}, subscriberId={}, scope={}",
-                sdkSession, LogUtils.mask(subscriberId, LOGGER, Level.INFO), scope);
+                sdkSession, LogUtils.masked(subscriberId), scope);
 
         final MobileConnectRequestOptions options = new MobileConnectRequestOptions.Builder()
                 .withAuthenticationOptions(new AuthenticationOptions.Builder()
@@ -279,7 +278,7 @@ public class DemoAppController
             @RequestParam(required = false) final String accessToken, final HttpServletRequest request)
     {
         LOGGER.info("* Requesting user info for sdkSession={}, accessToken={}", sdkSession,
-                LogUtils.mask(accessToken, LOGGER, Level.INFO));
+                LogUtils.masked(accessToken));
 
         final MobileConnectStatus status =
                 this.mobileConnectWebInterface.requestUserInfo(request, sdkSession, accessToken);
@@ -294,7 +293,7 @@ public class DemoAppController
             @RequestParam(required = false) final String accessToken, final HttpServletRequest request)
     {
         LOGGER.info("* Requesting identity info for sdkSession={}, accessToken={}", sdkSession,
-                LogUtils.mask(accessToken, LOGGER, Level.INFO));
+                LogUtils.masked(accessToken));
 
         final MobileConnectStatus status =
                 this.mobileConnectWebInterface.requestIdentity(request, sdkSession, accessToken);
@@ -309,7 +308,7 @@ public class DemoAppController
             @RequestParam(required = false) final String refreshToken, final HttpServletRequest request)
     {
         LOGGER.info("* Calling refresh token for sdkSession={}, refreshToken={}", sdkSession,
-                LogUtils.mask(refreshToken, LOGGER, Level.INFO));
+                LogUtils.masked(refreshToken));
 
         final MobileConnectStatus status =
                 this.mobileConnectWebInterface.refreshToken(request, refreshToken, sdkSession);
@@ -324,7 +323,7 @@ public class DemoAppController
             @RequestParam(required = false) final String accessToken, final HttpServletRequest request)
     {
         LOGGER.info("* Calling revoke token for sdkSession={}, accessToken={}", sdkSession,
-                LogUtils.mask(accessToken, LOGGER, Level.INFO));
+                LogUtils.masked(accessToken));
 
         final MobileConnectStatus status =
                 this.mobileConnectWebInterface.revokeToken(request, accessToken,
@@ -346,7 +345,7 @@ public class DemoAppController
         LOGGER.info(
                 "* Handling redirect for sdkSession={}, mccMnc={}, code={}, expectedState={}, expectedNonce={}, subscriberId={}",
                 sdkSession, mccMnc, code, expectedState, expectedNonce,
-                LogUtils.mask(subscriberId, LOGGER, Level.INFO));
+                LogUtils.masked(subscriberId));
 
         final URI requestUri = HttpUtils.extractCompleteUrl(request);
 
@@ -20,30 +20,61 @@ import com.gsma.mobileconnect.r2.authentication.AuthenticationService;
 import com.gsma.mobileconnect.r2.authentication.IAuthenticationService;
 import com.gsma.mobileconnect.r2.validation.IJWKeysetService;
 import com.gsma.mobileconnect.r2.validation.JWKeysetService;
-import com.gsma.mobileconnect.r2.cache.ConcurrentCache;
+import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
+import com.gsma.mobileconnect.r2.cache.BoundedCache;
 import com.gsma.mobileconnect.r2.cache.ICache;
 import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
 import com.gsma.mobileconnect.r2.discovery.DiscoveryService;
 import com.gsma.mobileconnect.r2.discovery.IDiscoveryService;
 import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
+import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.identity.IIdentityService;
 import com.gsma.mobileconnect.r2.identity.IdentityService;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.rest.AsyncRestClient;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.rest.RestClient;
+import com.gsma.mobileconnect.r2.utils.DaemonThreadFactory;
+import com.gsma.mobileconnect.r2.utils.ExecutorUtils;
 import com.gsma.mobileconnect.r2.utils.IBuilder;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.UserTokenHandler;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultUserTokenHandler;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.client.NoopUserTokenHandler;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Executors;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 
 /**
  * Convenience methods to construct and access the core public interfaces of MobileConnect. <p> A
@@ -71,32 +102,49 @@ public final class MobileConnect
     private final MobileConnectInterface mobileConnectInterface;
     private final MobileConnectWebInterface mobileConnectWebInterface;
     private final IMobileConnectEncodeDecoder iMobileConnectEncoderDecoder;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final MobileConnectConfig config;
+    private final ExecutorService executorService;
 
     private MobileConnect(final Builder builder)
     {
         this.iMobileConnectEncoderDecoder = builder.iMobileConnectEncodeDecoder;
+        this.connectionManager = builder.connectionManager;
+        this.config = builder.config;
+        this.executorService = builder.executorService;
 
-        this.discoveryService = new DiscoveryService.Builder()
+        final DiscoveryService.Builder discoveryServiceBuilder = new DiscoveryService.Builder()
             .withCache(builder.cache)
             .withJsonService(builder.jsonService)
             .withRestClient(builder.restClient)
             .withIMobileConnectEncodeDecoder(this.iMobileConnectEncoderDecoder)
-            .build();
+            .withExecutorService(builder.executorService);
+        for (final Map.Entry<Class<? extends AbstractCacheable>, Tuple<Long, Long>> entry : builder.staleLimits
+            .entrySet())
+        {
+            discoveryServiceBuilder.withStaleWhileRevalidate(entry.getKey(),
+                entry.getValue().getFirst(), entry.getValue().getSecond(), TimeUnit.MILLISECONDS);
+        }
+        this.discoveryService = discoveryServiceBuilder.build();
 
         this.authnService = new AuthenticationService.Builder()
             .withJsonService(builder.jsonService)
             .withRestClient(builder.restClient)
             .withIMobileConnectEncodeDecoder(this.iMobileConnectEncoderDecoder)
+            .withExecutorService(builder.executorService)
             .build();
 
         this.identityService = new IdentityService.Builder()
             .withJsonService(builder.jsonService)
             .withRestClient(builder.restClient)
+            .withExecutorService(builder.executorService)
             .build();
 
         this.jwKeysetService = new JWKeysetService.Builder()
             .withRestClient(builder.restClient)
             .withICache(builder.cache)
+            .withExecutorService(builder.executorService)
+            .withRefreshAhead(builder.jwksRefreshAheadMs, TimeUnit.MILLISECONDS)
             .build();
 
         this.mobileConnectInterface = new MobileConnectInterface.Builder()
@@ -107,6 +155,7 @@ public final class MobileConnect
             .withJsonService(builder.jsonService)
             .withiMobileConnectEncodeDecoder(this.iMobileConnectEncoderDecoder)
             .withConfig(builder.config)
+            .withExecutorService(builder.executorService)
             .build();
 
         this.mobileConnectWebInterface = new MobileConnectWebInterface.Builder()
@@ -230,6 +279,201 @@ public final class MobileConnect
         return this.mobileConnectWebInterface;
     }
 
+    /**
+     * Statistics for the connection pool of the default http client, giving the number of leased
+     * and available (idle) connections and the number of requests waiting for a connection.
+     *
+     * @return connection pool statistics, or null if a http client or rest client was specified.
+     */
+    public PoolStats getConnectionPoolStats()
+    {
+        return this.connectionManager == null ? null : this.connectionManager.getTotalStats();
+    }
+
+    /**
+     * Statistics for the connection pool of the default http client for a single route, for
+     * example a discovery or operator host.
+     *
+     * @param route to retrieve statistics for.
+     * @return connection pool statistics, or null if a http client or rest client was specified.
+     */
+    public PoolStats getConnectionPoolStats(final HttpRoute route)
+    {
+        return this.connectionManager == null
+            ? null
+            : this.connectionManager.getStats(ObjectUtils.requireNonNull(route, "route"));
+    }
+
+    /**
+     * Warm the caches for a set of operators, using up to {@link
+     * DefaultOptions#WARM_UP_MAX_CONCURRENCY} threads, waiting until it is complete.
+     *
+     * @param operators MCC and MNC of each operator.
+     * @return report of the operators warmed and those which failed.
+     * @see #warmUpStage(List, int)
+     */
+    public WarmUpReport warmUp(final List<Tuple<String, String>> operators)
+    {
+        return this.warmUp(operators, DefaultOptions.WARM_UP_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Warm the caches for a set of operators, waiting until it is complete.
+     *
+     * @param operators      MCC and MNC of each operator.
+     * @param maxConcurrency maximum number of operators warmed at once.
+     * @return report of the operators warmed and those which failed.
+     * @see #warmUpStage(List, int)
+     */
+    public WarmUpReport warmUp(final List<Tuple<String, String>> operators,
+        final int maxConcurrency)
+    {
+        return this.warmUpStage(operators, maxConcurrency).toCompletableFuture().join();
+    }
+
+    /**
+     * Warm the caches for a set of operators, so that the first requests for them after startup
+     * are served from the cache.  For each operator the discovery response, the provider metadata
+     * bound to it and the JWKS are fetched, as for {@link
+     * IDiscoveryService#completeSelectedOperatorDiscovery(com.gsma.mobileconnect.r2.discovery.IPreferences,
+     * java.net.URI, String, String)} using the configured client credentials and redirect url.
+     * <p> Operators are warmed in parallel on the executor, at most maxConcurrency at once.  A
+     * failure does not stop the remaining operators from being warmed; it is reported rather than
+     * thrown.
+     *
+     * @param operators      MCC and MNC of each operator.
+     * @param maxConcurrency maximum number of operators warmed at once.
+     * @return stage completing with a report of the operators warmed and those which failed.
+     */
+    public CompletionStage<WarmUpReport> warmUpStage(final List<Tuple<String, String>> operators,
+        final int maxConcurrency)
+    {
+        ObjectUtils.requireNonNull(operators, "operators");
+
+        final Queue<Tuple<String, String>> pending =
+            new ConcurrentLinkedQueue<Tuple<String, String>>(operators);
+        final WarmUpReport.Builder report = new WarmUpReport.Builder();
+        final int workers = Math.max(1, Math.min(maxConcurrency, pending.size()));
+
+        LOGGER.info("Warming caches for operators={} with concurrency={}", pending.size(), workers);
+
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++)
+        {
+            futures[i] = ExecutorUtils.supplyAsync(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    Tuple<String, String> operator;
+                    while ((operator = pending.poll()) != null)
+                    {
+                        MobileConnect.this.warmUp(operator.getFirst(), operator.getSecond(), report);
+                    }
+                    return null;
+                }
+            }, this.executorService);
+        }
+
+        return CompletableFuture.allOf(futures).handle(new BiFunction<Void, Throwable, WarmUpReport>()
+        {
+            @Override
+            public WarmUpReport apply(final Void result, final Throwable throwable)
+            {
+                // only left pending if no worker could be run on the executor
+                Tuple<String, String> operator;
+                while ((operator = pending.poll()) != null)
+                {
+                    report.addFailure(operator.getFirst(), operator.getSecond(),
+                        "warm up could not be run on the executor", null);
+                }
+
+                final WarmUpReport warmUpReport = report.build();
+                LOGGER.info("Warmed caches for operators={}, failed={}",
+                    warmUpReport.getWarmed().size(), warmUpReport.getFailures());
+                return warmUpReport;
+            }
+        });
+    }
+
+    private void warmUp(final String mcc, final String mnc, final WarmUpReport.Builder report)
+    {
+        final DiscoveryResponse discoveryResponse;
+        try
+        {
+            discoveryResponse = this.discoveryService.completeSelectedOperatorDiscovery(this.config,
+                this.config.getRedirectUrl(), mcc, mnc);
+        }
+        catch (final RequestFailedException rfe)
+        {
+            LOGGER.warn("Failed to warm discovery response for mcc={}, mnc={}", mcc, mnc, rfe);
+            report.addFailure(mcc, mnc, "discovery request failed", rfe);
+            return;
+        }
+        catch (final InvalidResponseException ire)
+        {
+            LOGGER.warn("Failed to warm discovery response for mcc={}, mnc={}", mcc, mnc, ire);
+            report.addFailure(mcc, mnc, "invalid discovery response", ire);
+            return;
+        }
+        catch (final RuntimeException re)
+        {
+            LOGGER.warn("Failed to warm discovery response for mcc={}, mnc={}", mcc, mnc, re);
+            report.addFailure(mcc, mnc, "discovery failed", re);
+            return;
+        }
+
+        if (discoveryResponse.getErrorResponse() != null)
+        {
+            report.addFailure(mcc, mnc,
+                "discovery error=" + discoveryResponse.getErrorResponse().getError(), null);
+            return;
+        }
+        if (discoveryResponse.getOperatorUrls() == null)
+        {
+            report.addFailure(mcc, mnc, "discovery response has no operator urls", null);
+            return;
+        }
+
+        // metadata which could not be retrieved is replaced by an empty instance, without expiry
+        if (discoveryResponse.getOperatorUrls().getProviderMetadataUri() != null
+            && (discoveryResponse.getProviderMetadata() == null
+            || discoveryResponse.getProviderMetadata().getExpiry() == null))
+        {
+            report.addFailure(mcc, mnc, "provider metadata could not be retrieved", null);
+            return;
+        }
+
+        final String jwksUri = discoveryResponse.getOperatorUrls().getJwksUri();
+        if (jwksUri != null)
+        {
+            try
+            {
+                this.jwKeysetService.retrieveJwks(jwksUri);
+            }
+            catch (final RequestFailedException rfe)
+            {
+                LOGGER.warn("Failed to warm JWKS for mcc={}, mnc={}", mcc, mnc, rfe);
+                report.addFailure(mcc, mnc, "JWKS request failed", rfe);
+                return;
+            }
+            catch (final JsonDeserializationException jde)
+            {
+                LOGGER.warn("Failed to warm JWKS for mcc={}, mnc={}", mcc, mnc, jde);
+                report.addFailure(mcc, mnc, "invalid JWKS", jde);
+                return;
+            }
+            catch (final CacheAccessException cae)
+            {
+                LOGGER.warn("Failed to warm JWKS for mcc={}, mnc={}", mcc, mnc, cae);
+                report.addFailure(mcc, mnc, "JWKS could not be cached", cae);
+                return;
+            }
+        }
+
+        report.addWarmed(mcc, mnc);
+    }
+
     /**
      * Builds a configured instance of MobileConnect.
      */
@@ -242,20 +486,37 @@ public final class MobileConnect
         private ICache cache = null;
         private ScheduledExecutorService scheduledExecutorService = null;
         private HttpClient httpClient = null;
+        private CloseableHttpAsyncClient httpAsyncClient = null;
         private TimeUnit timeoutTimeUnit = TimeUnit.MILLISECONDS;
         private Long timeoutDuration = DefaultOptions.TIMEOUT_MS;
         private IRestClient restClient = null;
+        private ExecutorService executorService = null;
+        private boolean useVirtualThreads = false;
+        private int maxConnectionsPerRoute = DefaultOptions.HTTP_MAX_CONNECTIONS_PER_ROUTE;
+        private int maxConnectionsTotal = DefaultOptions.HTTP_MAX_CONNECTIONS_TOTAL;
+        private long keepAliveMs = DefaultOptions.HTTP_KEEP_ALIVE_MS;
+        private long idleConnectionEvictionMs = DefaultOptions.HTTP_IDLE_CONNECTION_EVICTION_MS;
+        private boolean statelessConnectionReuse = DefaultOptions.HTTP_STATELESS_CONNECTION_REUSE;
+        private PoolingHttpClientConnectionManager connectionManager = null;
+        private long jwksRefreshAheadMs = 0L;
+        private final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> staleLimits =
+            new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>();
 
         /**
          * Start the builder, specifying the required configuration.  The defaults applied by this
-         * builder are as follows: <ul> <li>scheduledExecutorService will use {@link
-         * Executors#newScheduledThreadPool(int)} with core size of {@link
-         * DefaultOptions#THREAD_POOL_SIZE}</li> <li>httpClient will use default result of {@link
-         * HttpClientBuilder}</li> <li>http timeout will be set to {@link
+         * builder are as follows: <ul> <li>scheduledExecutorService, used to time out http
+         * requests, will use a single daemon thread which discards timers as soon as they are
+         * cancelled</li> <li>executorService, used to run the asynchronous operations, will use a
+         * bounded pool of {@link DefaultOptions#THREAD_POOL_SIZE} daemon threads</li>
+         * <li>httpClient will use a {@link PoolingHttpClientConnectionManager} allowing {@link
+         * DefaultOptions#HTTP_MAX_CONNECTIONS_PER_ROUTE} connections per route and {@link
+         * DefaultOptions#HTTP_MAX_CONNECTIONS_TOTAL} in total, keeping connections alive for
+         * {@link DefaultOptions#HTTP_KEEP_ALIVE_MS} and evicting connections idle for {@link
+         * DefaultOptions#HTTP_IDLE_CONNECTION_EVICTION_MS}</li> <li>http timeout will be set to {@link
          * DefaultOptions#TIMEOUT_MS}</li><li>restClient will use {@link RestClient}, with timeout
-         * and http client above</li><li>cache will use {@link ConcurrentCache}</li></ul><p>Note
-         * that specifying a rest client instance will overrule any setting of http client, or
-         * timeout duration.</p>
+         * and http client above</li><li>cache will use {@link BoundedCache} holding object
+         * snapshots, swept on its own daemon thread</li></ul><p>Note that specifying a
+         * rest client instance will overrule any setting of http client, or timeout duration.</p>
          *
          * @param config for Mobile Connect.
          */
@@ -268,7 +529,8 @@ public final class MobileConnect
         }
 
         /**
-         * Specify a configured executor service to use.
+         * Specify a configured executor service to use for scheduling http request timeouts.  The
+         * scheduler is shared by all requests issued by the default rest client.
          *
          * @param val executor service to be used.
          * @return builder to continue further configuration.
@@ -279,6 +541,33 @@ public final class MobileConnect
             return this;
         }
 
+        /**
+         * Specify a configured executor service to use for running the asynchronous operations of
+         * every service.  The executor is shared by all services and is not shut down by the SDK.
+         *
+         * @param val executor service to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExecutorService(final ExecutorService val)
+        {
+            this.executorService = val;
+            return this;
+        }
+
+        /**
+         * Request that the default executor for asynchronous operations creates a virtual thread
+         * per task.  Virtual threads are only available on Java 21 or later; on older runtimes
+         * the bounded thread pool is used instead.  Ignored if an executor service is specified.
+         *
+         * @param val true to use virtual threads when supported.
+         * @return builder to continue further configuration.
+         */
+        public Builder withVirtualThreads(final boolean val)
+        {
+            this.useVirtualThreads = val;
+            return this;
+        }
+
         /**
          * Specify a {@link IMobileConnectEncodeDecoder}
          * to use.
@@ -305,6 +594,90 @@ public final class MobileConnect
             return this;
         }
 
+        /**
+         * Specify the maximum number of pooled connections to a single route (host) used by the
+         * default http client.  Ignored if a http client is specified.
+         *
+         * @param val maximum connections per route.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxConnectionsPerRoute(final int val)
+        {
+            this.maxConnectionsPerRoute = val;
+            return this;
+        }
+
+        /**
+         * Specify the maximum number of pooled connections across all routes used by the default
+         * http client.  Ignored if a http client is specified.
+         *
+         * @param val maximum connections in total.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxConnectionsTotal(final int val)
+        {
+            this.maxConnectionsTotal = val;
+            return this;
+        }
+
+        /**
+         * Specify how long a connection may be kept alive between requests when the server does
+         * not advertise a shorter keep-alive timeout.  Ignored if a http client is specified.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withKeepAlive(final long duration, final TimeUnit unit)
+        {
+            this.keepAliveMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify how long a pooled connection may be idle before it is evicted by a background
+         * thread; a duration of zero disables eviction.  Ignored if a http client is specified.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withIdleConnectionEviction(final long duration, final TimeUnit unit)
+        {
+            this.idleConnectionEvictionMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify whether pooled connections are reused regardless of connection state.  By
+         * default the http client tags a connection with the user it was authenticated as, such as
+         * the principal of a TLS client certificate, and only leases it again to requests with the
+         * same state.  When enabled connections are left untagged, so any pooled connection to the
+         * route can serve the next request.  Ignored if a http client is specified.
+         *
+         * @param val true to reuse pooled connections regardless of connection state.
+         * @return builder to continue further configuration.
+         */
+        public Builder withStatelessConnectionReuse(final boolean val)
+        {
+            this.statelessConnectionReuse = val;
+            return this;
+        }
+
+        /**
+         * Specify a configured HttpAsyncClient to use.  Setting this will result in the
+         * non-blocking {@link AsyncRestClient} being used in place of {@link RestClient}, and
+         * any http client specified being ignored.
+         *
+         * @param val async http client to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withHttpAsyncClient(final CloseableHttpAsyncClient val)
+        {
+            this.httpAsyncClient = val;
+            return this;
+        }
+
         /**
          * Specify the timeout for HTTP connections.
          *
@@ -331,6 +704,41 @@ public final class MobileConnect
             return this;
         }
 
+        /**
+         * Specify how long a cached JWKS may be held before it is refreshed in the background,
+         * ahead of its expiry; a duration of zero, the default, disables refresh-ahead.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withJwksRefreshAhead(final long duration, final TimeUnit unit)
+        {
+            this.jwksRefreshAheadMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Serve expired cached values of the specified type, {@link
+         * com.gsma.mobileconnect.r2.discovery.DiscoveryResponse} or {@link
+         * com.gsma.mobileconnect.r2.discovery.ProviderMetadata}, for a grace period while they are
+         * refreshed in the background, see {@link DiscoveryService.Builder#withStaleWhileRevalidate}.
+         *
+         * @param clazz    the type of cached value.
+         * @param grace    how long after expiry a value is served while being refreshed.
+         * @param maxStale how long after expiry a value may be used if refreshing it fails.
+         * @param unit     the unit of grace and maxStale.
+         * @return builder to continue further configuration.
+         */
+        public Builder withStaleWhileRevalidate(final Class<? extends AbstractCacheable> clazz,
+            final long grace, final long maxStale, final TimeUnit unit)
+        {
+            ObjectUtils.requireNonNull(clazz, "clazz");
+            this.staleLimits.put(clazz,
+                new Tuple<Long, Long>(unit.toMillis(grace), unit.toMillis(maxStale)));
+            return this;
+        }
+
         /**
          * Specify a configured rest client to use.  Note that setting this will result in any
          * configuration of http client or timeout to be ignored.
@@ -355,18 +763,45 @@ public final class MobileConnect
         {
             if (this.scheduledExecutorService == null)
             {
-                LOGGER.info("Using Executors#newScheduledThreadPool with corePoolSize={}",
+                LOGGER.info("Using ScheduledThreadPoolExecutor with corePoolSize={}",
+                    DefaultOptions.TIMEOUT_SCHEDULER_POOL_SIZE);
+                final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                    DefaultOptions.TIMEOUT_SCHEDULER_POOL_SIZE,
+                    new DaemonThreadFactory("mobileconnect-timeout"));
+                executor.setRemoveOnCancelPolicy(true);
+                this.scheduledExecutorService = executor;
+            }
+
+            if (this.executorService == null && this.useVirtualThreads)
+            {
+                LOGGER.info("Using virtual thread per task executor");
+                this.executorService = ExecutorUtils.newVirtualThreadExecutor();
+            }
+            if (this.executorService == null)
+            {
+                LOGGER.info("Using ThreadPoolExecutor with maximumPoolSize={}",
                     DefaultOptions.THREAD_POOL_SIZE);
-                this.scheduledExecutorService =
-                    Executors.newScheduledThreadPool(DefaultOptions.THREAD_POOL_SIZE);
+                this.executorService =
+                    ExecutorUtils.newBoundedExecutor(DefaultOptions.THREAD_POOL_SIZE);
+            }
+
+            if (this.restClient == null && this.httpAsyncClient != null)
+            {
+                LOGGER.info("Building AsyncRestClient with timeout of duration={}, unit={}",
+                    this.timeoutDuration, this.timeoutTimeUnit.name());
+                this.restClient = new AsyncRestClient.Builder()
+                    .withHttpAsyncClient(this.httpAsyncClient)
+                    .withJsonService(this.jsonService)
+                    .withTimeout(this.timeoutDuration, this.timeoutTimeUnit)
+                    .withTimeoutScheduler(this.scheduledExecutorService)
+                    .build();
             }
 
             if (this.restClient == null)
             {
                 if (this.httpClient == null)
                 {
-                    LOGGER.info("Building default instance of HttpClient");
-                    this.httpClient = HttpClientBuilder.create().setRedirectStrategy(new LaxRedirectStrategy()).build();
+                    this.httpClient = this.buildPooledHttpClient();
                 }
 
                 LOGGER.info("Building RestClient with timeout of duration={}, unit={}",
@@ -375,17 +810,74 @@ public final class MobileConnect
                     .withHttpClient(this.httpClient)
                     .withJsonService(this.jsonService)
                     .withTimeout(this.timeoutDuration, this.timeoutTimeUnit)
+                    .withTimeoutScheduler(this.scheduledExecutorService)
                     .build();
             }
 
             if (this.cache == null)
             {
-                LOGGER.info("Building default instance of ConcurrentCache");
+                LOGGER.info("Building default instance of BoundedCache");
                 this.cache =
-                    new ConcurrentCache.Builder().withJsonService(this.jsonService).build();
+                    new BoundedCache.Builder()
+                        .withJsonService(this.jsonService)
+                        .withObjectSnapshots(true)
+                        .build();
             }
 
             return new MobileConnect(this);
         }
+
+        private HttpClient buildPooledHttpClient()
+        {
+            LOGGER.info(
+                "Building default instance of HttpClient with maxConnectionsPerRoute={}, maxConnectionsTotal={}, keepAliveMs={}, idleConnectionEvictionMs={}, statelessConnectionReuse={}",
+                this.maxConnectionsPerRoute, this.maxConnectionsTotal, this.keepAliveMs,
+                this.idleConnectionEvictionMs, this.statelessConnectionReuse);
+
+            this.connectionManager = new PoolingHttpClientConnectionManager();
+            this.connectionManager.setDefaultMaxPerRoute(this.maxConnectionsPerRoute);
+            this.connectionManager.setMaxTotal(this.maxConnectionsTotal);
+
+            final long keepAlive = this.keepAliveMs;
+            final HttpClientBuilder builder = HttpClientBuilder
+                .create()
+                .setConnectionManager(this.connectionManager)
+                .setKeepAliveStrategy(new ConnectionKeepAliveStrategy()
+                {
+                    @Override
+                    public long getKeepAliveDuration(final HttpResponse response,
+                        final HttpContext context)
+                    {
+                        final long advertised = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                        return advertised > 0 ? Math.min(advertised, keepAlive) : keepAlive;
+                    }
+                })
+                .setUserTokenHandler(userTokenHandler(this.statelessConnectionReuse))
+                .setRedirectStrategy(new LaxRedirectStrategy());
+
+            if (this.idleConnectionEvictionMs > 0)
+            {
+                builder
+                    .evictExpiredConnections()
+                    .evictIdleConnections(this.idleConnectionEvictionMs, TimeUnit.MILLISECONDS);
+            }
+
+            return builder.build();
+        }
+
+        /**
+         * The handler determining the state a pooled connection is tagged with once a request on
+         * it completes.
+         *
+         * @param statelessConnectionReuse true to leave connections untagged.
+         * @return user token handler for the http client.
+         */
+        static UserTokenHandler userTokenHandler(final boolean statelessConnectionReuse)
+        {
+            return statelessConnectionReuse
+                ? NoopUserTokenHandler.INSTANCE
+                : DefaultUserTokenHandler.INSTANCE;
+        }
     }
 }
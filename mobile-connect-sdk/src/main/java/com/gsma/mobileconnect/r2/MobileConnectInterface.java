@@ -24,17 +24,17 @@ import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 import com.gsma.mobileconnect.r2.identity.IIdentityService;
 import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.utils.ExecutorUtils;
 import com.gsma.mobileconnect.r2.utils.IBuilder;
 import com.gsma.mobileconnect.r2.utils.LogUtils;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.event.Level;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 /**
@@ -54,6 +54,7 @@ public class MobileConnectInterface
     private final IJsonService jsonService;
     private final MobileConnectConfig config;
     private IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+    private final ExecutorService executorService;
 
     private MobileConnectInterface(Builder builder)
     {
@@ -64,6 +65,7 @@ public class MobileConnectInterface
         this.jsonService = builder.jsonService;
         this.config = builder.config;
         this.iMobileConnectEncodeDecoder = builder.iMobileConnectEncodeDecoder;
+        this.executorService = builder.executorService;
 
         LOGGER.info("New instance of MobileConnectInterface created, using config={}", this.config);
     }
@@ -82,21 +84,34 @@ public class MobileConnectInterface
      */
     public Future<MobileConnectStatus> attemptDiscoveryAsync(final String msisdn, final String mcc,
         final String mnc, final MobileConnectRequestOptions options)
+    {
+        return this.attemptDiscoveryStage(msisdn, mcc, mnc, options).toCompletableFuture();
+    }
+
+    /**
+     * Non-blocking variant of {@link #attemptDiscoveryAsync}.  The returned stage completes on the
+     * configured executor, so further steps can be chained without blocking the calling thread.
+     *
+     * @param msisdn  MSISDN from user
+     * @param mcc     Mobile Country Code
+     * @param mnc     Mobile Network Code
+     * @param options Optional parameters
+     * @return stage completing with the MobileConnectStatus object
+     */
+    public CompletionStage<MobileConnectStatus> attemptDiscoveryStage(final String msisdn,
+        final String mcc, final String mnc, final MobileConnectRequestOptions options)
     {
         LOGGER.debug("Queuing attemptDiscovery async request for msisdn={}, mcc={}, mnc={}",
-            LogUtils.mask(msisdn, LOGGER, Level.DEBUG), mcc, mnc);
+            LogUtils.masked(msisdn), mcc, mnc);
 
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<MobileConnectStatus> mobileConnectStatusFuture = executorService.submit(new Callable<MobileConnectStatus>()
+        return ExecutorUtils.supplyAsync(new Callable<MobileConnectStatus>()
         {
             @Override
             public MobileConnectStatus call() throws Exception
             {
                 return MobileConnectInterface.this.attemptDiscovery(msisdn, mcc, mnc, options);
             }
-        });
-        executorService.shutdownNow();
-        return mobileConnectStatusFuture;
+        }, this.executorService);
     }
 
     /**
@@ -115,7 +130,7 @@ public class MobileConnectInterface
         final String mnc, final MobileConnectRequestOptions options)
     {
         LOGGER.debug("Running attemptDiscovery request for msisdn={}, mcc={}, mnc={}",
-            LogUtils.mask(msisdn, LOGGER, Level.DEBUG), mcc, mnc);
+            LogUtils.masked(msisdn), mcc, mnc);
 
         return MobileConnectInterfaceHelper.attemptDiscovery(this.discoveryService, msisdn, mcc,
             mnc, null, this.config, options.getDiscoveryOptionsBuilder());
@@ -131,12 +146,26 @@ public class MobileConnectInterface
      */
     public Future<MobileConnectStatus> attemptDiscoveryAfterOperatorSelectionAsync(
         final URI redirectedUrl)
+    {
+        return this.attemptDiscoveryAfterOperatorSelectionStage(redirectedUrl)
+            .toCompletableFuture();
+    }
+
+    /**
+     * Non-blocking variant of {@link #attemptDiscoveryAfterOperatorSelectionAsync}.  The returned
+     * stage completes on the configured executor, so further steps can be chained without blocking
+     * the calling thread.
+     *
+     * @param redirectedUrl URI redirected to by the completion of the operator selection UI
+     * @return stage completing with the MobileConnectStatus object
+     */
+    public CompletionStage<MobileConnectStatus> attemptDiscoveryAfterOperatorSelectionStage(
+        final URI redirectedUrl)
     {
         LOGGER.debug(
             "Queuing attemptDiscoveryAfterOperatorSelection async request for redirectedUrl={}",
-            LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG));
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<MobileConnectStatus> mobileConnectStatusFuture = executorService.submit(new Callable<MobileConnectStatus>()
+            LogUtils.maskedUri(redirectedUrl));
+        return ExecutorUtils.supplyAsync(new Callable<MobileConnectStatus>()
         {
             @Override
             public MobileConnectStatus call() throws Exception
@@ -144,9 +173,7 @@ public class MobileConnectInterface
                 return MobileConnectInterface.this.attemptDiscoveryAfterOperatorSelection(
                     redirectedUrl);
             }
-        });
-        executorService.shutdownNow();
-        return mobileConnectStatusFuture;
+        }, this.executorService);
     }
 
     /**
@@ -160,7 +187,7 @@ public class MobileConnectInterface
     {
         LOGGER.debug(
             "Running attemptDiscoveryAfterOperatorSelection async request for redirectUrl={}",
-            LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG));
+            LogUtils.maskedUri(redirectedUrl));
 
         return MobileConnectInterfaceHelper.attemptDiscoveryAfterOperatorSelection(
             this.discoveryService, redirectedUrl, this.config);
@@ -183,8 +210,8 @@ public class MobileConnectInterface
         final MobileConnectRequestOptions options)
     {
         LOGGER.debug("Running startAuthentication for encryptedMsisdn={}, state={}, nonce={}",
-            LogUtils.mask(encryptedMsisdn, LOGGER, Level.DEBUG), state,
-            LogUtils.mask(nonce, LOGGER, Level.DEBUG));
+            LogUtils.masked(encryptedMsisdn), state,
+            LogUtils.masked(nonce));
 
         return MobileConnectInterfaceHelper.startAuthentication(this.authnService,
             discoveryResponse, encryptedMsisdn, state, nonce, this.config,
@@ -209,13 +236,36 @@ public class MobileConnectInterface
     public Future<MobileConnectStatus> requestTokenAsync(final DiscoveryResponse discoveryResponse,
         final URI redirectedUrl, final String expectedState, final String expectedNonce,
         final MobileConnectRequestOptions options)
+    {
+        return this.requestTokenStage(discoveryResponse, redirectedUrl, expectedState,
+            expectedNonce, options).toCompletableFuture();
+    }
+
+    /**
+     * Non-blocking variant of {@link #requestTokenAsync}.  The returned stage completes on the
+     * configured executor, so further steps can be chained without blocking the calling thread.
+     *
+     * @param discoveryResponse The response returned by the discovery process
+     * @param redirectedUrl     URI redirected to by the completion of the authorization UI
+     * @param expectedState     The state value returned from the StartAuthorization call should be
+     *                          passed here, it will be used to validate the authenticity of the
+     *                          authorization process
+     * @param expectedNonce     The nonce value returned from the StartAuthorization call should be
+     *                          passed here, it will be used to ensure the token was not requested
+     *                          using a replay attack
+     * @param options           Optional parameters
+     * @return stage completing with the MobileConnectStatus object
+     */
+    public CompletionStage<MobileConnectStatus> requestTokenStage(
+        final DiscoveryResponse discoveryResponse, final URI redirectedUrl,
+        final String expectedState, final String expectedNonce,
+        final MobileConnectRequestOptions options)
     {
         LOGGER.debug(
             "Queuing requestToken async for redirectedUrl={}, expectedState={}, expectedNonce={}",
-            LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-            LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG));
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<MobileConnectStatus> mobileConnectStatusFuture =  executorService.submit(new Callable<MobileConnectStatus>()
+            LogUtils.maskedUri(redirectedUrl), expectedState,
+            LogUtils.masked(expectedNonce));
+        return ExecutorUtils.supplyAsync(new Callable<MobileConnectStatus>()
         {
             @Override
             public MobileConnectStatus call() throws Exception
@@ -223,9 +273,7 @@ public class MobileConnectInterface
                 return MobileConnectInterface.this.requestToken(discoveryResponse, redirectedUrl,
                     expectedState, expectedNonce, options);
             }
-        });
-        executorService.shutdownNow();
-        return mobileConnectStatusFuture;
+        }, this.executorService);
     }
 
     /**
@@ -250,8 +298,8 @@ public class MobileConnectInterface
     {
         LOGGER.debug(
             "Running requestToken for redirectedUrl={}, expectedState={}, expectedNonce={}",
-            LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-            LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG));
+            LogUtils.maskedUri(redirectedUrl), expectedState,
+            LogUtils.masked(expectedNonce));
 
         return MobileConnectInterfaceHelper.requestToken(this.authnService, jwKeysetService,
             discoveryResponse, redirectedUrl, expectedState, expectedNonce, this.config, options,
@@ -312,13 +360,35 @@ public class MobileConnectInterface
     public Future<MobileConnectStatus> handleUrlRedirectAsync(final URI redirectedUrl,
         final DiscoveryResponse discoveryResponse, final String expectedState,
         final String expectedNonce, final MobileConnectRequestOptions options)
+    {
+        return this.handleUrlRedirectStage(redirectedUrl, discoveryResponse, expectedState,
+            expectedNonce, options).toCompletableFuture();
+    }
+
+    /**
+     * Non-blocking variant of {@link #handleUrlRedirectAsync}.  The returned stage completes on the
+     * configured executor, so further steps can be chained without blocking the calling thread.
+     *
+     * @param redirectedUrl     Url redirected to by the completion of the previous step
+     * @param discoveryResponse The response returned by the discovery process
+     * @param expectedState     The state value returned from the StartAuthorization call should be
+     *                          passed here, it will be used to validate the authenticity of the
+     *                          authorization process
+     * @param expectedNonce     The nonce value returned from the StartAuthorization call should be
+     *                          passed here, it will be used to ensure the token was not requested
+     *                          using a replay attack
+     * @param options           Optional parameters
+     * @return stage completing with the MobileConnectStatus object
+     */
+    public CompletionStage<MobileConnectStatus> handleUrlRedirectStage(final URI redirectedUrl,
+        final DiscoveryResponse discoveryResponse, final String expectedState,
+        final String expectedNonce, final MobileConnectRequestOptions options)
     {
         LOGGER.debug(
             "Queuing handleUrlRedirect async for redirectedUrl={}, expectedState={}, expectedNonce={}",
-            LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-            LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG));
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<MobileConnectStatus> mobileConnectStatusFuture = executorService.submit(new Callable<MobileConnectStatus>()
+            LogUtils.maskedUri(redirectedUrl), expectedState,
+            LogUtils.masked(expectedNonce));
+        return ExecutorUtils.supplyAsync(new Callable<MobileConnectStatus>()
         {
             @Override
             public MobileConnectStatus call() throws Exception
@@ -326,9 +396,7 @@ public class MobileConnectInterface
                 return MobileConnectInterface.this.handleUrlRedirect(redirectedUrl,
                     discoveryResponse, expectedState, expectedNonce, options);
             }
-        });
-        executorService.shutdownNow();
-        return mobileConnectStatusFuture;
+        }, this.executorService);
     }
 
     /**
@@ -353,8 +421,8 @@ public class MobileConnectInterface
     {
         LOGGER.debug(
             "Running handleUrlRedirect for redirectedUrl={}, expectedState={}, expectedNonce={}",
-            LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-            LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG));
+            LogUtils.maskedUri(redirectedUrl), expectedState,
+            LogUtils.masked(expectedNonce));
 
         return MobileConnectInterfaceHelper.handleUrlRedirect(this.discoveryService,
             this.jwKeysetService, this.authnService, redirectedUrl, discoveryResponse,
@@ -373,20 +441,31 @@ public class MobileConnectInterface
      */
     public Future<MobileConnectStatus> requestUserInfoAsync(
         final DiscoveryResponse discoveryResponse, final String accessToken)
+    {
+        return this.requestUserInfoStage(discoveryResponse, accessToken).toCompletableFuture();
+    }
+
+    /**
+     * Non-blocking variant of {@link #requestUserInfoAsync}.  The returned stage completes on the
+     * configured executor, so further steps can be chained without blocking the calling thread.
+     *
+     * @param discoveryResponse The response returned by the discovery process
+     * @param accessToken       Access token from requestToken stage
+     * @return stage completing with the MobileConnectStatus object
+     */
+    public CompletionStage<MobileConnectStatus> requestUserInfoStage(
+        final DiscoveryResponse discoveryResponse, final String accessToken)
     {
         LOGGER.debug("Queuing requestUserInfo async for accessToken={}",
-            LogUtils.mask(accessToken, LOGGER, Level.DEBUG));
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<MobileConnectStatus> mobileConnectStatusFuture = executorService.submit(new Callable<MobileConnectStatus>()
+            LogUtils.masked(accessToken));
+        return ExecutorUtils.supplyAsync(new Callable<MobileConnectStatus>()
         {
             @Override
             public MobileConnectStatus call() throws Exception
             {
                 return MobileConnectInterface.this.requestUserInfo(discoveryResponse, accessToken);
             }
-        });
-        executorService.shutdownNow();
-        return mobileConnectStatusFuture;
+        }, this.executorService);
     }
 
     /**
@@ -400,7 +479,7 @@ public class MobileConnectInterface
         final String accessToken)
     {
         LOGGER.debug("Running requestUserInfo for accessToken={}",
-            LogUtils.mask(accessToken, LOGGER, Level.DEBUG));
+            LogUtils.masked(accessToken));
 
         return MobileConnectInterfaceHelper.requestUserInfo(this.identityService, discoveryResponse,
             accessToken, iMobileConnectEncodeDecoder);
@@ -416,20 +495,31 @@ public class MobileConnectInterface
      */
     public Future<MobileConnectStatus> requestIdentityAsync(
         final DiscoveryResponse discoveryResponse, final String accessToken)
+    {
+        return this.requestIdentityStage(discoveryResponse, accessToken).toCompletableFuture();
+    }
+
+    /**
+     * Non-blocking variant of {@link #requestIdentityAsync}.  The returned stage completes on the
+     * configured executor, so further steps can be chained without blocking the calling thread.
+     *
+     * @param discoveryResponse The response returned by the discovery process
+     * @param accessToken       Access token from requestToken stage
+     * @return stage completing with the MobileConnectStatus object
+     */
+    public CompletionStage<MobileConnectStatus> requestIdentityStage(
+        final DiscoveryResponse discoveryResponse, final String accessToken)
     {
         LOGGER.debug("Queuing requestUserInfo async for accessToken={}",
-            LogUtils.mask(accessToken, LOGGER, Level.DEBUG));
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<MobileConnectStatus> mobileConnectStatusFuture = executorService.submit(new Callable<MobileConnectStatus>()
+            LogUtils.masked(accessToken));
+        return ExecutorUtils.supplyAsync(new Callable<MobileConnectStatus>()
         {
             @Override
             public MobileConnectStatus call() throws Exception
             {
                 return MobileConnectInterface.this.requestIdentity(discoveryResponse, accessToken);
             }
-        });
-        executorService.shutdownNow();
-        return mobileConnectStatusFuture;
+        }, this.executorService);
     }
 
     /**
@@ -443,7 +533,7 @@ public class MobileConnectInterface
         final String accessToken)
     {
         LOGGER.debug("Running requestIdentity for accessToken={}",
-            LogUtils.mask(accessToken, LOGGER, Level.DEBUG));
+            LogUtils.masked(accessToken));
 
         return MobileConnectInterfaceHelper.requestIdentity(this.identityService, discoveryResponse,
             accessToken, iMobileConnectEncodeDecoder);
@@ -458,6 +548,7 @@ public class MobileConnectInterface
         private IJsonService jsonService;
         private MobileConnectConfig config;
         private IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+        private ExecutorService executorService;
 
         public Builder withDiscoveryService(final IDiscoveryService val)
         {
@@ -501,6 +592,19 @@ public class MobileConnectInterface
             return this;
         }
 
+        /**
+         * Specify the executor used to run asynchronous operations.  If not set, the executor
+         * shared across the SDK is used.
+         *
+         * @param val executor to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExecutorService(final ExecutorService val)
+        {
+            this.executorService = val;
+            return this;
+        }
+
         @Override
         public MobileConnectInterface build()
         {
@@ -513,6 +617,10 @@ public class MobileConnectInterface
             {
                 iMobileConnectEncodeDecoder = new DefaultEncodeDecoder();
             }
+            if (this.executorService == null)
+            {
+                this.executorService = ExecutorUtils.defaultExecutor();
+            }
 
             return new MobileConnectInterface(this);
         }
@@ -29,19 +29,18 @@ import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.identity.IIdentityService;
 import com.gsma.mobileconnect.r2.identity.IdentityResponse;
 import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.utils.*;
 import com.gsma.mobileconnect.r2.validation.IJWKeysetService;
+import com.gsma.mobileconnect.r2.validation.IdTokenClaims;
 import com.gsma.mobileconnect.r2.validation.JWKeyset;
 import com.gsma.mobileconnect.r2.validation.TokenValidation;
 import com.gsma.mobileconnect.r2.validation.TokenValidationResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.event.Level;
 
 import java.net.URI;
 import java.util.concurrent.Future;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Performs interaction on behalf of {@link MobileConnectInterface}.
@@ -52,7 +51,6 @@ class MobileConnectInterfaceHelper
 {
     private static final Logger LOGGER =
         LoggerFactory.getLogger(MobileConnectInterfaceHelper.class);
-    private static final Pattern NONCE_REGEX = Pattern.compile("\"?nonce\"?:\"(.*?)\"");
     private static final String DISCOVERY_RESPONSE = "discoveryResponse";
 
     private MobileConnectInterfaceHelper()
@@ -82,7 +80,7 @@ class MobileConnectInterfaceHelper
         catch (final Exception e)
         {
             LOGGER.warn("attemptDiscovery failed for msisdn={}, mcc={}, mnc={}",
-                LogUtils.mask(msisdn, LOGGER, Level.WARN), mcc, mnc, e);
+                LogUtils.masked(msisdn), mcc, mnc, e);
             return MobileConnectStatus.error("start automated discovery", e);
         }
     }
@@ -99,7 +97,7 @@ class MobileConnectInterfaceHelper
             LOGGER.debug(
                 "Responding with responseType={} for attemptDiscoveryAfterOperatorSelection for redirectedUrl={}",
                 MobileConnectStatus.ResponseType.START_DISCOVERY,
-                LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG));
+                LogUtils.maskedUri(redirectedUrl));
             return MobileConnectStatus.startDiscovery();
         }
         else
@@ -116,8 +114,8 @@ class MobileConnectInterfaceHelper
                     final String encryptedMsisdn = parsedDiscoveryRedirect.getEncryptedMsisdn();
                     LOGGER.debug(
                         "Setting encryptedMsisdn={} against cached DiscoveryResponse for redirectedUrl={}",
-                        LogUtils.mask(encryptedMsisdn, LOGGER, Level.DEBUG),
-                        LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG));
+                        LogUtils.masked(encryptedMsisdn),
+                        LogUtils.maskedUri(redirectedUrl));
                     response = response.withSubscriberId(encryptedMsisdn);
                 }
 
@@ -127,7 +125,7 @@ class MobileConnectInterfaceHelper
             catch (final Exception e)
             {
                 LOGGER.warn("attemptDiscoveryAfterOperatorSelection failed for redirectedUrl={}",
-                    LogUtils.maskUri(redirectedUrl, LOGGER, Level.WARN), e);
+                    LogUtils.maskedUri(redirectedUrl), e);
                 return MobileConnectStatus.error("attempt discovery after operator selection", e);
             }
         }
@@ -162,9 +160,9 @@ class MobileConnectInterfaceHelper
             LOGGER.debug(
                 "Responding with responseType={} for startAuthentication for encryptedMsisdn={}, state={}, nonce={}, startAuthenticationResponseUrl={}",
                 MobileConnectStatus.ResponseType.AUTHENTICATION,
-                LogUtils.mask(encryptedMsisdn, LOGGER, Level.DEBUG), state,
-                LogUtils.mask(nonce, LOGGER, Level.DEBUG),
-                LogUtils.maskUri(startAuthenticationResponse.getUrl(), LOGGER, Level.DEBUG));
+                LogUtils.masked(encryptedMsisdn), state,
+                LogUtils.masked(nonce),
+                LogUtils.maskedUri(startAuthenticationResponse.getUrl()));
 
             return MobileConnectStatus.authentication(
                 startAuthenticationResponse.getUrl().toString(), state, nonce);
@@ -172,8 +170,8 @@ class MobileConnectInterfaceHelper
         catch (final Exception e)
         {
             LOGGER.warn("startAuthentication failed for encryptedMsisdn={}, state={}, nonce={}",
-                LogUtils.mask(encryptedMsisdn, LOGGER, Level.WARN), state,
-                LogUtils.mask(nonce, LOGGER, Level.WARN), e);
+                LogUtils.masked(encryptedMsisdn), state,
+                LogUtils.masked(nonce), e);
             return MobileConnectStatus.error("start authentication", e);
         }
     }
@@ -254,8 +252,8 @@ class MobileConnectInterfaceHelper
         {
             LOGGER.warn(
                 "requestHeadlessAuthentication failed for encryptedMsisdn={}, state={}, nonce={}",
-                LogUtils.mask(encryptedMsisdn, LOGGER, Level.WARN), expectedState,
-                LogUtils.mask(expectedNonce, LOGGER, Level.WARN), e);
+                LogUtils.masked(encryptedMsisdn), expectedState,
+                LogUtils.masked(expectedNonce), e);
             return MobileConnectStatus.error("request headless authentication", e);
         }
     }
@@ -283,8 +281,8 @@ class MobileConnectInterfaceHelper
             LOGGER.warn(
                 "Responding with responseType={} for requestToken for redirectedUrl={}, expectedState={}, expectedNonce={}, as actualState={}; possible cross-site forgery",
                 MobileConnectStatus.ResponseType.ERROR,
-                LogUtils.maskUri(redirectedUrl, LOGGER, Level.WARN), expectedState,
-                LogUtils.mask(expectedNonce, LOGGER, Level.WARN), actualState);
+                LogUtils.maskedUri(redirectedUrl), expectedState,
+                LogUtils.masked(expectedNonce), actualState);
 
             return MobileConnectStatus.error("invalid_state",
                 "state values do not match, possible cross-site request forgery", null);
@@ -320,8 +318,8 @@ class MobileConnectInterfaceHelper
             {
                 LOGGER.warn(
                     "requestToken failed for redirectedUrl={}, expectedState={}, expectedNonce={}",
-                    LogUtils.maskUri(redirectedUrl, LOGGER, Level.WARN), expectedState,
-                    LogUtils.mask(expectedNonce, LOGGER, Level.WARN), e);
+                    LogUtils.maskedUri(redirectedUrl), expectedState,
+                    LogUtils.masked(expectedNonce), e);
 
                 return MobileConnectStatus.error("request token", e);
             }
@@ -351,7 +349,7 @@ class MobileConnectInterfaceHelper
             LOGGER.warn(
                 "Responding with responseType={} for requestToken for redirectedUrl={}, expectedState={}, expectedNonce={}, authentication service responded with error={}",
                 MobileConnectStatus.ResponseType.ERROR, redirectedUrl, expectedState,
-                LogUtils.mask(expectedNonce, LOGGER, Level.WARN), errorResponse);
+                LogUtils.masked(expectedNonce), errorResponse);
 
             if (!StringUtils.isNull(errorResponse.getCorrelationId())  &&  !errorResponse.getCorrelationId().equals(discoveryResponse.getResponseData().getCorrelationId()))
             {
@@ -361,14 +359,16 @@ class MobileConnectInterfaceHelper
             return MobileConnectStatus.error(errorResponse.getError(),
                 errorResponse.getErrorDescription(), null, requestTokenResponse);
         }
-        else if (!isExpectedNonce(requestTokenResponse.getResponseData().getIdToken(), expectedNonce,
-            iMobileConnectEncodeDecoder))
+
+        final JsonWebToken idToken = new JsonWebToken(
+            requestTokenResponse.getResponseData().getIdToken(), iMobileConnectEncodeDecoder);
+        if (!isExpectedNonce(idToken, expectedNonce, jsonService))
         {
             LOGGER.warn(
                 "Responding with responseType={} for requestToken for redirectedUrl={}, expectedState={}, expectedNonce={}, as jwtToken did not contain expectedNonce; possible replay attack",
                 MobileConnectStatus.ResponseType.ERROR,
-                LogUtils.maskUri(redirectedUrl, LOGGER, Level.WARN), expectedState,
-                LogUtils.mask(expectedNonce, LOGGER, Level.WARN));
+                LogUtils.maskedUri(redirectedUrl), expectedState,
+                LogUtils.masked(expectedNonce));
 
             return MobileConnectStatus.error("invalid_nonce",
                 "nonce values do not match, possible replay attack", null);
@@ -405,12 +405,24 @@ class MobileConnectInterfaceHelper
                 LOGGER.debug(
                     "Responding with responseType={} for requestToken for redirectedUrl={}, expectedState={}, expectedNonce={}",
                     MobileConnectStatus.ResponseType.COMPLETE,
-                    LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-                    LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG));
+                    LogUtils.maskedUri(redirectedUrl), expectedState,
+                    LogUtils.masked(expectedNonce));
 
-                final TokenValidationResult tokenValidationResult = TokenValidation.validateIdToken(
-                    requestTokenResponse.getResponseData().getIdToken(), clientId, issuer,
-                    expectedNonce, maxAge, jwKeyset, jsonService, iMobileConnectEncodeDecoder);
+                TokenValidationResult tokenValidationResult = TokenValidation.validateIdToken(
+                    idToken, clientId, issuer, expectedNonce, maxAge, jwKeyset, jsonService);
+
+                if (TokenValidationResult.NO_MATCHING_KEY.equals(tokenValidationResult))
+                {
+                    // the operator may have rotated its keys since the keyset was cached
+                    final JWKeyset rotatedJwKeyset =
+                        jwks.retrieveJwks(discoveryResponse.getOperatorUrls().getJwksUri(),
+                            TokenValidation.extractKeyId(idToken, jsonService));
+                    if (rotatedJwKeyset != jwKeyset)
+                    {
+                        tokenValidationResult = TokenValidation.validateIdTokenSignature(idToken,
+                            rotatedJwKeyset, jsonService);
+                    }
+                }
 
                 if (TokenValidationResult.VALID.equals(tokenValidationResult))
                 {
@@ -433,13 +445,22 @@ class MobileConnectInterfaceHelper
         }
     }
 
-    private static boolean isExpectedNonce(final String token, final String expectedNonce,
-        final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder)
+    private static boolean isExpectedNonce(final JsonWebToken token, final String expectedNonce,
+        final IJsonService jsonService)
     {
-        final String decodedPayload =
-            JsonWebTokens.Part.CLAIMS.decode(token, iMobileConnectEncodeDecoder);
-        final Matcher matcher = NONCE_REGEX.matcher(decodedPayload);
-        return matcher.find() && matcher.group(1).equals(expectedNonce);
+        try
+        {
+            final IdTokenClaims claims =
+                jsonService.deserialize(token.getClaimsBytes(), IdTokenClaims.class);
+            return claims != null && claims.getNonce() != null && claims
+                .getNonce()
+                .equals(expectedNonce);
+        }
+        catch (final JsonDeserializationException jde)
+        {
+            LOGGER.warn("Failed to read nonce from id token claims", jde);
+            return false;
+        }
     }
 
 
@@ -456,8 +477,8 @@ class MobileConnectInterfaceHelper
         {
             LOGGER.debug(
                 "handleUrlRedirect redirecting to requestToken for redirectedUrl={}, expectedState={}, expectedNonce={}",
-                LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-                LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG));
+                LogUtils.maskedUri(redirectedUrl), expectedState,
+                LogUtils.masked(expectedNonce));
 
             return requestToken(authnService, jwKeysetService, discoveryResponse, redirectedUrl,
                 expectedState, expectedNonce, config, options, jsonService,
@@ -468,8 +489,8 @@ class MobileConnectInterfaceHelper
         {
             LOGGER.debug(
                 "handleUrlRedirect redirecting to attemptDiscoveryAfterOperatorSelection for redirectedUrl={}, expectedState={}, expectedNonce={}",
-                LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-                LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG));
+                LogUtils.maskedUri(redirectedUrl), expectedState,
+                LogUtils.masked(expectedNonce));
 
             return attemptDiscoveryAfterOperatorSelection(discoveryService, redirectedUrl, config);
         }
@@ -493,8 +514,8 @@ class MobileConnectInterfaceHelper
             LOGGER.warn(
                 "Responding with responseType={} for handleUrlRedirect for redirectedUrl={}, expectedState={}, expectedNonce={}; with error={}, description={}",
                 MobileConnectStatus.ResponseType.ERROR,
-                LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-                LogUtils.mask(expectedNonce, LOGGER, Level.WARN), status.getErrorCode(),
+                LogUtils.maskedUri(redirectedUrl), expectedState,
+                LogUtils.masked(expectedNonce), status.getErrorCode(),
                 status.getErrorMessage());
 
             return status;
@@ -529,7 +550,7 @@ class MobileConnectInterfaceHelper
             LOGGER.warn(
                 "Responding with responseType={} for {} for accessToken={}, provider does not support {}",
                 MobileConnectStatus.ResponseType.ERROR, method,
-                LogUtils.mask(accessToken, LOGGER, Level.WARN), responseType);
+                LogUtils.masked(accessToken), responseType);
 
             return MobileConnectStatus.error("not_supported",
                 String.format("%s not supported by current operator", responseType), null);
@@ -558,7 +579,7 @@ class MobileConnectInterfaceHelper
                 LOGGER.warn(
                     "Responding with responseType={} for {} for accessToken={}, identity service responded with error={}",
                     MobileConnectStatus.ResponseType.ERROR, method,
-                    LogUtils.mask(accessToken, LOGGER, Level.WARN), errorResponse);
+                    LogUtils.masked(accessToken), errorResponse);
 
                 return MobileConnectStatus.error(errorResponse.getError(),
                     errorResponse.getErrorDescription(), null);
@@ -567,7 +588,7 @@ class MobileConnectInterfaceHelper
             {
                 LOGGER.debug("Responding with responseType={} for {} for accessToken={}",
                     MobileConnectStatus.ResponseType.USER_INFO, method,
-                    LogUtils.mask(accessToken, LOGGER, Level.DEBUG));
+                    LogUtils.masked(accessToken));
 
                 return new MobileConnectStatus.Builder()
                     .withResponseType(responseType)
@@ -586,7 +607,7 @@ class MobileConnectInterfaceHelper
         catch (final Exception e)
         {
             LOGGER.warn("{} failed for accessToken={}", method,
-                LogUtils.mask(accessToken, LOGGER, Level.WARN), e);
+                LogUtils.masked(accessToken), e);
             return MobileConnectStatus.error(String.format("request %s", responseType), e);
         }
     }
@@ -596,7 +617,7 @@ class MobileConnectInterfaceHelper
         final MobileConnectStatus.ResponseType responseType)
     {
         LOGGER.warn("{} failed for accessToken={}", method,
-            LogUtils.mask(accessToken, LOGGER, Level.WARN), e);
+            LogUtils.masked(accessToken), e);
         return e.toMobileConnectStatus(String.format("request %s", responseType));
     }
 
@@ -620,7 +641,7 @@ class MobileConnectInterfaceHelper
             {
                 LOGGER.debug("Responding with responseType={} for {}; operatorSelectionUrl={}",
                     MobileConnectStatus.ResponseType.OPERATOR_SELECTION, task,
-                    LogUtils.maskUri(operatorSelectionUrl, LOGGER, Level.DEBUG));
+                    LogUtils.maskedUri(operatorSelectionUrl));
 
                 return MobileConnectStatus.operatorSelection(operatorSelectionUrl);
             }
@@ -32,7 +32,6 @@ import com.gsma.mobileconnect.r2.utils.*;
 import com.gsma.mobileconnect.r2.validation.IJWKeysetService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.event.Level;
 
 import javax.servlet.http.HttpServletRequest;
 import java.net.URI;
@@ -111,7 +110,7 @@ public class MobileConnectWebInterface
 
         LOGGER.debug(
             "Running attemptDiscovery for msisdn={}, mcc={}, mnc={}, shouldProxyCookies={}, includeRequestIP={}, clientIp={}",
-            LogUtils.mask(msisdn, LOGGER, Level.DEBUG), mcc, mnc, shouldProxyCookies, includeRequestIP, clientIp);
+            LogUtils.masked(msisdn), mcc, mnc, shouldProxyCookies, includeRequestIP, clientIp);
 
         final MobileConnectStatus status =
             MobileConnectInterfaceHelper.attemptDiscovery(this.discoveryService, msisdn, mcc, mnc,
@@ -148,7 +147,7 @@ public class MobileConnectWebInterface
 
         LOGGER.debug(
             "Running attemptDiscoveryAfterOperatorSelection for redirectedUrl={}, clientIp={}",
-            LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG),
+            LogUtils.maskedUri(redirectedUrl),
             HttpUtils.extractClientIp(request));
 
         final MobileConnectStatus status =
@@ -191,8 +190,8 @@ public class MobileConnectWebInterface
 
         LOGGER.debug(
             "Running startAuthentication for encryptedMsisdn={}, state={}, nonce={}, clientIp={}",
-            LogUtils.mask(encryptedMsisdn, LOGGER, Level.DEBUG), rState,
-            LogUtils.mask(rNonce, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
+            LogUtils.masked(encryptedMsisdn), rState,
+            LogUtils.masked(rNonce), HttpUtils.extractClientIp(request));
 
         return MobileConnectInterfaceHelper.startAuthentication(this.authnService,
             discoveryResponse, encryptedMsisdn, rState, rNonce, this.config, builder);
@@ -223,8 +222,8 @@ public class MobileConnectWebInterface
 
         LOGGER.debug(
             "Running startAuthentication for skdSession={}, encryptedMsisdn={}, state={}, nonce={}, clientIp={}",
-            sdkSession, LogUtils.mask(encryptedMsisdn, LOGGER, Level.DEBUG), state,
-            LogUtils.mask(nonce, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
+            sdkSession, LogUtils.masked(encryptedMsisdn), state,
+            LogUtils.masked(nonce), HttpUtils.extractClientIp(request));
 
         return this.withCachedValue(sdkSession, true, new CacheCallback()
         {
@@ -268,8 +267,8 @@ public class MobileConnectWebInterface
 
         LOGGER.debug(
             "Running requestHeadlessAuthentication for encryptedMsisdn={}, state={}, nonce={}, clientIp={}",
-            LogUtils.mask(encryptedMsisdn, LOGGER, Level.DEBUG), rState,
-            LogUtils.mask(rNonce, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
+            LogUtils.masked(encryptedMsisdn), rState,
+            LogUtils.masked(rNonce), HttpUtils.extractClientIp(request));
 
         return MobileConnectInterfaceHelper.requestHeadlessAuthentication(this.authnService,
             this.identityService, discoveryResponse, encryptedMsisdn, rState, rNonce, this.config,
@@ -303,8 +302,8 @@ public class MobileConnectWebInterface
 
         LOGGER.debug(
             "Running requestHeadlessAuthentication for skdSession={}, encryptedMsisdn={}, state={}, nonce={}, clientIp={}",
-            sdkSession, LogUtils.mask(encryptedMsisdn, LOGGER, Level.DEBUG), state,
-            LogUtils.mask(nonce, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
+            sdkSession, LogUtils.masked(encryptedMsisdn), state,
+            LogUtils.masked(nonce), HttpUtils.extractClientIp(request));
 
         return this.withCachedValue(sdkSession, true, new CacheCallback()
         {
@@ -342,8 +341,8 @@ public class MobileConnectWebInterface
 
         LOGGER.debug(
             "Running requestToken for redirectedUrl={}, expectedState={}, expectedNonce={}, clientIp={}",
-            LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-            LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
+            LogUtils.maskedUri(redirectedUrl), expectedState,
+            LogUtils.masked(expectedNonce), HttpUtils.extractClientIp(request));
 
         return MobileConnectInterfaceHelper.requestToken(this.authnService, this.jwKeysetService,
             discoveryResponse, redirectedUrl, expectedState, expectedNonce, this.config, options,
@@ -375,8 +374,8 @@ public class MobileConnectWebInterface
 
         LOGGER.debug(
             "Running requestToken for sdkSession={}, redirectedUrl={}, expectedState={}, expectedNonce={}, clientIp={}",
-            sdkSession, LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-            LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
+            sdkSession, LogUtils.maskedUri(redirectedUrl), expectedState,
+            LogUtils.masked(expectedNonce), HttpUtils.extractClientIp(request));
 
         return this.withCachedValue(sdkSession, true, new CacheCallback()
         {
@@ -520,8 +519,8 @@ public class MobileConnectWebInterface
 
         LOGGER.debug(
             "Running handleUrlRedirect for redirectedUrl={}, expectedState={}, expectedNonce={}, clientIp={}",
-            LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-            LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
+            LogUtils.maskedUri(redirectedUrl), expectedState,
+            LogUtils.masked(expectedNonce), HttpUtils.extractClientIp(request));
 
         final MobileConnectStatus status =
             MobileConnectInterfaceHelper.handleUrlRedirect(this.discoveryService,
@@ -561,8 +560,8 @@ public class MobileConnectWebInterface
 
         LOGGER.debug(
             "Running handleUrlRedirect for sdkSession={}, redirectedUrl={}, expectedState={}, expectedNonce={}, clientIp={}",
-            sdkSession, LogUtils.maskUri(redirectedUrl, LOGGER, Level.DEBUG), expectedState,
-            LogUtils.mask(expectedNonce, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
+            sdkSession, LogUtils.maskedUri(redirectedUrl), expectedState,
+            LogUtils.masked(expectedNonce), HttpUtils.extractClientIp(request));
 
         return this.withCachedValue(sdkSession, false, new CacheCallback()
         {
@@ -603,7 +602,7 @@ public class MobileConnectWebInterface
         ObjectUtils.requireNonNull(request, ARG_REQUEST);
 
         LOGGER.debug("Running requestUserInfo for accessToken={}, clientIp={}",
-            LogUtils.mask(accessToken, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
+            LogUtils.masked(accessToken), HttpUtils.extractClientIp(request));
 
         return MobileConnectInterfaceHelper.requestUserInfo(this.identityService, discoveryResponse,
             accessToken, iMobileConnectEncodeDecoder);
@@ -626,7 +625,7 @@ public class MobileConnectWebInterface
         ObjectUtils.requireNonNull(request, ARG_REQUEST);
 
         LOGGER.debug("Running requestUserInfo for sdkSession={}, accessToken={}, clientIp={}",
-            sdkSession, LogUtils.mask(accessToken, LOGGER, Level.DEBUG),
+            sdkSession, LogUtils.masked(accessToken),
             HttpUtils.extractClientIp(request));
 
         return this.withCachedValue(sdkSession, true, new CacheCallback()
@@ -656,7 +655,7 @@ public class MobileConnectWebInterface
         ObjectUtils.requireNonNull(request, ARG_REQUEST);
 
         LOGGER.debug("Running requestIdentity for accessToken={}, clientIp={}",
-            LogUtils.mask(accessToken, LOGGER, Level.DEBUG), HttpUtils.extractClientIp(request));
+            LogUtils.masked(accessToken), HttpUtils.extractClientIp(request));
 
         return MobileConnectInterfaceHelper.requestIdentity(this.identityService, discoveryResponse,
             accessToken, iMobileConnectEncodeDecoder);
@@ -679,7 +678,7 @@ public class MobileConnectWebInterface
         ObjectUtils.requireNonNull(request, ARG_REQUEST);
 
         LOGGER.debug("Running requestIdentity for sdkSession={}, accessToken={}, clientIp={}",
-            sdkSession, LogUtils.mask(accessToken, LOGGER, Level.DEBUG),
+            sdkSession, LogUtils.masked(accessToken),
             HttpUtils.extractClientIp(request));
 
         return this.withCachedValue(sdkSession, true, new CacheCallback()
@@ -0,0 +1,157 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2;
+
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of warming the caches for a set of operators, see {@link MobileConnect#warmUp(List,
+ * int)}.
+ *
+ * @since 2.0
+ */
+public class WarmUpReport
+{
+    private final List<String> warmed;
+    private final List<Failure> failures;
+
+    private WarmUpReport(final Builder builder)
+    {
+        this.warmed = Collections.unmodifiableList(new ArrayList<String>(builder.warmed));
+        this.failures = Collections.unmodifiableList(new ArrayList<Failure>(builder.failures));
+    }
+
+    /**
+     * @return the operators whose caches were warmed, identified as "MCC-MNC".
+     */
+    public List<String> getWarmed()
+    {
+        return this.warmed;
+    }
+
+    /**
+     * @return the operators whose caches could not be warmed, and why.
+     */
+    public List<Failure> getFailures()
+    {
+        return this.failures;
+    }
+
+    /**
+     * @return true if the caches of all operators were warmed.
+     */
+    public boolean isComplete()
+    {
+        return this.failures.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "WarmUpReport{warmed=" + this.warmed + ", failures=" + this.failures + '}';
+    }
+
+    /**
+     * An operator whose caches could not be warmed.
+     */
+    public static final class Failure
+    {
+        private final String mcc;
+        private final String mnc;
+        private final String reason;
+        private final Exception cause;
+
+        Failure(final String mcc, final String mnc, final String reason, final Exception cause)
+        {
+            this.mcc = mcc;
+            this.mnc = mnc;
+            this.reason = reason;
+            this.cause = cause;
+        }
+
+        /**
+         * @return the MCC of the operator.
+         */
+        public String getMcc()
+        {
+            return this.mcc;
+        }
+
+        /**
+         * @return the MNC of the operator.
+         */
+        public String getMnc()
+        {
+            return this.mnc;
+        }
+
+        /**
+         * @return description of what failed.
+         */
+        public String getReason()
+        {
+            return this.reason;
+        }
+
+        /**
+         * @return the exception which caused the failure, or null if the failure was reported in
+         * a response.
+         */
+        public Exception getCause()
+        {
+            return this.cause;
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.mcc + "-" + this.mnc + ": " + this.reason;
+        }
+    }
+
+    /**
+     * Collects the outcome of each operator; may be shared by the threads warming the caches.
+     */
+    static final class Builder implements IBuilder<WarmUpReport>
+    {
+        private final List<String> warmed = new ArrayList<String>();
+        private final List<Failure> failures = new ArrayList<Failure>();
+
+        synchronized Builder addWarmed(final String mcc, final String mnc)
+        {
+            this.warmed.add(mcc + "-" + mnc);
+            return this;
+        }
+
+        synchronized Builder addFailure(final String mcc, final String mnc, final String reason,
+            final Exception cause)
+        {
+            this.failures.add(new Failure(mcc, mnc, reason, cause));
+            return this;
+        }
+
+        @Override
+        public synchronized WarmUpReport build()
+        {
+            return new WarmUpReport(this);
+        }
+    }
+}
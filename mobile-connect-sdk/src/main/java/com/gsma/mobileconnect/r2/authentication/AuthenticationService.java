@@ -23,6 +23,7 @@ import com.gsma.mobileconnect.r2.*;
 import com.gsma.mobileconnect.r2.cache.ConcurrentCache;
 import com.gsma.mobileconnect.r2.cache.ICache;
 import com.gsma.mobileconnect.r2.discovery.*;
+import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.constants.DefaultOptions;
 import com.gsma.mobileconnect.r2.constants.Parameters;
@@ -33,6 +34,7 @@ import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.rest.IAsyncRestClient;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
@@ -50,6 +52,7 @@ import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.function.Function;
 
 /**
  * Concrete implementation of {@link IAuthenticationService}
@@ -66,12 +69,14 @@ public class AuthenticationService implements IAuthenticationService
     private ICache discoveryCache;
     private IRestClient restClient;
     private final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+    private final ExecutorService executorService;
 
     private AuthenticationService(final Builder builder)
     {
         this.jsonService = builder.jsonService;
         this.restClient = builder.restClient;
         this.iMobileConnectEncodeDecoder = builder.iMobileConnectEncodeDecoder;
+        this.executorService = builder.executorService;
 
         LOGGER.info("New instance of AuthenticationService created");
     }
@@ -307,8 +312,7 @@ public class AuthenticationService implements IAuthenticationService
         URI finalRedirectUrl = restClient.getFinalRedirect(authUrl, redirectUrl, authentication);
 
         final String code = HttpUtils.extractQueryValue(finalRedirectUrl, "code");
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<RequestTokenResponse> requestTokenResponseFuture = executorService.submit(new Callable<RequestTokenResponse>()
+        Future<RequestTokenResponse> requestTokenResponseFuture = this.executorService.submit(new Callable<RequestTokenResponse>()
         {
             @Override
             public RequestTokenResponse call() throws Exception
@@ -317,7 +321,6 @@ public class AuthenticationService implements IAuthenticationService
                         requestTokenUrl, redirectUrl, code);
             }
         });
-        executorService.shutdownNow();
         return requestTokenResponseFuture;
     }
 
@@ -383,13 +386,7 @@ public class AuthenticationService implements IAuthenticationService
                                              final URI requestTokenUrl, final URI redirectUrl, final String code)
             throws RequestFailedException, InvalidResponseException
     {
-        final List<KeyValuePair> formData = new KeyValuePair.ListBuilder()
-                .add(Parameters.AUTHENTICATION_REDIRECT_URI,
-                        ObjectUtils.requireNonNull(redirectUrl, "redirectUrl").toString())
-                .add(Parameters.CODE, StringUtils.requireNonEmpty(code, "code"))
-                .add(Parameters.GRANT_TYPE, DefaultOptions.GRANT_TYPE_AUTH_CODE)
-                .addIfNotEmpty(Parameters.CORRELATION_ID, correlationId)
-                .build();
+        final List<KeyValuePair> formData = this.requestTokenFormData(correlationId, redirectUrl, code);
 
         final RestAuthentication authentication =
                 RestAuthentication.basic(clientId, clientSecret, this.iMobileConnectEncodeDecoder);
@@ -406,8 +403,54 @@ public class AuthenticationService implements IAuthenticationService
                                                           final URI requestTokenUrl, final URI redirectUrl,
                                                           final String code)
     {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<RequestTokenResponse> requestTokenResponseFuture = executorService.submit(new Callable<RequestTokenResponse>()
+        return this.requestTokenStage(clientId, clientSecret, correlationId, requestTokenUrl,
+                redirectUrl, code).toCompletableFuture();
+    }
+
+    @Override
+    public CompletionStage<RequestTokenResponse> requestTokenStage(final String clientId,
+                                                          final String clientSecret, final String correlationId,
+                                                          final URI requestTokenUrl, final URI redirectUrl,
+                                                          final String code)
+    {
+        if (this.restClient instanceof IAsyncRestClient)
+        {
+            final List<KeyValuePair> formData;
+            final RestAuthentication authentication;
+            try
+            {
+                formData = this.requestTokenFormData(correlationId, redirectUrl, code);
+                authentication = RestAuthentication.basic(clientId, clientSecret,
+                        this.iMobileConnectEncodeDecoder);
+            }
+            catch (final InvalidArgumentException iae)
+            {
+                // fail the stage, as happens when the request is run on the executor
+                return ExecutorUtils.failedFuture(iae);
+            }
+
+            return ((IAsyncRestClient) this.restClient)
+                    .postFormDataAsync(requestTokenUrl, authentication, null, formData, null, null)
+                    .thenApply(new Function<RestResponse, RequestTokenResponse>()
+                    {
+                        @Override
+                        public RequestTokenResponse apply(final RestResponse restResponse)
+                        {
+                            try
+                            {
+                                return RequestTokenResponse.fromRestResponse(restResponse,
+                                        AuthenticationService.this.jsonService,
+                                        AuthenticationService.this.iMobileConnectEncodeDecoder);
+                            }
+                            catch (final InvalidResponseException ire)
+                            {
+                                throw new CompletionException(ire);
+                            }
+                        }
+                    });
+        }
+
+        return ExecutorUtils.supplyAsync(new Callable<RequestTokenResponse>()
         {
             @Override
             public RequestTokenResponse call() throws Exception
@@ -415,9 +458,19 @@ public class AuthenticationService implements IAuthenticationService
                 return AuthenticationService.this.requestToken(clientId, clientSecret, correlationId,
                         requestTokenUrl, redirectUrl, code);
             }
-        });
-        executorService.shutdownNow();
-        return requestTokenResponseFuture;
+        }, this.executorService);
+    }
+
+    private List<KeyValuePair> requestTokenFormData(final String correlationId,
+                                                    final URI redirectUrl, final String code)
+    {
+        return new KeyValuePair.ListBuilder()
+                .add(Parameters.AUTHENTICATION_REDIRECT_URI,
+                        ObjectUtils.requireNonNull(redirectUrl, "redirectUrl").toString())
+                .add(Parameters.CODE, StringUtils.requireNonEmpty(code, "code"))
+                .add(Parameters.GRANT_TYPE, DefaultOptions.GRANT_TYPE_AUTH_CODE)
+                .addIfNotEmpty(Parameters.CORRELATION_ID, correlationId)
+                .build();
     }
 
     public static final class Builder implements IBuilder<AuthenticationService>
@@ -425,6 +478,7 @@ public class AuthenticationService implements IAuthenticationService
         private IJsonService jsonService;
         private IRestClient restClient;
         private IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+        private ExecutorService executorService;
 
         public Builder withJsonService(final IJsonService val)
         {
@@ -444,6 +498,19 @@ public class AuthenticationService implements IAuthenticationService
             return this;
         }
 
+        /**
+         * Specify the executor used to run asynchronous operations.  If not set, the executor
+         * shared across the SDK is used.
+         *
+         * @param val executor to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExecutorService(final ExecutorService val)
+        {
+            this.executorService = val;
+            return this;
+        }
+
         @Override
         public AuthenticationService build()
         {
@@ -453,6 +520,10 @@ public class AuthenticationService implements IAuthenticationService
             {
                 this.iMobileConnectEncodeDecoder = new DefaultEncodeDecoder();
             }
+            if (this.executorService == null)
+            {
+                this.executorService = ExecutorUtils.defaultExecutor();
+            }
 
             return new AuthenticationService(this);
         }
@@ -473,6 +544,7 @@ public class AuthenticationService implements IAuthenticationService
                 .withJsonService(jsonService)
                 .withCache(discoveryCache)
                 .withRestClient(restClient)
+                .withExecutorService(executorService)
                 .build();
         ProviderMetadata providerMetadata = new ProviderMetadata.Builder().build();
         DiscoveryResponseGenerateOptions discoveryResponseGenerateOptions = new DiscoveryResponseGenerateOptions.BuilderResponse()
@@ -24,8 +24,10 @@ import com.gsma.mobileconnect.r2.discovery.SupportedVersions;
 import com.gsma.mobileconnect.r2.exceptions.HeadlessOperationFailedException;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.ExecutorUtils;
 
 import java.net.URI;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
 /**
@@ -91,6 +93,30 @@ public interface IAuthenticationService
     Future<RequestTokenResponse> requestTokenAsync(final String clientId, final String clientSecret,
                                                    final String correlationId, final URI requestTokenUrl, final URI redirectUrl, final String code);
 
+    /**
+     * Non-blocking variant of {@link IAuthenticationService#requestTokenAsync(String, String,
+     * String, URI, URI, String)} which allows further steps, such as token validation or user
+     * info requests, to be chained on completion.
+     * If the rest client is an {@link com.gsma.mobileconnect.r2.rest.IAsyncRestClient} the request
+     * is issued without occupying an executor thread.
+     *
+     * @param clientId        The registered application ClientId (Required)
+     * @param clientSecret    The registered application ClientSecret (Required)
+     * @param requestTokenUrl The url for token requests recieved from the discovery process
+     *                        (Required)
+     * @param redirectUrl     Confirms the redirectURI that the application used when the
+     *                        authorization request (Required)
+     * @param code            The authorization code provided to the application via the call to the
+     *                        authentication/authorization API (Required)
+     * @return stage completing with the token response
+     */
+    default CompletionStage<RequestTokenResponse> requestTokenStage(final String clientId, final String clientSecret,
+                                                                    final String correlationId, final URI requestTokenUrl, final URI redirectUrl, final String code)
+    {
+        return ExecutorUtils.toStage(this.requestTokenAsync(clientId, clientSecret, correlationId,
+            requestTokenUrl, redirectUrl, code));
+    }
+
     /**
      * Initiates headless authentication, if authentication is successful a token will be returned.
      * This may be a long running operation as response from the user on their authentication device
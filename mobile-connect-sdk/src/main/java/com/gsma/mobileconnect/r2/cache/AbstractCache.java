@@ -29,8 +29,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
+import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Base class for Discovery Caches that implements basic cache control mechanisms and type casting
@@ -56,6 +58,12 @@ public abstract class AbstractCache implements ICache
     private final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits;
 
     private final IJsonService jsonService;
+    private final boolean objectSnapshots;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expiryCount = new AtomicLong();
 
     /**
      * Construct an instance of this discovery cache, setting the executor service to use for
@@ -66,9 +74,28 @@ public abstract class AbstractCache implements ICache
      */
     protected AbstractCache(final IJsonService jsonService,
         final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits)
+    {
+        this(jsonService, cacheExpiryLimits, false);
+    }
+
+    /**
+     * Construct an instance of this discovery cache, optionally holding object snapshots rather
+     * than serialized values.  In snapshot mode a read costs a lookup and a shallow copy of the
+     * cached object instead of a JSON deserialization; types which do not support {@link
+     * AbstractCacheable#snapshot()} are still held in serialized form.  Implementations using
+     * snapshot mode must override {@link #internalRemove(String, CacheEntry)}.
+     *
+     * @param jsonService       used to serialise and deserilise objects.
+     * @param cacheExpiryLimits map defining limits for which types may be cached.
+     * @param objectSnapshots   true to hold object snapshots rather than serialized values.
+     */
+    protected AbstractCache(final IJsonService jsonService,
+        final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits,
+        final boolean objectSnapshots)
     {
         this.jsonService = jsonService;
         this.cacheExpiryLimits = cacheExpiryLimits;
+        this.objectSnapshots = objectSnapshots;
     }
 
     @Override
@@ -78,7 +105,12 @@ public abstract class AbstractCache implements ICache
         StringUtils.requireNonEmpty(key, "key");
         ObjectUtils.requireNonNull(value, "value");
 
-        if (key != null)
+        final AbstractCacheable snapshot = this.objectSnapshots ? value.snapshot() : null;
+        if (snapshot != null)
+        {
+            this.internalAdd(key, new CacheEntry(snapshot));
+        }
+        else if (key != null)
         {
             try
             {
@@ -115,34 +147,84 @@ public abstract class AbstractCache implements ICache
             final CacheEntry value = this.internalGet(key);
             if (value != null)
             {
-                try
+                if (value.getSnapshot() != null)
                 {
-                    result = this.jsonService.deserialize(value.getValue(), clazz);
+                    result = this.fromSnapshot(key, value, clazz);
                 }
-                catch (final JsonDeserializationException jde)
+                else
                 {
-                    this.internalRemove(key, value.getValue());
-                    LOGGER.warn(
-                        "Failed to deserialize cached instance of class={} with key={}; the value has been expelled from the cache",
-                        clazz, key, jde);
-                    throw new CacheAccessException(CacheAccessException.Operation.GET, key, clazz,
-                        jde);
+                    try
+                    {
+                        result = this.jsonService.deserialize(value.getValue(), clazz);
+                    }
+                    catch (final JsonDeserializationException jde)
+                    {
+                        this.internalRemove(key, value);
+                        LOGGER.warn(
+                            "Failed to deserialize cached instance of class={} with key={}; the value has been expelled from the cache",
+                            clazz, key, jde);
+                        throw new CacheAccessException(CacheAccessException.Operation.GET, key,
+                            clazz, jde);
+                    }
                 }
-                this.checkAndSetExpiry(value);
+                this.checkAndSetExpiry(value, result);
                 result.setCacheInfo(value);
 
                 if (removeIfExpired && value.isExpired())
                 {
                     LOGGER.debug("Removing expired cached entry class={} with key={}", clazz, key);
                     result = null;
-                    this.internalRemove(key, value.getValue());
+                    this.internalRemove(key, value);
                 }
             }
+
+            (result == null ? this.missCount : this.hitCount).incrementAndGet();
         }
 
         return result;
     }
 
+    @Override
+    public CacheStatistics getStatistics() throws CacheAccessException
+    {
+        return new CacheStatistics(this.internalSize(), this.hitCount.get(), this.missCount.get(),
+            this.evictionCount.get(), this.expiryCount.get());
+    }
+
+    /**
+     * Record that an entry was evicted to keep the cache within its size limit.
+     */
+    protected void recordEviction()
+    {
+        this.evictionCount.incrementAndGet();
+    }
+
+    /**
+     * Record that an entry was removed from the cache as it had outlived its maximum age.
+     */
+    protected void recordExpiry()
+    {
+        this.expiryCount.incrementAndGet();
+    }
+
+    private <T extends AbstractCacheable> T fromSnapshot(final String key,
+        final CacheEntry value, final Class<T> clazz) throws CacheAccessException
+    {
+        final AbstractCacheable snapshot = value.getSnapshot();
+        if (!clazz.isInstance(snapshot))
+        {
+            this.internalRemove(key, value);
+            LOGGER.warn(
+                "Cached instance of class={} with key={} is not of requested class={}; the value has been expelled from the cache",
+                snapshot.getClass(), key, clazz);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key, clazz,
+                new ClassCastException(String.format("%s cannot be cast to %s",
+                    snapshot.getClass().getName(), clazz.getName())));
+        }
+
+        return clazz.cast(snapshot.snapshot());
+    }
+
     /**
      * Checks if a object has been cached past the defined caching time or if internally the object
      * has been marked as expired.
@@ -159,11 +241,11 @@ public abstract class AbstractCache implements ICache
             final Long timeToExpire = this.cacheExpiryTimes.get(cacheEntry.getCachedClass());
             if (timeToExpire != null)
             {
-                expired = cacheEntry.getCachedTime().getTime() + timeToExpire
-                    < System.currentTimeMillis();
+                final long expiryTime = cacheEntry.getCachedTime().getTime() + timeToExpire;
+                expired = expiryTime < System.currentTimeMillis();
                 if (expired)
                 {
-                    cacheEntry.expire();
+                    cacheEntry.expire(expiryTime);
                 }
             }
         }
@@ -171,6 +253,29 @@ public abstract class AbstractCache implements ICache
         return expired || cacheEntry.isExpired();
     }
 
+    /**
+     * Checks if a object has expired, using the expiry the object carries itself if it has one,
+     * otherwise the defined caching time, see {@link #checkAndSetExpiry(CacheEntry)}.
+     *
+     * @param cacheEntry to check.
+     * @param value      read from cacheEntry.
+     * @return expiry status on completion.
+     */
+    protected boolean checkAndSetExpiry(final CacheEntry cacheEntry, final AbstractCacheable value)
+    {
+        final Date expiry = value.cacheExpiry();
+        if (expiry == null)
+        {
+            return this.checkAndSetExpiry(cacheEntry);
+        }
+
+        if (expiry.getTime() < System.currentTimeMillis())
+        {
+            cacheEntry.expire(expiry.getTime());
+        }
+        return cacheEntry.isExpired();
+    }
+
     @Override
     public void setCacheExpiryTime(long duration, TimeUnit unit,
         Class<? extends AbstractCacheable> clazz) throws CacheExpiryLimitException
@@ -222,4 +327,30 @@ public abstract class AbstractCache implements ICache
      */
     protected abstract void internalRemove(final String key, final String value)
         throws CacheAccessException;
+
+    /**
+     * The default implementation reports an unknown size of -1, for internal caches which cannot
+     * count their entries.
+     *
+     * @return the number of entries held in the internal cache, or -1 if unknown.
+     * @throws CacheAccessException if there was a problem querying the cache.
+     */
+    protected int internalSize() throws CacheAccessException
+    {
+        return -1;
+    }
+
+    /**
+     * Remove the specified entry from the internal cache if it is still held against the key.  The
+     * default implementation matches on the serialized value.
+     *
+     * @param key   key
+     * @param value entry to remove
+     * @throws CacheAccessException if there was a problem removing the value from the cache.
+     */
+    protected void internalRemove(final String key, final CacheEntry value)
+        throws CacheAccessException
+    {
+        this.internalRemove(key, value.getValue());
+    }
 }
@@ -16,6 +16,10 @@
  */
 package com.gsma.mobileconnect.r2.cache;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Date;
+
 /**
  * Defines core functionality of cacheable items.
  *
@@ -25,11 +29,13 @@ public abstract class AbstractCacheable implements ICacheable
 {
     private boolean cached = false;
     private boolean expired = false;
+    private long expiredTime = 0L;
 
     void setCacheInfo(final CacheEntry cacheEntry)
     {
         this.cached = true;
         this.expired = cacheEntry.isExpired();
+        this.expiredTime = cacheEntry.getExpiredTime();
 
         this.cached();
     }
@@ -46,6 +52,44 @@ public abstract class AbstractCacheable implements ICacheable
         return this.expired;
     }
 
+    /**
+     * @return the time this object expired in the cache it was read from, in milliseconds since
+     * the epoch, or zero if it has not expired.
+     */
+    @JsonIgnore
+    public long getExpiredTime()
+    {
+        return this.expiredTime;
+    }
+
+    /**
+     * The time this object expires in the cache, for objects which carry their own expiry such as
+     * one advised by HTTP caching headers.  This takes precedence over the expiry time configured
+     * on the cache for the type.
+     *
+     * @return the time this object expires, or null to use the expiry time configured on the
+     * cache.
+     */
+    protected Date cacheExpiry()
+    {
+        return null;
+    }
+
+    /**
+     * Mark an object held by this one, which was cached along with it, as cached.  For use by
+     * {@link #cached()} implementations.
+     *
+     * @param held the object held, may be null.
+     */
+    protected static void cachedWith(final AbstractCacheable held)
+    {
+        if (held != null)
+        {
+            held.cached = true;
+            held.cached();
+        }
+    }
+
     /**
      * Mark this object as cached.  This is called as the item exits the cache and is marked as
      * cached, implementations may wish to modify their data when this called.
@@ -54,4 +98,20 @@ public abstract class AbstractCacheable implements ICacheable
     {
         // do nothing
     }
+
+    /**
+     * Create a copy of this object which shares no mutable state with it, allowing a cache to hold
+     * the object itself rather than its serialized form.  The cache takes a snapshot as the item
+     * is added and hands a further snapshot to each reader, so changes made by the caller - such
+     * as those made by {@link #cached()} - never reach the cached copy.  Mutable fields, including
+     * modifiable lists and nested cacheable objects, must be copied; immutable values and
+     * unmodifiable lists of them may be shared.
+     *
+     * @return a copy of this object, or null if it does not support snapshots and must be cached
+     * in serialized form.
+     */
+    protected AbstractCacheable snapshot()
+    {
+        return null;
+    }
 }
@@ -0,0 +1,488 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of {@link ICache} holding at most a fixed number of entries.  When full, the
+ * least recently used entry is evicted to make room for a new one.  Entries older than the
+ * configured maximum age are treated as absent on read and are periodically removed by a
+ * background sweeper, so values which are written but never read again - such as the discovery
+ * responses cached against an abandoned sdkSession - do not accumulate.
+ * <p>
+ * Entries are spread by key over independently locked segments, up to the configured concurrency
+ * level, so concurrent readers and writers rarely contend.  Each segment evicts its own least
+ * recently used entry, so across segments the eviction order is approximate.  A cache too small
+ * to give each segment {@link DefaultOptions#CACHE_MIN_SEGMENT_ENTRIES} entries uses fewer
+ * segments, down to a single segment with exact least recently used eviction.</p>
+ *
+ * @since 2.0
+ */
+public class BoundedCache extends AbstractCache implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(BoundedCache.class);
+
+    private final int maxEntries;
+    private final long expireAfterWriteMs;
+    private final Segment[] segments;
+    private final CacheSweeper sweeper;
+
+    private BoundedCache(final Builder builder)
+    {
+        super(builder.jsonService, builder.cacheExpiryLimits, builder.objectSnapshots);
+
+        this.maxEntries = builder.maxEntries;
+        this.expireAfterWriteMs = builder.expireAfterWriteMs;
+
+        final int segmentCount = segmentCount(this.maxEntries, builder.concurrencyLevel);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++)
+        {
+            // share out the entries so the segments hold maxEntries between them
+            this.segments[i] = new Segment(
+                this.maxEntries / segmentCount + (i < this.maxEntries % segmentCount ? 1 : 0));
+        }
+
+        if (this.expireAfterWriteMs > 0 && builder.sweepIntervalMs > 0)
+        {
+            this.sweeper = new CacheSweeper(builder.sweeper, builder.sweepIntervalMs, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    BoundedCache.this.sweep();
+                }
+            });
+        }
+        else
+        {
+            this.sweeper = null;
+        }
+
+        LOGGER.info(
+            "New instance of BoundedCache created with maxEntries={}, segments={}, expireAfterWriteMs={}, sweepIntervalMs={}, objectSnapshots={}",
+            this.maxEntries, segmentCount, this.expireAfterWriteMs, builder.sweepIntervalMs,
+            builder.objectSnapshots);
+    }
+
+    /**
+     * Halve the number of segments from the concurrency level until each holds the minimum
+     * number of entries, keeping a power of two so a segment can be chosen with a mask.
+     */
+    private static int segmentCount(final int maxEntries, final int concurrencyLevel)
+    {
+        int count = 1;
+        while (count * 2 <= concurrencyLevel
+            && maxEntries / (count * 2) >= DefaultOptions.CACHE_MIN_SEGMENT_ENTRIES)
+        {
+            count *= 2;
+        }
+        return count;
+    }
+
+    private Segment segmentFor(final String key)
+    {
+        final int hash = key.hashCode();
+        return this.segments[(hash ^ (hash >>> 16)) & (this.segments.length - 1)];
+    }
+
+    /**
+     * Remove all entries older than the maximum age.  This is run periodically by the sweeper, but
+     * may also be called directly.
+     *
+     * @return the number of entries removed.
+     */
+    public int sweep()
+    {
+        int removed = 0;
+
+        if (this.expireAfterWriteMs > 0)
+        {
+            for (final Segment segment : this.segments)
+            {
+                synchronized (segment)
+                {
+                    final Iterator<CacheEntry> entries = segment.values().iterator();
+                    while (entries.hasNext())
+                    {
+                        if (this.isOutlived(entries.next()))
+                        {
+                            entries.remove();
+                            this.recordExpiry();
+                            removed++;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (removed > 0)
+        {
+            LOGGER.debug("Swept {} entries which outlived expireAfterWriteMs={} from cache",
+                removed, this.expireAfterWriteMs);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Stops the background sweeper.  The cache remains usable, but outlived entries are only
+     * removed as they are read.
+     */
+    @Override
+    public void close()
+    {
+        if (this.sweeper != null)
+        {
+            this.sweeper.close();
+        }
+    }
+
+    private boolean isOutlived(final CacheEntry entry)
+    {
+        return this.expireAfterWriteMs > 0
+            && entry.getCachedTime().getTime() + this.expireAfterWriteMs
+            < System.currentTimeMillis();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        boolean empty = true;
+        for (final Segment segment : this.segments)
+        {
+            synchronized (segment)
+            {
+                empty = segment.isEmpty();
+            }
+            if (!empty)
+            {
+                break;
+            }
+        }
+
+        LOGGER.debug("Cache isEmpty={}", empty);
+
+        return empty;
+    }
+
+    @Override
+    public void clear()
+    {
+        LOGGER.debug("Clearing entire cache");
+
+        for (final Segment segment : this.segments)
+        {
+            synchronized (segment)
+            {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public void remove(final String key)
+    {
+        if (key != null)
+        {
+            LOGGER.debug("Removing key={} from cache", key);
+
+            final Segment segment = this.segmentFor(key);
+            synchronized (segment)
+            {
+                segment.remove(key);
+            }
+        }
+    }
+
+    @Override
+    protected int internalSize()
+    {
+        int size = 0;
+        for (final Segment segment : this.segments)
+        {
+            synchronized (segment)
+            {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    protected void internalAdd(final String key, final CacheEntry value)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        LOGGER.debug("Adding key={}, class={} to cache", key, value.getCachedClass());
+
+        final Segment segment = this.segmentFor(key);
+        synchronized (segment)
+        {
+            segment.put(key, value);
+        }
+    }
+
+    @Override
+    protected CacheEntry internalGet(final String key)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final Segment segment = this.segmentFor(key);
+        CacheEntry cacheEntry;
+        synchronized (segment)
+        {
+            cacheEntry = segment.get(key);
+            if (cacheEntry != null && this.isOutlived(cacheEntry))
+            {
+                segment.remove(key);
+                this.recordExpiry();
+                LOGGER.debug("Removed key={}, class={} from cache as it outlived expireAfterWriteMs={}",
+                    key, cacheEntry.getCachedClass(), this.expireAfterWriteMs);
+                cacheEntry = null;
+            }
+        }
+
+        if (cacheEntry != null)
+        {
+            LOGGER.debug("Fetched key={}, class={} from cache", key, cacheEntry.getCachedClass());
+        }
+        else
+        {
+            LOGGER.info("Item with key={} is not held in the cache", key);
+        }
+
+        return cacheEntry;
+    }
+
+    @Override
+    protected void internalRemove(final String key, final String value)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        final Segment segment = this.segmentFor(key);
+        synchronized (segment)
+        {
+            final CacheEntry cacheEntry = segment.get(key);
+            if (cacheEntry != null && value.equals(cacheEntry.getValue()))
+            {
+                LOGGER.debug("Removed key={}, class={} from cache", key,
+                    cacheEntry.getCachedClass());
+                segment.remove(key);
+            }
+            else
+            {
+                LOGGER.info("Item with key={} was not removed from cache as value did not match",
+                    key);
+            }
+        }
+    }
+
+    @Override
+    protected void internalRemove(final String key, final CacheEntry value)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        final Segment segment = this.segmentFor(key);
+        synchronized (segment)
+        {
+            if (segment.get(key) == value)
+            {
+                LOGGER.debug("Removed key={}, class={} from cache", key, value.getCachedClass());
+                segment.remove(key);
+            }
+            else
+            {
+                LOGGER.info("Item with key={} was not removed from cache as value did not match",
+                    key);
+            }
+        }
+    }
+
+    /**
+     * Entries held against keys with the same hash bits, in least recently used order.  Guarded by
+     * its own monitor.
+     */
+    private final class Segment extends LinkedHashMap<String, CacheEntry>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private Segment(final int capacity)
+        {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CacheEntry> eldest)
+        {
+            final boolean evict = this.size() > this.capacity;
+            if (evict)
+            {
+                LOGGER.debug("Evicting least recently used key={}, class={} from cache",
+                    eldest.getKey(), eldest.getValue().getCachedClass());
+                BoundedCache.this.recordEviction();
+            }
+            return evict;
+        }
+    }
+
+    public static final class Builder implements IBuilder<ICache>
+    {
+        private IJsonService jsonService;
+        private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
+            DEFAULT_CACHE_EXPIRY_LIMITS;
+        private boolean objectSnapshots = false;
+        private int maxEntries = DefaultOptions.CACHE_MAX_ENTRIES;
+        private int concurrencyLevel = DefaultOptions.CACHE_CONCURRENCY_LEVEL;
+        private long expireAfterWriteMs = DefaultOptions.CACHE_EXPIRE_AFTER_WRITE_MS;
+        private long sweepIntervalMs = DefaultOptions.CACHE_SWEEP_INTERVAL_MS;
+        private ScheduledExecutorService sweeper;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        public Builder withCacheExpiryLimits(
+            final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> val)
+        {
+            ObjectUtils.requireNonNull(val, "val");
+
+            this.cacheExpiryLimits = Collections.unmodifiableMap(
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>(val));
+            return this;
+        }
+
+        /**
+         * Specify whether the cache holds immutable snapshots of cached objects rather than their
+         * JSON serialized form, so reads avoid a deserialization.  Defaults to false.
+         *
+         * @param val true to hold object snapshots.
+         * @return builder to continue further configuration.
+         */
+        public Builder withObjectSnapshots(final boolean val)
+        {
+            this.objectSnapshots = val;
+            return this;
+        }
+
+        /**
+         * Specify the maximum number of entries held; when exceeded the least recently used entry
+         * is evicted.  Defaults to {@link DefaultOptions#CACHE_MAX_ENTRIES}.
+         *
+         * @param val maximum number of entries.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxEntries(final int val)
+        {
+            this.maxEntries = val;
+            return this;
+        }
+
+        /**
+         * Specify the number of threads expected to use the cache at once, which bounds the
+         * number of independently locked segments.  Defaults to {@link
+         * DefaultOptions#CACHE_CONCURRENCY_LEVEL}.
+         *
+         * @param val expected number of concurrent threads.
+         * @return builder to continue further configuration.
+         */
+        public Builder withConcurrencyLevel(final int val)
+        {
+            this.concurrencyLevel = val;
+            return this;
+        }
+
+        /**
+         * Specify the maximum age of an entry, regardless of type, after which it is treated as
+         * absent and removed; a duration of zero disables the limit.  Defaults to {@link
+         * DefaultOptions#CACHE_EXPIRE_AFTER_WRITE_MS}.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExpireAfterWrite(final long duration, final TimeUnit unit)
+        {
+            this.expireAfterWriteMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify how often the background sweeper removes outlived entries; a duration of zero
+         * disables the sweeper.  Defaults to {@link DefaultOptions#CACHE_SWEEP_INTERVAL_MS}.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withSweepInterval(final long duration, final TimeUnit unit)
+        {
+            this.sweepIntervalMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify the scheduler to run the sweeper on.  If not set, the cache creates its own
+         * single daemon thread, which is stopped by {@link BoundedCache#close()}.  A sweep visits
+         * every entry, so a scheduler shared with time-sensitive tasks - such as request timeouts
+         * - may run them late while a large cache is swept.
+         *
+         * @param val scheduler for the sweeper.
+         * @return builder to continue further configuration.
+         */
+        public Builder withSweeper(final ScheduledExecutorService val)
+        {
+            this.sweeper = val;
+            return this;
+        }
+
+        @Override
+        public BoundedCache build()
+        {
+            ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            ObjectUtils.requirePositive(this.maxEntries, "maxEntries");
+            ObjectUtils.requirePositive(this.concurrencyLevel, "concurrencyLevel");
+
+            return new BoundedCache(this);
+        }
+    }
+}
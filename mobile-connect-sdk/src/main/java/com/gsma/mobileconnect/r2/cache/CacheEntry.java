@@ -17,7 +17,7 @@
 package com.gsma.mobileconnect.r2.cache;
 
 import java.util.Date;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Wrapper for items stored in the cache.
@@ -27,9 +27,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
 class CacheEntry
 {
     private final String value;
+    private final AbstractCacheable snapshot;
     private final Date cachedTime;
     private final Class<? extends AbstractCacheable> clazz;
-    private final AtomicBoolean expired;
+    private final AtomicLong expiredTime;
 
     /**
      * Wrap specified value for storage in the cache.
@@ -37,11 +38,41 @@ class CacheEntry
      * @param value to wrap.
      */
     CacheEntry(final String value, final Class<? extends AbstractCacheable> clazz)
+    {
+        this(value, null, clazz, System.currentTimeMillis());
+    }
+
+    /**
+     * Wrap specified value, restored from storage, which was originally cached at the specified
+     * time.
+     *
+     * @param value      to wrap.
+     * @param cachedTime time the value was originally cached, in milliseconds since the epoch.
+     */
+    CacheEntry(final String value, final Class<? extends AbstractCacheable> clazz,
+        final long cachedTime)
+    {
+        this(value, null, clazz, cachedTime);
+    }
+
+    /**
+     * Wrap the specified object snapshot for storage in the cache.
+     *
+     * @param snapshot to wrap, see {@link AbstractCacheable#snapshot()}.
+     */
+    CacheEntry(final AbstractCacheable snapshot)
+    {
+        this(null, snapshot, snapshot.getClass(), System.currentTimeMillis());
+    }
+
+    private CacheEntry(final String value, final AbstractCacheable snapshot,
+        final Class<? extends AbstractCacheable> clazz, final long cachedTime)
     {
         this.value = value;
+        this.snapshot = snapshot;
         this.clazz = clazz;
-        this.cachedTime = new Date();
-        this.expired = new AtomicBoolean(false);
+        this.cachedTime = new Date(cachedTime);
+        this.expiredTime = new AtomicLong(0L);
     }
 
     /**
@@ -52,6 +83,14 @@ class CacheEntry
         return this.value;
     }
 
+    /**
+     * @return the object snapshot held, or null if the value is held in serialized form.
+     */
+    AbstractCacheable getSnapshot()
+    {
+        return this.snapshot;
+    }
+
     /**
      * @return the time the item was cached.
      */
@@ -73,7 +112,16 @@ class CacheEntry
      */
     boolean isExpired()
     {
-        return this.expired.get();
+        return this.expiredTime.get() != 0L;
+    }
+
+    /**
+     * @return the time this item expired, in milliseconds since the epoch, or zero if it has not
+     * been marked as expired.
+     */
+    long getExpiredTime()
+    {
+        return this.expiredTime.get();
     }
 
     /**
@@ -81,6 +129,16 @@ class CacheEntry
      */
     void expire()
     {
-        this.expired.set(true);
+        this.expire(System.currentTimeMillis());
+    }
+
+    /**
+     * mark this item as expired at the specified time, unless it is already marked as expired.
+     *
+     * @param time the item expired, in milliseconds since the epoch.
+     */
+    void expire(final long time)
+    {
+        this.expiredTime.compareAndSet(0L, time);
     }
 }
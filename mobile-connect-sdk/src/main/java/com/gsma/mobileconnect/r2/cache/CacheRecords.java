@@ -0,0 +1,101 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.utils.Tuple;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Binary format for serialized cache entries held outside of the java heap.  A record holds the
+ * key, the cached class name, the time the entry was cached and the JSON value:
+ * <pre>
+ *     int keyLength, byte[] key, int classLength, byte[] className, long cachedTime,
+ *     int valueLength, byte[] value
+ * </pre>
+ * Strings are encoded as UTF-8.
+ *
+ * @since 2.0
+ */
+final class CacheRecords
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private CacheRecords()
+    {
+    }
+
+    /**
+     * Encode a serialized cache entry as a record.
+     *
+     * @param key   of the entry.
+     * @param entry holding a serialized value.
+     * @return buffer positioned at the start of the record, limited to its length.
+     */
+    static ByteBuffer encode(final String key, final CacheEntry entry)
+    {
+        final byte[] keyBytes = key.getBytes(UTF8);
+        final byte[] classBytes = entry.getCachedClass().getName().getBytes(UTF8);
+        final byte[] valueBytes = entry.getValue().getBytes(UTF8);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(
+            4 + keyBytes.length + 4 + classBytes.length + 8 + 4 + valueBytes.length);
+        buffer.putInt(keyBytes.length).put(keyBytes);
+        buffer.putInt(classBytes.length).put(classBytes);
+        buffer.putLong(entry.getCachedTime().getTime());
+        buffer.putInt(valueBytes.length).put(valueBytes);
+        buffer.flip();
+
+        return buffer;
+    }
+
+    /**
+     * Decode a record, advancing the position of the buffer past it.
+     *
+     * @param buffer positioned at the start of a record.
+     * @return the key and the restored cache entry.
+     * @throws ClassNotFoundException   if the cached class is no longer available.
+     * @throws BufferUnderflowException if the buffer does not hold a complete record.
+     */
+    static Tuple<String, CacheEntry> decode(final ByteBuffer buffer)
+        throws ClassNotFoundException
+    {
+        final String key = readString(buffer);
+        final Class<? extends AbstractCacheable> clazz =
+            Class.forName(readString(buffer)).asSubclass(AbstractCacheable.class);
+        final long cachedTime = buffer.getLong();
+        final String value = readString(buffer);
+
+        return new Tuple<String, CacheEntry>(key, new CacheEntry(value, clazz, cachedTime));
+    }
+
+    private static String readString(final ByteBuffer buffer)
+    {
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining())
+        {
+            throw new BufferUnderflowException();
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, UTF8);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+/**
+ * Point in time statistics for an {@link ICache}.
+ *
+ * @since 2.0
+ */
+public final class CacheStatistics
+{
+    private final int size;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expiryCount;
+
+    /**
+     * Create an instance of cache statistics.
+     *
+     * @param size          number of entries held, or -1 if unknown.
+     * @param hitCount      number of reads which returned a value.
+     * @param missCount     number of reads which returned no value.
+     * @param evictionCount number of entries evicted to keep the cache within its size limit.
+     * @param expiryCount   number of entries removed as they outlived their maximum age.
+     */
+    public CacheStatistics(final int size, final long hitCount, final long missCount,
+        final long evictionCount, final long expiryCount)
+    {
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expiryCount = expiryCount;
+    }
+
+    /**
+     * @return number of entries held, or -1 if unknown.
+     */
+    public int getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * @return number of reads which returned a value.
+     */
+    public long getHitCount()
+    {
+        return this.hitCount;
+    }
+
+    /**
+     * @return number of reads which returned no value, including reads of expired values.
+     */
+    public long getMissCount()
+    {
+        return this.missCount;
+    }
+
+    /**
+     * @return number of entries evicted to keep the cache within its size limit.
+     */
+    public long getEvictionCount()
+    {
+        return this.evictionCount;
+    }
+
+    /**
+     * @return number of entries removed as they outlived their maximum age.
+     */
+    public long getExpiryCount()
+    {
+        return this.expiryCount;
+    }
+
+    /**
+     * @return ratio of hits to reads, or 1.0 if there have been no reads.
+     */
+    public double getHitRate()
+    {
+        final long requests = this.hitCount + this.missCount;
+        return requests == 0 ? 1.0 : (double) this.hitCount / requests;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "CacheStatistics(size=%d, hitCount=%d, missCount=%d, evictionCount=%d, expiryCount=%d)",
+            this.size, this.hitCount, this.missCount, this.evictionCount, this.expiryCount);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.utils.DaemonThreadFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically runs a housekeeping task for a cache, either on a supplied scheduler or on a single
+ * daemon thread owned by the sweeper.
+ *
+ * @since 2.0
+ */
+final class CacheSweeper implements Closeable
+{
+    private final ScheduledExecutorService ownedScheduler;
+    private final Future<?> future;
+
+    /**
+     * Schedule the task to run with a fixed delay between runs.
+     *
+     * @param scheduler  to run the task on, or null to use a thread owned by this sweeper.
+     * @param intervalMs delay between runs.
+     * @param task       to run.
+     */
+    CacheSweeper(final ScheduledExecutorService scheduler, final long intervalMs,
+        final Runnable task)
+    {
+        if (scheduler == null)
+        {
+            this.ownedScheduler = new ScheduledThreadPoolExecutor(1,
+                new DaemonThreadFactory("mobileconnect-cache-sweeper"));
+        }
+        else
+        {
+            this.ownedScheduler = null;
+        }
+
+        this.future = (scheduler == null ? this.ownedScheduler : scheduler).scheduleWithFixedDelay(
+            task, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop running the task, shutting down the owned thread if there is one.
+     */
+    @Override
+    public void close()
+    {
+        if (this.future != null)
+        {
+            this.future.cancel(false);
+        }
+        if (this.ownedScheduler != null)
+        {
+            this.ownedScheduler.shutdownNow();
+        }
+    }
+}
@@ -43,9 +43,10 @@ public class ConcurrentCache extends AbstractCache
 
     private ConcurrentCache(final Builder builder)
     {
-        super(builder.jsonService, builder.cacheExpiryLimits);
+        super(builder.jsonService, builder.cacheExpiryLimits, builder.objectSnapshots);
 
-        LOGGER.info("New instance of ConcurrentCache created");
+        LOGGER.info("New instance of ConcurrentCache created with objectSnapshots={}",
+            builder.objectSnapshots);
     }
 
     @Override
@@ -77,6 +78,12 @@ public class ConcurrentCache extends AbstractCache
         }
     }
 
+    @Override
+    protected int internalSize()
+    {
+        return this.cache.size();
+    }
+
     @Override
     protected void internalAdd(final String key, final CacheEntry value)
     {
@@ -125,11 +132,29 @@ public class ConcurrentCache extends AbstractCache
         }
     }
 
+    @Override
+    protected void internalRemove(final String key, final CacheEntry value)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        if (this.cache.remove(key, value))
+        {
+            LOGGER.debug("Removed key={}, class={} from cache", key, value.getCachedClass());
+        }
+        else
+        {
+            LOGGER.info("Item with key={} was not removed from cache as value did not match",
+                key);
+        }
+    }
+
     public static final class Builder implements IBuilder<ICache>
     {
         private IJsonService jsonService;
         private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
             DEFAULT_CACHE_EXPIRY_LIMITS;
+        private boolean objectSnapshots = false;
 
         public Builder withJsonService(final IJsonService val)
         {
@@ -147,6 +172,19 @@ public class ConcurrentCache extends AbstractCache
             return this;
         }
 
+        /**
+         * Specify whether the cache holds immutable snapshots of cached objects rather than their
+         * JSON serialized form, so reads avoid a deserialization.  Defaults to false.
+         *
+         * @param val true to hold object snapshots.
+         * @return builder to continue further configuration.
+         */
+        public Builder withObjectSnapshots(final boolean val)
+        {
+            this.objectSnapshots = val;
+            return this;
+        }
+
         @Override
         public ConcurrentCache build()
         {
@@ -0,0 +1,414 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation of {@link ICache} backed by a key-value store shared by all the nodes of a fleet,
+ * so that a discovery response cached against an sdkSession on one node can be used by whichever
+ * node the redirect lands on.
+ * <p>
+ * Recently read entries are held in a small in-process near cache, so repeated reads do not cost a
+ * round trip to the store.  Near cache entries are dropped as soon as the store reports the key
+ * changed, and in any case once they reach the near cache time to live, which bounds how stale a
+ * read can be if a notification is lost.  Values are always serialized.
+ *
+ * @since 2.0
+ */
+public class DistributedCache extends AbstractCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(DistributedCache.class);
+
+    private final IKeyValueStore store;
+    private final long expireAfterWriteMs;
+    private final long nearCacheTtlMs;
+    private final LinkedHashMap<String, NearEntry> nearCache;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong nearCacheHitCount = new AtomicLong();
+
+    private DistributedCache(final Builder builder)
+    {
+        super(builder.jsonService, builder.cacheExpiryLimits);
+
+        this.store = builder.store;
+        this.expireAfterWriteMs = builder.expireAfterWriteMs;
+        this.nearCacheTtlMs = builder.nearCacheTtlMs;
+
+        final int nearCacheMaxEntries = builder.nearCacheMaxEntries;
+        this.nearCache = new LinkedHashMap<String, NearEntry>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, NearEntry> eldest)
+            {
+                return this.size() > nearCacheMaxEntries;
+            }
+        };
+
+        this.store.addInvalidationListener(new IKeyValueStore.InvalidationListener()
+        {
+            @Override
+            public void invalidated(final String key)
+            {
+                DistributedCache.this.invalidations.incrementAndGet();
+                synchronized (DistributedCache.this.nearCache)
+                {
+                    DistributedCache.this.nearCache.remove(key);
+                }
+            }
+
+            @Override
+            public void invalidatedAll()
+            {
+                DistributedCache.this.invalidations.incrementAndGet();
+                synchronized (DistributedCache.this.nearCache)
+                {
+                    DistributedCache.this.nearCache.clear();
+                }
+            }
+        });
+
+        LOGGER.info(
+            "New instance of DistributedCache created with store={}, expireAfterWriteMs={}, nearCacheMaxEntries={}, nearCacheTtlMs={}",
+            this.store.getClass().getName(), this.expireAfterWriteMs, nearCacheMaxEntries,
+            this.nearCacheTtlMs);
+    }
+
+    /**
+     * @return the number of reads served from the near cache without a round trip to the store.
+     */
+    public long getNearCacheHitCount()
+    {
+        return this.nearCacheHitCount.get();
+    }
+
+    @Override
+    public boolean isEmpty() throws CacheAccessException
+    {
+        final boolean empty = this.internalSize() == 0;
+
+        LOGGER.debug("Cache isEmpty={}", empty);
+
+        return empty;
+    }
+
+    @Override
+    public void clear() throws CacheAccessException
+    {
+        LOGGER.debug("Clearing entire cache");
+
+        this.clearNearCache();
+        try
+        {
+            this.store.clear();
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Failed to clear store", ioe);
+            throw new CacheAccessException(CacheAccessException.Operation.REMOVE, null,
+                AbstractCacheable.class, ioe);
+        }
+    }
+
+    @Override
+    public void remove(final String key) throws CacheAccessException
+    {
+        if (key != null)
+        {
+            LOGGER.debug("Removing key={} from cache", key);
+
+            this.removeNearEntry(key);
+            try
+            {
+                this.store.remove(key);
+            }
+            catch (final IOException ioe)
+            {
+                LOGGER.warn("Failed to remove key={} from store", key, ioe);
+                throw new CacheAccessException(CacheAccessException.Operation.REMOVE, key,
+                    AbstractCacheable.class, ioe);
+            }
+        }
+    }
+
+    @Override
+    protected int internalSize() throws CacheAccessException
+    {
+        try
+        {
+            return this.store.size();
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Failed to query size of store", ioe);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, null,
+                AbstractCacheable.class, ioe);
+        }
+    }
+
+    @Override
+    protected void internalAdd(final String key, final CacheEntry value)
+        throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        LOGGER.debug("Adding key={}, class={} to cache", key, value.getCachedClass());
+
+        final ByteBuffer record = CacheRecords.encode(key, value);
+        try
+        {
+            this.store.put(key, record.array(), this.expireAfterWriteMs);
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Failed to add key={}, class={} to store", key, value.getCachedClass(),
+                ioe);
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, key,
+                value.getCachedClass(), ioe);
+        }
+
+        synchronized (this.nearCache)
+        {
+            this.nearCache.put(key, new NearEntry(value, System.currentTimeMillis()));
+        }
+    }
+
+    @Override
+    protected CacheEntry internalGet(final String key) throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final long now = System.currentTimeMillis();
+        synchronized (this.nearCache)
+        {
+            final NearEntry nearEntry = this.nearCache.get(key);
+            if (nearEntry != null && nearEntry.loadedAt + this.nearCacheTtlMs >= now)
+            {
+                this.nearCacheHitCount.incrementAndGet();
+                LOGGER.debug("Fetched key={}, class={} from near cache", key,
+                    nearEntry.entry.getCachedClass());
+                return nearEntry.entry;
+            }
+        }
+
+        final long version = this.invalidations.get();
+        final CacheEntry cacheEntry = this.fetch(key);
+
+        if (cacheEntry == null)
+        {
+            LOGGER.info("Item with key={} is not held in the cache", key);
+            this.removeNearEntry(key);
+        }
+        else
+        {
+            LOGGER.debug("Fetched key={}, class={} from store", key, cacheEntry.getCachedClass());
+            synchronized (this.nearCache)
+            {
+                if (version == this.invalidations.get())
+                {
+                    this.nearCache.put(key, new NearEntry(cacheEntry, now));
+                }
+            }
+        }
+
+        return cacheEntry;
+    }
+
+    @Override
+    protected void internalRemove(final String key, final String value)
+        throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        final CacheEntry cacheEntry = this.fetch(key);
+        if (cacheEntry != null && value.equals(cacheEntry.getValue()))
+        {
+            LOGGER.debug("Removed key={}, class={} from cache", key, cacheEntry.getCachedClass());
+            this.remove(key);
+        }
+        else
+        {
+            LOGGER.info("Item with key={} was not removed from cache as value did not match", key);
+            this.removeNearEntry(key);
+        }
+    }
+
+    private CacheEntry fetch(final String key) throws CacheAccessException
+    {
+        try
+        {
+            final byte[] record = this.store.get(key);
+            return record == null
+                ? null
+                : CacheRecords.decode(ByteBuffer.wrap(record)).getSecond();
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Failed to fetch key={} from store", key, ioe);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key,
+                AbstractCacheable.class, ioe);
+        }
+        catch (final ClassNotFoundException cnfe)
+        {
+            LOGGER.warn("Failed to restore cached entry with key={} from store", key, cnfe);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key,
+                AbstractCacheable.class, cnfe);
+        }
+        catch (final BufferUnderflowException bue)
+        {
+            LOGGER.warn("Failed to restore cached entry with key={} from store", key, bue);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key,
+                AbstractCacheable.class, bue);
+        }
+    }
+
+    private void removeNearEntry(final String key)
+    {
+        synchronized (this.nearCache)
+        {
+            this.nearCache.remove(key);
+        }
+    }
+
+    private void clearNearCache()
+    {
+        synchronized (this.nearCache)
+        {
+            this.nearCache.clear();
+        }
+    }
+
+    private static final class NearEntry
+    {
+        private final CacheEntry entry;
+        private final long loadedAt;
+
+        private NearEntry(final CacheEntry entry, final long loadedAt)
+        {
+            this.entry = entry;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public static final class Builder implements IBuilder<ICache>
+    {
+        private IJsonService jsonService;
+        private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
+            DEFAULT_CACHE_EXPIRY_LIMITS;
+        private IKeyValueStore store;
+        private long expireAfterWriteMs = DefaultOptions.CACHE_EXPIRE_AFTER_WRITE_MS;
+        private int nearCacheMaxEntries = DefaultOptions.NEAR_CACHE_MAX_ENTRIES;
+        private long nearCacheTtlMs = DefaultOptions.NEAR_CACHE_TTL_MS;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        public Builder withCacheExpiryLimits(
+            final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> val)
+        {
+            ObjectUtils.requireNonNull(val, "val");
+
+            this.cacheExpiryLimits = Collections.unmodifiableMap(
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>(val));
+            return this;
+        }
+
+        /**
+         * Specify the shared store holding the cached values.
+         *
+         * @param val key-value store (required).
+         * @return builder to continue further configuration.
+         */
+        public Builder withStore(final IKeyValueStore val)
+        {
+            this.store = val;
+            return this;
+        }
+
+        /**
+         * Specify the time to live passed to the store for each value; a duration of zero disables
+         * the limit.  Defaults to {@link DefaultOptions#CACHE_EXPIRE_AFTER_WRITE_MS}.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExpireAfterWrite(final long duration, final TimeUnit unit)
+        {
+            this.expireAfterWriteMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify the maximum number of entries held in the near cache; zero disables it.
+         * Defaults to {@link DefaultOptions#NEAR_CACHE_MAX_ENTRIES}.
+         *
+         * @param val maximum number of near cache entries.
+         * @return builder to continue further configuration.
+         */
+        public Builder withNearCacheMaxEntries(final int val)
+        {
+            this.nearCacheMaxEntries = val;
+            return this;
+        }
+
+        /**
+         * Specify how long an entry may be served from the near cache before it is read from the
+         * store again.  Defaults to {@link DefaultOptions#NEAR_CACHE_TTL_MS}.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withNearCacheTtl(final long duration, final TimeUnit unit)
+        {
+            this.nearCacheTtlMs = unit.toMillis(duration);
+            return this;
+        }
+
+        @Override
+        public DistributedCache build()
+        {
+            ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            ObjectUtils.requireNonNull(this.store, "store");
+
+            return new DistributedCache(this);
+        }
+    }
+}
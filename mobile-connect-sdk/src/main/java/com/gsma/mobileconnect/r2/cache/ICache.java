@@ -90,6 +90,19 @@ public interface ICache
      */
     void clear() throws CacheAccessException;
 
+    /**
+     * The default implementation is for caches which keep no statistics, and reports an unknown
+     * size of -1 with no recorded activity.
+     *
+     * @return a snapshot of the size of the cache and the number of hits, misses, evictions and
+     * expiries it has recorded.
+     * @throws CacheAccessException on failure to query the cache.
+     */
+    default CacheStatistics getStatistics() throws CacheAccessException
+    {
+        return new CacheStatistics(-1, 0L, 0L, 0L, 0L);
+    }
+
     /**
      * Set length of time before cached values of the specified type are marked as setExpired.
      *
@@ -0,0 +1,92 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.io.IOException;
+
+/**
+ * Service provider interface for a key-value store shared by a number of processes, for example
+ * Redis, Memcached or Hazelcast, used by {@link DistributedCache}.  Implementations must be safe
+ * for concurrent use and must notify registered listeners - including those in other processes -
+ * when a key is changed, so that near caches can be invalidated.
+ *
+ * @since 2.0
+ */
+public interface IKeyValueStore
+{
+    /**
+     * @param key to fetch.
+     * @return the value held against the key, or null if there is none or it has expired.
+     * @throws IOException on failure to reach the store.
+     */
+    byte[] get(String key) throws IOException;
+
+    /**
+     * Store a value against a key, replacing any existing value.
+     *
+     * @param key   to store against.
+     * @param value to store.
+     * @param ttlMs time after which the store may discard the value; zero for no limit.
+     * @throws IOException on failure to reach the store.
+     */
+    void put(String key, byte[] value, long ttlMs) throws IOException;
+
+    /**
+     * Remove the value held against a key.
+     *
+     * @param key to remove.
+     * @throws IOException on failure to reach the store.
+     */
+    void remove(String key) throws IOException;
+
+    /**
+     * Remove all values.
+     *
+     * @throws IOException on failure to reach the store.
+     */
+    void clear() throws IOException;
+
+    /**
+     * @return the number of values held.
+     * @throws IOException on failure to reach the store.
+     */
+    int size() throws IOException;
+
+    /**
+     * Register a listener to be notified whenever a key is changed or removed by any client of the
+     * store.
+     *
+     * @param listener to notify.
+     */
+    void addInvalidationListener(InvalidationListener listener);
+
+    /**
+     * Notified of changes to a key-value store.
+     */
+    interface InvalidationListener
+    {
+        /**
+         * @param key which was changed or removed.
+         */
+        void invalidated(String key);
+
+        /**
+         * Called when all keys have been removed.
+         */
+        void invalidatedAll();
+    }
+}
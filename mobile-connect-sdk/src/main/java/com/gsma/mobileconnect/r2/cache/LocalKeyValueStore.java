@@ -0,0 +1,131 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process implementation of {@link IKeyValueStore}, standing in for a shared store in tests
+ * and single node deployments.  Several {@link DistributedCache} instances sharing one store
+ * behave as the nodes of a fleet sharing a remote store would; values are copied in and out so
+ * callers cannot share mutable state through it.
+ *
+ * @since 2.0
+ */
+public class LocalKeyValueStore implements IKeyValueStore
+{
+    private final Map<String, Value> values = new ConcurrentHashMap<String, Value>();
+    private final List<InvalidationListener> listeners =
+        new CopyOnWriteArrayList<InvalidationListener>();
+
+    @Override
+    public byte[] get(final String key)
+    {
+        final Value value = this.values.get(key);
+        if (value == null)
+        {
+            return null;
+        }
+        else if (value.isExpired(System.currentTimeMillis()))
+        {
+            this.values.remove(key, value);
+            return null;
+        }
+        else
+        {
+            return Arrays.copyOf(value.bytes, value.bytes.length);
+        }
+    }
+
+    @Override
+    public void put(final String key, final byte[] value, final long ttlMs)
+    {
+        final long expiresAt = ttlMs > 0 ? System.currentTimeMillis() + ttlMs : Long.MAX_VALUE;
+        this.values.put(key, new Value(Arrays.copyOf(value, value.length), expiresAt));
+        this.notifyInvalidated(key);
+    }
+
+    @Override
+    public void remove(final String key)
+    {
+        if (this.values.remove(key) != null)
+        {
+            this.notifyInvalidated(key);
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        this.values.clear();
+        for (final InvalidationListener listener : this.listeners)
+        {
+            listener.invalidatedAll();
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        final long now = System.currentTimeMillis();
+        final Iterator<Value> iterator = this.values.values().iterator();
+        while (iterator.hasNext())
+        {
+            if (iterator.next().isExpired(now))
+            {
+                iterator.remove();
+            }
+        }
+        return this.values.size();
+    }
+
+    @Override
+    public void addInvalidationListener(final InvalidationListener listener)
+    {
+        this.listeners.add(listener);
+    }
+
+    private void notifyInvalidated(final String key)
+    {
+        for (final InvalidationListener listener : this.listeners)
+        {
+            listener.invalidated(key);
+        }
+    }
+
+    private static final class Value
+    {
+        private final byte[] bytes;
+        private final long expiresAt;
+
+        private Value(final byte[] bytes, final long expiresAt)
+        {
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(final long now)
+        {
+            return this.expiresAt < now;
+        }
+    }
+}
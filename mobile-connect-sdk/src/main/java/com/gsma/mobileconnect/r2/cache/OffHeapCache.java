@@ -0,0 +1,738 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Implementation of {@link ICache} which keeps serialized entries outside of the java heap, in
+ * fixed size slabs of direct memory, so that the cost of garbage collection does not grow with
+ * the number of entries held - for example the discovery responses cached against each
+ * sdkSession.  Only a small index entry per key remains on the heap.
+ * <p>
+ * Entries are appended to the current slab; a full slab is retired and a free one taken in its
+ * place.  Once every entry in a retired slab has outlived the maximum age, or has been removed,
+ * the whole slab is reclaimed and reused.  When all slabs are in use, the oldest retired slab is
+ * evicted to make room.  Object snapshots are not supported; values are always serialized.
+ *
+ * @since 2.0
+ */
+public class OffHeapCache extends AbstractCache implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapCache.class);
+
+    private final int slabSize;
+    private final int maxSlabs;
+    private final long expireAfterWriteMs;
+    private final CacheSweeper sweeper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Slot> index = new HashMap<String, Slot>();
+    private final Deque<Slab> retiredSlabs = new ArrayDeque<Slab>();
+    private final Deque<Slab> freeSlabs = new ArrayDeque<Slab>();
+    private Slab currentSlab = null;
+    private int allocatedSlabs = 0;
+
+    private OffHeapCache(final Builder builder)
+    {
+        super(builder.jsonService, builder.cacheExpiryLimits);
+
+        this.slabSize = builder.slabSize;
+        this.maxSlabs = builder.maxSlabs;
+        this.expireAfterWriteMs = builder.expireAfterWriteMs;
+
+        if (this.expireAfterWriteMs > 0 && builder.sweepIntervalMs > 0)
+        {
+            this.sweeper = new CacheSweeper(builder.sweeper, builder.sweepIntervalMs, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    OffHeapCache.this.sweep();
+                }
+            });
+        }
+        else
+        {
+            this.sweeper = null;
+        }
+
+        LOGGER.info(
+            "New instance of OffHeapCache created with slabSize={}, maxSlabs={}, expireAfterWriteMs={}, sweepIntervalMs={}",
+            this.slabSize, this.maxSlabs, this.expireAfterWriteMs, builder.sweepIntervalMs);
+    }
+
+    /**
+     * @return the number of bytes of direct memory allocated to slabs.
+     */
+    public long getAllocatedBytes()
+    {
+        this.lock.readLock().lock();
+        try
+        {
+            return (long) this.allocatedSlabs * this.slabSize;
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reclaim all slabs whose entries have outlived the maximum age.  This is run periodically by
+     * the sweeper, but may also be called directly.
+     *
+     * @return the number of entries removed.
+     */
+    public int sweep()
+    {
+        int removed = 0;
+
+        if (this.expireAfterWriteMs > 0)
+        {
+            this.lock.writeLock().lock();
+            try
+            {
+                final long now = System.currentTimeMillis();
+                removed = this.reclaimOutlived(now);
+
+                final Slab current = this.currentSlab;
+                if (current != null && current.isOutlived(now, this.expireAfterWriteMs))
+                {
+                    removed += this.purge(current, true);
+                    this.currentSlab = null;
+                    this.freeSlabs.addLast(current);
+                }
+            }
+            finally
+            {
+                this.lock.writeLock().unlock();
+            }
+        }
+
+        if (removed > 0)
+        {
+            LOGGER.debug("Swept {} entries which outlived expireAfterWriteMs={} from cache",
+                removed, this.expireAfterWriteMs);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Stops the background sweeper and releases all slabs; the direct memory is returned once the
+     * slabs are garbage collected.
+     */
+    @Override
+    public void close()
+    {
+        if (this.sweeper != null)
+        {
+            this.sweeper.close();
+        }
+
+        this.lock.writeLock().lock();
+        try
+        {
+            this.index.clear();
+            this.retiredSlabs.clear();
+            this.freeSlabs.clear();
+            this.currentSlab = null;
+            this.allocatedSlabs = 0;
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        this.lock.readLock().lock();
+        try
+        {
+            final boolean empty = this.index.isEmpty();
+
+            LOGGER.debug("Cache isEmpty={}", empty);
+
+            return empty;
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        LOGGER.debug("Clearing entire cache");
+
+        this.lock.writeLock().lock();
+        try
+        {
+            this.index.clear();
+            if (this.currentSlab != null)
+            {
+                this.retiredSlabs.addLast(this.currentSlab);
+                this.currentSlab = null;
+            }
+            for (final Slab slab : this.retiredSlabs)
+            {
+                slab.reset();
+                this.freeSlabs.addLast(slab);
+            }
+            this.retiredSlabs.clear();
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(final String key)
+    {
+        if (key != null)
+        {
+            LOGGER.debug("Removing key={} from cache", key);
+
+            this.lock.writeLock().lock();
+            try
+            {
+                final Slot slot = this.index.remove(key);
+                if (slot != null)
+                {
+                    this.release(slot);
+                }
+            }
+            finally
+            {
+                this.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    protected int internalSize()
+    {
+        this.lock.readLock().lock();
+        try
+        {
+            return this.index.size();
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected void internalAdd(final String key, final CacheEntry value)
+        throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        final ByteBuffer record = CacheRecords.encode(key, value);
+        final int length = record.remaining();
+        if (length > this.slabSize)
+        {
+            LOGGER.warn("Failed to add key={}, class={} to cache as record of {} bytes exceeds slabSize={}",
+                key, value.getCachedClass(), length, this.slabSize);
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, key,
+                value.getCachedClass(), new IllegalArgumentException(
+                String.format("Record of %d bytes exceeds slab size of %d bytes", length,
+                    this.slabSize)));
+        }
+
+        LOGGER.debug("Adding key={}, class={} to cache", key, value.getCachedClass());
+
+        this.lock.writeLock().lock();
+        try
+        {
+            if (this.currentSlab == null || this.currentSlab.remaining() < length)
+            {
+                this.rollSlab();
+            }
+
+            final Slab slab = this.currentSlab;
+            final long cachedTime = value.getCachedTime().getTime();
+            final int offset = slab.append(key, record, cachedTime);
+            final Slot previous =
+                this.index.put(key, new Slot(slab, slab.generation, offset, length, cachedTime));
+            if (previous != null)
+            {
+                this.release(previous);
+            }
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected CacheEntry internalGet(final String key) throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final Slot slot;
+        final ByteBuffer record;
+        this.lock.readLock().lock();
+        try
+        {
+            slot = this.index.get(key);
+            record = slot == null || this.isOutlived(slot) ? null : slot.read();
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
+
+        if (slot == null)
+        {
+            LOGGER.info("Item with key={} is not held in the cache", key);
+            return null;
+        }
+        else if (record == null)
+        {
+            this.removeOutlived(key, slot);
+            return null;
+        }
+
+        try
+        {
+            final CacheEntry cacheEntry = CacheRecords.decode(record).getSecond();
+
+            LOGGER.debug("Fetched key={}, class={} from cache", key, cacheEntry.getCachedClass());
+
+            return cacheEntry;
+        }
+        catch (final ClassNotFoundException cnfe)
+        {
+            this.remove(key);
+            LOGGER.warn("Failed to restore cached entry with key={}; the value has been expelled from the cache",
+                key, cnfe);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key,
+                AbstractCacheable.class, cnfe);
+        }
+        catch (final BufferUnderflowException bue)
+        {
+            this.remove(key);
+            LOGGER.warn("Failed to restore cached entry with key={}; the value has been expelled from the cache",
+                key, bue);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key,
+                AbstractCacheable.class, bue);
+        }
+    }
+
+    @Override
+    protected void internalRemove(final String key, final String value)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        this.lock.writeLock().lock();
+        try
+        {
+            final Slot slot = this.index.get(key);
+            if (slot != null && value.equals(this.readValue(slot)))
+            {
+                LOGGER.debug("Removed key={} from cache", key);
+                this.index.remove(key);
+                this.release(slot);
+            }
+            else
+            {
+                LOGGER.info("Item with key={} was not removed from cache as value did not match",
+                    key);
+            }
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private String readValue(final Slot slot)
+    {
+        try
+        {
+            return CacheRecords.decode(slot.read()).getSecond().getValue();
+        }
+        catch (final ClassNotFoundException cnfe)
+        {
+            return null;
+        }
+        catch (final BufferUnderflowException bue)
+        {
+            return null;
+        }
+    }
+
+    private boolean isOutlived(final Slot slot)
+    {
+        return this.expireAfterWriteMs > 0
+            && slot.cachedTime + this.expireAfterWriteMs < System.currentTimeMillis();
+    }
+
+    private void removeOutlived(final String key, final Slot slot)
+    {
+        this.lock.writeLock().lock();
+        try
+        {
+            if (this.index.get(key) == slot)
+            {
+                this.index.remove(key);
+                this.release(slot);
+                this.recordExpiry();
+                LOGGER.debug("Removed key={} from cache as it outlived expireAfterWriteMs={}", key,
+                    this.expireAfterWriteMs);
+            }
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire the current slab and take a free one in its place, reclaiming outlived slabs first
+     * and evicting the oldest slab if no memory is left.  Requires the write lock.
+     */
+    private void rollSlab()
+    {
+        final Slab previous = this.currentSlab;
+        this.currentSlab = null;
+        if (previous != null)
+        {
+            if (previous.live == 0)
+            {
+                previous.reset();
+                this.freeSlabs.addLast(previous);
+            }
+            else
+            {
+                this.retiredSlabs.addLast(previous);
+            }
+        }
+
+        this.reclaimOutlived(System.currentTimeMillis());
+
+        if (!this.freeSlabs.isEmpty())
+        {
+            this.currentSlab = this.freeSlabs.pollFirst();
+        }
+        else if (this.allocatedSlabs < this.maxSlabs)
+        {
+            LOGGER.debug("Allocating slab {} of maxSlabs={}", this.allocatedSlabs + 1,
+                this.maxSlabs);
+            this.currentSlab = new Slab(ByteBuffer.allocateDirect(this.slabSize));
+            this.allocatedSlabs++;
+        }
+        else
+        {
+            final Slab oldest = this.retiredSlabs.pollFirst();
+            final int evicted = this.purge(oldest, false);
+            LOGGER.debug("Evicted {} entries in the oldest slab from cache as all slabs are in use",
+                evicted);
+            this.currentSlab = oldest;
+        }
+    }
+
+    /**
+     * Reclaim retired slabs, oldest first, in which every entry has outlived the maximum age.
+     * Requires the write lock.
+     */
+    private int reclaimOutlived(final long now)
+    {
+        int removed = 0;
+
+        if (this.expireAfterWriteMs > 0)
+        {
+            while (!this.retiredSlabs.isEmpty()
+                && this.retiredSlabs.peekFirst().isOutlived(now, this.expireAfterWriteMs))
+            {
+                final Slab slab = this.retiredSlabs.pollFirst();
+                removed += this.purge(slab, true);
+                this.freeSlabs.addLast(slab);
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Remove the index entries still pointing into the slab and reset it.  Requires the write
+     * lock.
+     */
+    private int purge(final Slab slab, final boolean expired)
+    {
+        int removed = 0;
+
+        for (final String key : slab.keys)
+        {
+            final Slot slot = this.index.get(key);
+            if (slot != null && slot.slab == slab && slot.generation == slab.generation)
+            {
+                this.index.remove(key);
+                removed++;
+                if (expired)
+                {
+                    this.recordExpiry();
+                }
+                else
+                {
+                    this.recordEviction();
+                }
+            }
+        }
+        slab.reset();
+
+        return removed;
+    }
+
+    /**
+     * Release an entry which is no longer indexed, reclaiming its slab once no live entries remain.
+     * Requires the write lock.
+     */
+    private void release(final Slot slot)
+    {
+        final Slab slab = slot.slab;
+        if (slot.generation == slab.generation)
+        {
+            slab.live--;
+            if (slab.live == 0 && slab != this.currentSlab && this.retiredSlabs.remove(slab))
+            {
+                slab.reset();
+                this.freeSlabs.addLast(slab);
+            }
+        }
+    }
+
+    /**
+     * A region of direct memory to which records are appended.
+     */
+    private static final class Slab
+    {
+        private final ByteBuffer buffer;
+        private final List<String> keys = new ArrayList<String>();
+        private int generation = 0;
+        private int live = 0;
+        private long newestCachedTime = 0L;
+
+        private Slab(final ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        private int remaining()
+        {
+            return this.buffer.remaining();
+        }
+
+        private int append(final String key, final ByteBuffer record, final long cachedTime)
+        {
+            final int offset = this.buffer.position();
+            this.buffer.put(record);
+            this.keys.add(key);
+            this.live++;
+            this.newestCachedTime = Math.max(this.newestCachedTime, cachedTime);
+            return offset;
+        }
+
+        private boolean isOutlived(final long now, final long expireAfterWriteMs)
+        {
+            return !this.keys.isEmpty() && this.newestCachedTime + expireAfterWriteMs < now;
+        }
+
+        private void reset()
+        {
+            this.generation++;
+            this.buffer.clear();
+            this.keys.clear();
+            this.live = 0;
+            this.newestCachedTime = 0L;
+        }
+    }
+
+    /**
+     * Location of a record within a slab.
+     */
+    private static final class Slot
+    {
+        private final Slab slab;
+        private final int generation;
+        private final int offset;
+        private final int length;
+        private final long cachedTime;
+
+        private Slot(final Slab slab, final int generation, final int offset, final int length,
+            final long cachedTime)
+        {
+            this.slab = slab;
+            this.generation = generation;
+            this.offset = offset;
+            this.length = length;
+            this.cachedTime = cachedTime;
+        }
+
+        /**
+         * Copy the record out of direct memory.  Requires the read lock.
+         */
+        private ByteBuffer read()
+        {
+            final ByteBuffer view = this.slab.buffer.duplicate();
+            view.limit(this.offset + this.length).position(this.offset);
+
+            final ByteBuffer copy = ByteBuffer.allocate(this.length);
+            copy.put(view).flip();
+
+            return copy;
+        }
+    }
+
+    public static final class Builder implements IBuilder<ICache>
+    {
+        private IJsonService jsonService;
+        private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
+            DEFAULT_CACHE_EXPIRY_LIMITS;
+        private int slabSize = DefaultOptions.OFF_HEAP_CACHE_SLAB_SIZE_BYTES;
+        private int maxSlabs = DefaultOptions.OFF_HEAP_CACHE_MAX_SLABS;
+        private long expireAfterWriteMs = DefaultOptions.CACHE_EXPIRE_AFTER_WRITE_MS;
+        private long sweepIntervalMs = DefaultOptions.CACHE_SWEEP_INTERVAL_MS;
+        private ScheduledExecutorService sweeper;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        public Builder withCacheExpiryLimits(
+            final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> val)
+        {
+            ObjectUtils.requireNonNull(val, "val");
+
+            this.cacheExpiryLimits = Collections.unmodifiableMap(
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>(val));
+            return this;
+        }
+
+        /**
+         * Specify the size of each slab of direct memory; this is also the largest entry which can
+         * be cached.  Defaults to {@link DefaultOptions#OFF_HEAP_CACHE_SLAB_SIZE_BYTES}.
+         *
+         * @param val slab size in bytes.
+         * @return builder to continue further configuration.
+         */
+        public Builder withSlabSize(final int val)
+        {
+            this.slabSize = val;
+            return this;
+        }
+
+        /**
+         * Specify the maximum number of slabs allocated, bounding the direct memory used to
+         * slabSize * maxSlabs bytes.  Defaults to {@link DefaultOptions#OFF_HEAP_CACHE_MAX_SLABS}.
+         *
+         * @param val maximum number of slabs.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxSlabs(final int val)
+        {
+            this.maxSlabs = val;
+            return this;
+        }
+
+        /**
+         * Specify the maximum age of an entry, regardless of type, after which it is treated as
+         * absent and its memory may be reclaimed; a duration of zero disables the limit.  Defaults
+         * to {@link DefaultOptions#CACHE_EXPIRE_AFTER_WRITE_MS}.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExpireAfterWrite(final long duration, final TimeUnit unit)
+        {
+            this.expireAfterWriteMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify how often the background sweeper reclaims outlived slabs; a duration of zero
+         * disables the sweeper.  Defaults to {@link DefaultOptions#CACHE_SWEEP_INTERVAL_MS}.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withSweepInterval(final long duration, final TimeUnit unit)
+        {
+            this.sweepIntervalMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify the scheduler to run the sweeper on.  If not set, the cache creates its own
+         * single daemon thread, which is stopped by {@link OffHeapCache#close()}.
+         *
+         * @param val scheduler for the sweeper.
+         * @return builder to continue further configuration.
+         */
+        public Builder withSweeper(final ScheduledExecutorService val)
+        {
+            this.sweeper = val;
+            return this;
+        }
+
+        @Override
+        public OffHeapCache build()
+        {
+            ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            ObjectUtils.requirePositive(this.slabSize, "slabSize");
+            ObjectUtils.requirePositive(this.maxSlabs, "maxSlabs");
+
+            return new OffHeapCache(this);
+        }
+    }
+}
@@ -0,0 +1,615 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Implementation of {@link ICache} persisted to a memory-mapped file, so that a restarted process
+ * comes up with the discovery responses, provider metadata and JWKS it had cached rather than
+ * fetching them all again.  Entries keep the time they were first cached, so the expiry times
+ * configured for each {@link AbstractCacheable} type continue to apply across restarts.
+ * <p>
+ * The file is an append-only log of add and remove records, each protected by a checksum; it is
+ * replayed on start-up to rebuild an in-memory index of the latest record for each key, stopping
+ * at the first incomplete or corrupt record.  When the log is full it is compacted by rewriting
+ * only the live entries to a new file, which then replaces the old one.  The file must not be
+ * shared by more than one cache instance.  Writes reach the operating system as they are made,
+ * but are only forced to the storage device on {@link #close()}.
+ *
+ * @since 2.0
+ */
+public class PersistentCache extends AbstractCache implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentCache.class);
+
+    private static final int MAGIC = 0x4D43_4331;
+    private static final int HEADER_SIZE = 4;
+    private static final int FRAME_SIZE = 4 + 4 + 1;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final int fileSize;
+    private final long expireAfterWriteMs;
+
+    private final Map<String, Slot> index = new HashMap<String, Slot>();
+    private MappedByteBuffer log;
+    private long garbageBytes = 0L;
+
+    private PersistentCache(final Builder builder)
+    {
+        super(builder.jsonService, builder.cacheExpiryLimits);
+
+        this.file = builder.file;
+        this.fileSize = builder.fileSize;
+        this.expireAfterWriteMs = builder.expireAfterWriteMs;
+
+        try
+        {
+            this.log = this.map(this.file);
+            this.replay();
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Failed to open cache file={}", this.file, ioe);
+            throw new UncheckedIOException(ioe);
+        }
+
+        if (this.garbageBytes > this.log.position() / 2)
+        {
+            try
+            {
+                this.compact();
+            }
+            catch (final CacheAccessException cae)
+            {
+                LOGGER.warn("Failed to compact cache file={} on start-up", this.file, cae);
+            }
+        }
+
+        LOGGER.info(
+            "New instance of PersistentCache created with file={}, fileSize={}, expireAfterWriteMs={}, entries={}",
+            this.file, this.fileSize, this.expireAfterWriteMs, this.index.size());
+    }
+
+    /**
+     * Rewrite the log holding only the live entries, discarding superseded, removed and outlived
+     * records.  This is run automatically when the log is full, but may also be called directly.
+     *
+     * @throws CacheAccessException if the log could not be rewritten.
+     */
+    public synchronized void compact() throws CacheAccessException
+    {
+        final File compacted = new File(this.file.getPath() + ".compact");
+        final long now = System.currentTimeMillis();
+        int dropped = 0;
+
+        try
+        {
+            final MappedByteBuffer target = this.map(compacted);
+            target.position(HEADER_SIZE);
+
+            final Map<String, Slot> compactedIndex = new HashMap<String, Slot>();
+            for (final Map.Entry<String, Slot> entry : this.index.entrySet())
+            {
+                final Slot slot = entry.getValue();
+                if (this.isOutlived(slot, now))
+                {
+                    this.recordExpiry();
+                    dropped++;
+                }
+                else
+                {
+                    final ByteBuffer payload = slot.read(this.log);
+                    final int offset = append(target, ADD, payload);
+                    compactedIndex.put(entry.getKey(), slot.movedTo(offset));
+                }
+            }
+            terminate(target);
+            target.force();
+
+            Files.move(compacted.toPath(), this.file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            this.log = target;
+            this.index.clear();
+            this.index.putAll(compactedIndex);
+            this.garbageBytes = 0L;
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Failed to compact cache file={}", this.file, ioe);
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, this.file.getPath(),
+                AbstractCacheable.class, ioe);
+        }
+
+        LOGGER.debug("Compacted cache file={}, entries={}, dropped={}, used={} bytes", this.file,
+            this.index.size(), dropped, this.log.position());
+    }
+
+    /**
+     * Forces outstanding writes to the storage device.  The cache must not be used once closed.
+     */
+    @Override
+    public synchronized void close()
+    {
+        this.log.force();
+    }
+
+    @Override
+    public synchronized boolean isEmpty()
+    {
+        final boolean empty = this.index.isEmpty();
+
+        LOGGER.debug("Cache isEmpty={}", empty);
+
+        return empty;
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        LOGGER.debug("Clearing entire cache");
+
+        this.index.clear();
+        this.garbageBytes = 0L;
+        this.log.position(HEADER_SIZE);
+        terminate(this.log);
+    }
+
+    @Override
+    public synchronized void remove(final String key) throws CacheAccessException
+    {
+        if (key != null)
+        {
+            LOGGER.debug("Removing key={} from cache", key);
+
+            this.removeSlot(key);
+        }
+    }
+
+    @Override
+    protected synchronized int internalSize()
+    {
+        return this.index.size();
+    }
+
+    @Override
+    protected synchronized void internalAdd(final String key, final CacheEntry value)
+        throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        LOGGER.debug("Adding key={}, class={} to cache", key, value.getCachedClass());
+
+        final ByteBuffer payload = CacheRecords.encode(key, value);
+        this.ensureCapacity(key, value.getCachedClass(), payload.remaining());
+
+        final int offset = append(this.log, ADD, payload);
+        terminate(this.log);
+
+        final Slot previous = this.index.put(key, new Slot(offset, payload.capacity(),
+            value.getCachedTime().getTime()));
+        if (previous != null)
+        {
+            this.garbageBytes += FRAME_SIZE + previous.length;
+        }
+    }
+
+    @Override
+    protected synchronized CacheEntry internalGet(final String key) throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final Slot slot = this.index.get(key);
+        if (slot == null)
+        {
+            LOGGER.info("Item with key={} is not held in the cache", key);
+            return null;
+        }
+        else if (this.isOutlived(slot, System.currentTimeMillis()))
+        {
+            LOGGER.debug("Removing key={} from cache as it outlived expireAfterWriteMs={}", key,
+                this.expireAfterWriteMs);
+            this.removeSlot(key);
+            this.recordExpiry();
+            return null;
+        }
+
+        try
+        {
+            final CacheEntry cacheEntry = CacheRecords.decode(slot.read(this.log)).getSecond();
+
+            LOGGER.debug("Fetched key={}, class={} from cache", key, cacheEntry.getCachedClass());
+
+            return cacheEntry;
+        }
+        catch (final ClassNotFoundException cnfe)
+        {
+            this.removeSlot(key);
+            LOGGER.warn("Failed to restore cached entry with key={}; the value has been expelled from the cache",
+                key, cnfe);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key,
+                AbstractCacheable.class, cnfe);
+        }
+    }
+
+    @Override
+    protected synchronized void internalRemove(final String key, final String value)
+        throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        final Slot slot = this.index.get(key);
+        String cached = null;
+        if (slot != null)
+        {
+            try
+            {
+                cached = CacheRecords.decode(slot.read(this.log)).getSecond().getValue();
+            }
+            catch (final ClassNotFoundException cnfe)
+            {
+                cached = null;
+            }
+        }
+
+        if (value.equals(cached))
+        {
+            LOGGER.debug("Removed key={} from cache", key);
+            this.removeSlot(key);
+        }
+        else
+        {
+            LOGGER.info("Item with key={} was not removed from cache as value did not match", key);
+        }
+    }
+
+    private void removeSlot(final String key) throws CacheAccessException
+    {
+        final Slot slot = this.index.remove(key);
+        if (slot != null)
+        {
+            final ByteBuffer payload = ByteBuffer.wrap(key.getBytes(UTF8));
+            this.ensureCapacity(key, AbstractCacheable.class, payload.remaining());
+
+            append(this.log, REMOVE, payload);
+            terminate(this.log);
+            this.garbageBytes += FRAME_SIZE + slot.length + FRAME_SIZE + payload.capacity();
+        }
+    }
+
+    private void ensureCapacity(final String key, final Class<? extends AbstractCacheable> clazz,
+        final int payloadLength) throws CacheAccessException
+    {
+        final int required = FRAME_SIZE + payloadLength + 4;
+        if (this.log.remaining() < required)
+        {
+            this.compact();
+        }
+        if (this.log.remaining() < required)
+        {
+            LOGGER.warn("Failed to write key={}, class={} to cache as file={} is full", key, clazz,
+                this.file);
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, key, clazz,
+                new IOException(String.format("Cache file %s of %d bytes is full", this.file,
+                    this.fileSize)));
+        }
+    }
+
+    private boolean isOutlived(final Slot slot, final long now)
+    {
+        return this.expireAfterWriteMs > 0 && slot.cachedTime + this.expireAfterWriteMs < now;
+    }
+
+    private MappedByteBuffer map(final File target) throws IOException
+    {
+        final RandomAccessFile raf = new RandomAccessFile(target, "rw");
+        try
+        {
+            final boolean created = raf.length() == 0;
+            if (raf.length() < this.fileSize)
+            {
+                raf.setLength(this.fileSize);
+            }
+
+            final MappedByteBuffer buffer =
+                raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, this.fileSize);
+            if (created || buffer.getInt(0) != MAGIC)
+            {
+                if (!created)
+                {
+                    LOGGER.warn("Cache file={} is not recognised and will be overwritten", target);
+                }
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(HEADER_SIZE, 0);
+            }
+            return buffer;
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * Rebuild the index from the log, leaving the log positioned after the last valid record.
+     */
+    private void replay()
+    {
+        final long now = System.currentTimeMillis();
+        int position = HEADER_SIZE;
+        int records = 0;
+
+        while (position + FRAME_SIZE + 4 <= this.fileSize)
+        {
+            final int length = this.log.getInt(position);
+            if (length <= 0 || position + FRAME_SIZE + length + 4 > this.fileSize)
+            {
+                break;
+            }
+
+            final int checksum = this.log.getInt(position + 4);
+            final byte type = this.log.get(position + 8);
+            final ByteBuffer payload = slice(this.log, position + FRAME_SIZE, length);
+            if (checksum != checksum(type, payload.duplicate()))
+            {
+                LOGGER.warn("Cache file={} holds a corrupt record at position={}; discarding the rest of the log",
+                    this.file, position);
+                break;
+            }
+
+            try
+            {
+                this.replayRecord(type, payload, position + FRAME_SIZE, now);
+            }
+            catch (final BufferUnderflowException bue)
+            {
+                LOGGER.warn("Cache file={} holds a malformed record at position={}; discarding the rest of the log",
+                    this.file, position, bue);
+                break;
+            }
+            catch (final ClassNotFoundException cnfe)
+            {
+                LOGGER.info("Skipping cached record of unknown class at position={} in file={}",
+                    position, this.file);
+                this.garbageBytes += FRAME_SIZE + length;
+            }
+
+            position += FRAME_SIZE + length;
+            records++;
+        }
+
+        this.log.position(position);
+        terminate(this.log);
+
+        LOGGER.debug("Replayed {} records from cache file={}, entries={}", records, this.file,
+            this.index.size());
+    }
+
+    private void replayRecord(final byte type, final ByteBuffer payload, final int offset,
+        final long now) throws ClassNotFoundException
+    {
+        final int length = payload.remaining();
+        if (type == ADD)
+        {
+            final Tuple<String, CacheEntry> record = CacheRecords.decode(payload);
+            final Slot slot =
+                new Slot(offset, length, record.getSecond().getCachedTime().getTime());
+            final Slot previous = this.index.put(record.getFirst(), slot);
+            if (previous != null)
+            {
+                this.garbageBytes += FRAME_SIZE + previous.length;
+            }
+            if (this.isOutlived(slot, now))
+            {
+                this.index.remove(record.getFirst());
+                this.garbageBytes += FRAME_SIZE + length;
+            }
+        }
+        else if (type == REMOVE)
+        {
+            final Slot previous = this.index.remove(new String(toArray(payload), UTF8));
+            this.garbageBytes += FRAME_SIZE + length;
+            if (previous != null)
+            {
+                this.garbageBytes += FRAME_SIZE + previous.length;
+            }
+        }
+    }
+
+    private static int append(final ByteBuffer target, final byte type, final ByteBuffer payload)
+    {
+        final int length = payload.remaining();
+        target.putInt(length);
+        target.putInt(checksum(type, payload.duplicate()));
+        target.put(type);
+
+        final int offset = target.position();
+        target.put(payload);
+
+        return offset;
+    }
+
+    /**
+     * Mark the end of the log at the current position, without moving it.
+     */
+    private static void terminate(final ByteBuffer target)
+    {
+        if (target.remaining() >= 4)
+        {
+            target.putInt(target.position(), 0);
+        }
+    }
+
+    private static int checksum(final byte type, final ByteBuffer payload)
+    {
+        final CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(toArray(payload));
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer slice(final ByteBuffer source, final int offset, final int length)
+    {
+        final ByteBuffer view = source.duplicate();
+        view.limit(offset + length).position(offset);
+        return view.slice();
+    }
+
+    private static byte[] toArray(final ByteBuffer buffer)
+    {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Location of the latest record for a key within the log.
+     */
+    private static final class Slot
+    {
+        private final int offset;
+        private final int length;
+        private final long cachedTime;
+
+        private Slot(final int offset, final int length, final long cachedTime)
+        {
+            this.offset = offset;
+            this.length = length;
+            this.cachedTime = cachedTime;
+        }
+
+        private ByteBuffer read(final ByteBuffer log)
+        {
+            return ByteBuffer.wrap(toArray(slice(log, this.offset, this.length)));
+        }
+
+        private Slot movedTo(final int offset)
+        {
+            return new Slot(offset, this.length, this.cachedTime);
+        }
+    }
+
+    public static final class Builder implements IBuilder<ICache>
+    {
+        private IJsonService jsonService;
+        private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
+            DEFAULT_CACHE_EXPIRY_LIMITS;
+        private File file;
+        private int fileSize = DefaultOptions.PERSISTENT_CACHE_FILE_SIZE_BYTES;
+        private long expireAfterWriteMs = DefaultOptions.CACHE_EXPIRE_AFTER_WRITE_MS;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        public Builder withCacheExpiryLimits(
+            final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> val)
+        {
+            ObjectUtils.requireNonNull(val, "val");
+
+            this.cacheExpiryLimits = Collections.unmodifiableMap(
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>(val));
+            return this;
+        }
+
+        /**
+         * Specify the file holding the cache; it is created if it does not exist.
+         *
+         * @param val cache file (required).
+         * @return builder to continue further configuration.
+         */
+        public Builder withFile(final File val)
+        {
+            this.file = val;
+            return this;
+        }
+
+        /**
+         * Specify the size of the memory-mapped cache file.  Defaults to {@link
+         * DefaultOptions#PERSISTENT_CACHE_FILE_SIZE_BYTES}.
+         *
+         * @param val file size in bytes.
+         * @return builder to continue further configuration.
+         */
+        public Builder withFileSize(final int val)
+        {
+            this.fileSize = val;
+            return this;
+        }
+
+        /**
+         * Specify the maximum age of an entry, regardless of type, after which it is treated as
+         * absent and is dropped on compaction or restart; a duration of zero disables the limit.
+         * Defaults to {@link DefaultOptions#CACHE_EXPIRE_AFTER_WRITE_MS}.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExpireAfterWrite(final long duration, final TimeUnit unit)
+        {
+            this.expireAfterWriteMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * @throws UncheckedIOException if the cache file cannot be opened.
+         */
+        @Override
+        public PersistentCache build()
+        {
+            ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            ObjectUtils.requireNonNull(this.file, "file");
+            ObjectUtils.requirePositive(this.fileSize - HEADER_SIZE - FRAME_SIZE, "fileSize");
+
+            return new PersistentCache(this);
+        }
+    }
+}
@@ -42,11 +42,33 @@ public final class DefaultOptions
     public static final String GRANT_TYPE_AUTH_CODE = "authorization_code";
     public static final String GRANT_TYPE_REFRESH_TOKEN = "refresh_token";
     public static final long PROVIDER_METADATA_TTL_MS = TimeUnit.SECONDS.toMillis(9L);
+    public static final long PROVIDER_METADATA_MAX_TTL_MS = TimeUnit.DAYS.toMillis(1L);
+    public static final int CACHE_MAX_ENTRIES = 10000;
+    public static final long CACHE_EXPIRE_AFTER_WRITE_MS = TimeUnit.DAYS.toMillis(1L);
+    public static final long CACHE_SWEEP_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1L);
+    public static final int CACHE_CONCURRENCY_LEVEL = 16;
+    public static final int CACHE_MIN_SEGMENT_ENTRIES = 64;
+    public static final int OFF_HEAP_CACHE_SLAB_SIZE_BYTES = 4 * 1024 * 1024;
+    public static final int OFF_HEAP_CACHE_MAX_SLABS = 64;
+    public static final int PERSISTENT_CACHE_FILE_SIZE_BYTES = 64 * 1024 * 1024;
+    public static final int NEAR_CACHE_MAX_ENTRIES = 1000;
+    public static final long NEAR_CACHE_TTL_MS = TimeUnit.SECONDS.toMillis(30L);
+    public static final int TOKEN_VALIDATION_CACHE_MAX_ENTRIES = 10000;
+    public static final long JWKS_MIN_REFETCH_INTERVAL_MS = TimeUnit.SECONDS.toMillis(10L);
+    public static final long JWKS_UNKNOWN_KEY_ID_TTL_MS = TimeUnit.MINUTES.toMillis(1L);
     public static final String VERSION_MOBILECONNECT = MC_V1_1;
     public static final String VERSION_MOBILECONNECTAUTHN = MC_V1_1;
     public static final String VERSION_MOBILECONNECTAUTHZ = MC_V1_2;
     public static final String VERSION_MOBILECONNECTIDENTITY = MC_V1_2;
     public static final int THREAD_POOL_SIZE = 100;
+    public static final int THREAD_POOL_QUEUE_SIZE = 1000;
+    public static final int WARM_UP_MAX_CONCURRENCY = 4;
+    public static final int TIMEOUT_SCHEDULER_POOL_SIZE = 1;
+    public static final int HTTP_MAX_CONNECTIONS_PER_ROUTE = 50;
+    public static final int HTTP_MAX_CONNECTIONS_TOTAL = 200;
+    public static final long HTTP_KEEP_ALIVE_MS = TimeUnit.SECONDS.toMillis(30L);
+    public static final long HTTP_IDLE_CONNECTION_EVICTION_MS = TimeUnit.SECONDS.toMillis(60L);
+    public static final boolean HTTP_STATELESS_CONNECTION_REUSE = true;
 
     public static final String PROMPT = "mobile";
     public static final String X_REDIRECT_VALUE = "APP";
@@ -68,6 +68,24 @@ public class DiscoveryResponse extends AbstractCacheable
         }
     }
 
+    private DiscoveryResponse(final DiscoveryResponse source)
+    {
+        this.ttl = source.ttl;
+        this.responseCode = source.responseCode;
+        this.headers = ListUtils.copyOf(source.headers);
+        this.errorResponse = source.errorResponse;
+        this.responseData = new DiscoveryResponseData.Builder(source.responseData).build();
+        this.providerMetadata =
+            source.providerMetadata == null ? null : source.providerMetadata.snapshot();
+        this.operatorUrls = OperatorUrls.fromDiscoveryResponse(this.responseData);
+        this.clientName = source.clientName;
+
+        if (this.providerMetadata != null)
+        {
+            this.operatorUrls.override(this.providerMetadata);
+        }
+    }
+
     /**
      * Convenience method that builds a {@link DiscoveryResponse} from a {@link RestResponse}.
      *
@@ -228,6 +246,13 @@ public class DiscoveryResponse extends AbstractCacheable
     protected void cached()
     {
         this.responseData.clearSubscriberId();
+        cachedWith(this.providerMetadata);
+    }
+
+    @Override
+    protected DiscoveryResponse snapshot()
+    {
+        return new DiscoveryResponse(this);
     }
 
     public static final class Builder implements IBuilder<DiscoveryResponse>
@@ -16,8 +16,10 @@
  */
 package com.gsma.mobileconnect.r2.discovery;
 
+import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
 import com.gsma.mobileconnect.r2.cache.ICache;
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
 import com.gsma.mobileconnect.r2.constants.LinkRels;
 import com.gsma.mobileconnect.r2.constants.Parameters;
 import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
@@ -31,20 +33,38 @@ import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
 import com.gsma.mobileconnect.r2.utils.*;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Concrete implementation of {@link IDiscoveryService}
+ * <p>
+ * Concurrent discovery requests for the same client and operator (MCC/MNC) which miss the cache
+ * share a single call to the discovery endpoint.  If stale-while-revalidate is configured for
+ * {@link DiscoveryResponse} or {@link ProviderMetadata}, expired cached values are served within
+ * their grace period while they are refreshed in the background.
  *
  * @since 2.0
  */
@@ -61,6 +81,14 @@ public class DiscoveryService implements IDiscoveryService
     private final IJsonService jsonService;
     private final IRestClient restClient;
     private final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+    private final ExecutorService executorService;
+
+    private final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> staleLimits;
+
+    private final ConcurrentMap<String, DiscoveryFetch> inFlight =
+            new ConcurrentHashMap<String, DiscoveryFetch>();
+    private final Set<String> revalidating =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     private DiscoveryService(final Builder builder)
     {
@@ -68,6 +96,9 @@ public class DiscoveryService implements IDiscoveryService
         this.jsonService = builder.jsonService;
         this.restClient = builder.restClient;
         this.iMobileConnectEncodeDecoder = builder.iMobileConnectEncodeDecoder;
+        this.executorService = builder.executorService;
+        this.staleLimits =
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>(builder.staleLimits);
 
         LOGGER.info("New instance of DiscoveryService created");
     }
@@ -128,8 +159,16 @@ public class DiscoveryService implements IDiscoveryService
                                                                           final String clientSecret, final URI discoveryUrl, final URI redirectUrl,
                                                                           final DiscoveryOptions options, final Iterable<KeyValuePair> currentCookies)
     {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<DiscoveryResponse> discoveryResponseFuture = executorService.submit(new Callable<DiscoveryResponse>()
+        return this.startAutomatedOperatorDiscoveryStage(clientId, clientSecret, discoveryUrl,
+                redirectUrl, options, currentCookies).toCompletableFuture();
+    }
+
+    @Override
+    public CompletionStage<DiscoveryResponse> startAutomatedOperatorDiscoveryStage(final String clientId,
+                                                                          final String clientSecret, final URI discoveryUrl, final URI redirectUrl,
+                                                                          final DiscoveryOptions options, final Iterable<KeyValuePair> currentCookies)
+    {
+        return ExecutorUtils.supplyAsync(new Callable<DiscoveryResponse>()
         {
             @Override
             public DiscoveryResponse call() throws Exception
@@ -137,19 +176,26 @@ public class DiscoveryService implements IDiscoveryService
                 return DiscoveryService.this.startAutomatedOperatorDiscovery(clientId, clientSecret,
                         discoveryUrl, redirectUrl, options, currentCookies);
             }
-        });
-        executorService.shutdownNow();
-        return discoveryResponseFuture;
+        }, this.executorService);
     }
 
     @Override
     public Future<DiscoveryResponse> startAutomatedOperatorDiscoveryAsync(
             final IPreferences preferences, final URI redirectUrl, final DiscoveryOptions options,
             final Iterable<KeyValuePair> currentCookies)
+    {
+        return this.startAutomatedOperatorDiscoveryStage(preferences, redirectUrl, options,
+                currentCookies).toCompletableFuture();
+    }
+
+    @Override
+    public CompletionStage<DiscoveryResponse> startAutomatedOperatorDiscoveryStage(
+            final IPreferences preferences, final URI redirectUrl, final DiscoveryOptions options,
+            final Iterable<KeyValuePair> currentCookies)
     {
         ObjectUtils.requireNonNull(preferences, ARG_PREFERENCES);
 
-        return this.startAutomatedOperatorDiscoveryAsync(preferences.getClientId(),
+        return this.startAutomatedOperatorDiscoveryStage(preferences.getClientId(),
                 preferences.getClientSecret(), preferences.getDiscoveryUrl(), redirectUrl, options,
                 currentCookies);
     }
@@ -165,47 +211,32 @@ public class DiscoveryService implements IDiscoveryService
         ObjectUtils.requireNonNull(options, "options");
         ObjectUtils.requireNonNull(options.getRedirectUrl(), "options.redirectUrl");
 
-        DiscoveryResponse cachedDiscoveryResponse = fetchCachedDiscoveryResponse(options, useCache);
+        final String inFlightKey = inFlightKey(clientId, options, useCache);
+        final DiscoveryResponse cachedDiscoveryResponse =
+                this.discardIfTooStale(fetchCachedDiscoveryResponse(options, useCache));
 
         DiscoveryResponse discoveryResponse;
-        final String correlationId = UUID.randomUUID().toString();
+        String correlationId = UUID.randomUUID().toString();
 
         if (cachedDiscoveryResponse != null && !cachedDiscoveryResponse.hasExpired())
         {
             discoveryResponse = cachedDiscoveryResponse;
         }
+        else if (cachedDiscoveryResponse != null && inFlightKey != null
+                && this.isWithinGrace(cachedDiscoveryResponse))
+        {
+            LOGGER.debug("Serving stale discovery response while revalidating key={}", inFlightKey);
+            this.revalidateInBackground(inFlightKey, clientId, clientSecret, discoveryUrl, options,
+                    currentCookies, cachedDiscoveryResponse);
+            discoveryResponse = cachedDiscoveryResponse;
+        }
         else
         {
-            final Iterable<KeyValuePair> cookies =
-                    HttpUtils.proxyRequired(REQUIRED_COOKIES, currentCookies);
-            final RestAuthentication authentication =
-                    RestAuthentication.basic(clientId, clientSecret, iMobileConnectEncodeDecoder);
-            final List<KeyValuePair> queryParams = this.extractQueryParams(options);
-            if (options.getUsingCorrelationId()) {
-                queryParams.add(new KeyValuePair(Parameters.CORRELATION_ID, correlationId));
-            }
-
-            RestResponse restResponse = null;
-
-            try
-            {
-                restResponse = StringUtils.isNullOrEmpty(options.getMsisdn())
-                        ? this.restClient.getDiscovery(discoveryUrl, authentication, options.getXRedirect(),
-                        options.getClientIp(), queryParams, cookies)
-                        : this.restClient.postDiscoveryFormData(discoveryUrl, authentication, options.getXRedirect(),
-                        queryParams, options.getClientIp(), cookies);
-            }
-            catch (final RequestFailedException e)
-            {
-                LOGGER.warn("Failed to perform fetch of discovery response", e);
-                if (cachedDiscoveryResponse == null)
-                {
-                    throw e;
-                }
-            }
-            discoveryResponse = convertFromRestResponse(restResponse, cachedDiscoveryResponse);
-
-            this.addCachedDiscoveryResponse(options, discoveryResponse);
+            final DiscoveryFetch fetch = this.fetchDiscoveryResponse(inFlightKey, clientId,
+                    clientSecret, discoveryUrl, options, currentCookies, cachedDiscoveryResponse,
+                    correlationId, useCache);
+            correlationId = fetch.correlationId;
+            discoveryResponse = awaitDiscovery(discoveryUrl, fetch);
         }
 
         if (discoveryResponse == null && cachedDiscoveryResponse != null)
@@ -214,8 +245,15 @@ public class DiscoveryService implements IDiscoveryService
                     "Falling back to expired cached instance of discovery response due to previous error");
             discoveryResponse = cachedDiscoveryResponse;
         }
+        if (discoveryResponse == null)
+        {
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, discoveryUrl, null);
+        }
 
-        updateWithProviderMetadata(discoveryResponse, useCache);
+        if (discoveryResponse == cachedDiscoveryResponse)
+        {
+            this.refreshProviderMetadata(discoveryResponse, useCache);
+        }
 
         if (discoveryResponse.getErrorResponse() != null)
         {
@@ -246,6 +284,276 @@ public class DiscoveryService implements IDiscoveryService
         }
     }
 
+    /**
+     * Call the discovery endpoint, unless a call for the same inFlightKey is already in flight, in
+     * which case that call is shared.
+     *
+     * @return the completed call, or the call in flight to wait on.
+     */
+    private DiscoveryFetch fetchDiscoveryResponse(final String inFlightKey, final String clientId,
+                                                  final String clientSecret, final URI discoveryUrl, final DiscoveryOptions options,
+                                                  final Iterable<KeyValuePair> currentCookies, final DiscoveryResponse cachedDiscoveryResponse,
+                                                  final String correlationId, final boolean useCache)
+    {
+        final DiscoveryFetch fetch = new DiscoveryFetch(correlationId);
+        final DiscoveryFetch existing =
+                inFlightKey == null ? null : this.inFlight.putIfAbsent(inFlightKey, fetch);
+        if (existing != null)
+        {
+            LOGGER.debug("Joining in flight discovery request for key={}", inFlightKey);
+            return existing;
+        }
+
+        try
+        {
+            final DiscoveryResponse discoveryResponse = this.requestDiscoveryResponse(clientId,
+                    clientSecret, discoveryUrl, options, currentCookies, cachedDiscoveryResponse,
+                    correlationId, useCache);
+            // if the call failed, requests waiting on it fall back to the same instance
+            fetch.response.complete(discoveryResponse == null
+                    ? cachedDiscoveryResponse : discoveryResponse);
+        }
+        catch (final RequestFailedException rfe)
+        {
+            fetch.response.completeExceptionally(rfe);
+        }
+        catch (final InvalidResponseException ire)
+        {
+            fetch.response.completeExceptionally(ire);
+        }
+        catch (final RuntimeException re)
+        {
+            fetch.response.completeExceptionally(re);
+        }
+        finally
+        {
+            if (inFlightKey != null)
+            {
+                this.inFlight.remove(inFlightKey, fetch);
+            }
+        }
+        return fetch;
+    }
+
+    private void revalidateInBackground(final String inFlightKey, final String clientId,
+                                        final String clientSecret, final URI discoveryUrl, final DiscoveryOptions options,
+                                        final Iterable<KeyValuePair> currentCookies, final DiscoveryResponse cachedDiscoveryResponse)
+    {
+        if (this.inFlight.containsKey(inFlightKey) || !this.revalidating.add(inFlightKey))
+        {
+            return;
+        }
+        this.runInBackground(inFlightKey, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    awaitDiscovery(discoveryUrl, DiscoveryService.this.fetchDiscoveryResponse(
+                            inFlightKey, clientId, clientSecret, discoveryUrl, options, currentCookies,
+                            cachedDiscoveryResponse, UUID.randomUUID().toString(), true));
+                }
+                catch (final Exception e)
+                {
+                    LOGGER.warn("Failed to revalidate discovery response for key={}", inFlightKey, e);
+                }
+            }
+        });
+    }
+
+    private void revalidateInBackground(final URI url, final ProviderMetadata cached)
+    {
+        final String key = url.toString();
+        if (!this.revalidating.add(key))
+        {
+            return;
+        }
+        this.runInBackground(key, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                DiscoveryService.this.fetchProviderMetadata(url, cached);
+            }
+        });
+    }
+
+    /**
+     * Run a revalidation on the executor, releasing its key from {@link #revalidating} once it has
+     * finished.
+     */
+    private void runInBackground(final String key, final Runnable revalidation)
+    {
+        try
+        {
+            this.executorService.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        revalidation.run();
+                    }
+                    finally
+                    {
+                        DiscoveryService.this.revalidating.remove(key);
+                    }
+                }
+            });
+        }
+        catch (final RejectedExecutionException ree)
+        {
+            this.revalidating.remove(key);
+            LOGGER.warn("Unable to schedule revalidation of key={}", key, ree);
+        }
+    }
+
+    /**
+     * @return true if value has expired but is within the grace period configured for its class,
+     * during which it is served while it is revalidated in the background.
+     */
+    private boolean isWithinGrace(final AbstractCacheable value)
+    {
+        final Tuple<Long, Long> limits = this.staleLimits.get(value.getClass());
+        return limits != null && value.hasExpired()
+                && System.currentTimeMillis() - value.getExpiredTime() <= limits.getFirst();
+    }
+
+    /**
+     * @return value, or null if it expired longer ago than the max-stale period configured for its
+     * class, in which case it may not even be used as a fallback.
+     */
+    private <T extends AbstractCacheable> T discardIfTooStale(final T value)
+    {
+        if (value == null || !value.hasExpired())
+        {
+            return value;
+        }
+        final Tuple<Long, Long> limits = this.staleLimits.get(value.getClass());
+        if (limits != null && System.currentTimeMillis() - value.getExpiredTime() > limits.getSecond())
+        {
+            LOGGER.debug("Discarding cached instance of class={} which is past its max-stale period",
+                    value.getClass());
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * @return true if expired values of the class are to be left in the cache, to be served
+     * stale or used as a fallback.
+     */
+    private boolean keepsStale(final Class<? extends AbstractCacheable> clazz)
+    {
+        return this.staleLimits.containsKey(clazz);
+    }
+
+    /**
+     * Call the discovery endpoint and add the response to the cache, along with the provider
+     * metadata it is bound to.
+     *
+     * @return the discovery response, or null if the call failed and cachedDiscoveryResponse
+     * should be used instead.
+     */
+    private DiscoveryResponse requestDiscoveryResponse(final String clientId,
+                                                       final String clientSecret, final URI discoveryUrl, final DiscoveryOptions options,
+                                                       final Iterable<KeyValuePair> currentCookies, final DiscoveryResponse cachedDiscoveryResponse,
+                                                       final String correlationId, final boolean useCache)
+            throws RequestFailedException, InvalidResponseException
+    {
+        final Iterable<KeyValuePair> cookies =
+                HttpUtils.proxyRequired(REQUIRED_COOKIES, currentCookies);
+        final RestAuthentication authentication =
+                RestAuthentication.basic(clientId, clientSecret, iMobileConnectEncodeDecoder);
+        final List<KeyValuePair> queryParams = this.extractQueryParams(options);
+        if (options.getUsingCorrelationId()) {
+            queryParams.add(new KeyValuePair(Parameters.CORRELATION_ID, correlationId));
+        }
+
+        RestResponse restResponse = null;
+
+        try
+        {
+            restResponse = StringUtils.isNullOrEmpty(options.getMsisdn())
+                    ? this.restClient.getDiscovery(discoveryUrl, authentication, options.getXRedirect(),
+                    options.getClientIp(), queryParams, cookies)
+                    : this.restClient.postDiscoveryFormData(discoveryUrl, authentication, options.getXRedirect(),
+                    queryParams, options.getClientIp(), cookies);
+        }
+        catch (final RequestFailedException e)
+        {
+            LOGGER.warn("Failed to perform fetch of discovery response", e);
+            if (cachedDiscoveryResponse == null)
+            {
+                throw e;
+            }
+            return null;
+        }
+        final DiscoveryResponse discoveryResponse =
+                convertFromRestResponse(restResponse, cachedDiscoveryResponse);
+
+        if (discoveryResponse != null)
+        {
+            updateWithProviderMetadata(discoveryResponse, useCache);
+            this.addCachedDiscoveryResponse(options, discoveryResponse);
+        }
+        return discoveryResponse;
+    }
+
+    /**
+     * Key under which concurrent discovery requests share a single call to the discovery endpoint,
+     * the cache key qualified by the client.  Requests which do not use the cache, or which are
+     * for a specific subscriber, are not shared.
+     *
+     * @return the key, or null if the request should not be shared.
+     */
+    private static String inFlightKey(final String clientId, final DiscoveryOptions options,
+                                      final boolean useCache)
+    {
+        if (!useCache || !StringUtils.isNullOrEmpty(options.getMsisdn()))
+        {
+            return null;
+        }
+        final String key = concatKey(
+                ObjectUtils.defaultIfNull(options.getIdentifiedMcc(), options.getSelectedMcc()),
+                ObjectUtils.defaultIfNull(options.getIdentifiedMnc(), options.getSelectedMnc()));
+        return key == null ? null : clientId + ":" + key;
+    }
+
+    private static DiscoveryResponse awaitDiscovery(final URI discoveryUrl,
+                                                    final DiscoveryFetch fetch)
+            throws RequestFailedException, InvalidResponseException
+    {
+        try
+        {
+            return fetch.response.get();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, discoveryUrl, ie);
+        }
+        catch (final ExecutionException ee)
+        {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof RequestFailedException)
+            {
+                throw (RequestFailedException) cause;
+            }
+            if (cause instanceof InvalidResponseException)
+            {
+                throw (InvalidResponseException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, discoveryUrl, cause);
+        }
+    }
+
     private DiscoveryResponse convertFromRestResponse(RestResponse restResponse,
                                                       DiscoveryResponse cachedDiscoveryResponse) throws InvalidResponseException
     {
@@ -276,6 +584,20 @@ public class DiscoveryService implements IDiscoveryService
         }
     }
 
+    /**
+     * Retrieve the provider metadata for a cached discovery response only if the metadata bound to
+     * it when it was cached is missing or has expired.
+     */
+    private void refreshProviderMetadata(final DiscoveryResponse discoveryResponse,
+                                         final boolean useCache)
+    {
+        final ProviderMetadata providerMetadata = discoveryResponse.getProviderMetadata();
+        if (providerMetadata == null || providerMetadata.hasExpired())
+        {
+            updateWithProviderMetadata(discoveryResponse, useCache);
+        }
+    }
+
     private DiscoveryResponse fetchCachedDiscoveryResponse(final DiscoveryOptions options,
                                                            final boolean useCache)
     {
@@ -302,7 +624,8 @@ public class DiscoveryService implements IDiscoveryService
         final String mnc =
                 ObjectUtils.defaultIfNull(options.getIdentifiedMnc(), options.getSelectedMnc());
         return this.cache != null
-                ? this.cache.get(concatKey(mcc, mnc), DiscoveryResponse.class)
+                ? this.cache.get(concatKey(mcc, mnc), DiscoveryResponse.class,
+                !this.keepsStale(DiscoveryResponse.class))
                 : null;
     }
 
@@ -373,13 +696,20 @@ public class DiscoveryService implements IDiscoveryService
     @Override
     public Future<DiscoveryResponse> getOperatorSelectionURLAsync(final String clientId,
                                                                   final String clientSecret, final URI discoveryUrl, final URI redirectUrl)
+    {
+        return this.getOperatorSelectionURLStage(clientId, clientSecret, discoveryUrl,
+                redirectUrl).toCompletableFuture();
+    }
+
+    @Override
+    public CompletionStage<DiscoveryResponse> getOperatorSelectionURLStage(final String clientId,
+                                                                  final String clientSecret, final URI discoveryUrl, final URI redirectUrl)
     {
         StringUtils.requireNonEmpty(clientId, "clientId");
         StringUtils.requireNonEmpty(clientSecret, "clientSecret");
         ObjectUtils.requireNonNull(discoveryUrl, "discoveryUrl");
         ObjectUtils.requireNonNull(redirectUrl, "redirectUrl");
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<DiscoveryResponse> discoveryResponseFuture = executorService.submit(new Callable<DiscoveryResponse>()
+        return ExecutorUtils.supplyAsync(new Callable<DiscoveryResponse>()
         {
             @Override
             public DiscoveryResponse call() throws Exception
@@ -387,18 +717,23 @@ public class DiscoveryService implements IDiscoveryService
                 return DiscoveryService.this.getOperatorSelectionURL(clientId, clientSecret,
                         discoveryUrl, redirectUrl);
             }
-        });
-        executorService.shutdownNow();
-        return discoveryResponseFuture;
+        }, this.executorService);
     }
 
     @Override
     public Future<DiscoveryResponse> getOperatorSelectionURLAsync(final IPreferences preferences,
                                                                   final URI redirectUrl)
+    {
+        return this.getOperatorSelectionURLStage(preferences, redirectUrl).toCompletableFuture();
+    }
+
+    @Override
+    public CompletionStage<DiscoveryResponse> getOperatorSelectionURLStage(final IPreferences preferences,
+                                                                  final URI redirectUrl)
     {
         ObjectUtils.requireNonNull(preferences, ARG_PREFERENCES);
 
-        return this.getOperatorSelectionURLAsync(preferences.getClientId(),
+        return this.getOperatorSelectionURLStage(preferences.getClientId(),
                 preferences.getClientSecret(), preferences.getDiscoveryUrl(), redirectUrl);
     }
 
@@ -465,8 +800,16 @@ public class DiscoveryService implements IDiscoveryService
                                                                             final String clientSecret, final URI discoveryUrl, final URI redirectUrl,
                                                                             final String selectedMCC, final String selectedMNC)
     {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<DiscoveryResponse> discoveryResponseFuture = executorService.submit(new Callable<DiscoveryResponse>()
+        return this.completeSelectedOperatorDiscoveryStage(clientId, clientSecret, discoveryUrl,
+                redirectUrl, selectedMCC, selectedMNC).toCompletableFuture();
+    }
+
+    @Override
+    public CompletionStage<DiscoveryResponse> completeSelectedOperatorDiscoveryStage(final String clientId,
+                                                                            final String clientSecret, final URI discoveryUrl, final URI redirectUrl,
+                                                                            final String selectedMCC, final String selectedMNC)
+    {
+        return ExecutorUtils.supplyAsync(new Callable<DiscoveryResponse>()
         {
             @Override
             public DiscoveryResponse call() throws Exception
@@ -474,9 +817,7 @@ public class DiscoveryService implements IDiscoveryService
                 return DiscoveryService.this.completeSelectedOperatorDiscovery(clientId,
                         clientSecret, discoveryUrl, redirectUrl, selectedMCC, selectedMNC);
             }
-        });
-        executorService.shutdownNow();
-        return discoveryResponseFuture;
+        }, this.executorService);
     }
 
     @Override
@@ -484,8 +825,16 @@ public class DiscoveryService implements IDiscoveryService
             final IPreferences preferences, final URI redirectUrl, final String selectedMCC,
             final String selectedMNC)
     {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<DiscoveryResponse> discoveryResponseFuture = executorService.submit(new Callable<DiscoveryResponse>()
+        return this.completeSelectedOperatorDiscoveryStage(preferences, redirectUrl, selectedMCC,
+                selectedMNC).toCompletableFuture();
+    }
+
+    @Override
+    public CompletionStage<DiscoveryResponse> completeSelectedOperatorDiscoveryStage(
+            final IPreferences preferences, final URI redirectUrl, final String selectedMCC,
+            final String selectedMNC)
+    {
+        return ExecutorUtils.supplyAsync(new Callable<DiscoveryResponse>()
         {
             @Override
             public DiscoveryResponse call() throws Exception
@@ -493,9 +842,7 @@ public class DiscoveryService implements IDiscoveryService
                 return DiscoveryService.this.completeSelectedOperatorDiscovery(preferences,
                         redirectUrl, selectedMCC, selectedMNC);
             }
-        });
-        executorService.shutdownNow();
-        return discoveryResponseFuture;
+        }, this.executorService);
     }
 
     @Override
@@ -534,7 +881,8 @@ public class DiscoveryService implements IDiscoveryService
                 ? this.cache.get(concatKey(mcc, mnc),
                 DiscoveryResponse.class)
                 : null;
-        if (discoveryResponse != null)
+        if (discoveryResponse != null && (discoveryResponse.getProviderMetadata() == null
+                || discoveryResponse.getProviderMetadata().hasExpired()))
         {
             final URI providerMetadataUrl = this.extractProviderMetadataUrl(discoveryResponse);
             if (providerMetadataUrl != null)
@@ -569,10 +917,16 @@ public class DiscoveryService implements IDiscoveryService
     @Override
     public Future<ProviderMetadata> getProviderMetadata(final DiscoveryResponse response,
                                                         final boolean forceCacheBypass)
+    {
+        return this.getProviderMetadataStage(response, forceCacheBypass).toCompletableFuture();
+    }
+
+    @Override
+    public CompletionStage<ProviderMetadata> getProviderMetadataStage(final DiscoveryResponse response,
+                                                        final boolean forceCacheBypass)
     {
         final URI providerMetadataUrl = this.extractProviderMetadataUrl(response);
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<ProviderMetadata> providerMetadataFuture = executorService.submit(new Callable<ProviderMetadata>()
+        return ExecutorUtils.supplyAsync(new Callable<ProviderMetadata>()
         {
             @Override
             public ProviderMetadata call() throws Exception
@@ -583,9 +937,7 @@ public class DiscoveryService implements IDiscoveryService
                 response.setProviderMetadata(providerMetadata);
                 return providerMetadata;
             }
-        });
-        executorService.shutdownNow();
-        return providerMetadataFuture;
+        }, this.executorService);
     }
 
     private URI extractProviderMetadataUrl(final DiscoveryResponse response)
@@ -604,12 +956,12 @@ public class DiscoveryService implements IDiscoveryService
 
         if (url != null)
         {
-            ProviderMetadata cached = null;
+            ProviderMetadata stored = null;
             if (useCache)
             {
                 try
                 {
-                    cached = this.cache.get(url.toString(), ProviderMetadata.class);
+                    stored = this.cache.get(url.toString(), ProviderMetadata.class, false);
                 }
                 catch (final CacheAccessException cae)
                 {
@@ -617,20 +969,26 @@ public class DiscoveryService implements IDiscoveryService
                 }
             }
 
-            if (cached == null || cached.hasExpired())
+            // expired metadata is kept for its validators even when it may not be served
+            ProviderMetadata cached = this.discardIfTooStale(stored);
+            if (cached != null && cached.hasExpired() && !this.keepsStale(ProviderMetadata.class))
             {
-                try
-                {
-                    final RestResponse restResponse =
-                            this.restClient.get(url, null, null, null,null, null);
-
-                    providerMetadata = processRestResponse(restResponse, url);
-                }
+                cached = null;
+            }
 
-                catch (final RequestFailedException ehe)
-                {
-                    LOGGER.warn("Failed to perform fetch of provider metadata from provider", ehe);
-                }
+            if (cached != null && !cached.hasExpired())
+            {
+                providerMetadata = cached;
+            }
+            else if (cached != null && this.isWithinGrace(cached))
+            {
+                LOGGER.debug("Serving stale provider metadata while revalidating url={}", url);
+                this.revalidateInBackground(url, cached);
+                providerMetadata = cached;
+            }
+            else
+            {
+                providerMetadata = this.fetchProviderMetadata(url, stored);
             }
 
             if (providerMetadata == null && cached != null)
@@ -654,6 +1012,40 @@ public class DiscoveryService implements IDiscoveryService
         return providerMetadata;
     }
 
+    /**
+     * Fetch the provider metadata, issuing a conditional request if the stored metadata was
+     * fetched with validators.  If the server responds that the metadata is not modified, the
+     * stored metadata is cached again with a renewed expiry, without transferring or parsing it.
+     */
+    private ProviderMetadata fetchProviderMetadata(final URI url, final ProviderMetadata stored)
+    {
+        try
+        {
+            final List<KeyValuePair> conditionalHeaders = stored == null
+                    ? Collections.<KeyValuePair>emptyList()
+                    : HttpUtils.conditionalRequestHeaders(stored.getEtag(), stored.getLastModified());
+
+            if (conditionalHeaders.isEmpty())
+            {
+                return processRestResponse(this.restClient.get(url, null, null, null, null, null), url);
+            }
+
+            final RestResponse restResponse =
+                    this.restClient.get(url, null, null, null, null, null, conditionalHeaders);
+            if (restResponse.getStatusCode() == HttpStatus.SC_NOT_MODIFIED)
+            {
+                LOGGER.debug("Provider metadata not modified, renewing cached copy for url={}", url);
+                return this.cacheProviderMetadata(new ProviderMetadata.Builder(stored), restResponse, url);
+            }
+            return processRestResponse(restResponse, url);
+        }
+        catch (final RequestFailedException ehe)
+        {
+            LOGGER.warn("Failed to perform fetch of provider metadata from provider", ehe);
+            return null;
+        }
+    }
+
     private ProviderMetadata processRestResponse(final RestResponse restResponse, final URI url)
     {
         ProviderMetadata providerMetadata = null;
@@ -661,10 +1053,9 @@ public class DiscoveryService implements IDiscoveryService
         {
             if (!HttpUtils.isHttpErrorCode(restResponse.getStatusCode()))
             {
-                providerMetadata =
-                        this.jsonService.deserialize(restResponse.getContent(), ProviderMetadata.class);
-
-                this.cache.add(url.toString(), providerMetadata);
+                providerMetadata = this.cacheProviderMetadata(new ProviderMetadata.Builder(
+                        this.jsonService.deserialize(restResponse.getContent(), ProviderMetadata.class)),
+                        restResponse, url);
             }
             else
             {
@@ -677,6 +1068,42 @@ public class DiscoveryService implements IDiscoveryService
         {
             LOGGER.warn("Failed to deserialize provider metadata from provider", jde);
         }
+        return providerMetadata;
+    }
+
+    /**
+     * Complete the provider metadata with the expiry and validators of the response it was
+     * fetched or revalidated with, and add it to the cache.  The expiry is taken from the HTTP
+     * caching headers, capped at {@link DefaultOptions#PROVIDER_METADATA_MAX_TTL_MS}; validators
+     * absent from the response are kept.
+     */
+    private ProviderMetadata cacheProviderMetadata(final ProviderMetadata.Builder builder,
+                                                   final RestResponse restResponse, final URI url)
+    {
+        final List<KeyValuePair> headers = ObjectUtils.defaultIfNull(restResponse.getHeaders(),
+                Collections.<KeyValuePair>emptyList());
+        final long now = System.currentTimeMillis();
+        final Date expiry = ObjectUtils.defaultIfNull(HttpUtils.extractCacheExpiry(headers, now),
+                new Date(now + DefaultOptions.PROVIDER_METADATA_TTL_MS));
+        final String etag = KeyValuePair.findFirst(headers, HttpHeaders.ETAG);
+        final String lastModified = KeyValuePair.findFirst(headers, HttpHeaders.LAST_MODIFIED);
+        if (etag != null)
+        {
+            builder.withEtag(etag);
+        }
+        if (lastModified != null)
+        {
+            builder.withLastModified(lastModified);
+        }
+
+        final ProviderMetadata providerMetadata = builder
+                .withExpiry(new Date(
+                        Math.min(expiry.getTime(), now + DefaultOptions.PROVIDER_METADATA_MAX_TTL_MS)))
+                .build();
+        try
+        {
+            this.cache.add(url.toString(), providerMetadata);
+        }
         catch (final CacheAccessException cae)
         {
             LOGGER.warn("Failed to store provider metadata in cache", cae);
@@ -684,6 +1111,21 @@ public class DiscoveryService implements IDiscoveryService
         return providerMetadata;
     }
 
+    /**
+     * A call to the discovery endpoint which concurrent requests for the same operator wait on,
+     * along with the correlation id it was issued with.
+     */
+    private static final class DiscoveryFetch
+    {
+        private final String correlationId;
+        private final CompletableFuture<DiscoveryResponse> response =
+                new CompletableFuture<DiscoveryResponse>();
+
+        private DiscoveryFetch(final String correlationId)
+        {
+            this.correlationId = correlationId;
+        }
+    }
 
     public static final class Builder implements IBuilder<DiscoveryService>
     {
@@ -691,6 +1133,9 @@ public class DiscoveryService implements IDiscoveryService
         private IJsonService jsonService;
         private IRestClient restClient;
         private IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+        private ExecutorService executorService;
+        private final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> staleLimits =
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>();
 
         public Builder withCache(ICache val)
         {
@@ -716,6 +1161,45 @@ public class DiscoveryService implements IDiscoveryService
             return this;
         }
 
+        /**
+         * Specify the executor used to run asynchronous operations.  If not set, the executor
+         * shared across the SDK is used.
+         *
+         * @param val executor to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExecutorService(final ExecutorService val)
+        {
+            this.executorService = val;
+            return this;
+        }
+
+        /**
+         * Enable stale-while-revalidate for cached values of the specified type, {@link
+         * DiscoveryResponse} or {@link ProviderMetadata}.  Once a cached value has expired,
+         * according to the expiry time configured on the cache, it continues to be served for the
+         * grace period while a single request refreshes it in the background.  Beyond the grace
+         * period the value is refreshed before it is returned, falling back to the expired value if
+         * the refresh fails, until it has been expired for longer than maxStale.  Disabled by
+         * default, when expired values are always refreshed before being returned.
+         *
+         * @param clazz    the type of cached value.
+         * @param grace    how long after expiry a value is served while being refreshed.
+         * @param maxStale how long after expiry a value may be used if refreshing it fails, at
+         *                 least grace.
+         * @param unit     the unit of grace and maxStale.
+         * @return builder to continue further configuration.
+         */
+        public Builder withStaleWhileRevalidate(final Class<? extends AbstractCacheable> clazz,
+                                                final long grace, final long maxStale, final TimeUnit unit)
+        {
+            ObjectUtils.requireNonNull(clazz, "clazz");
+            final long graceMs = unit.toMillis(grace);
+            this.staleLimits.put(clazz,
+                    new Tuple<Long, Long>(graceMs, Math.max(graceMs, unit.toMillis(maxStale))));
+            return this;
+        }
+
         @Override
         public DiscoveryService build()
         {
@@ -726,6 +1210,10 @@ public class DiscoveryService implements IDiscoveryService
             {
                 iMobileConnectEncodeDecoder = new DefaultEncodeDecoder();
             }
+            if (this.executorService == null)
+            {
+                this.executorService = ExecutorUtils.defaultExecutor();
+            }
 
             return new DiscoveryService(this);
         }
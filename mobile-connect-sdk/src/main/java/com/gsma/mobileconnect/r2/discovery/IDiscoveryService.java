@@ -21,8 +21,10 @@ import com.gsma.mobileconnect.r2.cache.CacheAccessException;
 import com.gsma.mobileconnect.r2.cache.ICache;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.gsma.mobileconnect.r2.utils.ExecutorUtils;
 
 import java.net.URI;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
 /**
@@ -123,6 +125,49 @@ public interface IDiscoveryService
                                                                    final URI redirectUrl, final DiscoveryOptions options,
                                                                    final Iterable<KeyValuePair> currentCookies);
 
+    /**
+     * Non-blocking variant of {@link IDiscoveryService#startAutomatedOperatorDiscoveryAsync(
+     *String, String, URI, URI, DiscoveryOptions, Iterable)} which allows further steps to be chained
+     * on completion.
+     *
+     * @param clientId       The registered application clientId (Required)
+     * @param clientSecret   the registered application client secret (Required)
+     * @param discoveryUrl   The URL of the discovery endpoint (Required)
+     * @param redirectUrl    The URL of the operator selection functionality redirects to.
+     *                       (Required)
+     * @param options        Optional parameters
+     * @param currentCookies List of the current cookies sent by the browser if applicable
+     * @return stage completing with the discovery response.
+     */
+    default CompletionStage<DiscoveryResponse> startAutomatedOperatorDiscoveryStage(final String clientId,
+                                                                                    final String clientSecret, final URI discoveryUrl, final URI redirectUrl,
+                                                                                    final DiscoveryOptions options, final Iterable<KeyValuePair> currentCookies)
+    {
+        return ExecutorUtils.toStage(this.startAutomatedOperatorDiscoveryAsync(clientId,
+            clientSecret, discoveryUrl, redirectUrl, options, currentCookies));
+    }
+
+    /**
+     * Non-blocking variant of {@link IDiscoveryService#startAutomatedOperatorDiscoveryAsync(
+     *IPreferences, URI, DiscoveryOptions, Iterable)} which allows further steps to be chained on
+     * completion.
+     *
+     * @param preferences    Instance of IPreferences that provides clientId, clientSecret and
+     *                       discoveryUrl (Required)
+     * @param redirectUrl    The URL of the operator selection functionality redirects to.
+     *                       (Required)
+     * @param options        Optional parameters
+     * @param currentCookies List of the current cookies sent by the browser if applicable
+     * @return stage completing with the discovery response.
+     */
+    default CompletionStage<DiscoveryResponse> startAutomatedOperatorDiscoveryStage(final IPreferences preferences,
+                                                                                    final URI redirectUrl, final DiscoveryOptions options,
+                                                                                    final Iterable<KeyValuePair> currentCookies)
+    {
+        return ExecutorUtils.toStage(this.startAutomatedOperatorDiscoveryAsync(preferences,
+            redirectUrl, options, currentCookies));
+    }
+
 
 
     /**
@@ -181,6 +226,38 @@ public interface IDiscoveryService
     Future<DiscoveryResponse> getOperatorSelectionURLAsync(final IPreferences preferences,
                                                            final URI redirectUrl);
 
+    /**
+     * Non-blocking variant of {@link IDiscoveryService#getOperatorSelectionURLAsync(
+     *String, String, URI, URI)} which allows further steps to be chained on completion.
+     *
+     * @param clientId     The registered application client id. (Required)
+     * @param clientSecret The registered application client secret. (Required)
+     * @param discoveryUrl The URL of the discovery end point. (Required)
+     * @param redirectUrl  The URL the operator selection functionality redirects to. (Required)
+     * @return stage completing with the discovery response.
+     */
+    default CompletionStage<DiscoveryResponse> getOperatorSelectionURLStage(final String clientId,
+                                                                            final String clientSecret, final URI discoveryUrl, final URI redirectUrl)
+    {
+        return ExecutorUtils.toStage(this.getOperatorSelectionURLAsync(clientId, clientSecret,
+            discoveryUrl, redirectUrl));
+    }
+
+    /**
+     * Non-blocking variant of {@link IDiscoveryService#getOperatorSelectionURLAsync(
+     *IPreferences, URI)} which allows further steps to be chained on completion.
+     *
+     * @param preferences Instance of IPreferences that provides clientId, clientSecret and
+     *                    discoveryUrl (Required)
+     * @param redirectUrl The URL the operator selection functionality redirects to. (Required)
+     * @return stage completing with the discovery response.
+     */
+    default CompletionStage<DiscoveryResponse> getOperatorSelectionURLStage(final IPreferences preferences,
+                                                                            final URI redirectUrl)
+    {
+        return ExecutorUtils.toStage(this.getOperatorSelectionURLAsync(preferences, redirectUrl));
+    }
+
     /**
      * Allows an application to obtain parameters which have been passed within a discovery redirect
      * URL <p>The function will parse the redirect URL and parse out the components expected for
@@ -267,6 +344,45 @@ public interface IDiscoveryService
     Future<DiscoveryResponse> completeSelectedOperatorDiscoveryAsync(final IPreferences preferences,
                                                                      final URI redirectUrl, final String selectedMCC, final String selectedMNC);
 
+    /**
+     * Non-blocking variant of {@link IDiscoveryService#completeSelectedOperatorDiscovery(
+     *String, String, URI, URI, String, String)} which allows further steps to be chained on
+     * completion.
+     *
+     * @param clientId     The registered application clientId (Required)
+     * @param clientSecret the registered application client secret (Required)
+     * @param discoveryUrl The URL of the discovery endpoint (Required)
+     * @param redirectUrl  The registered application redirect url (Required)
+     * @param selectedMCC  The Mobile Country Code of the selected operator. (Required)
+     * @param selectedMNC  The Mobile Network Code of the selected operator. (Required)
+     * @return stage completing with the discovery response.
+     */
+    default CompletionStage<DiscoveryResponse> completeSelectedOperatorDiscoveryStage(final String clientId,
+                                                                                      final String clientSecret, final URI discoveryUrl, final URI redirectUrl,
+                                                                                      final String selectedMCC, final String selectedMNC)
+    {
+        return ExecutorUtils.toStage(this.completeSelectedOperatorDiscoveryAsync(clientId,
+            clientSecret, discoveryUrl, redirectUrl, selectedMCC, selectedMNC));
+    }
+
+    /**
+     * Non-blocking variant of {@link IDiscoveryService#completeSelectedOperatorDiscovery(
+     *IPreferences, URI, String, String)} which allows further steps to be chained on completion.
+     *
+     * @param preferences Instance of IPreferences that provides clientId, clientSecret and
+     *                    discoveryUrl (Required)
+     * @param redirectUrl The registered application redirect url (Required)
+     * @param selectedMCC The Mobile Country Code of the selected operator. (Required)
+     * @param selectedMNC The Mobile Network Code of the selected operator. (Required)
+     * @return stage completing with the discovery response.
+     */
+    default CompletionStage<DiscoveryResponse> completeSelectedOperatorDiscoveryStage(final IPreferences preferences,
+                                                                                      final URI redirectUrl, final String selectedMCC, final String selectedMNC)
+    {
+        return ExecutorUtils.toStage(this.completeSelectedOperatorDiscoveryAsync(preferences,
+            redirectUrl, selectedMCC, selectedMNC));
+    }
+
     /**
      * Helper function to extract operator selection URL from the discovery reponse
      *
@@ -321,4 +437,20 @@ public interface IDiscoveryService
      */
     Future<ProviderMetadata> getProviderMetadata(final DiscoveryResponse response,
                                                  final boolean forceCacheBypass);
+
+    /**
+     * Non-blocking variant of {@link IDiscoveryService#getProviderMetadata(DiscoveryResponse,
+     * boolean)} which allows further steps to be chained on completion.
+     *
+     * @param response         Discovery response to retrieve provider metadata for
+     * @param forceCacheBypass True if cache should be bypassed and the latest version of the
+     *                         ProviderMetadata should be fetched from the provider metadata
+     *                         endpoint.
+     * @return stage completing with the updated ProviderMetadata object
+     */
+    default CompletionStage<ProviderMetadata> getProviderMetadataStage(final DiscoveryResponse response,
+                                                                       final boolean forceCacheBypass)
+    {
+        return ExecutorUtils.toStage(this.getProviderMetadata(response, forceCacheBypass));
+    }
 }
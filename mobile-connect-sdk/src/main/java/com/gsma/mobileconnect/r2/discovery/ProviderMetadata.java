@@ -25,6 +25,7 @@ import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
 import com.gsma.mobileconnect.r2.utils.IBuilder;
 import com.gsma.mobileconnect.r2.utils.ListUtils;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -79,6 +80,9 @@ public class ProviderMetadata extends AbstractCacheable
     private final Boolean requestStringParameterSupported;
     private final SupportedVersions mobileConnectVersionSupported;
     private final List<String> loginHintMethodsSupported;
+    private final Date expiry;
+    private final String etag;
+    private final String lastModified;
 
     private ProviderMetadata(Builder builder)
     {
@@ -130,6 +134,83 @@ public class ProviderMetadata extends AbstractCacheable
         this.requestStringParameterSupported = builder.requestUriParameterSupported;
         this.mobileConnectVersionSupported = builder.mobileConnectVersionSupported;
         this.loginHintMethodsSupported = builder.loginHintMethodsSupported;
+        this.expiry = builder.expiry;
+        this.etag = builder.etag;
+        this.lastModified = builder.lastModified;
+    }
+
+    private ProviderMetadata(final ProviderMetadata source)
+    {
+        // the lists are unmodifiable and hold strings, so the snapshot can share them
+        this.version = source.version;
+        this.issuer = source.issuer;
+        this.subscriberId = source.subscriberId;
+        this.authorizationEndpoint = source.authorizationEndpoint;
+        this.tokenEndpoint = source.tokenEndpoint;
+        this.userinfoEndpoint = source.userinfoEndpoint;
+        this.premiuminfoEndpoint = source.premiuminfoEndpoint;
+        this.checkSessionIframe = source.checkSessionIframe;
+        this.endSessionEndpoint = source.endSessionEndpoint;
+        this.revocationEndpoint = source.revocationEndpoint;
+        this.refreshEndpoint = source.refreshEndpoint;
+        this.registrationEndpoint = source.registrationEndpoint;
+        this.jwksUri = source.jwksUri;
+        this.scopesSupported = source.scopesSupported;
+        this.responseTypesSupported = source.responseTypesSupported;
+        this.responseModesSupported = source.responseModesSupported;
+        this.grantTypesSupported = source.grantTypesSupported;
+        this.acrValuesSupported = source.acrValuesSupported;
+        this.subjectTypesSupported = source.subjectTypesSupported;
+        this.userinfoSigningAlgValuesSupported = source.userinfoSigningAlgValuesSupported;
+        this.userinfoEncryptionAlgValuesSupported = source.userinfoEncryptionAlgValuesSupported;
+        this.userinfoEncryptionEncValuesSupported = source.userinfoEncryptionEncValuesSupported;
+        this.idTokenSigningAlgValuesSupported = source.idTokenSigningAlgValuesSupported;
+        this.idTokenEncryptionAlgValuesSupported = source.idTokenEncryptionAlgValuesSupported;
+        this.idTokenEncryptionEncValuesSupported = source.idTokenEncryptionEncValuesSupported;
+        this.requestObjectSigningAlgValuesSupported = source.requestObjectSigningAlgValuesSupported;
+        this.requestObjectEncryptionAlgValuesSupported =
+            source.requestObjectEncryptionAlgValuesSupported;
+        this.requestObjectEncryptionEncValuesSupported =
+            source.requestObjectEncryptionEncValuesSupported;
+        this.tokenEndpointAuthMethodsSupported = source.tokenEndpointAuthMethodsSupported;
+        this.tokenEndpointAuthSigningAlgValuesSupported =
+            source.tokenEndpointAuthSigningAlgValuesSupported;
+        this.displayValuesSupported = source.displayValuesSupported;
+        this.claimTypesSupported = source.claimTypesSupported;
+        this.claimsSupported = source.claimsSupported;
+        this.serviceDocumentation = source.serviceDocumentation;
+        this.claimsLocalesSupported = source.claimsLocalesSupported;
+        this.uiLocalesSupported = source.uiLocalesSupported;
+        this.requireRequestUriRegistration = source.requireRequestUriRegistration;
+        this.operatorPolicyUri = source.operatorPolicyUri;
+        this.operatorTermsOfServiceUri = source.operatorTermsOfServiceUri;
+        this.claimsParameterSupported = source.claimsParameterSupported;
+        this.requestParameterSupported = source.requestParameterSupported;
+        this.requestStringParameterSupported = source.requestStringParameterSupported;
+        this.mobileConnectVersionSupported = source.mobileConnectVersionSupported;
+        this.loginHintMethodsSupported = source.loginHintMethodsSupported;
+        this.expiry = source.expiry;
+        this.etag = source.etag;
+        this.lastModified = source.lastModified;
+    }
+
+    @Override
+    public boolean hasExpired()
+    {
+        return super.hasExpired()
+            || this.expiry != null && this.expiry.getTime() < System.currentTimeMillis();
+    }
+
+    @Override
+    protected Date cacheExpiry()
+    {
+        return this.expiry;
+    }
+
+    @Override
+    protected ProviderMetadata snapshot()
+    {
+        return new ProviderMetadata(this);
     }
 
     /**
@@ -509,6 +590,33 @@ public class ProviderMetadata extends AbstractCacheable
         return this.loginHintMethodsSupported;
     }
 
+    /**
+     * @return the time this metadata expires, as advised by the HTTP caching headers it was
+     * fetched with, or null if not known.
+     */
+    public Date getExpiry()
+    {
+        return this.expiry;
+    }
+
+    /**
+     * @return the ETag header this metadata was fetched with, for use in a conditional request,
+     * or null if there was none.
+     */
+    public String getEtag()
+    {
+        return this.etag;
+    }
+
+    /**
+     * @return the Last-Modified header this metadata was fetched with, for use in a conditional
+     * request, or null if there was none.
+     */
+    public String getLastModified()
+    {
+        return this.lastModified;
+    }
+
     public static final class Builder implements IBuilder<ProviderMetadata>
     {
         private String version;
@@ -555,9 +663,74 @@ public class ProviderMetadata extends AbstractCacheable
         private Boolean requestUriParameterSupported;
         private SupportedVersions mobileConnectVersionSupported;
         private List<String> loginHintMethodsSupported;
+        private Date expiry;
+        private String etag;
+        private String lastModified;
 
-        public Builder(ProviderMetadata providerMetadata) {
-            //default constructor
+        public Builder(final ProviderMetadata providerMetadata)
+        {
+            if (providerMetadata != null)
+            {
+                this.version = providerMetadata.version;
+                this.issuer = providerMetadata.issuer;
+                this.subscriberId = providerMetadata.subscriberId;
+                this.authorizationEndpoint = providerMetadata.authorizationEndpoint;
+                this.tokenEndpoint = providerMetadata.tokenEndpoint;
+                this.userinfoEndpoint = providerMetadata.userinfoEndpoint;
+                this.premiuminfoEndpoint = providerMetadata.premiuminfoEndpoint;
+                this.checkSessionIframe = providerMetadata.checkSessionIframe;
+                this.endSessionEndpoint = providerMetadata.endSessionEndpoint;
+                this.revocationEndpoint = providerMetadata.revocationEndpoint;
+                this.refreshEndpoint = providerMetadata.refreshEndpoint;
+                this.registrationEndpoint = providerMetadata.registrationEndpoint;
+                this.jwksUri = providerMetadata.jwksUri;
+                this.scopesSupported = providerMetadata.scopesSupported;
+                this.responseTypesSupported = providerMetadata.responseTypesSupported;
+                this.responseModesSupported = providerMetadata.responseModesSupported;
+                this.grantTypesSupported = providerMetadata.grantTypesSupported;
+                this.acrValuesSupported = providerMetadata.acrValuesSupported;
+                this.subjectTypesSupported = providerMetadata.subjectTypesSupported;
+                this.userinfoSigningAlgValuesSupported =
+                    providerMetadata.userinfoSigningAlgValuesSupported;
+                this.userinfoEncryptionAlgValuesSupported =
+                    providerMetadata.userinfoEncryptionAlgValuesSupported;
+                this.userinfoEncryptionEncValuesSupported =
+                    providerMetadata.userinfoEncryptionEncValuesSupported;
+                this.idTokenSigningAlgValuesSupported =
+                    providerMetadata.idTokenSigningAlgValuesSupported;
+                this.idTokenEncryptionAlgValuesSupported =
+                    providerMetadata.idTokenEncryptionAlgValuesSupported;
+                this.idTokenEncryptionEncValuesSupported =
+                    providerMetadata.idTokenEncryptionEncValuesSupported;
+                this.requestObjectSigningAlgValuesSupported =
+                    providerMetadata.requestObjectSigningAlgValuesSupported;
+                this.requestObjectEncryptionAlgValuesSupported =
+                    providerMetadata.requestObjectEncryptionAlgValuesSupported;
+                this.requestObjectEncryptionEncValuesSupported =
+                    providerMetadata.requestObjectEncryptionEncValuesSupported;
+                this.tokenEndpointAuthMethodsSupported =
+                    providerMetadata.tokenEndpointAuthMethodsSupported;
+                this.tokenEndpointAuthSigningAlgValuesSupported =
+                    providerMetadata.tokenEndpointAuthSigningAlgValuesSupported;
+                this.displayValuesSupported = providerMetadata.displayValuesSupported;
+                this.claimTypesSupported = providerMetadata.claimTypesSupported;
+                this.claimsSupported = providerMetadata.claimsSupported;
+                this.serviceDocumentation = providerMetadata.serviceDocumentation;
+                this.claimsLocalesSupported = providerMetadata.claimsLocalesSupported;
+                this.uiLocalesSupported = providerMetadata.uiLocalesSupported;
+                this.requireRequestUriRegistration = providerMetadata.requireRequestUriRegistration;
+                this.operatorPolicyUri = providerMetadata.operatorPolicyUri;
+                this.operatorTermsOfServiceUri = providerMetadata.operatorTermsOfServiceUri;
+                this.claimsParameterSupported = providerMetadata.claimsParameterSupported;
+                this.requestParameterSupported = providerMetadata.requestParameterSupported;
+                this.requestUriParameterSupported =
+                    providerMetadata.requestStringParameterSupported;
+                this.mobileConnectVersionSupported = providerMetadata.mobileConnectVersionSupported;
+                this.loginHintMethodsSupported = providerMetadata.loginHintMethodsSupported;
+                this.expiry = providerMetadata.expiry;
+                this.etag = providerMetadata.etag;
+                this.lastModified = providerMetadata.lastModified;
+            }
         }
 
         public Builder() {
@@ -830,6 +1003,24 @@ public class ProviderMetadata extends AbstractCacheable
             return this;
         }
 
+        public Builder withExpiry(final Date val)
+        {
+            this.expiry = val;
+            return this;
+        }
+
+        public Builder withEtag(final String val)
+        {
+            this.etag = val;
+            return this;
+        }
+
+        public Builder withLastModified(final String val)
+        {
+            this.lastModified = val;
+            return this;
+        }
+
         @Override
         public ProviderMetadata build()
         {
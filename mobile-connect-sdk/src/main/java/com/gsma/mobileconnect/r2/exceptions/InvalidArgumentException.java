@@ -85,7 +85,7 @@ public class InvalidArgumentException extends IllegalArgumentException
      */
     public enum Disallowed
     {
-        NULL("null"), NULL_OR_EMPTY("null or empty");
+        NULL("null"), NULL_OR_EMPTY("null or empty"), NOT_POSITIVE("zero or negative");
 
         private final String description;
 
@@ -18,8 +18,10 @@ package com.gsma.mobileconnect.r2.identity;
 
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.ExecutorUtils;
 
 import java.net.URI;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
 /**
@@ -53,4 +55,21 @@ public interface IIdentityService
      */
     Future<IdentityResponse> requestInfoAsync(final URI infoUrl, final String accessToken,
                                               final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder);
+
+    /**
+     * Non-blocking variant of {@link IIdentityService#requestInfoAsync(URI, String,
+     * IMobileConnectEncodeDecoder)} which allows further steps to be chained on completion.
+     * If the rest client is an {@link com.gsma.mobileconnect.r2.rest.IAsyncRestClient} the request
+     * is issued without occupying an executor thread.
+     *
+     * @param infoUrl     Url    for accessing user info (Returned in discovery response)
+     * @param accessToken Access token for authorising user info request
+     * @return stage completing with the IdentityResponse object if request succeeds
+     */
+    default CompletionStage<IdentityResponse> requestInfoStage(final URI infoUrl, final String accessToken,
+                                                               final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder)
+    {
+        return ExecutorUtils.toStage(this.requestInfoAsync(infoUrl, accessToken,
+            iMobileConnectEncodeDecoder));
+    }
 }
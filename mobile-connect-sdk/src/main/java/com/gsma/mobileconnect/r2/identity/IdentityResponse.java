@@ -23,7 +23,8 @@ import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
 import com.gsma.mobileconnect.r2.utils.HttpUtils;
 import com.gsma.mobileconnect.r2.utils.IBuilder;
-import com.gsma.mobileconnect.r2.utils.JsonWebTokens;
+import com.gsma.mobileconnect.r2.utils.JsonWebToken;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import com.gsma.mobileconnect.r2.utils.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -99,9 +100,12 @@ public class IdentityResponse
         {
             return responseJson;
         }
-        else if (JsonWebTokens.isValidFormat(responseJson))
+
+        final JsonWebToken jsonWebToken =
+            new JsonWebToken(responseJson, iMobileConnectEncodeDecoder);
+        if (jsonWebToken.isValidFormat())
         {
-            return JsonWebTokens.Part.CLAIMS.decode(responseJson, iMobileConnectEncodeDecoder);
+            return ObjectUtils.defaultIfNull(jsonWebToken.getClaims(), responseJson);
         }
         else
         {
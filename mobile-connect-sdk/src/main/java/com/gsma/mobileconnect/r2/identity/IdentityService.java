@@ -18,10 +18,13 @@ package com.gsma.mobileconnect.r2.identity;
 
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.rest.IAsyncRestClient;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
+import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
+import com.gsma.mobileconnect.r2.utils.ExecutorUtils;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import com.gsma.mobileconnect.r2.utils.StringUtils;
 import org.slf4j.Logger;
@@ -29,9 +32,10 @@ import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Function;
 
 /**
  * Concrete implementation of {@link IIdentityService}
@@ -44,11 +48,13 @@ public class IdentityService implements IIdentityService
 
     private final IJsonService jsonService;
     private final IRestClient restClient;
+    private final ExecutorService executorService;
 
     private IdentityService(Builder builder)
     {
         this.jsonService = builder.jsonService;
         this.restClient = builder.restClient;
+        this.executorService = builder.executorService;
 
         LOGGER.info("New instance of IdentityService created");
     }
@@ -75,8 +81,41 @@ public class IdentityService implements IIdentityService
     public Future<IdentityResponse> requestInfoAsync(final URI infoUrl, final String accessToken,
         final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder)
     {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        Future<IdentityResponse> identityServiceFuture = executorService.submit(new Callable<IdentityResponse>()
+        return this.requestInfoStage(infoUrl, accessToken,
+            iMobileConnectEncodeDecoder).toCompletableFuture();
+    }
+
+    @Override
+    public CompletionStage<IdentityResponse> requestInfoStage(final URI infoUrl, final String accessToken,
+        final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder)
+    {
+        if (this.restClient instanceof IAsyncRestClient)
+        {
+            try
+            {
+                ObjectUtils.requireNonNull(infoUrl, "infoUrl");
+                StringUtils.requireNonEmpty(accessToken, "accessToken");
+            }
+            catch (final InvalidArgumentException iae)
+            {
+                // fail the stage, as happens when the request is run on the executor
+                return ExecutorUtils.failedFuture(iae);
+            }
+
+            return ((IAsyncRestClient) this.restClient)
+                .getAsync(infoUrl, RestAuthentication.bearer(accessToken), null, null, null, null)
+                .thenApply(new Function<RestResponse, IdentityResponse>()
+                {
+                    @Override
+                    public IdentityResponse apply(final RestResponse response)
+                    {
+                        return IdentityResponse.fromRestResponse(response,
+                            IdentityService.this.jsonService, iMobileConnectEncodeDecoder);
+                    }
+                });
+        }
+
+        return ExecutorUtils.supplyAsync(new Callable<IdentityResponse>()
         {
             @Override
             public IdentityResponse call() throws Exception
@@ -84,15 +123,14 @@ public class IdentityService implements IIdentityService
                 return IdentityService.this.requestInfo(infoUrl, accessToken,
                     iMobileConnectEncodeDecoder);
             }
-        });
-        executorService.shutdownNow();
-        return identityServiceFuture;
+        }, this.executorService);
     }
 
     public static final class Builder
     {
         private IJsonService jsonService;
         private IRestClient restClient;
+        private ExecutorService executorService;
 
         public Builder withJsonService(final IJsonService val)
         {
@@ -106,10 +144,27 @@ public class IdentityService implements IIdentityService
             return this;
         }
 
+        /**
+         * Specify the executor used to run asynchronous operations.  If not set, the executor
+         * shared across the SDK is used.
+         *
+         * @param val executor to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExecutorService(final ExecutorService val)
+        {
+            this.executorService = val;
+            return this;
+        }
+
         public IdentityService build()
         {
             ObjectUtils.requireNonNull(this.jsonService, "jsonService");
             ObjectUtils.requireNonNull(this.restClient, "restClient");
+            if (this.executorService == null)
+            {
+                this.executorService = ExecutorUtils.defaultExecutor();
+            }
 
             return new IdentityService(this);
         }
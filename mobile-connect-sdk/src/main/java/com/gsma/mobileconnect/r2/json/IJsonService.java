@@ -16,6 +16,8 @@
  */
 package com.gsma.mobileconnect.r2.json;
 
+import java.nio.charset.Charset;
+
 /**
  * Defines service that is capable of serialising and deserialising objects to or from json.
  *
@@ -34,6 +36,24 @@ public interface IJsonService
      */
     <T> T deserialize(final String json, final Class<T> clazz) throws JsonDeserializationException;
 
+    /**
+     * Convert UTF-8 encoded json to an instance of clazz.  The default implementation decodes the
+     * json to a String and delegates to {@link #deserialize(String, Class)}; implementations able
+     * to read the bytes directly should override it.
+     *
+     * @param json  to convert.
+     * @param clazz to instantiate.
+     * @param <T>   type of clazz.
+     * @return instance of clazz.
+     * @throws JsonDeserializationException on failure to deserialise.
+     */
+    default <T> T deserialize(final byte[] json, final Class<T> clazz)
+        throws JsonDeserializationException
+    {
+        return this.deserialize(json == null ? null : new String(json, Charset.forName("UTF-8")),
+            clazz);
+    }
+
     /**
      * Convert an object to a representation in Json.
      *
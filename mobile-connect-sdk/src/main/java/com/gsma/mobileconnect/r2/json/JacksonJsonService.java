@@ -27,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 /**
  * Implementation of the {@link IJsonService} that uses Jackson to perform json serialisation and
@@ -37,6 +38,7 @@ import java.io.IOException;
 public class JacksonJsonService implements IJsonService
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(JacksonJsonService.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public JacksonJsonService()
@@ -67,6 +69,26 @@ public class JacksonJsonService implements IJsonService
         }
     }
 
+    @Override
+    public <T> T deserialize(final byte[] json, final Class<T> clazz)
+        throws JsonDeserializationException
+    {
+        ObjectUtils.requireNonNull(clazz, "clazz");
+
+        try
+        {
+            LOGGER.debug("Deserializing json bytes to instance of class={}", clazz);
+            return json == null || json.length == 0
+                   ? null
+                   : this.objectMapper.readValue(json, clazz);
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.info("Failed to deserialize json to instance of class={}", clazz, ioe);
+            throw new JsonDeserializationException(clazz, new String(json, UTF8), ioe);
+        }
+    }
+
     @Override
     public String serialize(final Object object) throws JsonSerializationException
     {
@@ -0,0 +1,529 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.constants.Headers;
+import com.gsma.mobileconnect.r2.constants.Parameters;
+import com.gsma.mobileconnect.r2.exceptions.HeadlessOperationFailedException;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.utils.*;
+import org.apache.http.*;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base implementation of {@link IRestClient} which builds the HTTP requests and normalises the
+ * responses, leaving the transport used to issue the requests to the concrete implementation.
+ *
+ * @since 2.0
+ */
+public abstract class AbstractRestClient implements IRestClient
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractRestClient.class);
+
+    protected final IJsonService jsonService;
+    protected final long timeout;
+    private final long waitTime;
+    private final RequestConfig requestConfig;
+
+    protected AbstractRestClient(final IJsonService jsonService, final long timeout,
+        final long waitTime)
+    {
+        this.jsonService = jsonService;
+        this.timeout = timeout;
+        this.waitTime = waitTime;
+
+        final int timeoutAsInt = (int) this.timeout;
+
+        this.requestConfig = RequestConfig
+            .custom()
+            .setConnectionRequestTimeout(timeoutAsInt)
+            .setConnectTimeout(timeoutAsInt)
+            .setSocketTimeout(timeoutAsInt)
+            .setRedirectsEnabled(true)
+            .build();
+    }
+
+    /**
+     * Submits a request using the underlying transport, waiting for the response.
+     *
+     * @param request   to be run.
+     * @param addHeader boolean flag to specify if headers should be added
+     * @return the RestResponse.
+     * @throws RequestFailedException if there is a failure issuing the request.
+     */
+    protected abstract RestResponse submitRequest(final HttpUriRequest request,
+        final boolean addHeader) throws RequestFailedException;
+
+    @Override
+    public RestResponse getDiscovery(final URI uri, final RestAuthentication authentication, final String xRedirect,
+                            final String sourceIp, final List<KeyValuePair> queryParams,
+                            final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return this.submitRequest(
+            this.createGetRequest(uri, authentication, xRedirect, sourceIp, queryParams, cookies,
+                true), true);
+    }
+
+    @Override
+    public RestResponse get(final URI uri, final RestAuthentication authentication, final String xRedirect,
+        final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return this.submitRequest(
+            this.createGetRequest(uri, authentication, xRedirect, sourceIp, queryParams, cookies,
+                false), true);
+    }
+
+    @Override
+    public RestResponse postDiscoveryFormData(final URI uri, final RestAuthentication authentication, final String xRedirect,
+                                     final List<KeyValuePair> formData, final String sourceIp,
+                                     final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return this.submitRequest(
+            this.createFormDataRequest(uri, authentication, xRedirect, formData, sourceIp, cookies,
+                true), true);
+    }
+
+    @Override
+    public RestResponse postFormData(final URI uri, final RestAuthentication authentication, final String xRedirect,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return this.submitRequest(
+            this.createFormDataRequest(uri, authentication, xRedirect, formData, sourceIp, cookies,
+                false), true);
+    }
+
+    @Override
+    public RestResponse postJsonContent(final URI uri, final RestAuthentication authentication,
+        final Object content, final String sourceIp, final Iterable<KeyValuePair> cookies)
+        throws RequestFailedException
+    {
+        return this.postContent(uri, authentication, this.createJsonEntity(uri, content), sourceIp,
+            cookies);
+    }
+
+    @Override
+    public RestResponse postStringContent(final URI uri, final RestAuthentication authentication,
+        final String content, final ContentType contentType, final String sourceIp,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        LOGGER.debug("Posting String content to uri={} with contentType={} for sourceIp={}",
+            LogUtils.maskedUri(uri), contentType, sourceIp);
+
+        final HttpEntity entity = new StringEntity(content, contentType);
+        return this.postContent(uri, authentication, entity, sourceIp, cookies);
+    }
+
+    @Override
+    public RestResponse postContent(final URI uri, final RestAuthentication authentication,
+        final HttpEntity content, final String sourceIp, final Iterable<KeyValuePair> cookies)
+        throws RequestFailedException
+    {
+        return this.submitRequest(
+            this.createContentRequest(uri, authentication, content, sourceIp, cookies), true);
+    }
+
+    @Override
+    public URI getFinalRedirect(final URI authUrl, final URI targetUrl,
+        final RestAuthentication authentication) throws RequestFailedException
+    {
+        try
+        {
+            return followUrls(authUrl, targetUrl, authentication);
+        }
+        catch (URISyntaxException e)
+        {
+            LOGGER.error("Invalid redirect URL", e);
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, authUrl, e);
+        }
+        catch (HeadlessOperationFailedException e)
+        {
+            LOGGER.error("Too many redirects", e);
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, authUrl, e);
+        }
+    }
+
+    /**
+     * Create a GET request, adding the query parameters to the uri.
+     *
+     * @param uri            of the GET.
+     * @param authentication value to be used (if auth required).
+     * @param xRedirect      value of the X-Redirect header (if required).
+     * @param sourceIp       of the request (if identified).
+     * @param queryParams    to be added to the GET request.
+     * @param cookies        to add to the request (if required).
+     * @param discovery      true if the request is to the discovery endpoint.
+     * @return the request.
+     * @throws RequestFailedException if the uri could not be built.
+     */
+    protected HttpUriRequest createGetRequest(final URI uri,
+        final RestAuthentication authentication, final String xRedirect, final String sourceIp,
+        final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies,
+        final boolean discovery) throws RequestFailedException
+    {
+        LOGGER.debug("Getting from uri={} for sourceIp={}",
+            LogUtils.maskedUri(uri), sourceIp);
+
+        final URIBuilder uriBuilder = new URIBuilder(uri);
+        if (queryParams != null)
+        {
+            uriBuilder.addParameters(new ArrayList<NameValuePair>(queryParams));
+        }
+
+        try
+        {
+            final URI requestUri = uriBuilder.build();
+            final RequestBuilder builder = discovery
+                ? this.createDiscoveryRequest(HttpUtils.HttpMethod.GET, requestUri, xRedirect,
+                    authentication, sourceIp, cookies)
+                : this.createRequest(HttpUtils.HttpMethod.GET, requestUri, xRedirect,
+                    authentication, sourceIp, cookies);
+
+            return builder.build();
+        }
+        catch (final URISyntaxException use)
+        {
+            LOGGER.warn("Failed to construct uri for GET request; baseUri={}",
+                LogUtils.maskedUri(uri), use);
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, uri, use);
+        }
+    }
+
+    /**
+     * Create a GET request, adding the query parameters to the uri and the additional headers to
+     * the request.
+     *
+     * @param uri            of the GET.
+     * @param authentication value to be used (if auth required).
+     * @param xRedirect      value of the X-Redirect header (if required).
+     * @param sourceIp       of the request (if identified).
+     * @param queryParams    to be added to the GET request.
+     * @param cookies        to add to the request (if required).
+     * @param headers        to add to the request (if required).
+     * @return the request.
+     * @throws RequestFailedException if the uri could not be built.
+     */
+    protected HttpUriRequest createGetRequest(final URI uri,
+        final RestAuthentication authentication, final String xRedirect, final String sourceIp,
+        final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies,
+        final List<KeyValuePair> headers) throws RequestFailedException
+    {
+        final HttpUriRequest request = this.createGetRequest(uri, authentication, xRedirect,
+            sourceIp, queryParams, cookies, false);
+        if (headers != null)
+        {
+            for (final KeyValuePair header : headers)
+            {
+                request.addHeader(header.getKey(), header.getValue());
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Create a POST request with x-www-form-urlencoded content.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param xRedirect      value of the X-Redirect header (if required).
+     * @param formData       to be added to the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @param discovery      true if the request is to the discovery endpoint.
+     * @return the request.
+     */
+    protected HttpUriRequest createFormDataRequest(final URI uri,
+        final RestAuthentication authentication, final String xRedirect,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies, final boolean discovery)
+    {
+        LOGGER.debug("Posting form data to uri={} for sourceIp={}",
+            LogUtils.maskedUri(uri), sourceIp);
+
+        final RequestBuilder builder = discovery
+            ? this.createDiscoveryRequest(HttpUtils.HttpMethod.POST, uri, xRedirect,
+                authentication, sourceIp, cookies)
+            : this.createRequest(HttpUtils.HttpMethod.POST, uri, xRedirect, authentication,
+                sourceIp, cookies);
+
+        return builder
+            .addParameters(
+                ObjectUtils.requireNonNull(formData, "formData").toArray(new NameValuePair[] {}))
+            .build();
+    }
+
+    /**
+     * Create a POST request with the supplied content.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param content        of the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return the request.
+     */
+    protected HttpUriRequest createContentRequest(final URI uri,
+        final RestAuthentication authentication, final HttpEntity content, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug("Posting content to uri={} with length={}, contentType={} for sourceIp={}",
+            LogUtils.maskedUri(uri), content.getContentLength(),
+            content.getContentType(), sourceIp);
+
+        return this
+            .createRequest(HttpUtils.HttpMethod.POST, uri, authentication, sourceIp, cookies)
+            .setEntity(ObjectUtils.requireNonNull(content, "content"))
+            .build();
+    }
+
+    /**
+     * Serialize the content to a json entity.
+     *
+     * @param uri     the content will be posted to.
+     * @param content to serialize.
+     * @return the json entity.
+     * @throws RequestFailedException if the content could not be serialized.
+     */
+    protected HttpEntity createJsonEntity(final URI uri, final Object content)
+        throws RequestFailedException
+    {
+        try
+        {
+            LOGGER.debug("Posting json content to uri={}",
+                LogUtils.maskedUri(uri));
+
+            return new StringEntity(this.jsonService.serialize(content),
+                ContentType.APPLICATION_JSON.withCharset("UTF-8"));
+        }
+        catch (final JsonSerializationException jse)
+        {
+            LOGGER.warn("Failed to serialize content for post to uri={}",
+                LogUtils.maskedUri(uri), jse);
+
+            throw new RequestFailedException(HttpUtils.HttpMethod.POST, uri, jse);
+        }
+    }
+
+    /**
+     * Convert a http response to a RestResponse, consuming the response entity.  Responses without
+     * an entity, such as 304 Not Modified, have null content.
+     *
+     * @param method       of the request.
+     * @param uri          of the request.
+     * @param httpResponse to convert.
+     * @return the RestResponse.
+     * @throws IOException if the response entity could not be read.
+     */
+    static RestResponse toRestResponse(final String method, final URI uri,
+        final HttpResponse httpResponse) throws IOException
+    {
+        final KeyValuePair.ListBuilder headersBuilder = new KeyValuePair.ListBuilder();
+
+        for (final Header header : httpResponse.getAllHeaders())
+        {
+            headersBuilder.add(header.getName(), header.getValue());
+        }
+
+        final HttpEntity entity = httpResponse.getEntity();
+        return new RestResponse.Builder()
+            .withMethod(method)
+            .withUri(uri)
+            .withStatusCode(httpResponse.getStatusLine().getStatusCode())
+            .withHeaders(headersBuilder.build())
+            .withContent(entity == null ? null : EntityUtils.toString(entity))
+            .build();
+    }
+
+    private URI followUrls(final URI authUrl, final URI targetUrl,
+        final RestAuthentication authentication)
+        throws HeadlessOperationFailedException, RequestFailedException, URISyntaxException
+    {
+        int numRedirects = 0;
+        RestResponse response = null;
+        URI nextUrl = authUrl;
+        URI locationUri = null;
+
+        do
+        {
+            if (numRedirects > DefaultOptions.MAX_REDIRECTS)
+            {
+                throw new HeadlessOperationFailedException(
+                    "Headless operation failed either due to too many redirects or it timed out");
+            }
+            if (response != null)
+            {
+                nextUrl = locationUri == null ? nextUrl : locationUri;
+                numRedirects++;
+            }
+            RequestBuilder requestBuilder =
+                this.createRequest(HttpUtils.HttpMethod.GET, nextUrl, authentication, null, null);
+            response = this.submitRequest(requestBuilder.build(), false);
+
+            locationUri = this.retrieveLocation(response);
+
+            if (locationUri != null && locationUri.toString().startsWith(targetUrl.toString()))
+            {
+                break;
+            }
+            waitForSometime();
+        } while (true);
+        return locationUri;
+    }
+
+    private void waitForSometime()
+    {
+        try
+        {
+            Thread.sleep(this.waitTime);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            LOGGER.info("Waking up and trying again");
+        }
+    }
+
+    private URI retrieveLocation(RestResponse response) throws URISyntaxException
+    {
+        URI uri = null;
+        for (KeyValuePair keyValuePair : response.getHeaders())
+        {
+            if ("Location".equalsIgnoreCase(keyValuePair.getKey()))
+            {
+                uri = new URI(keyValuePair.getValue());
+                break;
+            }
+        }
+        return uri;
+    }
+
+    /**
+     * Create an HTTP request builder.
+     *
+     * @param method         either GET or POST.
+     * @param uri            for request.
+     * @param authentication to apply.
+     * @param sourceIp       if identified.
+     * @param cookies        to proxy.
+     * @return initialised request builder which can be further customised.
+     */
+    private RequestBuilder createRequest(final HttpUtils.HttpMethod method, final URI uri,
+        final RestAuthentication authentication, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug(
+            "Creating request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
+            method, LogUtils.maskedUri(uri), authentication, sourceIp);
+
+        final RequestBuilder builder = RequestBuilder
+            .create(ObjectUtils.requireNonNull(method, "method").name())
+            .setUri(ObjectUtils.requireNonNull(uri, "uri"))
+            .setConfig(this.requestConfig);
+
+        return prepareRequest(builder, authentication, sourceIp, cookies);
+    }
+
+    private RequestBuilder createDiscoveryRequest(final HttpUtils.HttpMethod method, final URI uri, final String xRedirect,
+                                         final RestAuthentication authentication, final String sourceIp,
+                                         final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug(
+                "Creating discovery request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
+                method, LogUtils.maskedUri(uri), authentication, sourceIp);
+
+        final RequestBuilder builder = RequestBuilder
+                .create(ObjectUtils.requireNonNull(method, "method").name())
+                .setUri(ObjectUtils.requireNonNull(uri, "uri"))
+                .setConfig(this.requestConfig);
+
+        builder.addHeader(Headers.VERSION_SDK, Parameters.SDK_VERSION);
+
+        return prepareRequest(builder, xRedirect, authentication, sourceIp, cookies);
+    }
+
+    private RequestBuilder prepareRequest(final RequestBuilder builder, final String xRedirect,
+                                          final RestAuthentication authentication, final String sourceIp,
+                                          final Iterable<KeyValuePair> cookies) {
+
+        return xRedirect != null ? prepareRequest(builder, authentication, sourceIp, cookies).addHeader(Parameters.X_REDIRECT, xRedirect)
+                : prepareRequest(builder, authentication, sourceIp, cookies);
+    }
+
+    private RequestBuilder prepareRequest(final RequestBuilder builder,
+                                          final RestAuthentication authentication, final String sourceIp,
+                                          final Iterable<KeyValuePair> cookies) {
+        if (cookies != null)
+        {
+            final StringBuilder cookieBuilder = new StringBuilder();
+            for (final KeyValuePair cookie : cookies)
+            {
+                cookieBuilder
+                        .append(cookie.getKey())
+                        .append('=')
+                        .append(cookie.getValue())
+                        .append(';');
+            }
+            builder.addHeader(Headers.COOKIE, cookieBuilder.toString());
+        }
+
+        if (!StringUtils.isNullOrEmpty(sourceIp))
+        {
+            builder.addHeader(Headers.X_SOURCE_IP, sourceIp);
+        }
+
+        if (authentication != null)
+        {
+            builder.addHeader(HttpHeaders.AUTHORIZATION,
+                    authentication.getScheme() + " " + authentication.getParameter());
+        }
+
+        return builder;
+    }
+    private RequestBuilder createRequest(final HttpUtils.HttpMethod method, final URI uri, final String xRedirect,
+                                         final RestAuthentication authentication, final String sourceIp,
+                                         final Iterable<KeyValuePair> cookies)
+    {
+        LOGGER.debug(
+                "Creating request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
+                method, LogUtils.maskedUri(uri), authentication, sourceIp);
+
+        final RequestBuilder builder = RequestBuilder
+                .create(ObjectUtils.requireNonNull(method, "method").name())
+                .setUri(ObjectUtils.requireNonNull(uri, "uri"))
+                .setConfig(this.requestConfig);
+
+        return prepareRequest(builder, xRedirect, authentication, sourceIp, cookies);
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.gsma.mobileconnect.r2.utils.LogUtils;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementation of {@link IAsyncRestClient} backed by Apache HttpAsyncClient.  Requests are
+ * issued on a small number of I/O dispatcher threads, so a request waiting on a slow operator does
+ * not hold a thread.  The blocking {@link IRestClient} methods wait on the same non-blocking
+ * requests.
+ *
+ * @since 2.0
+ */
+public class AsyncRestClient extends AbstractRestClient implements IAsyncRestClient, Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRestClient.class);
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final RequestTimeouts requestTimeouts;
+
+    private AsyncRestClient(Builder builder)
+    {
+        super(builder.jsonService, builder.timeout, builder.waitTime);
+        this.httpClient = builder.httpClient;
+        this.requestTimeouts = new RequestTimeouts(builder.timeoutScheduler);
+
+        LOGGER.info("New instance of AsyncRestClient created with timeout={} ms", this.timeout);
+    }
+
+    /**
+     * @return the number of request timeout timers currently scheduled, which is equivalent to the
+     * number of requests in flight.
+     */
+    public long getActiveTimeoutCount()
+    {
+        return this.requestTimeouts.getActiveTimers();
+    }
+
+    /**
+     * @return the number of requests aborted as they exceeded the configured timeout.
+     */
+    public long getAbortedRequestCount()
+    {
+        return this.requestTimeouts.getAbortedRequests();
+    }
+
+    @Override
+    public RestResponse get(final URI uri, final RestAuthentication authentication,
+        final String xRedirect, final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies, final List<KeyValuePair> headers)
+        throws RequestFailedException
+    {
+        return this.submitRequest(this.createGetRequest(uri, authentication, xRedirect, sourceIp,
+            queryParams, cookies, headers), true);
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> getAsync(final URI uri,
+        final RestAuthentication authentication, final String xRedirect, final String sourceIp,
+        final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies)
+    {
+        try
+        {
+            return this.execute(this.createGetRequest(uri, authentication, xRedirect, sourceIp,
+                queryParams, cookies, false), true);
+        }
+        catch (final RequestFailedException rfe)
+        {
+            return failed(rfe);
+        }
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> getDiscoveryAsync(final URI uri,
+        final RestAuthentication authentication, final String xRedirect, final String sourceIp,
+        final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies)
+    {
+        try
+        {
+            return this.execute(this.createGetRequest(uri, authentication, xRedirect, sourceIp,
+                queryParams, cookies, true), true);
+        }
+        catch (final RequestFailedException rfe)
+        {
+            return failed(rfe);
+        }
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> postFormDataAsync(final URI uri,
+        final RestAuthentication authentication, final String xRedirect,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        return this.execute(this.createFormDataRequest(uri, authentication, xRedirect, formData,
+            sourceIp, cookies, false), true);
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> postDiscoveryFormDataAsync(final URI uri,
+        final RestAuthentication authentication, final String xRedirect,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        return this.execute(this.createFormDataRequest(uri, authentication, xRedirect, formData,
+            sourceIp, cookies, true), true);
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> postJsonContentAsync(final URI uri,
+        final RestAuthentication authentication, final Object content, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        try
+        {
+            return this.postContentAsync(uri, authentication,
+                this.createJsonEntity(uri, content), sourceIp, cookies);
+        }
+        catch (final RequestFailedException rfe)
+        {
+            return failed(rfe);
+        }
+    }
+
+    @Override
+    public CompletableFuture<RestResponse> postContentAsync(final URI uri,
+        final RestAuthentication authentication, final HttpEntity content, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        return this.execute(
+            this.createContentRequest(uri, authentication, content, sourceIp, cookies), true);
+    }
+
+    /**
+     * Submits a request and waits for the response.
+     *
+     * @param request   to be run.
+     * @param addHeader boolean flag to specify if headers should be added
+     * @return the RestResponse.
+     * @throws RequestFailedException if there is a failure issuing the request.
+     */
+    @Override
+    protected RestResponse submitRequest(final HttpUriRequest request, final boolean addHeader)
+        throws RequestFailedException
+    {
+        final CompletableFuture<RestResponse> future = this.execute(request, addHeader);
+        try
+        {
+            return future.get();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new RequestFailedException(request.getMethod(), request.getURI(), ie);
+        }
+        catch (final ExecutionException ee)
+        {
+            if (ee.getCause() instanceof RequestFailedException)
+            {
+                throw (RequestFailedException) ee.getCause();
+            }
+            throw new RequestFailedException(request.getMethod(), request.getURI(), ee.getCause());
+        }
+    }
+
+    /**
+     * Issues a request on the async http client.  A timer is scheduled on the shared timeout
+     * scheduler which fails the returned future and cancels the request after the configured
+     * timeout period; the timer is cancelled as soon as the future completes.
+     *
+     * @param request   to be run.
+     * @param addHeader boolean flag to specify if headers should be added
+     * @return future completing with the RestResponse.
+     */
+    private CompletableFuture<RestResponse> execute(final HttpUriRequest request,
+        final boolean addHeader)
+    {
+        ObjectUtils.requireNonNull(request, "request");
+        if (addHeader)
+        {
+            request.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        }
+
+        final String method = request.getMethod();
+        final URI uri = request.getURI();
+        final CompletableFuture<RestResponse> result = new CompletableFuture<RestResponse>();
+
+        LOGGER.debug("Issuing async httpMethod={} request to uri={}", method,
+            LogUtils.maskedUri(uri));
+
+        final Future<HttpResponse> httpFuture;
+        try
+        {
+            httpFuture = this.httpClient.execute(request, new ResponseCallback(method, uri, result));
+        }
+        catch (final RuntimeException re)
+        {
+            LOGGER.warn("Failed to perform httpMethod={} to uri={}", method,
+                LogUtils.maskedUri(uri), re);
+            return failed(new RequestFailedException(method, uri, re));
+        }
+
+        final Future<?> abortFuture = this.requestTimeouts.schedule(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                LOGGER.warn("Failed to perform httpMethod={} to uri={}; timed out, timeout={} ms",
+                    method, LogUtils.maskedUri(uri), AsyncRestClient.this.timeout);
+
+                result.completeExceptionally(new RequestFailedException(method, uri,
+                    new TimeoutException(String.format("HTTP %s request was aborted after %s ms",
+                        method, AsyncRestClient.this.timeout))));
+                httpFuture.cancel(true);
+            }
+        }, this.timeout);
+
+        result.whenComplete(new BiConsumer<RestResponse, Throwable>()
+        {
+            @Override
+            public void accept(final RestResponse restResponse, final Throwable throwable)
+            {
+                abortFuture.cancel(false);
+                if (result.isCancelled())
+                {
+                    httpFuture.cancel(true);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Closes the underlying async http client, stopping its I/O threads.
+     *
+     * @throws IOException if the client could not be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        this.httpClient.close();
+    }
+
+    private static <T> CompletableFuture<T> failed(final Throwable throwable)
+    {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    static class ResponseCallback implements FutureCallback<HttpResponse>
+    {
+        private final String method;
+        private final URI uri;
+        private final CompletableFuture<RestResponse> result;
+
+        ResponseCallback(final String method, final URI uri,
+            final CompletableFuture<RestResponse> result)
+        {
+            this.method = method;
+            this.uri = uri;
+            this.result = result;
+        }
+
+        @Override
+        public void completed(final HttpResponse httpResponse)
+        {
+            LOGGER.debug("Received response statusCode={} for httpMethod={} request to uri={}",
+                httpResponse.getStatusLine().getStatusCode(), this.method,
+                LogUtils.maskedUri(this.uri));
+
+            try
+            {
+                this.result.complete(toRestResponse(this.method, this.uri, httpResponse));
+            }
+            catch (final IOException ioe)
+            {
+                this.failed(ioe);
+            }
+        }
+
+        @Override
+        public void failed(final Exception ex)
+        {
+            if (!this.result.isDone())
+            {
+                LOGGER.warn("Failed to perform httpMethod={} to uri={}", this.method,
+                    LogUtils.maskedUri(this.uri), ex);
+            }
+            this.result.completeExceptionally(
+                new RequestFailedException(this.method, this.uri, ex));
+        }
+
+        @Override
+        public void cancelled()
+        {
+            this.result.completeExceptionally(new RequestFailedException(this.method, this.uri,
+                new CancellationException("HTTP request was cancelled")));
+        }
+    }
+
+    public static final class Builder implements IBuilder<AsyncRestClient>
+    {
+        private IJsonService jsonService;
+        private CloseableHttpAsyncClient httpClient;
+        private long timeout = DefaultOptions.TIMEOUT_MS;
+        private long waitTime = DefaultOptions.WAIT_TIME;
+        private ScheduledExecutorService timeoutScheduler;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        /**
+         * Specify the async http client to issue requests with.  The client is started if it is
+         * not already running.  If not set, a client with default settings is created.
+         *
+         * @param val async http client.
+         * @return builder to continue further configuration.
+         */
+        public Builder withHttpAsyncClient(final CloseableHttpAsyncClient val)
+        {
+            this.httpClient = val;
+            return this;
+        }
+
+        public Builder withTimeout(final long duration, final TimeUnit unit)
+        {
+            this.timeout = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder withWaitTime(final long waitTime)
+        {
+            this.waitTime = waitTime;
+            return this;
+        }
+
+        /**
+         * Specify the scheduler used to time out requests.  If not set, a single threaded
+         * scheduler shared across the SDK is used.
+         *
+         * @param val scheduler for request timeouts.
+         * @return builder to continue further configuration.
+         */
+        public Builder withTimeoutScheduler(final ScheduledExecutorService val)
+        {
+            this.timeoutScheduler = val;
+            return this;
+        }
+
+        @Override
+        public AsyncRestClient build()
+        {
+            ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+
+            if (this.httpClient == null)
+            {
+                LOGGER.info("Building default instance of HttpAsyncClient");
+                this.httpClient = HttpAsyncClients
+                    .custom()
+                    .setRedirectStrategy(new LaxRedirectStrategy())
+                    .build();
+            }
+            if (!this.httpClient.isRunning())
+            {
+                this.httpClient.start();
+            }
+
+            return new AsyncRestClient(this);
+        }
+    }
+}
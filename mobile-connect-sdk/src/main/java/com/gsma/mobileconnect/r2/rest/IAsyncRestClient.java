@@ -0,0 +1,131 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.apache.http.HttpEntity;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Extension of {@link IRestClient} for transports which issue requests without blocking the
+ * calling thread.  The returned futures complete exceptionally with a {@link
+ * com.gsma.mobileconnect.r2.exceptions.RequestFailedException} if there is a failure issuing the
+ * request.
+ *
+ * @since 2.0
+ */
+public interface IAsyncRestClient extends IRestClient
+{
+    /**
+     * Non-blocking version of {@link IRestClient#get(URI, RestAuthentication, String, String,
+     * List, Iterable)}.
+     *
+     * @param uri            of the GET.
+     * @param authentication value to be used (if auth required).
+     * @param xRedirect      value of the X-Redirect header (if required).
+     * @param sourceIp       of the request (if identified).
+     * @param queryParams    to be added to the GET request.
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> getAsync(final URI uri, final RestAuthentication authentication,
+                                             final String xRedirect, final String sourceIp, final List<KeyValuePair> queryParams,
+                                             final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Non-blocking version of {@link IRestClient#getDiscovery(URI, RestAuthentication, String,
+     * String, List, Iterable)}.
+     *
+     * @param uri            of the GET.
+     * @param authentication value to be used (if auth required).
+     * @param xRedirect      value of the X-Redirect header (if required).
+     * @param sourceIp       of the request (if identified).
+     * @param queryParams    to be added to the GET request.
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> getDiscoveryAsync(final URI uri,
+                                                      final RestAuthentication authentication, final String xRedirect, final String sourceIp,
+                                                      final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Non-blocking version of {@link IRestClient#postFormData(URI, RestAuthentication, String,
+     * List, String, Iterable)}.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param xRedirect      value of the X-Redirect header (if required).
+     * @param formData       to be added to the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> postFormDataAsync(final URI uri,
+                                                      final RestAuthentication authentication, final String xRedirect,
+                                                      final List<KeyValuePair> formData, final String sourceIp,
+                                                      final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Non-blocking version of {@link IRestClient#postDiscoveryFormData(URI, RestAuthentication,
+     * String, List, String, Iterable)}.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param xRedirect      value of the X-Redirect header (if required).
+     * @param formData       to be added to the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> postDiscoveryFormDataAsync(final URI uri,
+                                                               final RestAuthentication authentication, final String xRedirect,
+                                                               final List<KeyValuePair> formData, final String sourceIp,
+                                                               final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Non-blocking version of {@link IRestClient#postJsonContent(URI, RestAuthentication,
+     * Object, String, Iterable)}.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param content        of the POST request to deserialise as json.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> postJsonContentAsync(final URI uri,
+                                                         final RestAuthentication authentication, final Object content, final String sourceIp,
+                                                         final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Non-blocking version of {@link IRestClient#postContent(URI, RestAuthentication,
+     * HttpEntity, String, Iterable)}.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param content        of the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     */
+    CompletableFuture<RestResponse> postContentAsync(final URI uri,
+                                                     final RestAuthentication authentication, final HttpEntity content, final String sourceIp,
+                                                     final Iterable<KeyValuePair> cookies);
+}
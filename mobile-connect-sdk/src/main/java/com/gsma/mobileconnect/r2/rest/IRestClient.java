@@ -47,6 +47,31 @@ public interface IRestClient
                      final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies)
         throws RequestFailedException;
 
+    /**
+     * Executes a HTTP GET to the supplied uri with additional request headers, such as the
+     * validators of a conditional request.  The default implementation issues the request
+     * without the additional headers, via {@link #get(URI, RestAuthentication, String, String,
+     * List, Iterable)}; as a conditional request without its validators is answered in full, this
+     * suits implementations which cannot add request headers.
+     *
+     * @param uri            of the GET.
+     * @param authentication value to be used (if auth required).
+     * @param queryParams    to be added to the GET request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @param headers        to add to the request.
+     * @return RestResponse, which for a conditional request may be 304 Not Modified with no
+     * content.
+     * @throws RequestFailedException if there is a failure issuing the request.
+     */
+    default RestResponse get(final URI uri, final RestAuthentication authentication, final String xRedirect, final String sourceIp,
+                             final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies,
+                             final List<KeyValuePair> headers)
+        throws RequestFailedException
+    {
+        return this.get(uri, authentication, xRedirect, sourceIp, queryParams, cookies);
+    }
+
     /**
      * Executes a HTTP GET to the supplied uri optional basic auth and optional
      * cookies.
@@ -0,0 +1,189 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.utils.DaemonThreadFactory;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules the abort timers applied to outgoing HTTP requests on a single shared scheduler,
+ * rather than a scheduler per request.  Timers are expected to be cancelled as soon as the request
+ * they guard completes.
+ *
+ * @since 2.0
+ */
+class RequestTimeouts
+{
+    private static ScheduledExecutorService sharedScheduler = null;
+
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong activeTimers = new AtomicLong();
+    private final AtomicLong abortedRequests = new AtomicLong();
+
+    /**
+     * Create an instance scheduling on the specified scheduler, or on the SDK wide default
+     * scheduler if none is specified.
+     *
+     * @param scheduler to use (optional).
+     */
+    RequestTimeouts(final ScheduledExecutorService scheduler)
+    {
+        this.scheduler = scheduler == null ? defaultScheduler() : scheduler;
+    }
+
+    /**
+     * @return the lazily created SDK wide timeout scheduler; a single daemon thread which removes
+     * cancelled timers from its queue immediately, so long timeouts do not accumulate in memory
+     * after requests complete.
+     */
+    static synchronized ScheduledExecutorService defaultScheduler()
+    {
+        if (sharedScheduler == null)
+        {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                new DaemonThreadFactory("mobileconnect-timeout"));
+            executor.setRemoveOnCancelPolicy(true);
+            sharedScheduler = executor;
+        }
+        return sharedScheduler;
+    }
+
+    /**
+     * Schedule the abort action to run after the timeout, unless the returned future is cancelled
+     * first.
+     *
+     * @param abort     action to run on timeout.
+     * @param timeoutMs timeout in milliseconds.
+     * @return future which should be cancelled on completion of the request.
+     */
+    Future<?> schedule(final Runnable abort, final long timeoutMs)
+    {
+        ObjectUtils.requireNonNull(abort, "abort");
+
+        final Timer timer = new Timer(abort);
+        this.activeTimers.incrementAndGet();
+        try
+        {
+            timer.setDelegate(this.scheduler.schedule(timer, timeoutMs, TimeUnit.MILLISECONDS));
+        }
+        catch (final RejectedExecutionException ree)
+        {
+            timer.finish();
+            throw ree;
+        }
+        return timer;
+    }
+
+    /**
+     * @return the number of timers currently scheduled and neither cancelled nor fired.
+     */
+    long getActiveTimers()
+    {
+        return this.activeTimers.get();
+    }
+
+    /**
+     * @return the number of requests aborted due to timeout.
+     */
+    long getAbortedRequests()
+    {
+        return this.abortedRequests.get();
+    }
+
+    /**
+     * Timer guarding a single request, ensuring the counters are only updated once whether the
+     * timer fires or is cancelled.
+     */
+    private final class Timer implements Runnable, Future<Object>
+    {
+        private final Runnable abort;
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private volatile Future<?> delegate;
+
+        Timer(final Runnable abort)
+        {
+            this.abort = abort;
+        }
+
+        void setDelegate(final Future<?> delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        boolean finish()
+        {
+            final boolean first = this.finished.compareAndSet(false, true);
+            if (first)
+            {
+                RequestTimeouts.this.activeTimers.decrementAndGet();
+            }
+            return first;
+        }
+
+        @Override
+        public void run()
+        {
+            if (this.finish())
+            {
+                RequestTimeouts.this.abortedRequests.incrementAndGet();
+                this.abort.run();
+            }
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning)
+        {
+            final boolean cancelled = this.finish();
+            final Future<?> scheduled = this.delegate;
+            if (cancelled && scheduled != null)
+            {
+                scheduled.cancel(mayInterruptIfRunning);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            final Future<?> scheduled = this.delegate;
+            return scheduled != null && scheduled.isCancelled();
+        }
+
+        @Override
+        public boolean isDone()
+        {
+            return this.finished.get();
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException
+        {
+            return this.delegate.get();
+        }
+
+        @Override
+        public Object get(final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException
+        {
+            return this.delegate.get(timeout, unit);
+        }
+    }
+}
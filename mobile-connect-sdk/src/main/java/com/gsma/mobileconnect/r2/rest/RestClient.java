@@ -17,423 +17,106 @@
 package com.gsma.mobileconnect.r2.rest;
 
 import com.gsma.mobileconnect.r2.constants.DefaultOptions;
-import com.gsma.mobileconnect.r2.constants.Headers;
-import com.gsma.mobileconnect.r2.constants.Parameters;
-import com.gsma.mobileconnect.r2.exceptions.HeadlessOperationFailedException;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.json.IJsonService;
-import com.gsma.mobileconnect.r2.json.JsonSerializationException;
-import com.gsma.mobileconnect.r2.utils.*;
-import org.apache.http.*;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.gsma.mobileconnect.r2.utils.LogUtils;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.ResponseHandler;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.client.methods.RequestBuilder;
-import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.event.Level;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Concrete implementation of {@link IRestClient}
  *
  * @since 2.0
  */
-public class RestClient implements IRestClient
+public class RestClient extends AbstractRestClient
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(RestClient.class);
 
-    private final IJsonService jsonService;
     private final HttpClient httpClient;
-    private final long timeout;
-    private final long waitTime;
-    private final RequestConfig requestConfig;
+    private final RequestTimeouts requestTimeouts;
 
     private RestClient(Builder builder)
     {
-        this.jsonService = builder.jsonService;
+        super(builder.jsonService, builder.timeout, builder.waitTime);
         this.httpClient = builder.httpClient;
-        this.timeout = builder.timeout;
-        this.waitTime = builder.waitTime;
+        this.requestTimeouts = new RequestTimeouts(builder.timeoutScheduler);
 
-        final int timeoutAsInt = (int) this.timeout;
-
-        this.requestConfig = RequestConfig
-            .custom()
-            .setConnectionRequestTimeout(timeoutAsInt)
-            .setConnectTimeout(timeoutAsInt)
-            .setSocketTimeout(timeoutAsInt)
-            .setRedirectsEnabled(true)
-            .build();
-
-        LOGGER.info("New instance of RestClient created with timeout={} ms", timeoutAsInt);
-    }
-
-    @Override
-    public RestResponse getDiscovery(final URI uri, final RestAuthentication authentication, final String xRedirect,
-                            final String sourceIp, final List<KeyValuePair> queryParams,
-                            final Iterable<KeyValuePair> cookies) throws RequestFailedException
-    {
-        LOGGER.debug("Getting from uri={} for sourceIp={}",
-                LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
-
-        final URIBuilder uriBuilder = new URIBuilder(uri);
-        if (queryParams != null)
-        {
-            uriBuilder.addParameters(new ArrayList<NameValuePair>(queryParams));
-        }
-
-        try
-        {
-            final HttpUriRequest request = this
-                    .createDiscoveryRequest(HttpUtils.HttpMethod.GET, uriBuilder.build(), xRedirect, authentication,
-                            sourceIp, cookies)
-                    .build();
-
-            return this.submitRequest(request, true);
-        }
-        catch (final URISyntaxException use)
-        {
-            LOGGER.warn("Failed to construct uri for GET request; baseUri={}",
-                    LogUtils.maskUri(uri, LOGGER, Level.WARN), use);
-            throw new RequestFailedException(HttpUtils.HttpMethod.GET, uri, use);
-        }
-    }
-
-    @Override
-    public RestResponse get(final URI uri, final RestAuthentication authentication, final String xRedirect,
-        final String sourceIp, final List<KeyValuePair> queryParams,
-        final Iterable<KeyValuePair> cookies) throws RequestFailedException
-    {
-        LOGGER.debug("Getting from uri={} for sourceIp={}",
-            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
-
-        final URIBuilder uriBuilder = new URIBuilder(uri);
-        if (queryParams != null)
-        {
-            uriBuilder.addParameters(new ArrayList<NameValuePair>(queryParams));
-        }
-
-        try
-        {
-            final HttpUriRequest request = this
-                .createRequest(HttpUtils.HttpMethod.GET, uriBuilder.build(), xRedirect, authentication,
-                    sourceIp, cookies)
-                .build();
-
-            return this.submitRequest(request, true);
-        }
-        catch (final URISyntaxException use)
-        {
-            LOGGER.warn("Failed to construct uri for GET request; baseUri={}",
-                LogUtils.maskUri(uri, LOGGER, Level.WARN), use);
-            throw new RequestFailedException(HttpUtils.HttpMethod.GET, uri, use);
-        }
-    }
-
-    @Override
-    public RestResponse postDiscoveryFormData(final URI uri, final RestAuthentication authentication, final String xRedirect,
-                                     final List<KeyValuePair> formData, final String sourceIp,
-                                     final Iterable<KeyValuePair> cookies) throws RequestFailedException
-    {
-        LOGGER.debug("Posting form data to uri={} for sourceIp={}",
-                LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
-
-        final HttpUriRequest request = this
-                .createDiscoveryRequest(HttpUtils.HttpMethod.POST, uri, xRedirect, authentication, sourceIp, cookies)
-                .addParameters(
-                        ObjectUtils.requireNonNull(formData, "formData").toArray(new NameValuePair[] {}))
-                .build();
-        return this.submitRequest(request, true);
-    }
-
-    @Override
-    public RestResponse postFormData(final URI uri, final RestAuthentication authentication, final String xRedirect,
-        final List<KeyValuePair> formData, final String sourceIp,
-        final Iterable<KeyValuePair> cookies) throws RequestFailedException
-    {
-        LOGGER.debug("Posting form data to uri={} for sourceIp={}",
-            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
-
-        final HttpUriRequest request = this
-            .createRequest(HttpUtils.HttpMethod.POST, uri, xRedirect, authentication, sourceIp, cookies)
-            .addParameters(
-                ObjectUtils.requireNonNull(formData, "formData").toArray(new NameValuePair[] {}))
-            .build();
-        return this.submitRequest(request, true);
-    }
-
-    @Override
-    public RestResponse postJsonContent(final URI uri, final RestAuthentication authentication,
-        final Object content, final String sourceIp, final Iterable<KeyValuePair> cookies)
-        throws RequestFailedException
-    {
-        try
-        {
-            LOGGER.debug("Posting json content to uri={} for sourceIp={}",
-                LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
-
-            final HttpEntity entity = new StringEntity(this.jsonService.serialize(content),
-                ContentType.APPLICATION_JSON.withCharset("UTF-8"));
-            return this.postContent(uri, authentication, entity, sourceIp, cookies);
-        }
-        catch (final JsonSerializationException jse)
-        {
-            LOGGER.warn("Failed to serialize content for post to uri={}",
-                LogUtils.maskUri(uri, LOGGER, Level.WARN), jse);
-
-            throw new RequestFailedException(HttpUtils.HttpMethod.POST, uri, jse);
-        }
-    }
-
-    @Override
-    public RestResponse postStringContent(final URI uri, final RestAuthentication authentication,
-        final String content, final ContentType contentType, final String sourceIp,
-        final Iterable<KeyValuePair> cookies) throws RequestFailedException
-    {
-        LOGGER.debug("Posting String content to uri={} with contentType={} for sourceIp={}",
-            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), contentType, sourceIp);
-
-        final HttpEntity entity = new StringEntity(content, contentType);
-        return this.postContent(uri, authentication, entity, sourceIp, cookies);
-    }
-
-    @Override
-    public RestResponse postContent(final URI uri, final RestAuthentication authentication,
-        final HttpEntity content, final String sourceIp, final Iterable<KeyValuePair> cookies)
-        throws RequestFailedException
-    {
-        LOGGER.debug("Posting content to uri={} with length={}, contentType={} for sourceIp={}",
-            LogUtils.maskUri(uri, LOGGER, Level.DEBUG), content.getContentLength(),
-            content.getContentType(), sourceIp);
-
-        final HttpUriRequest request = this
-            .createRequest(HttpUtils.HttpMethod.POST, uri, authentication, sourceIp, cookies)
-            .setEntity(ObjectUtils.requireNonNull(content, "content"))
-            .build();
-
-        return this.submitRequest(request, true);
-    }
-
-    @Override
-    public URI getFinalRedirect(final URI authUrl, final URI targetUrl,
-        final RestAuthentication authentication) throws RequestFailedException
-    {
-        try
-        {
-            return followUrls(authUrl, targetUrl, authentication);
-        }
-        catch (URISyntaxException e)
-        {
-            LOGGER.error("Invalid redirect URL", e);
-            throw new RequestFailedException(HttpUtils.HttpMethod.GET, authUrl, e);
-        }
-        catch (HeadlessOperationFailedException e)
-        {
-            LOGGER.error("Too many redirects", e);
-            throw new RequestFailedException(HttpUtils.HttpMethod.GET, authUrl, e);
-        }
-    }
-
-    private URI followUrls(final URI authUrl, final URI targetUrl,
-        final RestAuthentication authentication)
-        throws HeadlessOperationFailedException, RequestFailedException, URISyntaxException
-    {
-        int numRedirects = 0;
-        RestResponse response = null;
-        URI nextUrl = authUrl;
-        URI locationUri = null;
-
-        do
-        {
-            if (numRedirects > DefaultOptions.MAX_REDIRECTS)
-            {
-                throw new HeadlessOperationFailedException(
-                    "Headless operation failed either due to too many redirects or it timed out");
-            }
-            if (response != null)
-            {
-                nextUrl = locationUri == null ? nextUrl : locationUri;
-                numRedirects++;
-            }
-            RequestBuilder requestBuilder =
-                this.createRequest(HttpUtils.HttpMethod.GET, nextUrl, authentication, null, null);
-            response = this.submitRequest(requestBuilder.build(), false);
-
-            locationUri = this.retrieveLocation(response);
-
-            if (locationUri != null && locationUri.toString().startsWith(targetUrl.toString()))
-            {
-                break;
-            }
-            waitForSometime();
-        } while (true);
-        return locationUri;
+        LOGGER.info("New instance of RestClient created with timeout={} ms", this.timeout);
     }
 
-    private void waitForSometime()
-    {
-        try
-        {
-            Thread.sleep(this.waitTime);
-        }
-        catch (InterruptedException e)
-        {
-            Thread.currentThread().interrupt();
-            LOGGER.info("Waking up and trying again");
-        }
-    }
-
-    private URI retrieveLocation(RestResponse response) throws URISyntaxException
+    /**
+     * @return the number of request timeout timers currently scheduled, which is equivalent to the
+     * number of requests in flight.
+     */
+    public long getActiveTimeoutCount()
     {
-        URI uri = null;
-        for (KeyValuePair keyValuePair : response.getHeaders())
-        {
-            if ("Location".equalsIgnoreCase(keyValuePair.getKey()))
-            {
-                uri = new URI(keyValuePair.getValue());
-                break;
-            }
-        }
-        return uri;
+        return this.requestTimeouts.getActiveTimers();
     }
 
     /**
-     * Create an HTTP request builder.
-     *
-     * @param method         either GET or POST.
-     * @param uri            for request.
-     * @param authentication to apply.
-     * @param sourceIp       if identified.
-     * @param cookies        to proxy.
-     * @return initialised request builder which can be further customised.
+     * @return the number of requests aborted as they exceeded the configured timeout.
      */
-    private RequestBuilder createRequest(final HttpUtils.HttpMethod method, final URI uri,
-        final RestAuthentication authentication, final String sourceIp,
-        final Iterable<KeyValuePair> cookies)
+    public long getAbortedRequestCount()
     {
-        LOGGER.debug(
-            "Creating request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
-            method, LogUtils.maskUri(uri, LOGGER, Level.DEBUG), authentication, sourceIp);
-
-        final RequestBuilder builder = RequestBuilder
-            .create(ObjectUtils.requireNonNull(method, "method").name())
-            .setUri(ObjectUtils.requireNonNull(uri, "uri"))
-            .setConfig(this.requestConfig);
-
-        return prepareRequest(builder, authentication, sourceIp, cookies);
+        return this.requestTimeouts.getAbortedRequests();
     }
 
-    private RequestBuilder createDiscoveryRequest(final HttpUtils.HttpMethod method, final URI uri, final String xRedirect,
-                                         final RestAuthentication authentication, final String sourceIp,
-                                         final Iterable<KeyValuePair> cookies)
+    @Override
+    public RestResponse get(final URI uri, final RestAuthentication authentication,
+        final String xRedirect, final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies, final List<KeyValuePair> headers)
+        throws RequestFailedException
     {
-        LOGGER.debug(
-                "Creating discovery request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
-                method, LogUtils.maskUri(uri, LOGGER, Level.DEBUG), authentication, sourceIp);
-
-        final RequestBuilder builder = RequestBuilder
-                .create(ObjectUtils.requireNonNull(method, "method").name())
-                .setUri(ObjectUtils.requireNonNull(uri, "uri"))
-                .setConfig(this.requestConfig);
-
-        builder.addHeader(Headers.VERSION_SDK, Parameters.SDK_VERSION);
-
-        return prepareRequest(builder, xRedirect, authentication, sourceIp, cookies);
+        return this.submitRequest(this.createGetRequest(uri, authentication, xRedirect, sourceIp,
+            queryParams, cookies, headers), true);
     }
 
-    private RequestBuilder prepareRequest(final RequestBuilder builder, final String xRedirect,
-                                          final RestAuthentication authentication, final String sourceIp,
-                                          final Iterable<KeyValuePair> cookies) {
-
-        return xRedirect != null ? prepareRequest(builder, authentication, sourceIp, cookies).addHeader(Parameters.X_REDIRECT, xRedirect)
-                : prepareRequest(builder, authentication, sourceIp, cookies);
-    }
-
-    private RequestBuilder prepareRequest(final RequestBuilder builder,
-                                          final RestAuthentication authentication, final String sourceIp,
-                                          final Iterable<KeyValuePair> cookies) {
-        if (cookies != null)
-        {
-            final StringBuilder cookieBuilder = new StringBuilder();
-            for (final KeyValuePair cookie : cookies)
-            {
-                cookieBuilder
-                        .append(cookie.getKey())
-                        .append('=')
-                        .append(cookie.getValue())
-                        .append(';');
-            }
-            builder.addHeader(Headers.COOKIE, cookieBuilder.toString());
-        }
-
-        if (!StringUtils.isNullOrEmpty(sourceIp))
-        {
-            builder.addHeader(Headers.X_SOURCE_IP, sourceIp);
-        }
-
-        if (authentication != null)
-        {
-            builder.addHeader(HttpHeaders.AUTHORIZATION,
-                    authentication.getScheme() + " " + authentication.getParameter());
-        }
-
-        return builder;
-    }
-    private RequestBuilder createRequest(final HttpUtils.HttpMethod method, final URI uri, final String xRedirect,
-                                         final RestAuthentication authentication, final String sourceIp,
-                                         final Iterable<KeyValuePair> cookies)
-    {
-        LOGGER.debug(
-                "Creating request with httpMethod={}, uri={}, authentication={} for sourceIp={}",
-                method, LogUtils.maskUri(uri, LOGGER, Level.DEBUG), authentication, sourceIp);
-
-        final RequestBuilder builder = RequestBuilder
-                .create(ObjectUtils.requireNonNull(method, "method").name())
-                .setUri(ObjectUtils.requireNonNull(uri, "uri"))
-                .setConfig(this.requestConfig);
-
-        return prepareRequest(builder, xRedirect, authentication, sourceIp, cookies);
-    }
     /**
-     * Submits a request to the executor.  When the request runs, an additional task is scheduled in
-     * the future which will abort the request after the configured timeout period.
+     * Submits a request to the http client.  Before the request runs, a timer is scheduled on the
+     * shared timeout scheduler which will abort the request after the configured timeout period;
+     * the timer is cancelled as soon as the request completes.
      *
      * @param request   to be run.
      * @param addHeader boolean flag to specify if headers should be added
      * @return the RestResponse.
      * @throws RequestFailedException if there is a failure issuing the request.
      */
-    private RestResponse submitRequest(final HttpUriRequest request, final boolean addHeader)
+    @Override
+    protected RestResponse submitRequest(final HttpUriRequest request, final boolean addHeader)
         throws RequestFailedException
     {
         ObjectUtils.requireNonNull(request, "request");
-        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
-        final Future<?> abortFuture = executorService.schedule(new Runnable()
+        final Future<?> abortFuture = this.requestTimeouts.schedule(new Runnable()
         {
             @Override
             public void run()
             {
                 LOGGER.debug(
                     "Aborting httpMethod={} request to uri={} as request timed out, timeout={} ms",
-                    request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.DEBUG),
+                    request.getMethod(), LogUtils.maskedUri(request.getURI()),
                     RestClient.this.timeout);
 
                 request.abort();
             }
-        }, this.timeout, TimeUnit.MILLISECONDS);
+        }, this.timeout);
 
         try
         {
@@ -443,8 +126,7 @@ public class RestClient implements IRestClient
             }
 
             LOGGER.debug("Issuing httpMethod={} request to uri={}", request.getMethod(),
-                LogUtils.maskUri(request.getURI(), LOGGER, Level.DEBUG));
-            executorService.shutdownNow();
+                LogUtils.maskedUri(request.getURI()));
             return this.httpClient.execute(request,
                 new RestResponseHandler(request.getMethod(), request.getURI(), abortFuture));
         }
@@ -453,7 +135,7 @@ public class RestClient implements IRestClient
             if (request.isAborted())
             {
                 LOGGER.warn("Failed to perform httpMethod={} to uri={}; timed out, timeout={} ms",
-                    request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN),
+                    request.getMethod(), LogUtils.maskedUri(request.getURI()),
                     this.timeout, ioe);
 
                 throw new RequestFailedException(request.getMethod(), request.getURI(),
@@ -463,7 +145,7 @@ public class RestClient implements IRestClient
             else
             {
                 LOGGER.warn("Failed to perform httpMethod={} to uri={}; interrupted IO",
-                    request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN),
+                    request.getMethod(), LogUtils.maskedUri(request.getURI()),
                     ioe);
 
                 throw new RequestFailedException(request.getMethod(), request.getURI(), ioe);
@@ -472,9 +154,13 @@ public class RestClient implements IRestClient
         catch (final Exception e)
         {
             LOGGER.warn("Failed to perform httpMethod={} to uri={}", request.getMethod(),
-                LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN), e);
+                LogUtils.maskedUri(request.getURI()), e);
             throw new RequestFailedException(request.getMethod(), request.getURI(), e);
         }
+        finally
+        {
+            abortFuture.cancel(false);
+        }
     }
 
     static class RestResponseHandler implements ResponseHandler<RestResponse>
@@ -495,24 +181,11 @@ public class RestClient implements IRestClient
         {
             LOGGER.debug("Received response statusCode={} for httpMethod={} request to uri={}",
                 httpResponse.getStatusLine().getStatusCode(), this.method,
-                LogUtils.maskUri(this.uri, LOGGER, Level.DEBUG));
+                LogUtils.maskedUri(this.uri));
 
             this.abortFuture.cancel(false);
 
-            final KeyValuePair.ListBuilder headersBuilder = new KeyValuePair.ListBuilder();
-
-            for (final Header header : httpResponse.getAllHeaders())
-            {
-                headersBuilder.add(header.getName(), header.getValue());
-            }
-
-            return new RestResponse.Builder()
-                .withMethod(this.method)
-                .withUri(this.uri)
-                .withStatusCode(httpResponse.getStatusLine().getStatusCode())
-                .withHeaders(headersBuilder.build())
-                .withContent(EntityUtils.toString(httpResponse.getEntity()))
-                .build();
+            return toRestResponse(this.method, this.uri, httpResponse);
         }
     }
 
@@ -523,6 +196,7 @@ public class RestClient implements IRestClient
         private HttpClient httpClient;
         private long timeout = DefaultOptions.TIMEOUT_MS;
         private long waitTime = DefaultOptions.WAIT_TIME;
+        private ScheduledExecutorService timeoutScheduler;
 
         public Builder withJsonService(final IJsonService val)
         {
@@ -548,6 +222,19 @@ public class RestClient implements IRestClient
             return this;
         }
 
+        /**
+         * Specify the scheduler used to time out requests.  If not set, a single threaded
+         * scheduler shared across the SDK is used.
+         *
+         * @param val scheduler for request timeouts.
+         * @return builder to continue further configuration.
+         */
+        public Builder withTimeoutScheduler(final ScheduledExecutorService val)
+        {
+            this.timeoutScheduler = val;
+            return this;
+        }
+
         @Override
         public RestClient build()
         {
@@ -0,0 +1,296 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.utils;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility methods for creating the executors used to run asynchronous SDK operations.
+ *
+ * @since 2.0
+ */
+public final class ExecutorUtils
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorUtils.class);
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    private static ExecutorService defaultExecutor = null;
+    private static ExecutorService futureWaiter = null;
+
+    private ExecutorUtils()
+    {
+        /*
+        Private default constructor since all methods are static
+         */
+    }
+
+    /**
+     * The executor used by services that have not been configured with one.  It is created on
+     * first use and shared across the SDK, with at most {@link DefaultOptions#THREAD_POOL_SIZE}
+     * daemon threads and {@link DefaultOptions#THREAD_POOL_QUEUE_SIZE} waiting tasks.
+     *
+     * @return shared default executor.
+     */
+    public static synchronized ExecutorService defaultExecutor()
+    {
+        if (defaultExecutor == null)
+        {
+            defaultExecutor = newBoundedExecutor(DefaultOptions.THREAD_POOL_SIZE);
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Create an executor with a bounded number of daemon threads, queueing at most {@link
+     * DefaultOptions#THREAD_POOL_QUEUE_SIZE} tasks.
+     *
+     * @param threads maximum number of threads.
+     * @return new executor.
+     * @see #newBoundedExecutor(int, int)
+     */
+    public static ExecutorService newBoundedExecutor(final int threads)
+    {
+        return newBoundedExecutor(threads, DefaultOptions.THREAD_POOL_QUEUE_SIZE);
+    }
+
+    /**
+     * Create an executor with a bounded number of daemon threads and a bounded queue.  Threads
+     * are only started as tasks are submitted, and are stopped after being idle for a minute.  Once
+     * all threads are busy and the queue is full, a submitted task is run by the submitting thread
+     * instead, slowing down callers rather than letting waiting tasks accumulate without limit.
+     *
+     * @param threads   maximum number of threads.
+     * @param queueSize maximum number of tasks waiting for a thread.
+     * @return new executor.
+     */
+    public static ExecutorService newBoundedExecutor(final int threads, final int queueSize)
+    {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+            IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(queueSize),
+            new DaemonThreadFactory("mobileconnect-worker"), new CallerRunsUnlessShutdown());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Run a task on the executor, returning a future which completes with the result of the task.
+     * Unlike {@link CompletableFuture#supplyAsync(java.util.function.Supplier, Executor)} the task
+     * may throw checked exceptions, which complete the future exceptionally without being wrapped.
+     *
+     * @param task     the task to run.
+     * @param executor the executor to run the task on.
+     * @param <T>      the result type of the task.
+     * @return future completing with the result of the task.
+     */
+    public static <T> CompletableFuture<T> supplyAsync(final Callable<T> task,
+        final Executor executor)
+    {
+        ObjectUtils.requireNonNull(task, "task");
+        ObjectUtils.requireNonNull(executor, "executor");
+
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if (future.isDone())
+                    {
+                        return;
+                    }
+                    try
+                    {
+                        future.complete(task.call());
+                    }
+                    catch (final Exception e)
+                    {
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+        }
+        catch (final RejectedExecutionException ree)
+        {
+            future.completeExceptionally(ree);
+        }
+        return future;
+    }
+
+    /**
+     * Create a future which has already completed with the specified exception.
+     *
+     * @param throwable the exception to complete the future with.
+     * @param <T>       the result type of the future.
+     * @return exceptionally completed future.
+     */
+    public static <T> CompletableFuture<T> failedFuture(final Throwable throwable)
+    {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    /**
+     * Adapt a future to a stage which allows further steps to be chained on completion.  A future
+     * that is already a stage is returned as is; otherwise a thread dedicated to waiting on
+     * futures blocks until the future is done, and the stage completes with its result or with the
+     * exception that failed it.  The wait is kept off the {@link #defaultExecutor()} so that it
+     * cannot hold up the tasks it may be waiting for.
+     *
+     * @param future the future to adapt.
+     * @param <T>    the result type of the future.
+     * @return stage completing with the result of the future.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CompletionStage<T> toStage(final Future<T> future)
+    {
+        ObjectUtils.requireNonNull(future, "future");
+
+        if (future instanceof CompletionStage)
+        {
+            return (CompletionStage<T>) future;
+        }
+        return supplyAsync(new Callable<T>()
+        {
+            @Override
+            public T call() throws Exception
+            {
+                try
+                {
+                    return future.get();
+                }
+                catch (final ExecutionException ee)
+                {
+                    if (ee.getCause() instanceof Exception)
+                    {
+                        throw (Exception) ee.getCause();
+                    }
+                    throw ee;
+                }
+            }
+        }, futureWaiter());
+    }
+
+    /**
+     * The executor whose threads wait on futures for {@link #toStage(Future)}.  Threads are started
+     * as needed, as each spends its time blocked, and are stopped after being idle for a minute.
+     */
+    private static synchronized ExecutorService futureWaiter()
+    {
+        if (futureWaiter == null)
+        {
+            futureWaiter = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+                IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new DaemonThreadFactory("mobileconnect-future-waiter"));
+        }
+        return futureWaiter;
+    }
+
+    /**
+     * @return true if the running JVM supports virtual threads (JDK 21+).
+     */
+    public static boolean isVirtualThreadSupported()
+    {
+        return findVirtualThreadFactoryMethod() != null;
+    }
+
+    /**
+     * Create an executor that starts a new virtual thread for each task.  Only available when
+     * running on JDK 21 or later.
+     *
+     * @return new virtual thread executor, or null if virtual threads are not supported.
+     */
+    public static ExecutorService newVirtualThreadExecutor()
+    {
+        final Method method = findVirtualThreadFactoryMethod();
+        if (method == null)
+        {
+            LOGGER.warn("Virtual threads are not supported by java.version={}",
+                System.getProperty("java.version"));
+            return null;
+        }
+
+        try
+        {
+            return (ExecutorService) method.invoke(null);
+        }
+        catch (final IllegalAccessException iae)
+        {
+            LOGGER.warn("Unable to create virtual thread executor", iae);
+            return null;
+        }
+        catch (final InvocationTargetException ite)
+        {
+            LOGGER.warn("Unable to create virtual thread executor", ite);
+            return null;
+        }
+    }
+
+    /**
+     * Runs a task which the executor has no room for on the submitting thread, unless the executor
+     * has been shut down, in which case the task is rejected rather than silently discarded.
+     */
+    private static final class CallerRunsUnlessShutdown implements RejectedExecutionHandler
+    {
+        @Override
+        public void rejectedExecution(final Runnable task, final ThreadPoolExecutor executor)
+        {
+            if (executor.isShutdown())
+            {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+
+            LOGGER.debug("Executor saturated with activeCount={}, queueSize={}, running task on caller",
+                executor.getActiveCount(), executor.getQueue().size());
+            task.run();
+        }
+    }
+
+    private static Method findVirtualThreadFactoryMethod()
+    {
+        try
+        {
+            return java.util.concurrent.Executors.class.getMethod(
+                "newVirtualThreadPerTaskExecutor");
+        }
+        catch (final NoSuchMethodException nsme)
+        {
+            return null;
+        }
+    }
+}
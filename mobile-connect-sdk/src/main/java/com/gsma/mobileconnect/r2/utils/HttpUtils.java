@@ -20,6 +20,7 @@ import com.gsma.mobileconnect.r2.ErrorResponse;
 import com.gsma.mobileconnect.r2.constants.Headers;
 import org.apache.http.HttpHeaders;
 import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.DateUtils;
 import org.apache.http.client.utils.URLEncodedUtils;
 
 import javax.servlet.http.Cookie;
@@ -29,7 +30,10 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -84,6 +88,114 @@ public final class HttpUtils
         return statusCode >= 400;
     }
 
+    /**
+     * Determine when a response expires from its HTTP caching headers.  The shared cache
+     * directives of Cache-Control take precedence, so s-maxage is preferred to max-age, less the
+     * Age of the response; "no-cache" and "no-store" make the response expire immediately.  In
+     * the absence of Cache-Control the Expires header is used, relative to the Date header if
+     * present to allow for clock skew between the server and this host.
+     *
+     * @param headers of the response, may be null.
+     * @param now     the time the response was received, in milliseconds since the epoch.
+     * @return the time the response expires, or null if the headers do not specify it.
+     */
+    public static Date extractCacheExpiry(final List<KeyValuePair> headers, final long now)
+    {
+        if (headers == null)
+        {
+            return null;
+        }
+
+        final String cacheControl = KeyValuePair.findFirst(headers, HttpHeaders.CACHE_CONTROL);
+        final Long maxAgeSeconds = extractMaxAgeSeconds(cacheControl);
+        if (maxAgeSeconds != null)
+        {
+            final long ageSeconds = parseSeconds(KeyValuePair.findFirst(headers, HttpHeaders.AGE));
+            return new Date(now + TimeUnit.SECONDS.toMillis(Math.max(0L, maxAgeSeconds - ageSeconds)));
+        }
+
+        final String expires = KeyValuePair.findFirst(headers, HttpHeaders.EXPIRES);
+        if (expires == null)
+        {
+            return null;
+        }
+        final Date expiresDate = DateUtils.parseDate(expires);
+        if (expiresDate == null)
+        {
+            // an invalid date, such as "0", means already expired
+            return new Date(now);
+        }
+        final String date = KeyValuePair.findFirst(headers, HttpHeaders.DATE);
+        final Date serverDate = date == null ? null : DateUtils.parseDate(date);
+        return serverDate == null
+            ? expiresDate
+            : new Date(now + Math.max(0L, expiresDate.getTime() - serverDate.getTime()));
+    }
+
+    /**
+     * Create the headers of a conditional GET, which revalidates a cached response using the
+     * validators it was fetched with; the server responds 304 Not Modified, without content, if
+     * the response is unchanged.
+     *
+     * @param etag         the ETag header the cached response was fetched with, may be null.
+     * @param lastModified the Last-Modified header the cached response was fetched with, may be
+     *                     null.
+     * @return the If-None-Match and If-Modified-Since headers, empty if neither validator is
+     * known.
+     */
+    public static List<KeyValuePair> conditionalRequestHeaders(final String etag,
+        final String lastModified)
+    {
+        return new KeyValuePair.ListBuilder()
+            .addIfNotEmpty(HttpHeaders.IF_NONE_MATCH, etag)
+            .addIfNotEmpty(HttpHeaders.IF_MODIFIED_SINCE, lastModified)
+            .build();
+    }
+
+    private static Long extractMaxAgeSeconds(final String cacheControl)
+    {
+        if (StringUtils.isNullOrEmpty(cacheControl))
+        {
+            return null;
+        }
+
+        Long maxAge = null;
+        Long sharedMaxAge = null;
+        for (final String directive : cacheControl.split(","))
+        {
+            final String trimmed = directive.trim().toLowerCase(Locale.ENGLISH);
+            if ("no-cache".equals(trimmed) || "no-store".equals(trimmed))
+            {
+                return 0L;
+            }
+            else if (trimmed.startsWith("s-maxage="))
+            {
+                sharedMaxAge = parseSeconds(trimmed.substring("s-maxage=".length()));
+            }
+            else if (trimmed.startsWith("max-age="))
+            {
+                maxAge = parseSeconds(trimmed.substring("max-age=".length()));
+            }
+        }
+        return sharedMaxAge != null ? sharedMaxAge : maxAge;
+    }
+
+    private static long parseSeconds(final String value)
+    {
+        if (StringUtils.isNullOrEmpty(value))
+        {
+            return 0L;
+        }
+        try
+        {
+            return Math.max(0L, Long.parseLong(value.replace("\"", "").trim()));
+        }
+        catch (final NumberFormatException nfe)
+        {
+            return 0L;
+        }
+    }
+
     /**
      * Returns the unencoded query parameter value, if it is present.
      *
@@ -0,0 +1,258 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.utils;
+
+import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
+
+import java.nio.charset.Charset;
+
+/**
+ * A view over a JSON web token which locates the separators between its parts in a single pass, and
+ * decodes each part only when, and the first time, it is requested.  Create one instance per token
+ * and pass it through each stage of processing, so that the token is split and decoded just once.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @since 2.0
+ */
+public final class JsonWebToken
+{
+    private static final char SEPARATOR = '.';
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private final String token;
+    private final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+    private final int partCount;
+    private final int end;
+    private final int firstSeparator;
+    private final int secondSeparator;
+    private final int thirdSeparator;
+
+    private byte[] header;
+    private byte[] claims;
+    private byte[] signature;
+    private String headerJson;
+    private String claimsJson;
+
+    /**
+     * Index the parts of the token.
+     *
+     * @param token                       to view (required).
+     * @param iMobileConnectEncodeDecoder used to decode the parts of the token.
+     */
+    public JsonWebToken(final String token,
+        final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder)
+    {
+        this.token = StringUtils.requireNonEmpty(token, "token");
+        this.iMobileConnectEncodeDecoder = iMobileConnectEncodeDecoder;
+
+        // trailing empty parts are not counted, as with String.split
+        int last = token.length();
+        while (last > 0 && token.charAt(last - 1) == SEPARATOR)
+        {
+            last--;
+        }
+
+        final int[] separators = { -1, -1, -1 };
+        int separatorCount = 0;
+        for (int i = 0; i < last; i++)
+        {
+            if (token.charAt(i) == SEPARATOR)
+            {
+                if (separatorCount < separators.length)
+                {
+                    separators[separatorCount] = i;
+                }
+                separatorCount++;
+            }
+        }
+
+        this.end = last;
+        this.partCount = last == 0 ? 0 : separatorCount + 1;
+        this.firstSeparator = separators[0];
+        this.secondSeparator = separators[1];
+        this.thirdSeparator = separators[2];
+    }
+
+    /**
+     * @return the token viewed.
+     */
+    public String getToken()
+    {
+        return this.token;
+    }
+
+    /**
+     * @return the encoder/decoder used to decode the parts of the token.
+     */
+    public IMobileConnectEncodeDecoder getEncodeDecoder()
+    {
+        return this.iMobileConnectEncodeDecoder;
+    }
+
+    /**
+     * @return true if the token contains three parts split by periods.
+     */
+    public boolean isValidFormat()
+    {
+        return this.partCount == JsonWebTokens.Part.values().length;
+    }
+
+    /**
+     * @param part to check for.
+     * @return true if the token contains the part, it may be empty.
+     */
+    public boolean hasPart(final JsonWebTokens.Part part)
+    {
+        return part.index < this.partCount;
+    }
+
+    /**
+     * @return the decoded header, or null if the header is missing or empty.
+     */
+    public byte[] getHeaderBytes()
+    {
+        if (this.header == null)
+        {
+            this.header = this.decodePart(JsonWebTokens.Part.HEADER);
+        }
+        return this.header;
+    }
+
+    /**
+     * @return the decoded claims, or null if the claims are missing or empty.
+     */
+    public byte[] getClaimsBytes()
+    {
+        if (this.claims == null)
+        {
+            this.claims = this.decodePart(JsonWebTokens.Part.CLAIMS);
+        }
+        return this.claims;
+    }
+
+    /**
+     * @return the decoded signature, or null if the signature is missing or empty.
+     */
+    public byte[] getSignatureBytes()
+    {
+        if (this.signature == null)
+        {
+            this.signature = this.decodePart(JsonWebTokens.Part.SIGNATURE);
+        }
+        return this.signature;
+    }
+
+    /**
+     * @return the decoded header JSON, or null if the header is missing or empty.
+     */
+    public String getHeader()
+    {
+        if (this.headerJson == null && this.getHeaderBytes() != null)
+        {
+            this.headerJson = new String(this.header, UTF8);
+        }
+        return this.headerJson;
+    }
+
+    /**
+     * @return the decoded claims JSON, or null if the claims are missing or empty.
+     */
+    public String getClaims()
+    {
+        if (this.claimsJson == null && this.getClaimsBytes() != null)
+        {
+            this.claimsJson = new String(this.claims, UTF8);
+        }
+        return this.claimsJson;
+    }
+
+    /**
+     * @return the encoded header and claims, over which the signature is calculated, or null if
+     * the token has no signature part.
+     */
+    public byte[] getSigningInput()
+    {
+        if (!this.hasPart(JsonWebTokens.Part.SIGNATURE))
+        {
+            return null;
+        }
+        return this.token.substring(0, this.secondSeparator).getBytes(ASCII);
+    }
+
+    private int start(final JsonWebTokens.Part part)
+    {
+        switch (part)
+        {
+            case HEADER:
+                return 0;
+            case CLAIMS:
+                return this.firstSeparator + 1;
+            default:
+                return this.secondSeparator + 1;
+        }
+    }
+
+    private int end(final JsonWebTokens.Part part)
+    {
+        final int next;
+        switch (part)
+        {
+            case HEADER:
+                next = this.firstSeparator;
+                break;
+            case CLAIMS:
+                next = this.secondSeparator;
+                break;
+            default:
+                next = this.thirdSeparator;
+                break;
+        }
+        return next < 0 ? this.end : next;
+    }
+
+    /**
+     * Decode a base64url encoded part, translating it to the base64 alphabet and restoring its
+     * padding in a single copy.
+     */
+    private byte[] decodePart(final JsonWebTokens.Part part)
+    {
+        if (!this.hasPart(part))
+        {
+            return null;
+        }
+        final int from = this.start(part);
+        final int length = this.end(part) - from;
+        if (length <= 0)
+        {
+            return null;
+        }
+
+        final char[] base64 = new char[(length + 3) / 4 * 4];
+        for (int i = 0; i < length; i++)
+        {
+            final char c = this.token.charAt(from + i);
+            base64[i] = c == '-' ? '+' : c == '_' ? '/' : c;
+        }
+        for (int i = length; i < base64.length; i++)
+        {
+            base64[i] = '=';
+        }
+        return this.iMobileConnectEncodeDecoder.decodeFromBase64(new String(base64));
+    }
+}
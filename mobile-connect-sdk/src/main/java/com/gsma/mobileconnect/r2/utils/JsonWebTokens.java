@@ -18,17 +18,14 @@ package com.gsma.mobileconnect.r2.utils;
 
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 
-import java.nio.charset.Charset;
-
 /**
- * Helper class for interacting with JSON web tokens.
+ * Helper class for interacting with JSON web tokens.  Where a token is read more than once, prefer
+ * {@link JsonWebToken}, which splits and decodes the token just once.
  *
  * @since 2.0
  */
 public final class JsonWebTokens
 {
-    private static final String FIELD_SEPARATOR_REGEX = "\\.";
-
     private JsonWebTokens()
     {
     }
@@ -43,7 +40,7 @@ public final class JsonWebTokens
     {
         StringUtils.requireNonEmpty(token, "token");
 
-        return token.split(FIELD_SEPARATOR_REGEX).length == Part.values().length;
+        return new JsonWebToken(token, null).isValidFormat();
     }
 
     /**
@@ -82,26 +79,27 @@ public final class JsonWebTokens
          */
         public String decode(final String token, IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder)
         {
-            StringUtils.requireNonEmpty(token, "token");
-
-            final String part = token.split(FIELD_SEPARATOR_REGEX)[this.index];
+            final JsonWebToken jsonWebToken =
+                new JsonWebToken(token, iMobileConnectEncodeDecoder);
+            if (!jsonWebToken.hasPart(this))
+            {
+                throw new ArrayIndexOutOfBoundsException(this.index);
+            }
 
-            if (this == SIGNATURE || StringUtils.isNullOrEmpty(part))
+            final String decoded;
+            if (this == HEADER)
+            {
+                decoded = jsonWebToken.getHeader();
+            }
+            else if (this == CLAIMS)
             {
-                return token;
+                decoded = jsonWebToken.getClaims();
             }
             else
             {
-                String base64 = part.replace('-', '+').replace('_', '/');
-                final int padding = 4 - (base64.length() % 4);
-                final StringBuilder builder = new StringBuilder(base64);
-                for (int i = 0; i < padding; i++)
-                {
-                    builder.append("=");
-                }
-                final byte[] decoded = iMobileConnectEncodeDecoder.decodeFromBase64(builder.toString());
-                return new String(decoded, Charset.forName("UTF-8"));
+                decoded = null;
             }
+            return decoded == null ? token : decoded;
         }
     }
 }
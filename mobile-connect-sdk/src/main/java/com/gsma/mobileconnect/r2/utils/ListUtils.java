@@ -42,6 +42,19 @@ public final class ListUtils
         return list == null ? null : Collections.unmodifiableList(new ArrayList<T>(list));
     }
 
+    /**
+     * Copies the provided list into a new modifiable list.  Note that contents are not copied, so
+     * could still be changed if they are not immutable themselves.
+     *
+     * @param list to copy.
+     * @param <T>  type of contents of list
+     * @return copy of the list, or null if list is null.
+     */
+    public static <T> List<T> copyOf(final List<T> list)
+    {
+        return list == null ? null : new ArrayList<T>(list);
+    }
+
     /**
      * Search a list for a match to a String, ignoring case.
      *
@@ -20,6 +20,12 @@ import org.slf4j.Logger;
 import org.slf4j.event.Level;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Utility methods for logging.
@@ -29,10 +35,11 @@ import java.net.URI;
 public class LogUtils
 {
     /**
-     * Predefined list of URI params that will be obscured if they contain ignoring case any of the
-     * values in this array.  More likely entries are listed first.
+     * Default URI params that will be obscured if their names contain, ignoring case, any of these
+     * values.  More likely entries are listed first.
      */
-    private static final String[] OBSCURE_PARAM_NAMES = {"nonce", "msisdn", "token"};
+    public static final List<String> DEFAULT_SENSITIVE_PARAMETER_NAMES =
+        Collections.unmodifiableList(Arrays.asList("nonce", "msisdn", "token"));
 
     /**
      * Predefined String of asterisks, used for cutting up for use in the {@link #mask(
@@ -40,6 +47,12 @@ public class LogUtils
      */
     private static final String ASTERISK_MASK;
 
+    /**
+     * URI params that will be obscured, lower case; see {@link #setSensitiveParameterNames}.
+     */
+    private static volatile String[] sensitiveParameterNames =
+        DEFAULT_SENSITIVE_PARAMETER_NAMES.toArray(new String[0]);
+
     static
     {
         final StringBuilder sb = new StringBuilder(100);
@@ -57,6 +70,36 @@ public class LogUtils
          */
     }
 
+    /**
+     * Set the URI params whose values are obscured when masking a URI.  A param is obscured if its
+     * name contains, ignoring case, any of the names.
+     *
+     * @param names of the params to obscure, {@link #DEFAULT_SENSITIVE_PARAMETER_NAMES} by
+     *              default.
+     */
+    public static void setSensitiveParameterNames(final Collection<String> names)
+    {
+        ObjectUtils.requireNonNull(names, "names");
+
+        final List<String> lowerCaseNames = new ArrayList<String>(names.size());
+        for (final String name : names)
+        {
+            if (!StringUtils.isNullOrEmpty(name))
+            {
+                lowerCaseNames.add(name.toLowerCase(Locale.ENGLISH));
+            }
+        }
+        sensitiveParameterNames = lowerCaseNames.toArray(new String[lowerCaseNames.size()]);
+    }
+
+    /**
+     * @return the URI params whose values are obscured when masking a URI, in lower case.
+     */
+    public static List<String> getSensitiveParameterNames()
+    {
+        return Collections.unmodifiableList(Arrays.asList(sensitiveParameterNames));
+    }
+
     /**
      * Mask centre of a String with asterisks.  Will cap out at the length of ASTERISK_MASK for
      * number of asterisks included (i.e. a 300 character String).
@@ -66,6 +109,7 @@ public class LogUtils
      *               method.
      * @param level  intended level of logging.
      * @return str masked, or null if it was null or the logger is not logging at level.
+     * @see #masked(String) to defer masking until the value is logged.
      */
     public static String mask(final String str, final Logger logger, final Level level)
     {
@@ -86,7 +130,7 @@ public class LogUtils
      *
      * @param str to maskUri.
      * @return masked value.
-     * @see #mask(String, Logger, Level) for ability to run according to logging.
+     * @see #masked(String) for masking only when logged.
      */
     public static String mask(final String str)
     {
@@ -96,33 +140,42 @@ public class LogUtils
         }
         else
         {
-            final int start = str.length() / 3;
-            final int mask = (str.length() + 4) / 3;
-            final int end = str.length() - ((str.length() - 1) / 3);
-
-            return str.substring(0, start) + ASTERISK_MASK.substring(0,
-                Math.min(mask, ASTERISK_MASK.length())) + str.substring(end);
+            final StringBuilder sb = new StringBuilder(str.length());
+            appendMasked(sb, str, 0, str.length());
+            return sb.toString();
         }
     }
 
-
+    /**
+     * Wrap a String value so that it is masked, as by {@link #mask(String)}, only when it is
+     * converted to a String; for use as a log message argument, which is only converted if the
+     * message is logged.
+     *
+     * @param str to mask.
+     * @return wrapper whose toString is str masked.
+     */
+    public static Object masked(final String str)
+    {
+        return new Masked(str, false);
+    }
 
     /**
      * Inspects a URI and masks any sensitive parameter values. The sensitive param names are
-     * defined by OBSCURE_PARAM_NAMES, and are matched by searching the parameter name as to whether
-     * it contains the name.
+     * defined by {@link #setSensitiveParameterNames}, and are matched by searching the parameter
+     * name as to whether it contains the name.
      *
      * @param uri    to mask
      * @param logger to inspect current logging level - nothing is actually logged within this
      *               method.
      * @param level  intended log level
      * @return masked uri, or null if logger is not logging at level.
+     * @see #maskedUri(URI) to defer masking until the value is logged.
      */
     public static String maskUri(final URI uri, final Logger logger, final Level level)
     {
         if (isLevelEnabled(logger, level))
         {
-            return maskUri(uri.toString(), logger, level);
+            return maskUri(uri.toString());
         }
         else
         {
@@ -132,28 +185,21 @@ public class LogUtils
 
     /**
      * Inspects a URI and masks any sensitive parameter values. The sensitive param names are
-     * defined by OBSCURE_PARAM_NAMES, and are matched by searching the parameter name as to whether
-     * it contains the name.
+     * defined by {@link #setSensitiveParameterNames}, and are matched by searching the parameter
+     * name as to whether it contains the name.
      *
      * @param uriStr to mask
      * @param logger to inspect current logging level - nothing is actually logged within this
      *               method.
      * @param level  intended log level
      * @return masked uri, or null if logger is not logging at level.
+     * @see #maskedUri(String) to defer masking until the value is logged.
      */
     public static String maskUri(final String uriStr, final Logger logger, final Level level)
     {
         if (isLevelEnabled(logger, level))
         {
-            final int queryStart = uriStr.indexOf('?');
-            if (queryStart == -1)
-            {
-                return uriStr;
-            }
-            else
-            {
-                return maskUriParams(uriStr, queryStart);
-            }
+            return maskUri(uriStr);
         }
         else
         {
@@ -161,47 +207,120 @@ public class LogUtils
         }
     }
 
+    /**
+     * Inspects a URI and masks any sensitive parameter values, irrespective of logging.  The query
+     * is scanned once, and the URI is returned as is, without copying, if it has no sensitive
+     * parameter values.
+     *
+     * @param uriStr to mask
+     * @return masked uri.
+     */
+    public static String maskUri(final String uriStr)
+    {
+        final int queryStart = uriStr.indexOf('?');
+        if (queryStart == -1)
+        {
+            return uriStr;
+        }
+        else
+        {
+            return maskUriParams(uriStr, queryStart);
+        }
+    }
+
+    /**
+     * Wrap a URI so that it is masked, as by {@link #maskUri(String)}, only when it is converted to
+     * a String; for use as a log message argument, which is only converted if the message is
+     * logged.
+     *
+     * @param uri to mask.
+     * @return wrapper whose toString is uri masked.
+     */
+    public static Object maskedUri(final URI uri)
+    {
+        return new Masked(uri, true);
+    }
+
+    /**
+     * Wrap a URI so that it is masked only when it is converted to a String, see {@link
+     * #maskedUri(URI)}.
+     *
+     * @param uriStr to mask.
+     * @return wrapper whose toString is uriStr masked.
+     */
+    public static Object maskedUri(final String uriStr)
+    {
+        return new Masked(uriStr, true);
+    }
+
     private static String maskUriParams(final String uri, final int queryStart)
     {
-        final StringBuilder sb = new StringBuilder(uri.substring(0, queryStart + 1));
+        final String[] names = sensitiveParameterNames;
+        final int length = uri.length();
 
-        final String[] params = uri.substring(queryStart + 1).split("&");
-        for (int i = 0; i < params.length; i++)
+        StringBuilder sb = null;
+        int start = queryStart + 1;
+        while (start <= length)
         {
-            final String param = params[i];
-            final int eqIndex = param.indexOf('=');
+            int end = uri.indexOf('&', start);
+            if (end == -1)
+            {
+                end = length;
+            }
 
-            if (eqIndex == -1)
+            final int eqIndex = uri.indexOf('=', start);
+            if (eqIndex != -1 && eqIndex < end - 1 && isSensitive(uri, start, eqIndex, names))
             {
-                sb.append(param);
+                if (sb == null)
+                {
+                    sb = new StringBuilder(length).append(uri, 0, start);
+                }
+                sb.append(uri, start, eqIndex + 1);
+                appendMasked(sb, uri, eqIndex + 1, end);
             }
-            else
+            else if (sb != null)
             {
-                maskParam(sb, param, eqIndex);
+                sb.append(uri, start, end);
             }
 
-            if (i < params.length - 1)
+            if (sb != null && end < length)
             {
                 sb.append('&');
             }
+            start = end + 1;
         }
 
-        return sb.toString();
+        return sb == null ? uri : sb.toString();
     }
 
-    private static void maskParam(final StringBuilder sb, final String param, final int eqIndex)
+    private static boolean isSensitive(final String uri, final int nameStart, final int nameEnd,
+        final String[] names)
     {
-        final String name = param.substring(0, eqIndex);
-        final String lcName = name.toLowerCase();
-        for (final String obscureParam : OBSCURE_PARAM_NAMES)
+        for (final String name : names)
         {
-            if (lcName.contains(obscureParam))
+            for (int i = nameStart; i <= nameEnd - name.length(); i++)
             {
-                sb.append(name).append('=').append(mask(param.substring(eqIndex + 1)));
-                return;
+                if (uri.regionMatches(true, i, name, 0, name.length()))
+                {
+                    return true;
+                }
             }
         }
-        sb.append(param);
+        return false;
+    }
+
+    private static void appendMasked(final StringBuilder sb, final String str, final int from,
+        final int to)
+    {
+        final int length = to - from;
+        final int start = length / 3;
+        final int mask = (length + 4) / 3;
+        final int end = length - ((length - 1) / 3);
+
+        sb
+            .append(str, from, from + start)
+            .append(ASTERISK_MASK, 0, Math.min(mask, ASTERISK_MASK.length()))
+            .append(str, from + end, to);
     }
 
     /**
@@ -238,4 +357,29 @@ public class LogUtils
         }
         return returnValue;
     }
+
+    /**
+     * Log message argument which masks a value when it is converted to a String.
+     */
+    private static final class Masked
+    {
+        private final Object value;
+        private final boolean uri;
+
+        private Masked(final Object value, final boolean uri)
+        {
+            this.value = value;
+            this.uri = uri;
+        }
+
+        @Override
+        public String toString()
+        {
+            if (this.value == null)
+            {
+                return "null";
+            }
+            return this.uri ? maskUri(this.value.toString()) : mask(this.value.toString());
+        }
+    }
 }
@@ -62,6 +62,29 @@ public final class ObjectUtils
         }
     }
 
+    /**
+     * Checks that the specified number is greater than zero.
+     *
+     * @param value to check.
+     * @param name  to report in the message of the exception.
+     * @return value if greater than zero.
+     * @throws InvalidArgumentException if value is zero or negative.
+     */
+    public static long requirePositive(final long value, final String name)
+    {
+        if (value <= 0)
+        {
+            final InvalidArgumentException iae = new InvalidArgumentException(name,
+                InvalidArgumentException.Disallowed.NOT_POSITIVE);
+            LOGGER.warn("Required argument {} was zero or negative", name, iae);
+            throw iae;
+        }
+        else
+        {
+            return value;
+        }
+    }
+
     /**
      * Checks the specified object reference for nullity, returning objDefault in the case that obj
      * is null.
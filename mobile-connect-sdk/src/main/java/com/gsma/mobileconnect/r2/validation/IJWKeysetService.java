@@ -19,7 +19,9 @@ package com.gsma.mobileconnect.r2.validation;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.ExecutorUtils;
 
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
 /**
@@ -37,6 +39,18 @@ public interface IJWKeysetService
      */
     Future<JWKeyset> retrieveJwksAsync(final String url);
 
+    /**
+     * Non-blocking variant of {@link IJWKeysetService#retrieveJwksAsync(String)} which allows
+     * token validation to be chained on completion.
+     *
+     * @param url JWKS URL
+     * @return stage completing with the JSON Web Keyset if successfully retrieved
+     */
+    default CompletionStage<JWKeyset> retrieveJwksStage(final String url)
+    {
+        return ExecutorUtils.toStage(this.retrieveJwksAsync(url));
+    }
+
     /**
      * Synchronous wrapper for retrieveJwksAsync
      *
@@ -45,4 +59,17 @@ public interface IJWKeysetService
      */
     JWKeyset retrieveJwks(final String url)
         throws CacheAccessException, RequestFailedException, JsonDeserializationException;
+
+    /**
+     * Retrieve the JSON Web Keyset from the specified url, refetching it if the keyset held does
+     * not contain a key with the specified key id, as happens when the operator rotates its keys.
+     * Refetches are rate limited per url, and a key id that is still missing after a refetch is
+     * not looked for again for a short period.
+     *
+     * @param url   JWKS URL
+     * @param keyId the "kid" of the key required
+     * @return JSON Web Keyset if successfully retrieved, which may not contain the key required
+     */
+    JWKeyset retrieveJwks(final String url, final String keyId)
+        throws CacheAccessException, RequestFailedException, JsonDeserializationException;
 }
@@ -0,0 +1,188 @@
+/*
+* SOFTWARE USE PERMISSION
+*
+* By downloading and accessing this software and associated documentation files ("Software") you are granted the
+* unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+* sublicense and grant such rights to third parties, subject to the following conditions:
+*
+* The following copyright notice and this permission notice shall be included in all copies, modifications or
+* substantial portions of this Software: Copyright © 2016 GSM Association.
+*
+* THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+* HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+* INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+*/
+package com.gsma.mobileconnect.r2.validation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.gsma.mobileconnect.r2.claims.ClaimsConstants;
+
+import java.io.IOException;
+
+/**
+ * The claims of an id token that are checked during its validation.  Deserialized in a single
+ * streaming pass over the claims JSON, which reads only these claims and skips any others without
+ * building a tree of the whole payload.
+ *
+ * @since 2.0
+ */
+@JsonDeserialize(using = IdTokenClaims.JacksonDeserializer.class)
+public class IdTokenClaims
+{
+    private String nonce;
+    private String issuer;
+    private String audience;
+    private String authorizedParty;
+    private Long expiry;
+    private Long issuedAt;
+
+    /**
+     * Constructor used by {@link JacksonDeserializer}
+     */
+    private IdTokenClaims()
+    {
+    }
+
+    /**
+     * @return the "nonce" claim, or null if it is not present.
+     */
+    public String getNonce()
+    {
+        return nonce;
+    }
+
+    /**
+     * @return the "iss" claim, or null if it is not present.
+     */
+    public String getIssuer()
+    {
+        return issuer;
+    }
+
+    /**
+     * @return the "aud" claim, or null if it is not present or is not a single value.
+     */
+    public String getAudience()
+    {
+        return audience;
+    }
+
+    /**
+     * @return the "azp" claim, or null if it is not present or is not a single value.
+     */
+    public String getAuthorizedParty()
+    {
+        return authorizedParty;
+    }
+
+    /**
+     * @return the "exp" claim in seconds since the epoch, or null if it is not present.
+     */
+    public Long getExpiry()
+    {
+        return expiry;
+    }
+
+    /**
+     * @return the "iat" claim in seconds since the epoch, or null if it is not present.
+     */
+    public Long getIssuedAt()
+    {
+        return issuedAt;
+    }
+
+    protected static class JacksonDeserializer extends JsonDeserializer<IdTokenClaims>
+    {
+        @Override
+        public IdTokenClaims deserialize(final JsonParser jsonParser,
+            final DeserializationContext deserializationContext) throws IOException
+        {
+            if (jsonParser.getCurrentToken() != JsonToken.START_OBJECT)
+            {
+                throw JsonMappingException.from(jsonParser,
+                    "Expected id token claims to be a json object");
+            }
+
+            final IdTokenClaims claims = new IdTokenClaims();
+            while (jsonParser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                final String name = jsonParser.getCurrentName();
+                jsonParser.nextToken();
+
+                if (ClaimsConstants.NONCE.equals(name))
+                {
+                    claims.nonce = readText(jsonParser);
+                }
+                else if (ClaimsConstants.ISSUER.equals(name))
+                {
+                    claims.issuer = readText(jsonParser);
+                }
+                else if (ClaimsConstants.AUD.equals(name))
+                {
+                    claims.audience = readText(jsonParser);
+                }
+                else if (ClaimsConstants.AZP.equals(name))
+                {
+                    claims.authorizedParty = readText(jsonParser);
+                }
+                else if (ClaimsConstants.EXPIRED.equals(name))
+                {
+                    claims.expiry = readLong(jsonParser, deserializationContext);
+                }
+                else if (ClaimsConstants.ISSUED_AT_TIME.equals(name))
+                {
+                    claims.issuedAt = readLong(jsonParser, deserializationContext);
+                }
+                else
+                {
+                    jsonParser.skipChildren();
+                }
+            }
+
+            return claims;
+        }
+
+        private static String readText(final JsonParser jsonParser) throws IOException
+        {
+            final JsonToken token = jsonParser.getCurrentToken();
+            if (token.isScalarValue())
+            {
+                return token == JsonToken.VALUE_NULL ? null : jsonParser.getText();
+            }
+            jsonParser.skipChildren();
+            return null;
+        }
+
+        private static Long readLong(final JsonParser jsonParser,
+            final DeserializationContext deserializationContext) throws IOException
+        {
+            final JsonToken token = jsonParser.getCurrentToken();
+            if (token.isNumeric())
+            {
+                return jsonParser.getLongValue();
+            }
+            if (token == JsonToken.VALUE_STRING)
+            {
+                final String text = jsonParser.getText();
+                try
+                {
+                    return Long.valueOf(text);
+                }
+                catch (final NumberFormatException nfe)
+                {
+                    throw deserializationContext.weirdStringException(text, Long.class,
+                        "not a valid time");
+                }
+            }
+            jsonParser.skipChildren();
+            return null;
+        }
+    }
+}
@@ -25,12 +25,29 @@ import com.gsma.mobileconnect.r2.utils.StringUtils;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.impl.crypto.RsaSignatureValidator;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
 import java.math.BigInteger;
-import java.security.Key;
+import java.security.AlgorithmParameters;
+import java.security.InvalidKeyException;
 import java.security.KeyFactory;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
 import java.security.spec.InvalidKeySpecException;
+import java.security.spec.InvalidParameterSpecException;
 import java.security.spec.RSAPublicKeySpec;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Represents a cryptographic key that belongs to a JWKeyset
@@ -39,6 +56,46 @@ import java.security.spec.RSAPublicKeySpec;
  */
 class JWKey
 {
+    /**
+     * Signature instances by JCA algorithm name, held per thread as they are not thread safe but
+     * are costly to look up for every token verified.
+     */
+    private static final ThreadLocal<Map<String, Signature>> SIGNATURES =
+        new ThreadLocal<Map<String, Signature>>()
+        {
+            @Override
+            protected Map<String, Signature> initialValue()
+            {
+                return new HashMap<String, Signature>();
+            }
+        };
+
+    /**
+     * Mac instances by JCA algorithm name, held per thread as for {@link #SIGNATURES}.
+     */
+    private static final ThreadLocal<Map<String, Mac>> MACS = new ThreadLocal<Map<String, Mac>>()
+    {
+        @Override
+        protected Map<String, Mac> initialValue()
+        {
+            return new HashMap<String, Mac>();
+        }
+    };
+
+    /**
+     * Standard names of the curves supported for EC keys, by their JWK "crv" name.
+     */
+    private static final Map<String, String> EC_CURVES;
+
+    static
+    {
+        final Map<String, String> curves = new HashMap<String, String>();
+        curves.put("P-256", "secp256r1");
+        curves.put("P-384", "secp384r1");
+        curves.put("P-521", "secp521r1");
+        EC_CURVES = Collections.unmodifiableMap(curves);
+    }
+
     private String keyType;
     private String use;
     private String keyOps;
@@ -50,6 +107,8 @@ class JWKey
     private String eccY;
     private String rsaN;
     private String rsaE;
+    private volatile PublicKey publicKey;
+    private volatile SecretKeySpec secretKey;
 
     private JWKey()
     {
@@ -188,6 +247,23 @@ class JWKey
     public boolean verify(final String input, final String expected, final String algorithm,
         final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
         throws MobileConnectInvalidJWKException, NoSuchAlgorithmException, InvalidKeySpecException
+    {
+        return this.verify(input.getBytes(), mobileConnectEncodeDecoder.decodeFromBase64(expected),
+            algorithm, mobileConnectEncodeDecoder);
+    }
+
+    /**
+     * Verify a signature using this key.
+     *
+     * @param input                      the signed data.
+     * @param signature                  the decoded signature.
+     * @param algorithm                  the "alg" the data was signed with.
+     * @param mobileConnectEncodeDecoder used to decode the key components.
+     * @return true if the signature is valid.
+     */
+    boolean verify(final byte[] input, final byte[] signature, final String algorithm,
+        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
+        throws MobileConnectInvalidJWKException, NoSuchAlgorithmException, InvalidKeySpecException
     {
         SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.forName(algorithm);
 
@@ -195,12 +271,20 @@ class JWKey
         if (isRsa())
         {
 
-            isValid = verifyRsa(input, expected, signatureAlgorithm, mobileConnectEncodeDecoder);
+            isValid = verifyRsa(input, signature, signatureAlgorithm, mobileConnectEncodeDecoder);
+        }
+        else if (isEcc() && signatureAlgorithm.isEllipticCurve())
+        {
+            isValid = verifyEcc(input, signature, signatureAlgorithm, mobileConnectEncodeDecoder);
+        }
+        else if (isSymmetric() && signatureAlgorithm.isHmac())
+        {
+            isValid = verifyHmac(input, signature, signatureAlgorithm, mobileConnectEncodeDecoder);
         }
         return isValid;
     }
 
-    private boolean verifyRsa(final String input, final String expected,
+    private boolean verifyRsa(final byte[] input, final byte[] signature,
         final SignatureAlgorithm signatureAlgorithm,
         final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
         throws NoSuchAlgorithmException, InvalidKeySpecException, MobileConnectInvalidJWKException
@@ -211,17 +295,237 @@ class JWKey
                 "RSA key does not have required Modulus and Exponent components");
         }
 
+        final PublicKey rsaPublicKey = this.getPublicKey(mobileConnectEncodeDecoder);
+        if (!signatureAlgorithm.isRsa() || !signatureAlgorithm.isJdkStandard())
+        {
+            return new RsaSignatureValidator(signatureAlgorithm, rsaPublicKey).isValid(input,
+                signature);
+        }
+
+        return verifySignature(signatureAlgorithm.getJcaName(), rsaPublicKey, input, signature);
+    }
+
+    private boolean verifyEcc(final byte[] input, final byte[] signature,
+        final SignatureAlgorithm signatureAlgorithm,
+        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
+        throws NoSuchAlgorithmException, InvalidKeySpecException, MobileConnectInvalidJWKException
+    {
+        if (StringUtils.isNullOrEmpty(this.getEccCurve()) || StringUtils.isNullOrEmpty(
+            this.getEccX()) || StringUtils.isNullOrEmpty(this.getEccY()))
+        {
+            throw new MobileConnectInvalidJWKException(
+                "EC key does not have required Curve, X and Y components");
+        }
+
+        final ECPublicKey ecPublicKey = (ECPublicKey) this.getPublicKey(mobileConnectEncodeDecoder);
+
+        // JWS carries the R and S values concatenated, each padded to the size of the curve
+        final int size = (ecPublicKey.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+        if (signature.length != 2 * size)
+        {
+            return false;
+        }
+
+        return verifySignature(signatureAlgorithm.getJcaName(), ecPublicKey, input,
+            toDerSignature(signature));
+    }
+
+    private boolean verifyHmac(final byte[] input, final byte[] signature,
+        final SignatureAlgorithm signatureAlgorithm,
+        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
+        throws NoSuchAlgorithmException, MobileConnectInvalidJWKException
+    {
+        if (StringUtils.isNullOrEmpty(this.getKey()))
+        {
+            throw new MobileConnectInvalidJWKException("Symmetric key does not have a Key value");
+        }
+
+        final Mac mac = macFor(signatureAlgorithm.getJcaName());
+        try
+        {
+            mac.init(this.getSecretKey(signatureAlgorithm.getJcaName(),
+                mobileConnectEncodeDecoder));
+        }
+        catch (final InvalidKeyException e)
+        {
+            throw new MobileConnectInvalidJWKException("Symmetric key is not valid for verification",
+                e);
+        }
+        return MessageDigest.isEqual(mac.doFinal(input), signature);
+    }
+
+    private static boolean verifySignature(final String jcaName, final PublicKey publicKey,
+        final byte[] input, final byte[] signature)
+        throws NoSuchAlgorithmException, MobileConnectInvalidJWKException
+    {
+        final Signature verifier = signatureFor(jcaName);
+        try
+        {
+            verifier.initVerify(publicKey);
+            verifier.update(input);
+            return verifier.verify(signature);
+        }
+        catch (final InvalidKeyException e)
+        {
+            throw new MobileConnectInvalidJWKException("Key is not valid for verification", e);
+        }
+        catch (final SignatureException e)
+        {
+            return false;
+        }
+    }
+
+    private static Signature signatureFor(final String jcaName) throws NoSuchAlgorithmException
+    {
+        final Map<String, Signature> signatures = SIGNATURES.get();
+        Signature result = signatures.get(jcaName);
+        if (result == null)
+        {
+            result = Signature.getInstance(jcaName);
+            signatures.put(jcaName, result);
+        }
+        return result;
+    }
+
+    private static Mac macFor(final String jcaName) throws NoSuchAlgorithmException
+    {
+        final Map<String, Mac> macs = MACS.get();
+        Mac result = macs.get(jcaName);
+        if (result == null)
+        {
+            result = Mac.getInstance(jcaName);
+            macs.put(jcaName, result);
+        }
+        return result;
+    }
+
+    /**
+     * Convert a JWS ECDSA signature, the R and S values concatenated, to the DER encoded sequence
+     * of two integers expected by {@link Signature}.
+     */
+    static byte[] toDerSignature(final byte[] signature)
+    {
+        final int half = signature.length / 2;
+        final byte[] r = toDerInteger(signature, 0, half);
+        final byte[] s = toDerInteger(signature, half, half);
+        final int length = r.length + s.length;
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(length + 3);
+        out.write(0x30);
+        if (length > 0x7f)
+        {
+            out.write(0x81);
+        }
+        out.write(length);
+        out.write(r, 0, r.length);
+        out.write(s, 0, s.length);
+        return out.toByteArray();
+    }
+
+    private static byte[] toDerInteger(final byte[] value, final int offset, final int length)
+    {
+        int start = offset;
+        final int end = offset + length;
+        while (start < end - 1 && value[start] == 0)
+        {
+            start++;
+        }
+        final int pad = (value[start] & 0x80) != 0 ? 1 : 0;
+        final int contentLength = end - start + pad;
+
+        final byte[] result = new byte[contentLength + 2];
+        result[0] = 0x02;
+        result[1] = (byte) contentLength;
+        System.arraycopy(value, start, result, 2 + pad, end - start);
+        return result;
+    }
+
+    /**
+     * Return the public key described by this JWK, materializing it on first use; the key is then
+     * held for the lifetime of this object, so is built once per keyset fetch rather than once
+     * per token verified.
+     *
+     * @param mobileConnectEncodeDecoder used to decode the key components.
+     * @return the public key, an {@link ECPublicKey} for an EC key, otherwise an RSA public key.
+     */
+    PublicKey getPublicKey(final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
+        throws NoSuchAlgorithmException, InvalidKeySpecException
+    {
+        PublicKey result = this.publicKey;
+        if (result == null)
+        {
+            result = isEcc()
+                     ? this.createEcPublicKey(mobileConnectEncodeDecoder)
+                     : this.createRsaPublicKey(mobileConnectEncodeDecoder);
+            this.publicKey = result;
+        }
+        return result;
+    }
+
+    private PublicKey createRsaPublicKey(
+        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
+        throws NoSuchAlgorithmException, InvalidKeySpecException
+    {
         byte[] mod =
             ByteUtils.addZeroPrefix(mobileConnectEncodeDecoder.decodeFromBase64(this.getRsaN()));
         byte[] exp =
             ByteUtils.addZeroPrefix(mobileConnectEncodeDecoder.decodeFromBase64(this.getRsaE()));
 
         final KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-        final Key rsaKey = keyFactory.generatePublic(
+        return keyFactory.generatePublic(
             new RSAPublicKeySpec(new BigInteger(mod), new BigInteger(exp)));
+    }
+
+    private PublicKey createEcPublicKey(
+        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
+        throws NoSuchAlgorithmException, InvalidKeySpecException
+    {
+        final String curveName = EC_CURVES.get(this.getEccCurve());
+        if (curveName == null)
+        {
+            throw new InvalidKeySpecException("Unsupported EC curve " + this.getEccCurve());
+        }
+
+        final ECParameterSpec parameters;
+        try
+        {
+            final AlgorithmParameters algorithmParameters = AlgorithmParameters.getInstance("EC");
+            algorithmParameters.init(new ECGenParameterSpec(curveName));
+            parameters = algorithmParameters.getParameterSpec(ECParameterSpec.class);
+        }
+        catch (final InvalidParameterSpecException e)
+        {
+            throw new InvalidKeySpecException("Unsupported EC curve " + this.getEccCurve(), e);
+        }
 
-        return new RsaSignatureValidator(signatureAlgorithm, rsaKey).isValid(input.getBytes(),
-            mobileConnectEncodeDecoder.decodeFromBase64(expected));
+        final ECPoint point = new ECPoint(
+            new BigInteger(1, mobileConnectEncodeDecoder.decodeFromBase64(this.getEccX())),
+            new BigInteger(1, mobileConnectEncodeDecoder.decodeFromBase64(this.getEccY())));
+
+        final KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        return keyFactory.generatePublic(new ECPublicKeySpec(point, parameters));
+    }
+
+    /**
+     * Return the symmetric key described by this JWK, materializing it on first use and holding
+     * it for the lifetime of this object, as for {@link #getPublicKey}.
+     *
+     * @param jcaName                    the JCA name of the HMAC algorithm the key is used with.
+     * @param mobileConnectEncodeDecoder used to decode the key value.
+     * @return the secret key.
+     */
+    SecretKeySpec getSecretKey(final String jcaName,
+        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
+    {
+        SecretKeySpec result = this.secretKey;
+        if (result == null || !result.getAlgorithm().equals(jcaName))
+        {
+            result =
+                new SecretKeySpec(mobileConnectEncodeDecoder.decodeFromBase64(this.getKey()),
+                    jcaName);
+            this.secretKey = result;
+        }
+        return result;
     }
 
-}
+}
\ No newline at end of file
@@ -21,8 +21,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
 import com.gsma.mobileconnect.r2.utils.ListUtils;
 import com.gsma.mobileconnect.r2.utils.Predicate;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * JWKS retrieved from the JWKS endpoint
@@ -32,11 +36,22 @@ import java.util.List;
 public class JWKeyset extends AbstractCacheable
 {
     private List<JWKey> keys;
+    private volatile Map<String, List<JWKey>> keysById;
+    private String etag;
+    private String lastModified;
 
     private JWKeyset()
     {
     }
 
+    private JWKeyset(final JWKeyset source)
+    {
+        this.keys = source.keys == null ? null : new ArrayList<JWKey>(source.keys);
+        this.keysById = source.keysById;
+        this.etag = source.etag;
+        this.lastModified = source.lastModified;
+    }
+
     /**
      * @return All available keys
      */
@@ -46,6 +61,48 @@ public class JWKeyset extends AbstractCacheable
         return keys;
     }
 
+    /**
+     * @return the ETag header this keyset was fetched with, for use in a conditional request, or
+     * null if there was none.
+     */
+    @JsonProperty("etag")
+    public String getEtag()
+    {
+        return this.etag;
+    }
+
+    /**
+     * @return the Last-Modified header this keyset was fetched with, for use in a conditional
+     * request, or null if there was none.
+     */
+    @JsonProperty("last_modified")
+    public String getLastModified()
+    {
+        return this.lastModified;
+    }
+
+    /**
+     * Create a copy of this keyset holding the validators of the response it was fetched or
+     * revalidated with; a validator which is null keeps its current value.
+     *
+     * @param etag         the ETag header of the response, may be null.
+     * @param lastModified the Last-Modified header of the response, may be null.
+     * @return the copy.
+     */
+    JWKeyset withValidators(final String etag, final String lastModified)
+    {
+        final JWKeyset copy = new JWKeyset(this);
+        if (etag != null)
+        {
+            copy.etag = etag;
+        }
+        if (lastModified != null)
+        {
+            copy.lastModified = lastModified;
+        }
+        return copy;
+    }
+
     /**
      * Return all keys matching the predicate
      *
@@ -61,4 +118,70 @@ public class JWKeyset extends AbstractCacheable
         }
         return ListUtils.allMatches(keys, predicate);
     }
+
+    /**
+     * Return the first key with the specified key id which is intended for the specified
+     * algorithm, or which does not restrict its algorithm.  Keys are indexed by key id on first
+     * use; the keys returned hold their materialized public keys for the lifetime of the keyset.
+     *
+     * @param keyId     the "kid" of the key, may be null to match keys without a key id.
+     * @param algorithm the "alg" the key will be used with.
+     * @return the matching key, or null if there is none.
+     */
+    @JsonIgnore
+    JWKey getKey(final String keyId, final String algorithm)
+    {
+        final List<JWKey> candidates = this.getKeysById().get(keyId);
+        if (candidates != null)
+        {
+            for (final JWKey candidate : candidates)
+            {
+                if (StringUtils.isNullOrEmpty(candidate.getAlgorithm())
+                    || candidate.getAlgorithm().equals(algorithm))
+                {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param keyId the "kid" of the key, may be null to match keys without a key id.
+     * @return true if the keyset holds a key with the specified key id.
+     */
+    boolean containsKeyId(final String keyId)
+    {
+        return this.getKeysById().containsKey(keyId);
+    }
+
+    private Map<String, List<JWKey>> getKeysById()
+    {
+        Map<String, List<JWKey>> result = this.keysById;
+        if (result == null)
+        {
+            result = new HashMap<String, List<JWKey>>();
+            if (this.keys != null)
+            {
+                for (final JWKey key : this.keys)
+                {
+                    List<JWKey> candidates = result.get(key.getKeyId());
+                    if (candidates == null)
+                    {
+                        candidates = new ArrayList<JWKey>(1);
+                        result.put(key.getKeyId(), candidates);
+                    }
+                    candidates.add(key);
+                }
+            }
+            this.keysById = result;
+        }
+        return result;
+    }
+
+    @Override
+    protected JWKeyset snapshot()
+    {
+        return new JWKeyset(this);
+    }
 }
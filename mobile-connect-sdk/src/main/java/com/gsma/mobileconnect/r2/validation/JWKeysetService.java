@@ -18,27 +18,70 @@ package com.gsma.mobileconnect.r2.validation;
 
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
 import com.gsma.mobileconnect.r2.cache.ICache;
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
+import com.gsma.mobileconnect.r2.utils.ExecutorUtils;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Concrete implementation see {@link IJWKeysetService}
+ * <p>
+ * Concurrent requests for a JWKS which is not cached share a single fetch.  If refresh-ahead is
+ * configured, a cached JWKS which has been held for longer than the refresh-ahead period is renewed
+ * in the background while the cached copy continues to be served, and an expired JWKS continues to
+ * be served to other callers while a fetch to replace it is in flight.
+ * <p>
+ * A JWKS which does not contain a requested key id is refetched at most once per {@link
+ * Builder#withMinimumRefetchInterval(long, TimeUnit) minimum refetch interval}, and a key id which
+ * is still missing afterwards is remembered for the {@link Builder#withUnknownKeyIdCacheTime(long,
+ * TimeUnit) unknown key id cache time}, so tokens with unknown key ids cannot trigger a refetch
+ * storm.
  *
  * @since 2.0
  */
 public class JWKeysetService implements IJWKeysetService
 {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JWKeysetService.class);
+    private static final int MAX_UNKNOWN_KEY_IDS = 1000;
+
     private final IRestClient restClient;
     private final ICache iCache;
+    private final ExecutorService executorService;
+    private final long refreshAheadMs;
+    private final long minimumRefetchIntervalMs;
+    private final long unknownKeyIdCacheMs;
+
+    private final ConcurrentMap<String, CompletableFuture<JWKeyset>> inFlight =
+        new ConcurrentHashMap<String, CompletableFuture<JWKeyset>>();
+    private final ConcurrentMap<String, Long> refreshTimes = new ConcurrentHashMap<String, Long>();
+    private final ConcurrentMap<String, Long> keyIdRefetchTimes =
+        new ConcurrentHashMap<String, Long>();
+    private final ConcurrentMap<String, Long> unknownKeyIds = new ConcurrentHashMap<String, Long>();
 
     private final JacksonJsonService jacksonJsonService;
 
@@ -51,6 +94,10 @@ public class JWKeysetService implements IJWKeysetService
     {
         this.restClient = builder.restClient;
         this.iCache = builder.iCache;
+        this.executorService = builder.executorService;
+        this.refreshAheadMs = builder.refreshAheadMs;
+        this.minimumRefetchIntervalMs = builder.minimumRefetchIntervalMs;
+        this.unknownKeyIdCacheMs = builder.unknownKeyIdCacheMs;
         this.jacksonJsonService = new JacksonJsonService();
     }
 
@@ -60,17 +107,20 @@ public class JWKeysetService implements IJWKeysetService
     @Override
     public Future<JWKeyset> retrieveJwksAsync(final String url)
     {
-        ExecutorService executorService = Executors.newCachedThreadPool();
-        Future<JWKeyset> futureJWKeyset = executorService.submit(new Callable<JWKeyset>()
+        return this.retrieveJwksStage(url).toCompletableFuture();
+    }
+
+    @Override
+    public CompletionStage<JWKeyset> retrieveJwksStage(final String url)
+    {
+        return ExecutorUtils.supplyAsync(new Callable<JWKeyset>()
         {
             @Override
             public JWKeyset call() throws Exception
             {
                 return JWKeysetService.this.retrieveJwks(url);
             }
-        });
-        executorService.shutdownNow();
-        return futureJWKeyset;
+        }, this.executorService);
     }
 
     /**
@@ -80,27 +130,287 @@ public class JWKeysetService implements IJWKeysetService
     public JWKeyset retrieveJwks(final String url)
         throws CacheAccessException, RequestFailedException, JsonDeserializationException
     {
-        final JWKeyset cachedJWKeyset = retrieveFromCache(url);
+        final JWKeyset cachedJWKeyset = this.servable(retrieveFromCache(url));
         if (cachedJWKeyset != null && !cachedJWKeyset.hasExpired())
         {
+            if (this.isRefreshDue(url))
+            {
+                this.refreshInBackground(url);
+            }
+            return cachedJWKeyset;
+        }
+        if (cachedJWKeyset != null && this.inFlight.containsKey(url))
+        {
+            LOGGER.debug("Serving expired JWKS while refresh is in flight for url={}", url);
             return cachedJWKeyset;
         }
-        final RestResponse response = this.restClient.get(URI.create(url), null, null,null, null, null);
-        final JWKeyset jwKeyset =
-            this.jacksonJsonService.deserialize(response.getContent(), JWKeyset.class);
+        return this.fetchJwks(url);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JWKeyset retrieveJwks(final String url, final String keyId)
+        throws CacheAccessException, RequestFailedException, JsonDeserializationException
+    {
+        JWKeyset jwKeyset = this.retrieveJwks(url);
+        if (jwKeyset == null || jwKeyset.containsKeyId(keyId))
+        {
+            return jwKeyset;
+        }
+
+        final String unknownKey = url + " " + keyId;
+        final long now = System.currentTimeMillis();
+        final Long unknownUntil = this.unknownKeyIds.get(unknownKey);
+        if (unknownUntil != null && unknownUntil > now)
+        {
+            LOGGER.debug("Key id={} recently found to be missing from JWKS for url={}", keyId, url);
+            return jwKeyset;
+        }
+
+        final CompletableFuture<JWKeyset> existing = this.inFlight.get(url);
+        if (existing != null)
+        {
+            jwKeyset = awaitFetch(url, existing);
+        }
+        else if (this.claimKeyIdRefetch(url, now))
+        {
+            LOGGER.info("Refetching JWKS for url={} as it does not contain key id={}", url, keyId);
+            jwKeyset = this.fetchJwks(url);
+        }
+        else
+        {
+            LOGGER.debug("Not refetching JWKS for url={} to find key id={}; refetched too recently",
+                url, keyId);
+            return jwKeyset;
+        }
+
+        if (jwKeyset != null && !jwKeyset.containsKeyId(keyId))
+        {
+            this.rememberUnknownKeyId(unknownKey, now);
+        }
+        return jwKeyset;
+    }
+
+    private boolean claimKeyIdRefetch(final String url, final long now)
+    {
+        final Long lastRefetch = this.keyIdRefetchTimes.get(url);
+        if (lastRefetch == null)
+        {
+            return this.keyIdRefetchTimes.putIfAbsent(url, now) == null;
+        }
+        return lastRefetch + this.minimumRefetchIntervalMs <= now
+            && this.keyIdRefetchTimes.replace(url, lastRefetch, now);
+    }
+
+    private void rememberUnknownKeyId(final String unknownKey, final long now)
+    {
+        if (this.unknownKeyIds.size() >= MAX_UNKNOWN_KEY_IDS)
+        {
+            final Iterator<Long> iterator = this.unknownKeyIds.values().iterator();
+            while (iterator.hasNext())
+            {
+                if (iterator.next() <= now)
+                {
+                    iterator.remove();
+                }
+            }
+        }
+        if (this.unknownKeyIds.size() < MAX_UNKNOWN_KEY_IDS)
+        {
+            this.unknownKeyIds.put(unknownKey, now + this.unknownKeyIdCacheMs);
+        }
+    }
+
+    /**
+     * Fetch the JWKS and add it to the cache.  If a fetch of the same url is already in flight the
+     * caller waits for, and shares, its result rather than issuing a further request.
+     */
+    private JWKeyset fetchJwks(final String url)
+        throws CacheAccessException, RequestFailedException, JsonDeserializationException
+    {
+        final CompletableFuture<JWKeyset> future = new CompletableFuture<JWKeyset>();
+        final CompletableFuture<JWKeyset> existing = this.inFlight.putIfAbsent(url, future);
+        if (existing != null)
+        {
+            LOGGER.debug("Joining in flight fetch of JWKS for url={}", url);
+            return awaitFetch(url, existing);
+        }
+
+        try
+        {
+            final JWKeyset jwKeyset = this.downloadJwks(url);
+            future.complete(jwKeyset);
+            return jwKeyset;
+        }
+        catch (final CacheAccessException cae)
+        {
+            future.completeExceptionally(cae);
+            throw cae;
+        }
+        catch (final RequestFailedException rfe)
+        {
+            future.completeExceptionally(rfe);
+            throw rfe;
+        }
+        catch (final JsonDeserializationException jde)
+        {
+            future.completeExceptionally(jde);
+            throw jde;
+        }
+        catch (final RuntimeException re)
+        {
+            future.completeExceptionally(re);
+            throw re;
+        }
+        finally
+        {
+            this.inFlight.remove(url, future);
+        }
+    }
+
+    /**
+     * Download the JWKS, issuing a conditional request if the cached JWKS was fetched with
+     * validators.  If the server responds that the JWKS is not modified, the cached JWKS is cached
+     * again, renewing its expiry, without transferring or parsing it.
+     */
+    private JWKeyset downloadJwks(final String url)
+        throws CacheAccessException, RequestFailedException, JsonDeserializationException
+    {
+        final JWKeyset stored = retrieveFromCache(url);
+        final List<KeyValuePair> conditionalHeaders = stored == null
+            ? Collections.<KeyValuePair>emptyList()
+            : HttpUtils.conditionalRequestHeaders(stored.getEtag(), stored.getLastModified());
+
+        final RestResponse response = conditionalHeaders.isEmpty()
+            ? this.restClient.get(URI.create(url), null, null, null, null, null)
+            : this.restClient.get(URI.create(url), null, null, null, null, null,
+                conditionalHeaders);
+
+        final JWKeyset fetched;
+        if (stored != null && response.getStatusCode() == HttpStatus.SC_NOT_MODIFIED)
+        {
+            LOGGER.debug("JWKS not modified, renewing cached copy for url={}", url);
+            fetched = stored;
+        }
+        else
+        {
+            fetched = this.jacksonJsonService.deserialize(response.getContent(), JWKeyset.class);
+        }
+        final List<KeyValuePair> headers = ObjectUtils.defaultIfNull(response.getHeaders(),
+            Collections.<KeyValuePair>emptyList());
+        final JWKeyset jwKeyset = fetched == null ? null : fetched.withValidators(
+            KeyValuePair.findFirst(headers, HttpHeaders.ETAG),
+            KeyValuePair.findFirst(headers, HttpHeaders.LAST_MODIFIED));
 
         addToCache(url, jwKeyset);
+        if (this.refreshAheadMs > 0)
+        {
+            this.refreshTimes.put(url, System.currentTimeMillis() + this.refreshAheadMs);
+        }
 
         return jwKeyset;
     }
 
+    private static JWKeyset awaitFetch(final String url, final CompletableFuture<JWKeyset> future)
+        throws CacheAccessException, RequestFailedException, JsonDeserializationException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, URI.create(url), ie);
+        }
+        catch (final ExecutionException ee)
+        {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof CacheAccessException)
+            {
+                throw (CacheAccessException) cause;
+            }
+            if (cause instanceof RequestFailedException)
+            {
+                throw (RequestFailedException) cause;
+            }
+            if (cause instanceof JsonDeserializationException)
+            {
+                throw (JsonDeserializationException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new RequestFailedException(HttpUtils.HttpMethod.GET, URI.create(url), cause);
+        }
+    }
+
+    /**
+     * @return true if the JWKS has been held for longer than the refresh-ahead period, in which
+     * case the next refresh time is moved on so that only one caller triggers the refresh.
+     */
+    private boolean isRefreshDue(final String url)
+    {
+        if (this.refreshAheadMs <= 0)
+        {
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        final Long refreshTime = this.refreshTimes.putIfAbsent(url, now + this.refreshAheadMs);
+        return refreshTime != null && refreshTime <= now
+            && this.refreshTimes.replace(url, refreshTime, now + this.refreshAheadMs);
+    }
+
+    private void refreshInBackground(final String url)
+    {
+        LOGGER.debug("Refreshing JWKS ahead of expiry for url={}", url);
+        try
+        {
+            this.executorService.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        JWKeysetService.this.fetchJwks(url);
+                    }
+                    catch (final Exception e)
+                    {
+                        LOGGER.warn("Failed to refresh JWKS for url={}", url, e);
+                    }
+                }
+            });
+        }
+        catch (final RejectedExecutionException ree)
+        {
+            LOGGER.warn("Unable to schedule refresh of JWKS for url={}", url, ree);
+        }
+    }
+
+    /**
+     * Read the JWKS from the cache, leaving it cached if it has expired so that its validators
+     * remain available for a conditional request; see {@link #servable(JWKeyset)}.
+     */
     private JWKeyset retrieveFromCache(final String url) throws CacheAccessException
     {
         if (this.iCache == null)
         {
             return null;
         }
-        return this.iCache.get(url, JWKeyset.class);
+        return this.iCache.get(url, JWKeyset.class, false);
+    }
+
+    /**
+     * @return the cached JWKS, or null if it has expired and, as refresh-ahead is disabled, may
+     * not be served while it is refreshed.
+     */
+    private JWKeyset servable(final JWKeyset cached)
+    {
+        return cached != null && cached.hasExpired() && this.refreshAheadMs <= 0 ? null : cached;
     }
 
     private void addToCache(final String url, final JWKeyset jwKeyset) throws CacheAccessException
@@ -115,7 +425,10 @@ public class JWKeysetService implements IJWKeysetService
     {
         private IRestClient restClient;
         private ICache iCache;
-
+        private ExecutorService executorService;
+        private long refreshAheadMs = 0L;
+        private long minimumRefetchIntervalMs = DefaultOptions.JWKS_MIN_REFETCH_INTERVAL_MS;
+        private long unknownKeyIdCacheMs = DefaultOptions.JWKS_UNKNOWN_KEY_ID_TTL_MS;
 
         public Builder()
         {
@@ -136,8 +449,71 @@ public class JWKeysetService implements IJWKeysetService
             return this;
         }
 
+        /**
+         * Specify the executor used to run asynchronous operations.  If not set, the executor
+         * shared across the SDK is used.
+         *
+         * @param val executor to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withExecutorService(final ExecutorService val)
+        {
+            this.executorService = val;
+            return this;
+        }
+
+        /**
+         * Enable refresh-ahead, renewing a cached JWKS in the background once it has been held
+         * for the specified period, and serving an expired JWKS while its replacement is being
+         * fetched.  The period should be shorter than the cache expiry time configured for {@link
+         * JWKeyset}.  Disabled by default.
+         *
+         * @param duration the period after which a cached JWKS is refreshed, zero to disable.
+         * @param unit     the unit of duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRefreshAhead(final long duration, final TimeUnit unit)
+        {
+            this.refreshAheadMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify the minimum time between refetches of a JWKS triggered by a token signed with a
+         * key id it does not contain.  Defaults to {@link
+         * DefaultOptions#JWKS_MIN_REFETCH_INTERVAL_MS}.
+         *
+         * @param duration the minimum interval between refetches.
+         * @param unit     the unit of duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMinimumRefetchInterval(final long duration, final TimeUnit unit)
+        {
+            this.minimumRefetchIntervalMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specify how long a key id which is missing from a freshly fetched JWKS is remembered,
+         * during which tokens signed with it do not trigger a refetch.  Defaults to {@link
+         * DefaultOptions#JWKS_UNKNOWN_KEY_ID_TTL_MS}.
+         *
+         * @param duration the time to remember an unknown key id.
+         * @param unit     the unit of duration.
+         * @return builder to continue further configuration.
+         */
+        public Builder withUnknownKeyIdCacheTime(final long duration, final TimeUnit unit)
+        {
+            this.unknownKeyIdCacheMs = unit.toMillis(duration);
+            return this;
+        }
+
         public JWKeysetService build()
         {
+            if (this.executorService == null)
+            {
+                this.executorService = ExecutorUtils.defaultExecutor();
+            }
             return new JWKeysetService(this);
         }
     }
@@ -0,0 +1,254 @@
+/*
+* SOFTWARE USE PERMISSION
+*
+* By downloading and accessing this software and associated documentation files ("Software") you are granted the
+* unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+* sublicense and grant such rights to third parties, subject to the following conditions:
+*
+* The following copyright notice and this permission notice shall be included in all copies, modifications or
+* substantial portions of this Software: Copyright © 2016 GSM Association.
+*
+* THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+* HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+* INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+*/
+package com.gsma.mobileconnect.r2.validation;
+
+import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.JsonWebToken;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Validates the signatures of a batch of id tokens in parallel.  Headers are read in parallel,
+ * the tokens are then grouped by key id and algorithm so the signing key for each group is looked
+ * up once, and the signatures are verified in parallel in group order, so that each worker tends
+ * to verify runs of tokens against the same key.
+ *
+ * @since 2.0
+ */
+class TokenSignatureBatch
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenSignatureBatch.class);
+
+    /**
+     * Number of tokens below which a task is processed on the current worker rather than split.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    private final List<String> idTokens;
+    private final JWKeyset keyset;
+    private final IJsonService jsonService;
+    private final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder;
+
+    private final TokenValidationResult[] results;
+    private final JsonWebToken[] tokens;
+    private final JWKey[] headers;
+    private final JWKey[] keys;
+
+    TokenSignatureBatch(final List<String> idTokens, final JWKeyset keyset,
+        final IJsonService jsonService,
+        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
+    {
+        this.idTokens = new ArrayList<String>(idTokens);
+        this.keyset = keyset;
+        this.jsonService = jsonService;
+        this.mobileConnectEncodeDecoder = mobileConnectEncodeDecoder;
+
+        final int size = this.idTokens.size();
+        this.results = new TokenValidationResult[size];
+        this.tokens = new JsonWebToken[size];
+        this.headers = new JWKey[size];
+        this.keys = new JWKey[size];
+    }
+
+    /**
+     * Validate the batch.
+     *
+     * @param pool the pool to validate the tokens on.
+     * @return the result for each token, in the order the tokens were supplied.
+     */
+    List<TokenValidationResult> validate(final ForkJoinPool pool)
+    {
+        if (this.keyset == null)
+        {
+            LOGGER.warn("Keyset not found");
+            Arrays.fill(this.results, TokenValidationResult.JWKS_ERROR);
+            return Arrays.asList(this.results);
+        }
+
+        pool.invoke(new Task(identity(this.results.length), 0, this.results.length, false));
+
+        final int[] order = this.groupByKey();
+        pool.invoke(new Task(order, 0, order.length, true));
+
+        LOGGER.debug("Validated id token signatures for batch of size={}", this.results.length);
+        return Arrays.asList(this.results);
+    }
+
+    private void readHeader(final int index)
+    {
+        final String idToken = this.idTokens.get(index);
+        if (StringUtils.isNullOrEmpty(idToken))
+        {
+            LOGGER.warn("Id token is missing");
+            this.results[index] = TokenValidationResult.ID_TOKEN_MISSING;
+            return;
+        }
+
+        final JsonWebToken token = new JsonWebToken(idToken, this.mobileConnectEncodeDecoder);
+        try
+        {
+            this.headers[index] = TokenValidation.extractHeader(token, this.jsonService);
+            this.tokens[index] = token;
+        }
+        catch (final JsonDeserializationException e)
+        {
+            LOGGER.warn("Error deserializing idToken header", e);
+            this.results[index] = TokenValidationResult.INVALID_SIGNATURE;
+        }
+    }
+
+    /**
+     * Look up the key for each token with a readable header, once per distinct key id and
+     * algorithm.
+     *
+     * @return the indices of those tokens, ordered by key.
+     */
+    private int[] groupByKey()
+    {
+        final Map<List<String>, List<Integer>> groups =
+            new LinkedHashMap<List<String>, List<Integer>>();
+        for (int i = 0; i < this.headers.length; i++)
+        {
+            if (this.headers[i] != null)
+            {
+                final List<String> groupKey =
+                    Arrays.asList(this.headers[i].getKeyId(), this.headers[i].getAlgorithm());
+                List<Integer> group = groups.get(groupKey);
+                if (group == null)
+                {
+                    group = new ArrayList<Integer>();
+                    groups.put(groupKey, group);
+                }
+                group.add(i);
+            }
+        }
+
+        final List<Integer> ordered = new ArrayList<Integer>(this.headers.length);
+        for (final List<Integer> group : groups.values())
+        {
+            final JWKey header = this.headers[group.get(0)];
+            final JWKey jwKey = this.keyset.getKey(header.getKeyId(), header.getAlgorithm());
+            for (final Integer index : group)
+            {
+                if (jwKey == null)
+                {
+                    this.results[index] = TokenValidationResult.NO_MATCHING_KEY;
+                }
+                else
+                {
+                    this.keys[index] = jwKey;
+                    ordered.add(index);
+                }
+            }
+            if (jwKey == null)
+            {
+                LOGGER.warn("No key found in keyset matching idtoken header for count={} tokens",
+                    group.size());
+            }
+        }
+
+        final int[] order = new int[ordered.size()];
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = ordered.get(i);
+        }
+        return order;
+    }
+
+    private void verify(final int index)
+    {
+        final JsonWebToken token = this.tokens[index];
+        final byte[] signature = token.getSignatureBytes();
+        if (signature == null)
+        {
+            LOGGER.warn("Error discovering signature");
+            this.results[index] = TokenValidationResult.INVALID_SIGNATURE;
+            return;
+        }
+
+        this.results[index] = TokenValidation.verifySignature(this.keys[index],
+            token.getSigningInput(), signature, this.headers[index].getAlgorithm(),
+            this.mobileConnectEncodeDecoder);
+    }
+
+    private static int[] identity(final int size)
+    {
+        final int[] indices = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    /**
+     * Reads headers or verifies signatures for a range of token indices, splitting the range
+     * across workers while it is larger than {@link #SEQUENTIAL_THRESHOLD}.
+     */
+    private final class Task extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] indices;
+        private final int from;
+        private final int to;
+        private final boolean verify;
+
+        private Task(final int[] indices, final int from, final int to, final boolean verify)
+        {
+            this.indices = indices;
+            this.from = from;
+            this.to = to;
+            this.verify = verify;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.to - this.from <= SEQUENTIAL_THRESHOLD)
+            {
+                for (int i = this.from; i < this.to; i++)
+                {
+                    if (this.verify)
+                    {
+                        TokenSignatureBatch.this.verify(this.indices[i]);
+                    }
+                    else
+                    {
+                        TokenSignatureBatch.this.readHeader(this.indices[i]);
+                    }
+                }
+                return;
+            }
+
+            final int middle = (this.from + this.to) >>> 1;
+            invokeAll(new Task(this.indices, this.from, middle, this.verify),
+                new Task(this.indices, middle, this.to, this.verify));
+        }
+    }
+}
@@ -17,16 +17,14 @@
 package com.gsma.mobileconnect.r2.validation;
 
 import com.gsma.mobileconnect.r2.authentication.RequestTokenResponseData;
-import com.gsma.mobileconnect.r2.claims.Claims;
-import com.gsma.mobileconnect.r2.claims.ClaimsConstants;
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 import com.gsma.mobileconnect.r2.exceptions.MobileConnectInvalidJWKException;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
-import com.gsma.mobileconnect.r2.utils.JsonWebTokens;
-import com.gsma.mobileconnect.r2.utils.ListUtils;
-import com.gsma.mobileconnect.r2.utils.Predicate;
+import com.gsma.mobileconnect.r2.utils.JsonWebToken;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import com.gsma.mobileconnect.r2.utils.StringUtils;
+import io.jsonwebtoken.SignatureException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +32,8 @@ import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Utility methods for token validation
@@ -77,15 +77,39 @@ public class TokenValidation
             return TokenValidationResult.ID_TOKEN_MISSING;
         }
 
+        return validateIdToken(new JsonWebToken(idToken, mobileConnectEncodeDecoder), clientId,
+            issuer, nonce, maxAge, keyset, jsonService);
+    }
+
+    /**
+     * Validates an id token against the mobile connect validation requirements, see {@link
+     * #validateIdToken(String, String, String, String, long, JWKeyset, IJsonService,
+     * IMobileConnectEncodeDecoder)}.  The token is split and decoded only once across the
+     * validation of its claims and signature.
+     *
+     * @param idToken     IDToken to validate
+     * @param clientId    ClientId that is validated against the aud and azp claims
+     * @param issuer      Issuer that is validated against the iss claim
+     * @param nonce       Nonce that is validated against the nonce claim
+     * @param maxAge      MaxAge that is used to validate the auth_time claim (if supplied)
+     * @param keyset      Keyset retrieved from the jwks url, used to validate the token signature
+     * @param jsonService Json service to be used deserialising strings to objects
+     * @return TokenValidationResult that specifies if the token is valid, or if not why it is not
+     * valid
+     */
+    public static TokenValidationResult validateIdToken(final JsonWebToken idToken, //NOSONAR
+        final String clientId, final String issuer, final String nonce, final long maxAge,
+        final JWKeyset keyset, final IJsonService jsonService)
+        throws JsonDeserializationException
+    {
         TokenValidationResult result =
-            validateIdTokenClaims(idToken, clientId, issuer, nonce, maxAge, jsonService,
-                mobileConnectEncodeDecoder);
+            validateIdTokenClaims(idToken, clientId, issuer, nonce, maxAge, jsonService);
         if (result != TokenValidationResult.VALID)
         {
             return result;
         }
 
-        return validateIdTokenSignature(idToken, keyset, jsonService, mobileConnectEncodeDecoder);
+        return validateIdTokenSignature(idToken, keyset, jsonService);
     }
 
     /**
@@ -112,25 +136,143 @@ public class TokenValidation
             return TokenValidationResult.JWKS_ERROR;
         }
 
+        return validateIdTokenSignature(new JsonWebToken(idToken, mobileConnectEncodeDecoder),
+            keyset, jsonService);
+    }
+
+    /**
+     * Validates an id token signature, see {@link #validateIdTokenSignature(String, JWKeyset,
+     * IJsonService, IMobileConnectEncodeDecoder)}.
+     *
+     * @param idToken     IDToken to validate
+     * @param keyset      Keyset retrieved from the jwks url, used to validate the token signature.
+     *                    If null the token will not be validated and {@link
+     *                    TokenValidationResult#JWKS_ERROR}
+     * @param jsonService Json service to be used deserialising strings to objects
+     * @return TokenValidationResult that specifies if the token signature is valid, or if not why
+     * it is not valid
+     */
+    public static TokenValidationResult validateIdTokenSignature(final JsonWebToken idToken,
+        final JWKeyset keyset, final IJsonService jsonService)
+        throws JsonDeserializationException
+    {
+        if (keyset == null)
+        {
+            LOGGER.warn("Keyset not found");
+            return TokenValidationResult.JWKS_ERROR;
+        }
+
         try
         {
-            return validateSignature(idToken, keyset, jsonService, mobileConnectEncodeDecoder);
+            return validateSignature(idToken, keyset, jsonService);
         }
         catch (JsonDeserializationException e)
         {
             LOGGER.warn("Error deserializing idToken");
-            throw new JsonDeserializationException(JWKey.class, idToken, e);
+            throw new JsonDeserializationException(JWKey.class, idToken.getToken(), e);
         }
     }
 
-    private static TokenValidationResult validateSignature(final String idToken,
-        final JWKeyset keyset, final IJsonService jsonService,
+    /**
+     * Validates the signatures of a batch of id tokens, see {@link
+     * #validateIdTokenSignature(String, JWKeyset, IJsonService, IMobileConnectEncodeDecoder)},
+     * verifying them in parallel on the common fork join pool.
+     *
+     * @param idTokens                    IDTokens to validate
+     * @param keyset                      Keyset retrieved from the jwks url, used to validate the
+     *                                    token signatures
+     * @param jsonService                 Json service to be used deserialising strings to objects
+     * @param mobileConnectEncodeDecoder  Class used to encode/decode
+     * @return TokenValidationResult for each token, in the order the tokens were supplied
+     */
+    public static List<TokenValidationResult> validateIdTokenSignatures(
+        final List<String> idTokens, final JWKeyset keyset, final IJsonService jsonService,
+        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
+    {
+        return validateIdTokenSignatures(idTokens, keyset, jsonService, mobileConnectEncodeDecoder,
+            ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Validates the signatures of a batch of id tokens in parallel on the supplied pool.  Tokens
+     * are grouped by the key they are signed with, so each key is looked up and decoded once for
+     * the batch.  A token which is missing gives {@link TokenValidationResult#ID_TOKEN_MISSING},
+     * and a token whose header cannot be read gives {@link
+     * TokenValidationResult#INVALID_SIGNATURE}; neither affects the other tokens in the batch.
+     *
+     * @param idTokens                    IDTokens to validate
+     * @param keyset                      Keyset retrieved from the jwks url, used to validate the
+     *                                    token signatures. If null no token will be validated and
+     *                                    each gives {@link TokenValidationResult#JWKS_ERROR}
+     * @param jsonService                 Json service to be used deserialising strings to objects
+     * @param mobileConnectEncodeDecoder  Class used to encode/decode
+     * @param pool                        Pool to verify the tokens on
+     * @return TokenValidationResult for each token, in the order the tokens were supplied
+     */
+    public static List<TokenValidationResult> validateIdTokenSignatures(
+        final List<String> idTokens, final JWKeyset keyset, final IJsonService jsonService,
+        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder, final ForkJoinPool pool)
+    {
+        ObjectUtils.requireNonNull(idTokens, "idTokens");
+        ObjectUtils.requireNonNull(pool, "pool");
+
+        return new TokenSignatureBatch(idTokens, keyset, jsonService,
+            mobileConnectEncodeDecoder).validate(pool);
+    }
+
+    /**
+     * Extracts the key id from the header of an id token, identifying the key in the keyset which
+     * should be used to validate its signature
+     *
+     * @param idToken                     IDToken to read
+     * @param jsonService                 Json service to be used deserialising strings to objects
+     * @param mobileConnectEncodeDecoder  Class used to encode/decode
+     * @return the "kid" header parameter, or null if the token does not specify one
+     */
+    public static String extractKeyId(final String idToken, final IJsonService jsonService,
         final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
         throws JsonDeserializationException
     {
-        final JWKey jwKeyDeserialized = jsonService.deserialize(
-            JsonWebTokens.Part.HEADER.decode(idToken, mobileConnectEncodeDecoder),
+        return extractKeyId(new JsonWebToken(idToken, mobileConnectEncodeDecoder), jsonService);
+    }
+
+    /**
+     * Extracts the key id from the header of an id token, see {@link #extractKeyId(String,
+     * IJsonService, IMobileConnectEncodeDecoder)}.
+     *
+     * @param idToken     IDToken to read
+     * @param jsonService Json service to be used deserialising strings to objects
+     * @return the "kid" header parameter, or null if the token does not specify one
+     */
+    public static String extractKeyId(final JsonWebToken idToken, final IJsonService jsonService)
+        throws JsonDeserializationException
+    {
+        return extractHeader(idToken, jsonService).getKeyId();
+    }
+
+    static JWKey extractHeader(final JsonWebToken idToken,
+        final IJsonService jsonService) throws JsonDeserializationException
+    {
+        return jsonService.deserialize(requirePart(idToken.getHeader(), idToken, JWKey.class),
             JWKey.class);
+    }
+
+    private static <P> P requirePart(final P part, final JsonWebToken idToken,
+        final Class<?> clazz) throws JsonDeserializationException
+    {
+        if (part == null)
+        {
+            throw new JsonDeserializationException(clazz, idToken.getToken(),
+                new IllegalArgumentException("Id token part is missing or empty"));
+        }
+        return part;
+    }
+
+    private static TokenValidationResult validateSignature(final JsonWebToken idToken,
+        final JWKeyset keyset, final IJsonService jsonService)
+        throws JsonDeserializationException
+    {
+        final JWKey jwKeyDeserialized = extractHeader(idToken, jsonService);
         final String alg = jwKeyDeserialized.getAlgorithm();
         final String keyId = jwKeyDeserialized.getKeyId();
 
@@ -142,39 +284,24 @@ public class TokenValidation
             return TokenValidationResult.NO_MATCHING_KEY;
         }
 
-        final int lastSplitIndex = idToken.lastIndexOf('.');
-        if (lastSplitIndex < 0 || lastSplitIndex == idToken.length() - 1)
+        final byte[] signature = idToken.getSignatureBytes();
+        if (signature == null)
         {
             LOGGER.warn("Error discovering signature");
             return TokenValidationResult.INVALID_SIGNATURE;
         }
 
-        final String dataToSign = idToken.substring(0, lastSplitIndex);
-        final String signature = idToken.substring(lastSplitIndex + 1);
-
-        return verifySignature(jwKey, dataToSign, signature, alg, mobileConnectEncodeDecoder);
+        return verifySignature(jwKey, idToken.getSigningInput(), signature, alg,
+            idToken.getEncodeDecoder());
     }
 
     private static JWKey extractJwKey(final JWKeyset keyset, final String alg, final String keyId)
     {
-        return ListUtils.firstMatch(keyset.getKeys(), new Predicate<JWKey>()
-        {
-            @Override
-            public boolean apply(final JWKey input)
-            {
-                if (input.getKeyId() == null)
-                {
-                    return keyId == null && (StringUtils.isNullOrEmpty(input.getAlgorithm())
-                        || input.getAlgorithm().equals(alg));
-                }
-                return input.getKeyId().equals(keyId) && (StringUtils.isNullOrEmpty(
-                    input.getAlgorithm()) || input.getAlgorithm().equals(alg));
-            }
-        });
+        return keyset.getKey(keyId, alg);
     }
 
-    private static TokenValidationResult verifySignature(final JWKey jwKey, final String dataToSign,
-        final String signature, final String alg,
+    static TokenValidationResult verifySignature(final JWKey jwKey, final byte[] dataToSign,
+        final byte[] signature, final String alg,
         final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
     {
         boolean isValid;
@@ -198,6 +325,11 @@ public class TokenValidation
             LOGGER.warn("No matching algorithm found", e);
             return TokenValidationResult.INCORRECT_ALGORITHM;
         }
+        catch (SignatureException e)
+        {
+            LOGGER.warn("Unsupported algorithm alg={}", alg, e);
+            return TokenValidationResult.INCORRECT_ALGORITHM;
+        }
     }
 
     /**
@@ -221,7 +353,29 @@ public class TokenValidation
         final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
         throws JsonDeserializationException
     {
-        final Claims claims = extractClaims(idToken, jsonService, mobileConnectEncodeDecoder);
+        return validateIdTokenClaims(new JsonWebToken(idToken, mobileConnectEncodeDecoder),
+            clientId, issuer, expectedNonce, maxAge, jsonService);
+    }
+
+    /**
+     * Validates an id tokens claims, see {@link #validateIdTokenClaims(String, String, String,
+     * String, long, IJsonService, IMobileConnectEncodeDecoder)}.
+     *
+     * @param idToken       IDToken to validate
+     * @param clientId      ClientId that is validated against the aud and azp claims
+     * @param issuer        Issuer that is validated against the iss claim
+     * @param expectedNonce Nonce that is validated against the nonce claim
+     * @param maxAge        MaxAge that is used to validate the auth_time claim (if supplied)
+     * @param jsonService   Json service used to serialize/deserialize objects
+     * @return TokenValidationResult that specifies if the token claims are valid, or if not why
+     * they are not valid
+     */
+    public static TokenValidationResult validateIdTokenClaims(final JsonWebToken idToken,
+        final String clientId, final String issuer, final String expectedNonce, final long maxAge,
+        final IJsonService jsonService)
+        throws JsonDeserializationException
+    {
+        final IdTokenClaims claims = extractClaims(idToken, jsonService);
 
         if (isNonceInvalid(claims, expectedNonce))
         {
@@ -244,33 +398,45 @@ public class TokenValidation
         return validateTokenExpiry(claims, maxAge);
     }
 
-    private static Claims extractClaims(final String idToken, final IJsonService jsonService,
-        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
-        throws JsonDeserializationException
+    private static IdTokenClaims extractClaims(final JsonWebToken idToken,
+        final IJsonService jsonService) throws JsonDeserializationException
     {
-        String claimsJson = JsonWebTokens.Part.CLAIMS.decode(idToken, mobileConnectEncodeDecoder);
-        return jsonService.deserialize(claimsJson, Claims.class);
+        return jsonService.deserialize(
+            requirePart(idToken.getClaimsBytes(), idToken, IdTokenClaims.class),
+            IdTokenClaims.class);
     }
 
-    private static boolean isNonceInvalid(final Claims claims, final String expectedNonce)
+    /**
+     * @return the time, in milliseconds since the epoch, until which a valid token remains valid;
+     * the sooner of its expiry and its max age passing.
+     */
+    static long validUntil(final JsonWebToken idToken, final long maxAge,
+        final IJsonService jsonService) throws JsonDeserializationException
     {
-        return expectedNonce != null && !expectedNonce.equals(
-            claims.get(ClaimsConstants.NONCE).getValue().toString());
+        final IdTokenClaims claims = extractClaims(idToken, jsonService);
+        final long expiry = claims.getExpiry() * 1000;
+        final long maxAgeExpiry = (claims.getIssuedAt() * 1000) + (maxAge * 1000);
+        return Math.min(expiry, maxAgeExpiry);
     }
 
-    private static boolean isIssuerInvalid(final Claims claims, final String issuer)
+    private static boolean isNonceInvalid(final IdTokenClaims claims, final String expectedNonce)
     {
-        return !claims.get(ClaimsConstants.ISSUER).getValue().toString().equals(issuer);
+        return expectedNonce != null && !expectedNonce.equals(claims.getNonce());
     }
 
-    private static boolean doesAudOrAzpClaimMatchClientId(final Claims claims,
+    private static boolean isIssuerInvalid(final IdTokenClaims claims, final String issuer)
+    {
+        return claims.getIssuer() == null || !claims.getIssuer().equals(issuer);
+    }
+
+    private static boolean doesAudOrAzpClaimMatchClientId(final IdTokenClaims claims,
         final String clientId)
     {
-        return clientId.equals(claims.get(ClaimsConstants.AUD).getValue()) || clientId.equals(
-            claims.get(ClaimsConstants.AZP).getValue());
+        return clientId.equals(claims.getAudience()) || clientId.equals(
+            claims.getAuthorizedParty());
     }
 
-    private static TokenValidationResult validateTokenExpiry(Claims claims, long maxAge)
+    private static TokenValidationResult validateTokenExpiry(IdTokenClaims claims, long maxAge)
     {
         if (tokenHasExpired(claims))
         {
@@ -287,16 +453,16 @@ public class TokenValidation
         return TokenValidationResult.VALID;
     }
 
-    private static boolean tokenHasExpired(final Claims claims)
+    private static boolean tokenHasExpired(final IdTokenClaims claims)
     {
-        return (Long.valueOf(claims.get(ClaimsConstants.EXPIRED).getValue().toString()) * 1000)
-            < Calendar.getInstance().getTimeInMillis();
+        return claims.getExpiry() == null
+            || (claims.getExpiry() * 1000) < Calendar.getInstance().getTimeInMillis();
     }
 
-    private static boolean maxAgeHasPassed(final Claims claims, final long maxAge)
+    private static boolean maxAgeHasPassed(final IdTokenClaims claims, final long maxAge)
     {
-        return (Long.valueOf(claims.get(ClaimsConstants.ISSUED_AT_TIME).getValue().toString())
-            * 1000) + (maxAge * 1000) < Calendar.getInstance().getTimeInMillis();
+        return claims.getIssuedAt() == null || (claims.getIssuedAt() * 1000) + (maxAge * 1000)
+            < Calendar.getInstance().getTimeInMillis();
     }
 
     /**
@@ -0,0 +1,271 @@
+/*
+* SOFTWARE USE PERMISSION
+*
+* By downloading and accessing this software and associated documentation files ("Software") you are granted the
+* unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+* sublicense and grant such rights to third parties, subject to the following conditions:
+*
+* The following copyright notice and this permission notice shall be included in all copies, modifications or
+* substantial portions of this Software: Copyright © 2016 GSM Association.
+*
+* THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+* MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+* HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+* ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+* INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+*/
+package com.gsma.mobileconnect.r2.validation;
+
+import com.gsma.mobileconnect.r2.cache.CacheStatistics;
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.JsonWebToken;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of successful id token validations, so that a token which is validated repeatedly
+ * during a session skips the signature verification and claims parsing after the first time.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the token together with the client id, issuer, nonce
+ * and max age it was validated against, so tokens themselves are not held, and a token validated
+ * against different parameters is validated afresh.  Only {@link TokenValidationResult#VALID}
+ * results are held, until the token expires or its max age passes, whichever is sooner; any other
+ * result is never cached.  Note that a token remains valid for the life of its entry even if its
+ * signing key is withdrawn from the keyset in the meantime.  When full, the least recently used
+ * entry is evicted.
+ *
+ * @since 2.0
+ */
+public class TokenValidationCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenValidationCache.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Long> validUntil;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expiryCount = new AtomicLong();
+
+    private TokenValidationCache(final Builder builder)
+    {
+        this.maxEntries = builder.maxEntries;
+        this.validUntil = new LinkedHashMap<String, Long>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Long> eldest)
+            {
+                final boolean evict = this.size() > TokenValidationCache.this.maxEntries;
+                if (evict)
+                {
+                    TokenValidationCache.this.evictionCount.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+
+        LOGGER.info("New instance of TokenValidationCache created with maxEntries={}",
+            this.maxEntries);
+    }
+
+    /**
+     * Validates an id token, see {@link TokenValidation#validateIdToken(String, String, String,
+     * String, long, JWKeyset, IJsonService, IMobileConnectEncodeDecoder)}, returning the result
+     * of an earlier successful validation of the same token and parameters if it is still valid.
+     *
+     * @param idToken                    IDToken to validate
+     * @param clientId                   ClientId that is validated against the aud and azp claims
+     * @param issuer                     Issuer that is validated against the iss claim
+     * @param nonce                      Nonce that is validated against the nonce claim
+     * @param maxAge                     MaxAge that is used to validate the auth_time claim (if
+     *                                   supplied)
+     * @param keyset                     Keyset retrieved from the jwks url, used to validate the
+     *                                   token signature
+     * @param jsonService                Json service to be used deserialising strings to objects
+     * @param mobileConnectEncodeDecoder Class used to encode/decode
+     * @return TokenValidationResult that specifies if the token is valid, or if not why it is not
+     * valid
+     */
+    public TokenValidationResult validateIdToken(final String idToken, //NOSONAR
+        final String clientId, final String issuer, final String nonce, final long maxAge,
+        final JWKeyset keyset, final IJsonService jsonService,
+        final IMobileConnectEncodeDecoder mobileConnectEncodeDecoder)
+        throws JsonDeserializationException
+    {
+        if (StringUtils.isNullOrEmpty(idToken))
+        {
+            return TokenValidation.validateIdToken(idToken, clientId, issuer, nonce, maxAge,
+                keyset, jsonService, mobileConnectEncodeDecoder);
+        }
+        return this.validateIdToken(new JsonWebToken(idToken, mobileConnectEncodeDecoder),
+            clientId, issuer, nonce, maxAge, keyset, jsonService);
+    }
+
+    /**
+     * Validates an id token, see {@link #validateIdToken(String, String, String, String, long,
+     * JWKeyset, IJsonService, IMobileConnectEncodeDecoder)}.
+     *
+     * @param idToken     IDToken to validate
+     * @param clientId    ClientId that is validated against the aud and azp claims
+     * @param issuer      Issuer that is validated against the iss claim
+     * @param nonce       Nonce that is validated against the nonce claim
+     * @param maxAge      MaxAge that is used to validate the auth_time claim (if supplied)
+     * @param keyset      Keyset retrieved from the jwks url, used to validate the token signature
+     * @param jsonService Json service to be used deserialising strings to objects
+     * @return TokenValidationResult that specifies if the token is valid, or if not why it is not
+     * valid
+     */
+    public TokenValidationResult validateIdToken(final JsonWebToken idToken, //NOSONAR
+        final String clientId, final String issuer, final String nonce, final long maxAge,
+        final JWKeyset keyset, final IJsonService jsonService)
+        throws JsonDeserializationException
+    {
+        final String key = digest(idToken.getToken(), clientId, issuer, nonce, maxAge);
+        final long now = System.currentTimeMillis();
+
+        if (this.isValid(key, now))
+        {
+            this.hitCount.incrementAndGet();
+            return TokenValidationResult.VALID;
+        }
+        this.missCount.incrementAndGet();
+
+        final TokenValidationResult result =
+            TokenValidation.validateIdToken(idToken, clientId, issuer, nonce, maxAge, keyset,
+                jsonService);
+        if (result == TokenValidationResult.VALID)
+        {
+            final long until = TokenValidation.validUntil(idToken, maxAge, jsonService);
+            if (until > now)
+            {
+                synchronized (this.validUntil)
+                {
+                    this.validUntil.put(key, until);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a snapshot of the size of the cache and the number of hits, misses, evictions and
+     * expiries it has recorded.
+     */
+    public CacheStatistics getStatistics()
+    {
+        final int size;
+        synchronized (this.validUntil)
+        {
+            size = this.validUntil.size();
+        }
+        return new CacheStatistics(size, this.hitCount.get(), this.missCount.get(),
+            this.evictionCount.get(), this.expiryCount.get());
+    }
+
+    /**
+     * Remove all cached validations.
+     */
+    public void clear()
+    {
+        synchronized (this.validUntil)
+        {
+            this.validUntil.clear();
+        }
+    }
+
+    private boolean isValid(final String key, final long now)
+    {
+        synchronized (this.validUntil)
+        {
+            final Long until = this.validUntil.get(key);
+            if (until == null)
+            {
+                return false;
+            }
+            if (until <= now)
+            {
+                this.validUntil.remove(key);
+                this.expiryCount.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static String digest(final String idToken, final String clientId,
+        final String issuer, final String nonce, final long maxAge)
+    {
+        final MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (final NoSuchAlgorithmException nsae)
+        {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(nsae);
+        }
+
+        // prefix each value with its length, or -1 if absent, so a null value digests differently
+        // to an empty one and no two sets of values run together into the same input
+        final ByteBuffer length = ByteBuffer.allocate(4);
+        for (final String value : new String[] { idToken, clientId, issuer, nonce,
+            Long.toString(maxAge) })
+        {
+            final byte[] bytes = value == null ? null : value.getBytes(UTF8);
+            length.clear();
+            length.putInt(bytes == null ? -1 : bytes.length);
+            digest.update(length.array());
+            if (bytes != null)
+            {
+                digest.update(bytes);
+            }
+        }
+
+        // each byte maps to a single char, giving a compact key
+        return new String(digest.digest(), ISO_8859_1);
+    }
+
+    public static final class Builder
+    {
+        private int maxEntries = DefaultOptions.TOKEN_VALIDATION_CACHE_MAX_ENTRIES;
+
+        public Builder()
+        {
+            // empty constructor for builder class
+        }
+
+        /**
+         * Specify the maximum number of validations held.  Defaults to {@link
+         * DefaultOptions#TOKEN_VALIDATION_CACHE_MAX_ENTRIES}.
+         *
+         * @param val maximum number of entries.
+         * @return builder to continue further configuration.
+         */
+        public Builder withMaxEntries(final int val)
+        {
+            this.maxEntries = val;
+            return this;
+        }
+
+        public TokenValidationCache build()
+        {
+            return new TokenValidationCache(this);
+        }
+    }
+}
@@ -1,23 +1,42 @@
 package com.gsma.mobileconnect.r2;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import com.gsma.mobileconnect.r2.authentication.IAuthenticationService;
+import com.gsma.mobileconnect.r2.cache.ConcurrentCache;
 import com.gsma.mobileconnect.r2.cache.ICache;
 import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
 import com.gsma.mobileconnect.r2.discovery.IDiscoveryService;
 import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.identity.IIdentityService;
 import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
+import com.gsma.mobileconnect.r2.rest.MockRestClient;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.TestUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
 import com.gsma.mobileconnect.r2.validation.IJWKeysetService;
+import org.apache.http.HttpHost;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.PoolStats;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import javax.net.ssl.SSLSession;
 import java.net.URI;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -151,4 +170,82 @@ public class MobileConnectTest
         assertNotNull(mobileConnect.getMobileConnectWebInterface());
     }
 
+    @Test
+    public void testGetConnectionPoolStatsForDefaultHttpClient() throws Exception
+    {
+        final MobileConnect pooled = new MobileConnect.Builder(mobileConnectConfig, encodeDecoder)
+            .withMaxConnectionsPerRoute(5)
+            .withMaxConnectionsTotal(20)
+            .withKeepAlive(10, TimeUnit.SECONDS)
+            .withIdleConnectionEviction(30, TimeUnit.SECONDS)
+            .withStatelessConnectionReuse(true)
+            .build();
+
+        final PoolStats stats = pooled.getConnectionPoolStats();
+
+        assertNotNull(stats);
+        assertEquals(stats.getMax(), 20);
+        assertEquals(stats.getLeased(), 0);
+        assertEquals(stats.getPending(), 0);
+
+        final PoolStats routeStats =
+            pooled.getConnectionPoolStats(new HttpRoute(new HttpHost("discovery")));
+
+        assertEquals(routeStats.getMax(), 5);
+    }
+
+    @Test
+    public void testStatelessConnectionReuseLeavesClientCertificateConnectionsUntagged()
+    {
+        final Principal principal = Mockito.mock(Principal.class);
+        final SSLSession sslSession = Mockito.mock(SSLSession.class);
+        Mockito.when(sslSession.getLocalPrincipal()).thenReturn(principal);
+        final ManagedHttpClientConnection connection =
+            Mockito.mock(ManagedHttpClientConnection.class);
+        Mockito.when(connection.isOpen()).thenReturn(true);
+        Mockito.when(connection.getSSLSession()).thenReturn(sslSession);
+        final HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpClientContext.HTTP_CONNECTION, connection);
+
+        assertSame(MobileConnect.Builder.userTokenHandler(false).getUserToken(context), principal);
+        assertNull(MobileConnect.Builder.userTokenHandler(true).getUserToken(context));
+    }
+
+    @Test
+    public void testWarmUpPopulatesCachesAndReportsFailures() throws Exception
+    {
+        final MockRestClient mockRestClient = new MockRestClient()
+            .addResponse(TestUtils.AUTHENTICATION_RESPONSE)
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE)
+            .addResponse(TestUtils.JWKS_RESPONSE)
+            .addResponse(new RequestFailedException(HttpUtils.HttpMethod.POST,
+                URI.create("http://discovery"), null));
+        final MobileConnect warming = new MobileConnect.Builder(mobileConnectConfig, encodeDecoder)
+            .withCache(new ConcurrentCache.Builder().withJsonService(new JacksonJsonService()).build())
+            .withRestClient(mockRestClient)
+            .withExecutorService(MoreExecutors.newDirectExecutorService())
+            .build();
+
+        final WarmUpReport report = warming.warmUp(Arrays.asList(
+            new Tuple<String, String>("901", "01"), new Tuple<String, String>("902", "02")), 1);
+
+        assertEquals(report.getWarmed(), Collections.singletonList("901-01"));
+        assertEquals(report.getFailures().size(), 1);
+        assertEquals(report.getFailures().get(0).getMcc(), "902");
+        assertTrue(report.getFailures().get(0).getCause() instanceof RequestFailedException);
+        assertFalse(report.isComplete());
+        assertTrue(mockRestClient.reset().isEmpty());
+
+        final DiscoveryResponse cached =
+            warming.getDiscoveryService().getCachedDiscoveryResponse("901", "01");
+        assertNotNull(cached);
+        assertTrue(cached.getProviderMetadata().isCached());
+    }
+
+    @Test
+    public void testGetConnectionPoolStatsWithSuppliedHttpClient() throws Exception
+    {
+        assertNull(mobileConnect.getConnectionPoolStats());
+    }
+
 }
\ No newline at end of file
@@ -24,12 +24,14 @@ import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
 import com.gsma.mobileconnect.r2.discovery.OperatorUrls;
 import com.gsma.mobileconnect.r2.discovery.SupportedVersions;
 import com.gsma.mobileconnect.r2.exceptions.HeadlessOperationFailedException;
+import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.rest.IAsyncRestClient;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.rest.RestClient;
@@ -45,6 +47,8 @@ import org.testng.annotations.Test;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -538,4 +542,74 @@ public class AuthenticationServiceTest
         //Then
         assertNotNull(discoveryResponse.getResponseData(), "response data is null");
     }
+
+    @Test
+    public void requestTokenStageDefaultsToAdaptingRequestTokenAsync()
+    {
+        final IAuthenticationService service =
+            Mockito.mock(AsyncOnlyAuthenticationService.class, Mockito.CALLS_REAL_METHODS);
+        final CompletableFuture<RequestTokenResponse> future =
+            CompletableFuture.completedFuture(null);
+        Mockito.doReturn(future).when(service).requestTokenAsync(null, null, null, null, null, null);
+
+        assertSame(service.requestTokenStage(null, null, null, null, null, null), future);
+    }
+
+    @Test
+    public void requestTokenStageShouldUseAsyncRestClient() throws Exception
+    {
+        final IAsyncRestClient asyncRestClient = Mockito.mock(IAsyncRestClient.class);
+        when(asyncRestClient.postFormDataAsync(isA(URI.class), isA(RestAuthentication.class),
+            isNull(String.class), anyListOf(KeyValuePair.class), isNull(String.class),
+            isNull(Iterable.class))).thenReturn(CompletableFuture.completedFuture(TestUtils.TOKEN_RESPONSE));
+        final IAuthenticationService service = new AuthenticationService.Builder()
+            .withRestClient(asyncRestClient)
+            .withJsonService(this.jsonService)
+            .build();
+
+        final RequestTokenResponse response = service
+            .requestTokenStage("clientId", "clientSecret", null, TOKEN_URL, REDIRECT_URL, "code")
+            .toCompletableFuture()
+            .get();
+
+        assertEquals(response.getResponseCode(), HttpStatus.SC_ACCEPTED);
+        assertEquals(response.getResponseData().getAccessToken(),
+            "966ad150-16c5-11e6-944f-43079d13e2f3");
+        Mockito.verify(asyncRestClient, Mockito.never()).postFormData(any(URI.class),
+            any(RestAuthentication.class), anyString(), anyListOf(KeyValuePair.class), anyString(),
+            any(Iterable.class));
+    }
+
+    @Test
+    public void requestTokenStageShouldFailStageWhenRequiredArgIsNullWithAsyncRestClient()
+        throws InterruptedException
+    {
+        final IAsyncRestClient asyncRestClient = Mockito.mock(IAsyncRestClient.class);
+        final IAuthenticationService service = new AuthenticationService.Builder()
+            .withRestClient(asyncRestClient)
+            .withJsonService(this.jsonService)
+            .build();
+
+        final CompletionStage<RequestTokenResponse> stage =
+            service.requestTokenStage("clientId", "clientSecret", null, TOKEN_URL, null, "code");
+
+        try
+        {
+            stage.toCompletableFuture().get();
+            fail("expected stage to complete exceptionally");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertTrue(ee.getCause() instanceof InvalidArgumentException);
+        }
+        Mockito.verifyZeroInteractions(asyncRestClient);
+    }
+
+    /**
+     * Implements only the methods of {@link IAuthenticationService} without a default
+     * implementation.
+     */
+    abstract static class AsyncOnlyAuthenticationService implements IAuthenticationService
+    {
+    }
 }
@@ -0,0 +1,235 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link BoundedCache}
+ *
+ * @since 2.0
+ */
+public class BoundedCacheTest
+{
+    private final IJsonService jsonService = new JacksonJsonService();
+
+    private static ProviderMetadata metadata(final String issuer)
+    {
+        return new ProviderMetadata.Builder().withIssuer(issuer).build();
+    }
+
+    @Test
+    public void addShouldEvictLeastRecentlyUsedEntryWhenFull() throws CacheAccessException
+    {
+        final BoundedCache cache = new BoundedCache.Builder()
+            .withJsonService(this.jsonService)
+            .withMaxEntries(2)
+            .withSweepInterval(0, TimeUnit.MILLISECONDS)
+            .build();
+
+        cache.add("a", metadata("a"));
+        cache.add("b", metadata("b"));
+        assertNotNull(cache.get("a", ProviderMetadata.class, false));
+        cache.add("c", metadata("c"));
+
+        assertNotNull(cache.get("a", ProviderMetadata.class, false));
+        assertNull(cache.get("b", ProviderMetadata.class, false));
+        assertNotNull(cache.get("c", ProviderMetadata.class, false));
+
+        final CacheStatistics statistics = cache.getStatistics();
+        assertEquals(statistics.getSize(), 2);
+        assertEquals(statistics.getEvictionCount(), 1);
+        assertEquals(statistics.getHitCount(), 3);
+        assertEquals(statistics.getMissCount(), 1);
+        assertEquals(statistics.getHitRate(), 0.75, 0.001);
+    }
+
+    @Test
+    public void getShouldNotReturnEntryOlderThanExpireAfterWrite()
+        throws CacheAccessException, InterruptedException
+    {
+        final BoundedCache cache = new BoundedCache.Builder()
+            .withJsonService(this.jsonService)
+            .withObjectSnapshots(true)
+            .withExpireAfterWrite(10, TimeUnit.MILLISECONDS)
+            .withSweepInterval(0, TimeUnit.MILLISECONDS)
+            .build();
+
+        cache.add("a", metadata("a"));
+        Thread.sleep(50L);
+
+        assertNull(cache.get("a", ProviderMetadata.class, false));
+        assertTrue(cache.isEmpty());
+        assertEquals(cache.getStatistics().getExpiryCount(), 1);
+        assertEquals(cache.getStatistics().getMissCount(), 1);
+    }
+
+    @Test
+    public void sweepShouldRemoveOnlyEntriesOlderThanExpireAfterWrite()
+        throws CacheAccessException, InterruptedException
+    {
+        final BoundedCache cache = new BoundedCache.Builder()
+            .withJsonService(this.jsonService)
+            .withExpireAfterWrite(40, TimeUnit.MILLISECONDS)
+            .withSweepInterval(0, TimeUnit.MILLISECONDS)
+            .build();
+
+        cache.add("old", metadata("old"));
+        Thread.sleep(60L);
+        cache.add("new", metadata("new"));
+
+        assertEquals(cache.sweep(), 1);
+        assertEquals(cache.getStatistics().getSize(), 1);
+        assertEquals(cache.getStatistics().getExpiryCount(), 1);
+        assertNotNull(cache.get("new", ProviderMetadata.class, false));
+    }
+
+    @Test
+    public void buildShouldScheduleSweeperOnSuppliedScheduler()
+    {
+        final ScheduledExecutorService sweeper = mock(ScheduledExecutorService.class);
+
+        new BoundedCache.Builder()
+            .withJsonService(this.jsonService)
+            .withSweepInterval(5, TimeUnit.SECONDS)
+            .withSweeper(sweeper)
+            .build();
+
+        verify(sweeper).scheduleWithFixedDelay(any(Runnable.class), eq(5000L), eq(5000L),
+            eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void sweeperShouldRemoveOutlivedEntriesInBackground()
+        throws CacheAccessException, InterruptedException
+    {
+        final BoundedCache cache = new BoundedCache.Builder()
+            .withJsonService(this.jsonService)
+            .withExpireAfterWrite(10, TimeUnit.MILLISECONDS)
+            .withSweepInterval(10, TimeUnit.MILLISECONDS)
+            .build();
+
+        try
+        {
+            cache.add("a", metadata("a"));
+            for (int i = 0; i < 100 && !cache.isEmpty(); i++)
+            {
+                Thread.sleep(10L);
+            }
+
+            assertTrue(cache.isEmpty());
+            assertEquals(cache.getStatistics().getExpiryCount(), 1);
+        }
+        finally
+        {
+            cache.close();
+        }
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void buildShouldRejectNonPositiveMaxEntries()
+    {
+        new BoundedCache.Builder().withJsonService(this.jsonService).withMaxEntries(0).build();
+    }
+
+    @Test
+    public void addShouldKeepStripedCacheWithinMaxEntries() throws CacheAccessException
+    {
+        final int maxEntries = DefaultOptions.CACHE_MIN_SEGMENT_ENTRIES * 4;
+        final BoundedCache cache = new BoundedCache.Builder()
+            .withJsonService(this.jsonService)
+            .withMaxEntries(maxEntries)
+            .withConcurrencyLevel(4)
+            .withSweepInterval(0, TimeUnit.MILLISECONDS)
+            .build();
+
+        for (int i = 0; i < maxEntries * 2; i++)
+        {
+            cache.add("key" + i, metadata("issuer" + i));
+        }
+
+        final CacheStatistics statistics = cache.getStatistics();
+        assertTrue(statistics.getSize() <= maxEntries);
+        assertTrue(statistics.getSize() > maxEntries / 2);
+        assertEquals(statistics.getEvictionCount(), maxEntries * 2 - statistics.getSize());
+        assertNotNull(cache.get("key" + (maxEntries * 2 - 1), ProviderMetadata.class, false));
+    }
+
+    @Test
+    public void concurrentAccessShouldNotLoseEntries() throws Exception
+    {
+        final BoundedCache cache = new BoundedCache.Builder()
+            .withJsonService(this.jsonService)
+            .withSweepInterval(0, TimeUnit.MILLISECONDS)
+            .build();
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        try
+        {
+            for (int t = 0; t < 8; t++)
+            {
+                final int thread = t;
+                futures.add(executorService.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws CacheAccessException
+                    {
+                        for (int i = 0; i < 100; i++)
+                        {
+                            final String key = "key" + thread + "_" + i;
+                            cache.add(key, metadata(key));
+                            assertNotNull(cache.get(key, ProviderMetadata.class, false));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<?> future : futures)
+            {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(cache.getStatistics().getSize(), 800);
+        assertEquals(cache.getStatistics().getEvictionCount(), 0L);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link CacheStatistics} as reported by caches which do not track all of them.
+ *
+ * @since 2.0
+ */
+public class CacheStatisticsTest
+{
+    @Test
+    public void getStatisticsShouldDefaultToUnknownSizeAndNoActivity()
+        throws CacheAccessException
+    {
+        final ICache cache = Mockito.mock(StatisticsFreeCache.class, Mockito.CALLS_REAL_METHODS);
+
+        final CacheStatistics statistics = cache.getStatistics();
+
+        assertEquals(statistics.getSize(), -1);
+        assertEquals(statistics.getHitCount(), 0L);
+        assertEquals(statistics.getMissCount(), 0L);
+        assertEquals(statistics.getEvictionCount(), 0L);
+        assertEquals(statistics.getExpiryCount(), 0L);
+        assertEquals(statistics.getHitRate(), 1.0, 0.001);
+    }
+
+    @Test
+    public void getStatisticsShouldReportUnknownSizeWhenInternalCacheCannotCount()
+        throws CacheAccessException
+    {
+        final ICache cache = new UncountedCache();
+        cache.add("a", new ProviderMetadata.Builder().withIssuer("a").build());
+
+        assertNotNull(cache.get("a", ProviderMetadata.class));
+        assertNull(cache.get("b", ProviderMetadata.class));
+
+        final CacheStatistics statistics = cache.getStatistics();
+        assertEquals(statistics.getSize(), -1);
+        assertEquals(statistics.getHitCount(), 1L);
+        assertEquals(statistics.getMissCount(), 1L);
+    }
+
+    /**
+     * Implements only the methods of {@link ICache} without a default implementation.
+     */
+    abstract static class StatisticsFreeCache implements ICache
+    {
+    }
+
+    /**
+     * Implements only the abstract methods of {@link AbstractCache}.
+     */
+    private static final class UncountedCache extends AbstractCache
+    {
+        private final Map<String, CacheEntry> entries = new HashMap<String, CacheEntry>();
+
+        private UncountedCache()
+        {
+            super(new JacksonJsonService(), DEFAULT_CACHE_EXPIRY_LIMITS);
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return this.entries.isEmpty();
+        }
+
+        @Override
+        public void remove(final String key)
+        {
+            this.entries.remove(key);
+        }
+
+        @Override
+        public void clear()
+        {
+            this.entries.clear();
+        }
+
+        @Override
+        protected void internalAdd(final String key, final CacheEntry value)
+        {
+            this.entries.put(key, value);
+        }
+
+        @Override
+        protected CacheEntry internalGet(final String key)
+        {
+            return this.entries.get(key);
+        }
+
+        @Override
+        protected void internalRemove(final String key, final String value)
+        {
+            this.entries.remove(key);
+        }
+    }
+}
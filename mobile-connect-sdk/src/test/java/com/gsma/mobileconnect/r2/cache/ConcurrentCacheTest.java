@@ -22,6 +22,7 @@ import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
 import com.gsma.mobileconnect.r2.utils.ListUtils;
 import com.gsma.mobileconnect.r2.utils.TestUtils;
 import com.gsma.mobileconnect.r2.utils.Tuple;
@@ -29,6 +30,9 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.testng.Assert.*;
@@ -188,6 +192,27 @@ public class ConcurrentCacheTest
             removeIfExpired.booleanValue());
     }
 
+    @Test
+    public void cacheShouldRecordTimeValueExpired()
+        throws CacheAccessException, CacheExpiryLimitException, InterruptedException
+    {
+        final ICache noLimitCache = this.cacheWithLimits(null, null);
+        noLimitCache.setCacheExpiryTime(0L, TimeUnit.SECONDS, ProviderMetadata.class);
+        final long before = System.currentTimeMillis();
+
+        noLimitCache.add("test", new ProviderMetadata.Builder().build());
+        Thread.sleep(50L);
+
+        final ProviderMetadata expired = noLimitCache.get("test", ProviderMetadata.class, false);
+        assertTrue(expired.hasExpired());
+        assertTrue(expired.getExpiredTime() >= before);
+        assertTrue(expired.getExpiredTime() < System.currentTimeMillis());
+
+        noLimitCache.add("fresh", new ProviderMetadata.Builder().build());
+        noLimitCache.setCacheExpiryTime(1L, TimeUnit.HOURS, ProviderMetadata.class);
+        assertEquals(noLimitCache.get("fresh", ProviderMetadata.class).getExpiredTime(), 0L);
+    }
+
     @Test
     public void cacheShouldReturnDefaultValueIfKeyNull() throws CacheAccessException
     {
@@ -210,4 +235,115 @@ public class ConcurrentCacheTest
             this.cacheWithLimits(TimeUnit.SECONDS.toMillis(200L), TimeUnit.SECONDS.toMillis(400L));
         cacheWithLimits.setCacheExpiryTime(seconds, TimeUnit.SECONDS, ProviderMetadata.class);
     }
+
+    @Test
+    public void snapshotCacheShouldReturnIndependentCopies()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final ICache snapshotCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withObjectSnapshots(true)
+            .build();
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+        final String subscriberId = discoveryResponse.getResponseData().getSubscriberId();
+
+        snapshotCache.add("001_01", discoveryResponse);
+
+        final DiscoveryResponse first = snapshotCache.get("001_01", DiscoveryResponse.class);
+        final DiscoveryResponse second = snapshotCache.get("001_01", DiscoveryResponse.class);
+
+        assertNotNull(subscriberId);
+        assertNotSame(first, second);
+        assertNotSame(first, discoveryResponse);
+        assertNotSame(first.getOperatorUrls(), second.getOperatorUrls());
+        assertTrue(first.isCached());
+        assertNull(first.getResponseData().getSubscriberId());
+        assertEquals(discoveryResponse.getResponseData().getSubscriberId(), subscriberId);
+        assertFalse(discoveryResponse.isCached());
+        assertEquals(first.getOperatorUrls().getAuthorizationUrl(),
+            discoveryResponse.getOperatorUrls().getAuthorizationUrl());
+        assertEquals(first.getTtl(), discoveryResponse.getTtl());
+    }
+
+    @Test(dataProvider = "removeIfExpiredData")
+    public void snapshotCacheShouldRemoveExpiredValue(final Boolean removeIfExpired)
+        throws CacheAccessException, CacheExpiryLimitException, InterruptedException
+    {
+        final ICache snapshotCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withCacheExpiryLimits(
+                new ListUtils.HashMapBuilder<Class<? extends AbstractCacheable>, Tuple<Long, Long>>()
+                    .build())
+            .withObjectSnapshots(true)
+            .build();
+        snapshotCache.setCacheExpiryTime(0L, TimeUnit.SECONDS, ProviderMetadata.class);
+
+        snapshotCache.add("test", new ProviderMetadata.Builder().withIssuer("issuer").build());
+
+        Thread.sleep(50L);
+
+        final ProviderMetadata actual =
+            snapshotCache.get("test", ProviderMetadata.class, removeIfExpired);
+
+        assertEquals(actual == null, removeIfExpired.booleanValue());
+        assertEquals(snapshotCache.isEmpty(), removeIfExpired.booleanValue());
+        if (actual != null)
+        {
+            assertTrue(actual.hasExpired());
+            assertEquals(actual.getIssuer(), "issuer");
+        }
+    }
+
+    @Test(expectedExceptions = CacheAccessException.class)
+    public void snapshotCacheShouldThrowAndExpelValueOfWrongClass() throws CacheAccessException
+    {
+        final ICache snapshotCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withObjectSnapshots(true)
+            .build();
+        snapshotCache.add("test", new ProviderMetadata.Builder().build());
+
+        try
+        {
+            snapshotCache.get("test", DiscoveryResponse.class);
+        }
+        finally
+        {
+            assertTrue(snapshotCache.isEmpty());
+        }
+    }
+
+    @Test
+    public void snapshotCacheShouldNotShareHeadersOrProviderMetadata()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final ICache snapshotCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withObjectSnapshots(true)
+            .build();
+        final List<KeyValuePair> headers =
+            new ArrayList<KeyValuePair>(Arrays.asList(new KeyValuePair("Vary", "Accept")));
+        final DiscoveryResponse parsed =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+        final DiscoveryResponse discoveryResponse = new DiscoveryResponse.Builder(parsed)
+            .withHeaders(headers)
+            .withProviderMetadata(new ProviderMetadata.Builder().withIssuer("issuer").build())
+            .build();
+
+        snapshotCache.add("001_01", discoveryResponse);
+        headers.add(new KeyValuePair("Date", "today"));
+        final DiscoveryResponse first = snapshotCache.get("001_01", DiscoveryResponse.class);
+        first.getHeaders().clear();
+
+        final DiscoveryResponse second = snapshotCache.get("001_01", DiscoveryResponse.class);
+
+        assertEquals(second.getHeaders().size(), 1);
+        assertNotSame(second.getProviderMetadata(), discoveryResponse.getProviderMetadata());
+        assertNotSame(second.getProviderMetadata(), first.getProviderMetadata());
+        assertFalse(discoveryResponse.getProviderMetadata().isCached());
+        assertEquals(second.getProviderMetadata().getIssuer(), "issuer");
+    }
 }
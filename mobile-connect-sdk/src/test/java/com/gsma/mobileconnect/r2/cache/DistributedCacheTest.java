@@ -0,0 +1,143 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.TestUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link DistributedCache}
+ *
+ * @since 2.0
+ */
+public class DistributedCacheTest
+{
+    private final IJsonService jsonService = new JacksonJsonService();
+
+    private LocalKeyValueStore store;
+    private DistributedCache nodeA;
+    private DistributedCache nodeB;
+
+    private DistributedCache node()
+    {
+        return new DistributedCache.Builder()
+            .withJsonService(this.jsonService)
+            .withStore(this.store)
+            .build();
+    }
+
+    private static ProviderMetadata metadata(final String issuer)
+    {
+        return new ProviderMetadata.Builder().withIssuer(issuer).build();
+    }
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.store = spy(new LocalKeyValueStore());
+        this.nodeA = this.node();
+        this.nodeB = this.node();
+    }
+
+    @Test
+    public void sessionAddedOnOneNodeShouldBeReadableOnAnother()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+
+        this.nodeA.add("sdkSession", discoveryResponse);
+        final DiscoveryResponse actual = this.nodeB.get("sdkSession", DiscoveryResponse.class);
+
+        assertNotNull(actual);
+        assertEquals(actual.getOperatorUrls().getAuthorizationUrl(),
+            discoveryResponse.getOperatorUrls().getAuthorizationUrl());
+        assertFalse(this.nodeB.isEmpty());
+    }
+
+    @Test
+    public void repeatedReadsShouldBeServedFromNearCache() throws CacheAccessException, IOException
+    {
+        this.nodeA.add("key", metadata("issuer"));
+
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(this.nodeB.get("key", ProviderMetadata.class).getIssuer(), "issuer");
+        }
+
+        verify(this.store, times(1)).get("key");
+        assertEquals(this.nodeB.getNearCacheHitCount(), 4);
+    }
+
+    @Test
+    public void changeOnOneNodeShouldInvalidateNearCacheOfAnother() throws CacheAccessException
+    {
+        this.nodeA.add("key", metadata("first"));
+        assertEquals(this.nodeB.get("key", ProviderMetadata.class).getIssuer(), "first");
+
+        this.nodeA.add("key", metadata("second"));
+        assertEquals(this.nodeB.get("key", ProviderMetadata.class).getIssuer(), "second");
+
+        this.nodeA.remove("key");
+        assertNull(this.nodeB.get("key", ProviderMetadata.class));
+    }
+
+    @Test
+    public void nearCacheEntryShouldBeReloadedAfterTtl()
+        throws CacheAccessException, InterruptedException, IOException
+    {
+        final DistributedCache node = new DistributedCache.Builder()
+            .withJsonService(this.jsonService)
+            .withStore(this.store)
+            .withNearCacheTtl(10, TimeUnit.MILLISECONDS)
+            .build();
+        this.nodeA.add("key", metadata("issuer"));
+
+        node.get("key", ProviderMetadata.class);
+        Thread.sleep(30L);
+        node.get("key", ProviderMetadata.class);
+
+        verify(this.store, times(2)).get("key");
+    }
+
+    @Test(expectedExceptions = CacheAccessException.class)
+    public void getShouldThrowWhenStoreIsUnavailable() throws CacheAccessException, IOException
+    {
+        final IKeyValueStore unavailable = mock(IKeyValueStore.class);
+        when(unavailable.get(anyString())).thenThrow(new IOException("unavailable"));
+
+        new DistributedCache.Builder()
+            .withJsonService(this.jsonService)
+            .withStore(unavailable)
+            .build()
+            .get("key", ProviderMetadata.class);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.TestUtils;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link OffHeapCache}
+ *
+ * @since 2.0
+ */
+public class OffHeapCacheTest
+{
+    private final IJsonService jsonService = new JacksonJsonService();
+
+    private OffHeapCache.Builder builder()
+    {
+        return new OffHeapCache.Builder()
+            .withJsonService(this.jsonService)
+            .withSweepInterval(0, TimeUnit.MILLISECONDS);
+    }
+
+    private static ProviderMetadata metadata(final String issuer)
+    {
+        return new ProviderMetadata.Builder().withIssuer(issuer).build();
+    }
+
+    @Test
+    public void addShouldStoreDiscoveryResponse()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final OffHeapCache cache = this.builder().build();
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+
+        cache.add("session", discoveryResponse);
+        final DiscoveryResponse actual = cache.get("session", DiscoveryResponse.class);
+
+        assertNotNull(actual);
+        assertTrue(actual.isCached());
+        assertEquals(actual.getOperatorUrls().getAuthorizationUrl(),
+            discoveryResponse.getOperatorUrls().getAuthorizationUrl());
+        assertEquals(cache.getAllocatedBytes(), 4L * 1024 * 1024);
+    }
+
+    @Test
+    public void addShouldReplaceExistingValue() throws CacheAccessException
+    {
+        final OffHeapCache cache = this.builder().build();
+
+        cache.add("key", metadata("first"));
+        cache.add("key", metadata("second"));
+
+        assertEquals(cache.get("key", ProviderMetadata.class, false).getIssuer(), "second");
+        assertEquals(cache.getStatistics().getSize(), 1);
+    }
+
+    @Test
+    public void addShouldEvictOldestSlabWhenAllSlabsAreInUse() throws CacheAccessException
+    {
+        final OffHeapCache cache = this.builder().withSlabSize(1024).withMaxSlabs(2).build();
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.add("key" + i, metadata("issuer" + i));
+        }
+
+        final CacheStatistics statistics = cache.getStatistics();
+        assertEquals(cache.getAllocatedBytes(), 2048L);
+        assertTrue(statistics.getEvictionCount() > 0);
+        assertEquals(statistics.getSize() + statistics.getEvictionCount(), 100);
+        assertNull(cache.get("key0", ProviderMetadata.class, false));
+        assertEquals(cache.get("key99", ProviderMetadata.class, false).getIssuer(), "issuer99");
+    }
+
+    @Test
+    public void removeShouldFreeSlabForReuse() throws CacheAccessException
+    {
+        final OffHeapCache cache = this.builder().withSlabSize(1024).withMaxSlabs(2).build();
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.add("key", metadata("issuer" + i));
+            cache.remove("key");
+        }
+
+        assertTrue(cache.isEmpty());
+        assertEquals(cache.getStatistics().getEvictionCount(), 0);
+    }
+
+    @Test
+    public void sweepShouldReclaimOutlivedEntries()
+        throws CacheAccessException, InterruptedException
+    {
+        final OffHeapCache cache = this.builder()
+            .withSlabSize(1024)
+            .withExpireAfterWrite(40, TimeUnit.MILLISECONDS)
+            .build();
+
+        for (int i = 0; i < 20; i++)
+        {
+            cache.add("old" + i, metadata("old" + i));
+        }
+        Thread.sleep(60L);
+
+        assertNull(cache.get("old0", ProviderMetadata.class, false));
+        assertEquals(cache.sweep(), 19);
+        assertTrue(cache.isEmpty());
+        assertEquals(cache.getStatistics().getExpiryCount(), 20);
+
+        cache.add("new", metadata("new"));
+        assertEquals(cache.get("new", ProviderMetadata.class).getIssuer(), "new");
+    }
+
+    @Test(expectedExceptions = CacheAccessException.class)
+    public void addShouldThrowIfRecordExceedsSlabSize() throws CacheAccessException
+    {
+        final OffHeapCache cache = this.builder().withSlabSize(16).build();
+
+        cache.add("key", metadata("issuer"));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.ListUtils;
+import com.gsma.mobileconnect.r2.utils.TestUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link PersistentCache}
+ *
+ * @since 2.0
+ */
+public class PersistentCacheTest
+{
+    private final IJsonService jsonService = new JacksonJsonService();
+
+    private File directory;
+    private File file;
+
+    @BeforeMethod
+    public void beforeMethod() throws IOException
+    {
+        this.directory = Files.createTempDirectory("mobileconnect-cache").toFile();
+        this.file = new File(this.directory, "cache.log");
+    }
+
+    @AfterMethod
+    public void afterMethod()
+    {
+        for (final File f : this.directory.listFiles())
+        {
+            assertTrue(f.delete());
+        }
+        assertTrue(this.directory.delete());
+    }
+
+    private PersistentCache open(final int fileSize)
+    {
+        return new PersistentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withCacheExpiryLimits(
+                new ListUtils.HashMapBuilder<Class<? extends AbstractCacheable>, Tuple<Long, Long>>()
+                    .build())
+            .withFile(this.file)
+            .withFileSize(fileSize)
+            .build();
+    }
+
+    private static ProviderMetadata metadata(final String issuer)
+    {
+        return new ProviderMetadata.Builder().withIssuer(issuer).build();
+    }
+
+    @Test
+    public void entriesShouldSurviveRestart()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final PersistentCache cache = this.open(64 * 1024);
+        cache.add("001_01", DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+            this.jsonService));
+        cache.add("metadata", metadata("issuer"));
+        cache.add("removed", metadata("removed"));
+        cache.remove("removed");
+        cache.close();
+
+        final PersistentCache restarted = this.open(64 * 1024);
+
+        assertEquals(restarted.getStatistics().getSize(), 2);
+        assertNotNull(restarted.get("001_01", DiscoveryResponse.class)
+            .getOperatorUrls()
+            .getAuthorizationUrl());
+        assertEquals(restarted.get("metadata", ProviderMetadata.class).getIssuer(), "issuer");
+        assertNull(restarted.get("removed", ProviderMetadata.class));
+    }
+
+    @Test
+    public void expiryShouldBeBasedOnOriginalCachedTimeAfterRestart()
+        throws CacheAccessException, CacheExpiryLimitException, InterruptedException
+    {
+        final PersistentCache cache = this.open(64 * 1024);
+        cache.add("metadata", metadata("issuer"));
+        cache.close();
+
+        Thread.sleep(50L);
+
+        final PersistentCache restarted = this.open(64 * 1024);
+        restarted.setCacheExpiryTime(20L, TimeUnit.MILLISECONDS, ProviderMetadata.class);
+
+        final ProviderMetadata stale = restarted.get("metadata", ProviderMetadata.class, false);
+        assertNotNull(stale);
+        assertTrue(stale.hasExpired());
+    }
+
+    @Test
+    public void addShouldCompactLogWhenFull() throws CacheAccessException
+    {
+        final PersistentCache cache = this.open(2048);
+
+        for (int i = 0; i < 200; i++)
+        {
+            cache.add("key", metadata("issuer" + i));
+        }
+        assertEquals(cache.get("key", ProviderMetadata.class).getIssuer(), "issuer199");
+        cache.close();
+
+        final PersistentCache restarted = this.open(2048);
+        assertEquals(restarted.getStatistics().getSize(), 1);
+        assertEquals(restarted.get("key", ProviderMetadata.class).getIssuer(), "issuer199");
+    }
+
+    @Test(expectedExceptions = CacheAccessException.class)
+    public void addShouldThrowWhenLiveEntriesFillTheLog() throws CacheAccessException
+    {
+        final PersistentCache cache = this.open(2048);
+
+        for (int i = 0; i < 200; i++)
+        {
+            cache.add("key" + i, metadata("issuer" + i));
+        }
+    }
+
+    @Test
+    public void replayShouldStopAtCorruptRecord() throws CacheAccessException, IOException
+    {
+        final PersistentCache cache = this.open(64 * 1024);
+        cache.add("first", metadata("first"));
+        cache.add("second", metadata("second"));
+        cache.close();
+
+        final RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+        try
+        {
+            final byte[] content = new byte[(int) raf.length()];
+            raf.readFully(content);
+            final int position = new String(content, "UTF-8").lastIndexOf("second");
+            raf.seek(position);
+            raf.write('X');
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        final PersistentCache restarted = this.open(64 * 1024);
+        assertEquals(restarted.get("first", ProviderMetadata.class).getIssuer(), "first");
+        assertNull(restarted.get("second", ProviderMetadata.class));
+
+        restarted.add("third", metadata("third"));
+        assertEquals(restarted.get("third", ProviderMetadata.class).getIssuer(), "third");
+    }
+}
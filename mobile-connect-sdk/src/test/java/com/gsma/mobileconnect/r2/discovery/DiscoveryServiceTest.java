@@ -16,24 +16,35 @@
  */
 package com.gsma.mobileconnect.r2.discovery;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.MobileConnectConfig;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.cache.CacheExpiryLimitException;
 import com.gsma.mobileconnect.r2.cache.ConcurrentCache;
 import com.gsma.mobileconnect.r2.cache.ICache;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.rest.MockRestClient;
+import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
 import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
 import com.gsma.mobileconnect.r2.utils.TestUtils;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
+import org.mockito.Mockito;
 import org.testng.annotations.*;
 
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.testng.Assert.*;
 
@@ -260,6 +271,67 @@ public class DiscoveryServiceTest
         assertTrue(cached.getProviderMetadata().isCached());
     }
 
+    @Test
+    public void completeSelectedOperatorDiscoveryShouldUseProviderMetadataBoundToCachedResponse()
+        throws RequestFailedException, InvalidResponseException, CacheAccessException
+    {
+        restClient
+            .addResponse(TestUtils.AUTHENTICATION_RESPONSE)
+            .addResponse(new RestResponse.Builder()
+                .withStatusCode(HttpStatus.SC_OK)
+                .withContent(TestUtils.PROVIDER_METADATA_RESPONSE.getContent())
+                .withHeaders(new KeyValuePair.ListBuilder()
+                    .add(HttpHeaders.CACHE_CONTROL, "max-age=3600")
+                    .build())
+                .build());
+
+        final long before = System.currentTimeMillis();
+        final DiscoveryResponse first =
+            discoveryService.completeSelectedOperatorDiscovery(config, REDIRECT_URL, "901", "01");
+        discoveryCache.remove(first.getOperatorUrls().getProviderMetadataUri());
+        final DiscoveryResponse cached =
+            discoveryService.completeSelectedOperatorDiscovery(config, REDIRECT_URL, "901", "01");
+
+        assertTrue(cached.isCached());
+        assertTrue(cached.getProviderMetadata().isCached());
+        assertFalse(cached.getProviderMetadata().hasExpired());
+        assertTrue(cached.getProviderMetadata().getExpiry().getTime()
+            >= before + TimeUnit.HOURS.toMillis(1L));
+    }
+
+    @Test
+    public void retrieveProviderMetadataShouldRevalidateWithConditionalRequest()
+        throws InterruptedException
+    {
+        restClient
+            .addResponse(new RestResponse.Builder()
+                .withStatusCode(HttpStatus.SC_OK)
+                .withContent(TestUtils.PROVIDER_METADATA_RESPONSE.getContent())
+                .withHeaders(new KeyValuePair.ListBuilder()
+                    .add(HttpHeaders.CACHE_CONTROL, "max-age=0")
+                    .add(HttpHeaders.ETAG, "\"m1\"")
+                    .build())
+                .build())
+            .addResponse(new RestResponse.Builder()
+                .withStatusCode(HttpStatus.SC_NOT_MODIFIED)
+                .withHeaders(new KeyValuePair.ListBuilder()
+                    .add(HttpHeaders.CACHE_CONTROL, "max-age=3600")
+                    .build())
+                .build());
+
+        final URI url = URI.create("http://metadata.example.com/.well-known/openid-configuration");
+        final ProviderMetadata first = discoveryService.retrieveProviderMetadata(url, true);
+        Thread.sleep(5L);
+        final ProviderMetadata revalidated = discoveryService.retrieveProviderMetadata(url, true);
+
+        assertEquals(restClient.getLastHeaders(),
+            HttpUtils.conditionalRequestHeaders("\"m1\"", null));
+        assertTrue(restClient.reset().isEmpty());
+        assertEquals(revalidated.getIssuer(), first.getIssuer());
+        assertEquals(revalidated.getEtag(), "\"m1\"");
+        assertFalse(revalidated.hasExpired());
+    }
+
     @Test(expectedExceptions = RequestFailedException.class)
     public void completeSelectedSelectedOperatorDiscoveryShouldHandleRequestFailedException()
         throws RequestFailedException, InvalidResponseException
@@ -452,5 +524,236 @@ public class DiscoveryServiceTest
         assertEquals(parsed.getSelectedMcc(), mcc);
         assertEquals(parsed.getSelectedMnc(), mnc);
     }
-}
 
+    @Test
+    public void automatedOperatorDiscoveryShouldShareConcurrentRequests()
+        throws RequestFailedException, InvalidResponseException, ExecutionException,
+        InterruptedException
+    {
+        final AtomicInteger discoveryCalls = new AtomicInteger();
+        final AtomicReference<IDiscoveryService> service = new AtomicReference<IDiscoveryService>();
+        final AtomicReference<Future<DiscoveryResponse>> follower =
+            new AtomicReference<Future<DiscoveryResponse>>();
+        final MockRestClient blockingRestClient = new MockRestClient()
+        {
+            @Override
+            public RestResponse getDiscovery(final URI uri, final RestAuthentication authentication,
+                final String xRedirect, final String sourceIp, final List<KeyValuePair> queryParams,
+                final Iterable<KeyValuePair> cookies) throws RequestFailedException
+            {
+                discoveryCalls.incrementAndGet();
+                follower.set(service.get().startAutomatedOperatorDiscoveryAsync(config,
+                    REDIRECT_URL, DISCOVERY_OPTIONS, null));
+                awaitWaitingWorker(Thread.currentThread());
+                return super.getDiscovery(uri, authentication, xRedirect, sourceIp, queryParams,
+                    cookies);
+            }
+        };
+        blockingRestClient.addResponse(TestUtils.OPERATOR_SELECTION_RESPONSE);
+        service.set(new DiscoveryService.Builder()
+            .withJsonService(jsonService)
+            .withCache(new ConcurrentCache.Builder().withJsonService(jsonService).build())
+            .withRestClient(blockingRestClient)
+            .build());
+
+        final DiscoveryResponse response =
+            service.get().startAutomatedOperatorDiscovery(config, REDIRECT_URL, DISCOVERY_OPTIONS,
+                null);
+
+        assertSame(follower.get().get(), response);
+        assertEquals(discoveryCalls.get(), 1);
+        assertEquals(blockingRestClient.reset().size(), 0);
+    }
+
+    @Test
+    public void automatedOperatorDiscoveryShouldShareCachedFallbackWhenConcurrentResponseInvalid()
+        throws RequestFailedException, InvalidResponseException, ExecutionException,
+        InterruptedException, CacheAccessException, JsonDeserializationException
+    {
+        final DiscoveryResponse expired = Mockito.spy(
+            DiscoveryResponse.fromRestResponse(TestUtils.OPERATOR_SELECTION_RESPONSE, jsonService));
+        Mockito.doReturn(true).when(expired).hasExpired();
+        // only the leader finds the expired response, the follower relies on the leader's result
+        final ICache expiredCache = Mockito.mock(ICache.class);
+        Mockito.when(expiredCache.get(Mockito.anyString(), Mockito.eq(DiscoveryResponse.class),
+            Mockito.anyBoolean())).thenReturn(expired, (DiscoveryResponse) null);
+
+        final AtomicReference<IDiscoveryService> service = new AtomicReference<IDiscoveryService>();
+        final AtomicReference<Future<DiscoveryResponse>> follower =
+            new AtomicReference<Future<DiscoveryResponse>>();
+        final MockRestClient invalidRestClient = new MockRestClient()
+        {
+            @Override
+            public RestResponse getDiscovery(final URI uri, final RestAuthentication authentication,
+                final String xRedirect, final String sourceIp, final List<KeyValuePair> queryParams,
+                final Iterable<KeyValuePair> cookies) throws RequestFailedException
+            {
+                follower.set(service.get().startAutomatedOperatorDiscoveryAsync(config,
+                    REDIRECT_URL, DISCOVERY_OPTIONS, null));
+                awaitWaitingWorker(Thread.currentThread());
+                return new RestResponse.Builder()
+                    .withStatusCode(HttpStatus.SC_OK)
+                    .withContent("<html>not json</html>")
+                    .build();
+            }
+        };
+        service.set(new DiscoveryService.Builder()
+            .withJsonService(jsonService)
+            .withCache(expiredCache)
+            .withRestClient(invalidRestClient)
+            .build());
+
+        final DiscoveryResponse response =
+            service.get().startAutomatedOperatorDiscovery(config, REDIRECT_URL, DISCOVERY_OPTIONS,
+                null);
+
+        assertSame(response, expired);
+        assertSame(follower.get().get(), expired);
+    }
+
+    /**
+     * Wait for a worker other than the leader to block on the discovery request already in flight.
+     */
+    private static void awaitWaitingWorker(final Thread leader)
+    {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5L);
+        while (!hasWaitingWorker(leader) && System.currentTimeMillis() < deadline)
+        {
+            try
+            {
+                Thread.sleep(5L);
+            }
+            catch (final InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    @Test
+    public void automatedOperatorDiscoveryShouldServeStaleResponseWhileRevalidating()
+        throws RequestFailedException, InvalidResponseException, InterruptedException,
+        CacheExpiryLimitException
+    {
+        final MockRestClient staleRestClient = new MockRestClient()
+            .addResponse(TestUtils.OPERATOR_SELECTION_RESPONSE)
+            .addResponse(TestUtils.OPERATOR_SELECTION_RESPONSE);
+        final IDiscoveryService staleDiscoveryService =
+            buildStaleDiscoveryService(staleRestClient, 1L, 1L);
+
+        assertFalse(staleDiscoveryService.startAutomatedOperatorDiscovery(config, REDIRECT_URL,
+            DISCOVERY_OPTIONS, null).isCached());
+        Thread.sleep(10L);
+
+        final DiscoveryResponse response =
+            staleDiscoveryService.startAutomatedOperatorDiscovery(config, REDIRECT_URL,
+                DISCOVERY_OPTIONS, null);
+
+        assertTrue(response.isCached());
+        assertTrue(response.hasExpired());
+        // revalidated on the direct executor before returning
+        assertEquals(staleRestClient.reset().size(), 0);
+    }
+
+    @Test
+    public void automatedOperatorDiscoveryShouldFallBackToStaleResponseWithinMaxStale()
+        throws RequestFailedException, InvalidResponseException, InterruptedException,
+        CacheExpiryLimitException
+    {
+        final MockRestClient staleRestClient = new MockRestClient()
+            .addResponse(TestUtils.OPERATOR_SELECTION_RESPONSE)
+            .addResponse(new RequestFailedException(HttpUtils.HttpMethod.GET,
+                URI.create("http://error"), null));
+        final IDiscoveryService staleDiscoveryService =
+            buildStaleDiscoveryService(staleRestClient, 0L, 1L);
+
+        staleDiscoveryService.startAutomatedOperatorDiscovery(config, REDIRECT_URL,
+            DISCOVERY_OPTIONS, null);
+        Thread.sleep(10L);
+
+        final DiscoveryResponse response =
+            staleDiscoveryService.startAutomatedOperatorDiscovery(config, REDIRECT_URL,
+                DISCOVERY_OPTIONS, null);
+
+        assertTrue(response.isCached());
+        assertTrue(response.hasExpired());
+        assertEquals(staleRestClient.reset().size(), 0);
+    }
+
+    private static IDiscoveryService buildStaleDiscoveryService(final MockRestClient restClient,
+        final long graceMinutes, final long maxStaleMinutes) throws CacheExpiryLimitException
+    {
+        final ICache cache = new ConcurrentCache.Builder().withJsonService(jsonService).build();
+        cache.setCacheExpiryTime(1L, TimeUnit.MILLISECONDS, DiscoveryResponse.class);
+
+        return new DiscoveryService.Builder()
+            .withJsonService(jsonService)
+            .withCache(cache)
+            .withRestClient(restClient)
+            .withExecutorService(MoreExecutors.newDirectExecutorService())
+            .withStaleWhileRevalidate(DiscoveryResponse.class, graceMinutes, maxStaleMinutes,
+                TimeUnit.MINUTES)
+            .build();
+    }
+
+    private static boolean hasWaitingWorker(final Thread leader)
+    {
+        for (final Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet())
+        {
+            final Thread thread = entry.getKey();
+            if (thread != leader && thread.getName().startsWith("mobileconnect-worker")
+                && thread.getState() == Thread.State.WAITING)
+            {
+                for (final StackTraceElement element : entry.getValue())
+                {
+                    if ("awaitDiscovery".equals(element.getMethodName()))
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void stageMethodsDefaultToAdaptingAsyncMethods()
+    {
+        final IDiscoveryService service =
+            Mockito.mock(AsyncOnlyDiscoveryService.class, Mockito.CALLS_REAL_METHODS);
+        final CompletableFuture<DiscoveryResponse> future =
+            CompletableFuture.completedFuture(Mockito.mock(DiscoveryResponse.class));
+        final CompletableFuture<ProviderMetadata> metadata =
+            CompletableFuture.completedFuture(null);
+
+        Mockito.doReturn(future).when(service)
+            .startAutomatedOperatorDiscoveryAsync(null, null, null, null, null, null);
+        Mockito.doReturn(future).when(service)
+            .startAutomatedOperatorDiscoveryAsync(null, null, null, null);
+        Mockito.doReturn(future).when(service).getOperatorSelectionURLAsync(null, null, null, null);
+        Mockito.doReturn(future).when(service).getOperatorSelectionURLAsync(null, null);
+        Mockito.doReturn(future).when(service)
+            .completeSelectedOperatorDiscoveryAsync(null, null, null, null, null, null);
+        Mockito.doReturn(future).when(service)
+            .completeSelectedOperatorDiscoveryAsync(null, null, null, null);
+        Mockito.doReturn(metadata).when(service).getProviderMetadata(null, false);
+
+        assertSame(
+            service.startAutomatedOperatorDiscoveryStage(null, null, null, null, null, null), future);
+        assertSame(service.startAutomatedOperatorDiscoveryStage(null, null, null, null), future);
+        assertSame(service.getOperatorSelectionURLStage(null, null, null, null), future);
+        assertSame(service.getOperatorSelectionURLStage(null, null), future);
+        assertSame(
+            service.completeSelectedOperatorDiscoveryStage(null, null, null, null, null, null), future);
+        assertSame(service.completeSelectedOperatorDiscoveryStage(null, null, null, null), future);
+        assertSame(service.getProviderMetadataStage(null, false), metadata);
+    }
+
+    /**
+     * Implements only the methods of {@link IDiscoveryService} without a default implementation.
+     */
+    abstract static class AsyncOnlyDiscoveryService implements IDiscoveryService
+    {
+    }
+}
@@ -20,22 +20,32 @@ import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
 import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.rest.IAsyncRestClient;
 import com.gsma.mobileconnect.r2.rest.MockRestClient;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
 import com.gsma.mobileconnect.r2.utils.HttpUtils;
 import com.gsma.mobileconnect.r2.utils.KeyValuePair;
 import com.gsma.mobileconnect.r2.utils.StringUtils;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
+import org.mockito.Mockito;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
 import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.testng.Assert.*;
 
@@ -116,6 +126,37 @@ public class IdentityServiceTest
         assertFalse(StringUtils.isNullOrEmpty(response.getErrorResponse().getErrorDescription()));
     }
 
+    @Test
+    public void requestUserInfoAsyncShouldRunOnConfiguredExecutor()
+        throws InterruptedException, ExecutionException
+    {
+        final AtomicInteger submitted = new AtomicInteger();
+        final ExecutorService countingExecutor = new ThreadPoolExecutor(1, 1, 0L,
+            TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>())
+        {
+            @Override
+            public void execute(final Runnable command)
+            {
+                submitted.incrementAndGet();
+                super.execute(command);
+            }
+        };
+        final IIdentityService service = new IdentityService.Builder()
+            .withJsonService(new JacksonJsonService())
+            .withRestClient(this.restClient)
+            .withExecutorService(countingExecutor)
+            .build();
+        this.restClient.addResponse(USERINFO_RESPONSE);
+
+        final IdentityResponse response =
+            service.requestInfoAsync(USERINFO_URL, "zmalqpxnskwocbdjeivbfhru",
+                new DefaultEncodeDecoder()).get();
+        countingExecutor.shutdown();
+
+        assertEquals(response.getResponseCode(), HttpStatus.SC_OK);
+        assertEquals(submitted.get(), 1);
+    }
+
     @Test(expectedExceptions = RequestFailedException.class)
     public void requestUserInfoShouldHandleHttpRequestException() throws RequestFailedException
     {
@@ -140,4 +181,69 @@ public class IdentityServiceTest
     {
         this.identityService.requestInfo(USERINFO_URL, "", new DefaultEncodeDecoder());
     }
+
+    @Test
+    public void requestInfoStageDefaultsToAdaptingRequestInfoAsync()
+    {
+        final IIdentityService service =
+            Mockito.mock(AsyncOnlyIdentityService.class, Mockito.CALLS_REAL_METHODS);
+        final CompletableFuture<IdentityResponse> future = CompletableFuture.completedFuture(null);
+        Mockito.doReturn(future).when(service).requestInfoAsync(null, null, null);
+
+        assertSame(service.requestInfoStage(null, null, null), future);
+    }
+
+    @Test
+    public void requestInfoStageShouldUseAsyncRestClient() throws Exception
+    {
+        final IAsyncRestClient asyncRestClient = Mockito.mock(IAsyncRestClient.class);
+        Mockito.when(asyncRestClient.getAsync(Mockito.eq(USERINFO_URL),
+            Mockito.isA(RestAuthentication.class), Mockito.isNull(String.class),
+            Mockito.isNull(String.class), Mockito.isNull(List.class), Mockito.isNull(Iterable.class)))
+            .thenReturn(CompletableFuture.completedFuture(USERINFO_RESPONSE));
+        final IIdentityService service = new IdentityService.Builder()
+            .withJsonService(new JacksonJsonService())
+            .withRestClient(asyncRestClient)
+            .build();
+
+        final IdentityResponse response =
+            service.requestInfoStage(USERINFO_URL, "zaqwsxcderfvbgtyhnmjukilop", null)
+                .toCompletableFuture()
+                .get();
+
+        assertEquals(response.getResponseCode(), HttpStatus.SC_OK);
+        assertNotNull(response.getResponseJson());
+    }
+
+    @Test
+    public void requestInfoStageShouldFailStageWhenTokenEmptyWithAsyncRestClient()
+        throws InterruptedException
+    {
+        final IAsyncRestClient asyncRestClient = Mockito.mock(IAsyncRestClient.class);
+        final IIdentityService service = new IdentityService.Builder()
+            .withJsonService(new JacksonJsonService())
+            .withRestClient(asyncRestClient)
+            .build();
+
+        final CompletionStage<IdentityResponse> stage =
+            service.requestInfoStage(USERINFO_URL, "", null);
+
+        try
+        {
+            stage.toCompletableFuture().get();
+            fail("expected stage to complete exceptionally");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertTrue(ee.getCause() instanceof InvalidArgumentException);
+        }
+        Mockito.verifyZeroInteractions(asyncRestClient);
+    }
+
+    /**
+     * Implements only the methods of {@link IIdentityService} without a default implementation.
+     */
+    abstract static class AsyncOnlyIdentityService implements IIdentityService
+    {
+    }
 }
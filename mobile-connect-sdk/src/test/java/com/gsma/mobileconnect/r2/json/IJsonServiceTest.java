@@ -0,0 +1,66 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.json;
+
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.nio.charset.Charset;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests the default methods of {@link IJsonService}
+ *
+ * @since 2.0
+ */
+public class IJsonServiceTest
+{
+    @Test
+    public void deserializeBytesShouldDefaultToDecodingUtf8AndDeserializingString()
+        throws JsonDeserializationException
+    {
+        final IJsonService jsonService =
+            Mockito.mock(StringOnlyJsonService.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doReturn("deserialized").when(jsonService)
+            .deserialize("{\"name\":\"caf\u00e9\"}", String.class);
+
+        assertEquals(jsonService.deserialize(
+            "{\"name\":\"caf\u00e9\"}".getBytes(Charset.forName("UTF-8")), String.class),
+            "deserialized");
+    }
+
+    @Test
+    public void deserializeBytesShouldDefaultToDeserializingNullString()
+        throws JsonDeserializationException
+    {
+        final IJsonService jsonService =
+            Mockito.mock(StringOnlyJsonService.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doReturn(null).when(jsonService).deserialize((String) null, String.class);
+
+        assertNull(jsonService.deserialize((byte[]) null, String.class));
+        Mockito.verify(jsonService).deserialize((String) null, String.class);
+    }
+
+    /**
+     * Implements only the methods of {@link IJsonService} without a default implementation.
+     */
+    abstract static class StringOnlyJsonService implements IJsonService
+    {
+    }
+}
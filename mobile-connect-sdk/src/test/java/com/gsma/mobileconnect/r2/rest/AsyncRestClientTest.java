@@ -0,0 +1,200 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link AsyncRestClient}
+ *
+ * @since 2.0
+ */
+public class AsyncRestClientTest
+{
+    private static final URI TEST_URI = URI.create("http://test");
+    private static final RestAuthentication AUTHENTICATION =
+        RestAuthentication.basic("test-key", "test-secret", new DefaultEncodeDecoder());
+
+    private CloseableHttpAsyncClient httpClient;
+    private AsyncRestClient restClient;
+
+    private static HttpResponse createResponse(final int statusCode, final String content)
+    {
+        final HttpResponse response =
+            new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, "reason"));
+        response.setEntity(new StringEntity(content, ContentType.APPLICATION_JSON));
+        response.addHeader("Set-Cookie", "cookie=value");
+        return response;
+    }
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.httpClient = mock(CloseableHttpAsyncClient.class);
+        when(this.httpClient.isRunning()).thenReturn(true);
+
+        this.restClient = new AsyncRestClient.Builder()
+            .withHttpAsyncClient(this.httpClient)
+            .withJsonService(new JacksonJsonService())
+            .withTimeout(50L, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void respondWith(final HttpResponse response)
+    {
+        when(this.httpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class)))
+            .thenAnswer(new Answer<Object>()
+            {
+                @Override
+                public Object answer(final InvocationOnMock invocation) throws Throwable
+                {
+                    final FutureCallback<HttpResponse> callback =
+                        (FutureCallback<HttpResponse>) invocation.getArguments()[1];
+                    final BasicFuture<HttpResponse> future = new BasicFuture<HttpResponse>(callback);
+                    future.completed(response);
+                    return future;
+                }
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getAsyncCompletesWithResponse()
+        throws ExecutionException, InterruptedException
+    {
+        respondWith(createResponse(200, "{\"key\":\"value\"}"));
+
+        final CompletableFuture<RestResponse> future =
+            this.restClient.getAsync(TEST_URI, AUTHENTICATION, null, "192.168.0.1",
+                new KeyValuePair.ListBuilder().add("query", "value").build(), null);
+        final RestResponse response = future.get();
+
+        final ArgumentCaptor<HttpUriRequest> captor = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(this.httpClient).execute(captor.capture(), any(FutureCallback.class));
+        final HttpUriRequest request = captor.getValue();
+
+        assertEquals(request.getMethod(), "GET");
+        assertEquals(request.getURI(), URI.create("http://test?query=value"));
+        assertEquals(request.getFirstHeader("Accept").getValue(), "application/json");
+        assertEquals(request.getFirstHeader("Authorization").getValue(),
+            "Basic dGVzdC1rZXk6dGVzdC1zZWNyZXQ=");
+        assertEquals(response.getStatusCode(), 200);
+        assertEquals(response.getContent(), "{\"key\":\"value\"}");
+        assertEquals(response.getUri(), URI.create("http://test?query=value"));
+        assertEquals(this.restClient.getActiveTimeoutCount(), 0);
+    }
+
+    @Test
+    public void postFormDataBlocksForResponse() throws RequestFailedException
+    {
+        respondWith(createResponse(202, "{}"));
+
+        final RestResponse response = this.restClient.postFormData(TEST_URI, AUTHENTICATION, null,
+            new KeyValuePair.ListBuilder().add("code", "value").build(), null, null);
+
+        assertEquals(response.getStatusCode(), 202);
+        assertEquals(response.getMethod(), "POST");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getAsyncCompletesExceptionallyOnFailure() throws InterruptedException
+    {
+        final IOException failure = new IOException("connection refused");
+        when(this.httpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class)))
+            .thenAnswer(new Answer<Object>()
+            {
+                @Override
+                public Object answer(final InvocationOnMock invocation) throws Throwable
+                {
+                    final BasicFuture<HttpResponse> future = new BasicFuture<HttpResponse>(
+                        (FutureCallback<HttpResponse>) invocation.getArguments()[1]);
+                    future.failed(failure);
+                    return future;
+                }
+            });
+
+        try
+        {
+            this.restClient.getAsync(TEST_URI, null, null, null, null, null).get();
+            fail("expected ExecutionException");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertTrue(ee.getCause() instanceof RequestFailedException);
+            assertSame(ee.getCause().getCause(), failure);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getAsyncTimesOutAndCancelsRequest() throws InterruptedException
+    {
+        final BasicFuture<HttpResponse> pending = new BasicFuture<HttpResponse>(null);
+        when(this.httpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class)))
+            .thenReturn(pending);
+
+        try
+        {
+            this.restClient.getAsync(TEST_URI, null, null, null, null, null).get();
+            fail("expected ExecutionException");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertTrue(ee.getCause() instanceof RequestFailedException);
+            assertTrue(ee.getCause().getCause() instanceof TimeoutException);
+        }
+
+        // the request is cancelled by the timer thread just after the result fails
+        for (int i = 0; i < 100 && !pending.isCancelled(); i++)
+        {
+            Thread.sleep(10L);
+        }
+        assertTrue(pending.isCancelled());
+        assertEquals(this.restClient.getAbortedRequestCount(), 1);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.apache.http.HttpHeaders;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertSame;
+
+/**
+ * Tests the default methods of {@link IRestClient}
+ *
+ * @since 2.0
+ */
+public class IRestClientTest
+{
+    @Test
+    public void getWithHeadersShouldDefaultToGetWithoutHeaders() throws RequestFailedException
+    {
+        final URI uri = URI.create("http://discovery.mobileconnect.io/provider-metadata");
+        final List<KeyValuePair> queryParams = Collections.emptyList();
+        final List<KeyValuePair> cookies = Collections.emptyList();
+        final List<KeyValuePair> headers = Collections.singletonList(
+            new KeyValuePair(HttpHeaders.IF_NONE_MATCH, "\"etag\""));
+        final RestResponse restResponse = new RestResponse.Builder().build();
+
+        final IRestClient restClient =
+            Mockito.mock(HeaderlessRestClient.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doReturn(restResponse).when(restClient)
+            .get(uri, null, "APP", "127.0.0.1", queryParams, cookies);
+
+        assertSame(restClient.get(uri, null, "APP", "127.0.0.1", queryParams, cookies, headers),
+            restResponse);
+        Mockito.verify(restClient).get(uri, null, "APP", "127.0.0.1", queryParams, cookies);
+    }
+
+    /**
+     * Implements only the methods of {@link IRestClient} without a default implementation.
+     */
+    abstract static class HeaderlessRestClient implements IRestClient
+    {
+    }
+}
@@ -39,6 +39,7 @@ import static org.testng.Assert.fail;
 public class MockRestClient implements IRestClient
 {
     private final Queue<Object> queue = new ConcurrentLinkedQueue<Object>();
+    private volatile List<KeyValuePair> lastHeaders;
 
     /**
      * Queue a response.
@@ -104,6 +105,24 @@ public class MockRestClient implements IRestClient
         return this.getNext();
     }
 
+    @Override
+    public RestResponse get(URI uri, RestAuthentication authentication, String xRedirect, String sourceIp,
+        List<KeyValuePair> queryParams, Iterable<KeyValuePair> cookies, List<KeyValuePair> headers)
+        throws RequestFailedException
+    {
+        this.lastHeaders = headers;
+        return this.getNext();
+    }
+
+    /**
+     * @return the additional headers of the last GET issued with headers, or null if there was
+     * none.
+     */
+    public List<KeyValuePair> getLastHeaders()
+    {
+        return this.lastHeaders;
+    }
+
     @Override
     public RestResponse getDiscovery(URI uri, RestAuthentication authentication, String xRedirect, String sourceIp, List<KeyValuePair> queryParams, Iterable<KeyValuePair> cookies) throws RequestFailedException {
         return this.getNext();
@@ -51,6 +51,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.*;
@@ -169,6 +170,23 @@ public class RestClientTest
         assertEquals(request.getEntity(), entity);
     }
 
+    @Test
+    public void getWithHeaders() throws RequestFailedException, IOException
+    {
+        restClient.get(TEST_URI, AUTHENTICATION, null, SOURCE_IP, null, COOKIES,
+            new KeyValuePair.ListBuilder().add("If-None-Match", "\"v1\"").build());
+
+        verify(httpClient).execute(requestCaptor.capture(),
+            isA(RestClient.RestResponseHandler.class));
+
+        final HttpUriRequest request = requestCaptor.getValue();
+
+        assertEquals(request.getMethod(), "GET");
+        assertEquals(request.getURI(), TEST_URI);
+        assertEquals(request.getFirstHeader("If-None-Match").getValue(), "\"v1\"");
+        assertEquals(request.getFirstHeader("X-Source-IP").getValue(), SOURCE_IP);
+    }
+
     @Test(expectedExceptions = {RequestFailedException.class, ThreadTimeoutException.class}, invocationTimeOut = 1500L)
     public void submitRequest_timeout() throws RequestFailedException, IOException
     {
@@ -193,6 +211,58 @@ public class RestClientTest
         restClient.postJsonContent(TEST_URI, AUTHENTICATION, "test", SOURCE_IP, COOKIES);
     }
 
+    @Test
+    public void submitRequest_timeoutCountsAbortedRequest() throws IOException
+    {
+        when(httpClient.execute(isA(HttpUriRequest.class),
+            isA(RestClient.RestResponseHandler.class))).thenAnswer(new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable
+            {
+                final HttpUriRequest request =
+                    invocationOnMock.getArgumentAt(0, HttpUriRequest.class);
+
+                while (!request.isAborted())
+                {
+                    Thread.sleep(5L);
+                }
+
+                throw new InterruptedIOException("request has been aborted");
+            }
+        });
+
+        try
+        {
+            restClient.postJsonContent(TEST_URI, AUTHENTICATION, "test", SOURCE_IP, COOKIES);
+            fail("expected exception");
+        }
+        catch (final RequestFailedException rfe)
+        {
+            assertTrue(rfe.getCause() instanceof TimeoutException);
+        }
+
+        assertEquals(restClient.getAbortedRequestCount(), 1L);
+        assertEquals(restClient.getActiveTimeoutCount(), 0L);
+    }
+
+    @Test
+    public void submitRequest_completionCancelsTimeout() throws RequestFailedException
+    {
+        final RestClient client = new RestClient.Builder()
+            .withHttpClient(httpClient)
+            .withJsonService(jsonService)
+            .withTimeout(10L, TimeUnit.SECONDS)
+            .withTimeoutScheduler(scheduledExecutorService)
+            .build();
+
+        client.postJsonContent(TEST_URI, AUTHENTICATION, "test", SOURCE_IP, COOKIES);
+        client.postJsonContent(TEST_URI, AUTHENTICATION, "test", SOURCE_IP, COOKIES);
+
+        assertEquals(client.getActiveTimeoutCount(), 0L);
+        assertEquals(client.getAbortedRequestCount(), 0L);
+    }
+
     @Test(expectedExceptions = RequestFailedException.class)
     public void submitRequest_interupted() throws RequestFailedException, IOException
     {
@@ -271,6 +341,28 @@ public class RestClientTest
         verify(future).cancel(false);
     }
 
+    @Test
+    public void responseHandlerNotModified() throws IOException
+    {
+        // given:
+        final Future<?> future = mock(Future.class);
+        final HttpResponse httpResponse = mock(HttpResponse.class, RETURNS_DEEP_STUBS);
+
+        final RestClient.RestResponseHandler handler =
+            new RestClient.RestResponseHandler("GET", TEST_URI, future);
+
+        when(httpResponse.getAllHeaders()).thenReturn(new Header[] {});
+        when(httpResponse.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_NOT_MODIFIED);
+        when(httpResponse.getEntity()).thenReturn(null);
+
+        // when:
+        final RestResponse restResponse = handler.handleResponse(httpResponse);
+
+        // that:
+        assertEquals(restResponse.getStatusCode(), HttpStatus.SC_NOT_MODIFIED);
+        assertNull(restResponse.getContent());
+    }
+
     private <T extends HttpRequest> T verifyRequest(final String method, final URI uri,
         final Class<T> clazz) throws IOException
     {
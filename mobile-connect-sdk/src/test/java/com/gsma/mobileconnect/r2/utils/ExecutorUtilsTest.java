@@ -0,0 +1,290 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.utils;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link ExecutorUtils}
+ *
+ * @since 2.0
+ */
+public class ExecutorUtilsTest
+{
+    @Test
+    public void defaultExecutorIsShared()
+    {
+        assertSame(ExecutorUtils.defaultExecutor(), ExecutorUtils.defaultExecutor());
+    }
+
+    @Test
+    public void newBoundedExecutorRunsOnDaemonThreads()
+        throws ExecutionException, InterruptedException
+    {
+        final ExecutorService executor = ExecutorUtils.newBoundedExecutor(2);
+        try
+        {
+            final boolean daemon = executor.submit(new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call() throws Exception
+                {
+                    return Thread.currentThread().isDaemon();
+                }
+            }).get();
+
+            assertTrue(daemon);
+            assertEquals(((ThreadPoolExecutor) executor).getMaximumPoolSize(), 2);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void newBoundedExecutorRunsTaskOnCallerWhenSaturated()
+        throws ExecutionException, InterruptedException
+    {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = ExecutorUtils.newBoundedExecutor(1, 1);
+        try
+        {
+            final Callable<Thread> blocking = new Callable<Thread>()
+            {
+                @Override
+                public Thread call() throws Exception
+                {
+                    release.await();
+                    return Thread.currentThread();
+                }
+            };
+            executor.submit(blocking);
+            executor.submit(blocking);
+
+            final Future<Thread> overflow = executor.submit(new Callable<Thread>()
+            {
+                @Override
+                public Thread call() throws Exception
+                {
+                    return Thread.currentThread();
+                }
+            });
+
+            assertTrue(overflow.isDone());
+            assertSame(overflow.get(), Thread.currentThread());
+        }
+        finally
+        {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = RejectedExecutionException.class)
+    public void newBoundedExecutorRejectsTaskWhenShutdown()
+    {
+        final ExecutorService executor = ExecutorUtils.newBoundedExecutor(1);
+        executor.shutdown();
+
+        executor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                fail("task should not run");
+            }
+        });
+    }
+
+    @Test
+    public void newVirtualThreadExecutorMatchesRuntimeSupport()
+    {
+        final ExecutorService executor = ExecutorUtils.newVirtualThreadExecutor();
+        try
+        {
+            assertEquals(executor != null, ExecutorUtils.isVirtualThreadSupported());
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void supplyAsyncCompletesWithResult() throws ExecutionException, InterruptedException
+    {
+        final ExecutorService executor = ExecutorUtils.newBoundedExecutor(1);
+        try
+        {
+            final CompletableFuture<String> future =
+                ExecutorUtils.supplyAsync(new Callable<String>()
+                {
+                    @Override
+                    public String call() throws Exception
+                    {
+                        return "result";
+                    }
+                }, executor);
+
+            assertEquals(future.get(), "result");
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void supplyAsyncCompletesExceptionallyWithCheckedException() throws InterruptedException
+    {
+        final IOException failure = new IOException("failed");
+        final ExecutorService executor = ExecutorUtils.newBoundedExecutor(1);
+        try
+        {
+            ExecutorUtils.supplyAsync(new Callable<String>()
+            {
+                @Override
+                public String call() throws Exception
+                {
+                    throw failure;
+                }
+            }, executor).get();
+            fail("expected ExecutionException");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertSame(ee.getCause(), failure);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void supplyAsyncCompletesExceptionallyWhenRejected()
+    {
+        final ExecutorService executor = ExecutorUtils.newBoundedExecutor(1);
+        executor.shutdown();
+
+        final CompletableFuture<String> future = ExecutorUtils.supplyAsync(new Callable<String>()
+        {
+            @Override
+            public String call() throws Exception
+            {
+                return "result";
+            }
+        }, executor);
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void toStageReturnsCompletableFutureAsIs()
+    {
+        final CompletableFuture<String> future = new CompletableFuture<String>();
+
+        assertSame(ExecutorUtils.toStage(future), future);
+    }
+
+    @Test
+    public void toStageCompletesWithResultOfFuture()
+        throws ExecutionException, InterruptedException
+    {
+        final FutureTask<String> future = new FutureTask<String>(new Callable<String>()
+        {
+            @Override
+            public String call() throws Exception
+            {
+                return "result";
+            }
+        });
+        final CompletionStage<String> stage = ExecutorUtils.toStage(future);
+        future.run();
+
+        assertEquals(stage.toCompletableFuture().get(), "result");
+    }
+
+    @Test
+    public void toStageCompletesExceptionallyWithCauseOfFailure() throws InterruptedException
+    {
+        final IOException failure = new IOException("failed");
+        final FutureTask<String> future = new FutureTask<String>(new Callable<String>()
+        {
+            @Override
+            public String call() throws Exception
+            {
+                throw failure;
+            }
+        });
+        future.run();
+
+        try
+        {
+            ExecutorUtils.toStage(future).toCompletableFuture().get();
+            fail("expected ExecutionException");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertSame(ee.getCause(), failure);
+        }
+    }
+
+    @Test
+    public void toStageWaitsOffTheDefaultExecutor() throws ExecutionException, InterruptedException
+    {
+        final FutureTask<String> future = new FutureTask<String>(new Callable<String>()
+        {
+            @Override
+            public String call() throws Exception
+            {
+                return "result";
+            }
+        });
+        final CompletableFuture<String> waitedOn = ExecutorUtils.toStage(future)
+            .thenApply(new Function<String, String>()
+            {
+                @Override
+                public String apply(final String result)
+                {
+                    return Thread.currentThread().getName();
+                }
+            }).toCompletableFuture();
+        future.run();
+
+        assertTrue(waitedOn.get().startsWith("mobileconnect-future-waiter"));
+    }
+}
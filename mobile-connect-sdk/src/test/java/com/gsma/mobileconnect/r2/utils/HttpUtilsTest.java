@@ -28,6 +28,7 @@ import org.testng.annotations.Test;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import java.net.URI;
+import java.util.Date;
 import java.util.List;
 
 import static org.mockito.Mockito.when;
@@ -115,6 +116,36 @@ public class HttpUtilsTest
         assertEquals(value, expectedValue);
     }
 
+    @DataProvider
+    public Object[][] extractCacheExpiryData()
+    {
+        final long now = 1500000000000L;
+        return new Object[][] {
+            {new KeyValuePair.ListBuilder().build(), null},
+            {new KeyValuePair.ListBuilder().add(HttpHeaders.CACHE_CONTROL, "public, max-age=60")
+                .build(), now + 60000L},
+            {new KeyValuePair.ListBuilder()
+                .add(HttpHeaders.CACHE_CONTROL, "max-age=60, s-maxage=120")
+                .add(HttpHeaders.AGE, "20")
+                .build(), now + 100000L},
+            {new KeyValuePair.ListBuilder().add(HttpHeaders.CACHE_CONTROL, "no-cache").build(),
+             now},
+            {new KeyValuePair.ListBuilder()
+                .add(HttpHeaders.DATE, "Fri, 14 Jul 2017 02:00:00 GMT")
+                .add(HttpHeaders.EXPIRES, "Fri, 14 Jul 2017 03:00:00 GMT")
+                .build(), now + 3600000L},
+            {new KeyValuePair.ListBuilder().add(HttpHeaders.EXPIRES, "0").build(), now},
+            {new KeyValuePair.ListBuilder().add(HttpHeaders.CACHE_CONTROL, "private").build(),
+             null}};
+    }
+
+    @Test(dataProvider = "extractCacheExpiryData")
+    public void extractCacheExpiry(final List<KeyValuePair> headers, final Long expected)
+    {
+        final Date expiry = HttpUtils.extractCacheExpiry(headers, 1500000000000L);
+        assertEquals(expiry == null ? null : expiry.getTime(), expected);
+    }
+
     @DataProvider
     public Object[][] proxyRequiredData()
     {
@@ -22,11 +22,13 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.net.URI;
+import java.util.Arrays;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 
 /**
  * Tests {@link LogUtils}
@@ -81,6 +83,50 @@ public class LogUtilsTest
         assertNull(LogUtils.maskUri(URI.create("http://test"), logger, Level.DEBUG));
     }
 
+    @Test(dataProvider = "maskUriData")
+    public void maskedUri(final String original, final String masked)
+    {
+        assertEquals(LogUtils.maskedUri(URI.create(original)).toString(), masked);
+        assertEquals(LogUtils.maskedUri(original).toString(), masked);
+    }
+
+    @Test
+    public void maskedUri_null()
+    {
+        assertEquals(LogUtils.maskedUri((URI) null).toString(), "null");
+    }
+
+    @Test(dataProvider = "maskData")
+    public void masked(final String str, final String expected)
+    {
+        assertEquals(LogUtils.masked(str).toString(), String.valueOf(expected));
+    }
+
+    @Test
+    public void maskUri_noSensitiveParamsReturnsSameInstance()
+    {
+        final String uri = "http://test/?paramA=1&paramB=2";
+
+        assertSame(LogUtils.maskUri(uri), uri);
+    }
+
+    @Test
+    public void maskUri_configuredSensitiveParams()
+    {
+        try
+        {
+            LogUtils.setSensitiveParameterNames(Arrays.asList("Code", ""));
+
+            assertEquals(LogUtils.getSensitiveParameterNames(), Arrays.asList("code"));
+            assertEquals(LogUtils.maskUri("http://test/?auth_code=abcdef&nonce=123456"),
+                "http://test/?auth_code=ab***f&nonce=123456");
+        }
+        finally
+        {
+            LogUtils.setSensitiveParameterNames(LogUtils.DEFAULT_SENSITIVE_PARAMETER_NAMES);
+        }
+    }
+
     private Logger getLogger(final Level level)
     {
         final Logger logger = mock(Logger.class);
@@ -0,0 +1,85 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.validation;
+
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import org.testng.annotations.Test;
+
+import java.nio.charset.Charset;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests {@link IdTokenClaims}
+ *
+ * @since 2.0
+ */
+public class IdTokenClaimsTest
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final IJsonService jsonService = new JacksonJsonService();
+
+    @Test
+    public void idTokenClaimsShouldDeserialize() throws JsonDeserializationException
+    {
+        final String json =
+            "{\"nonce\":\"1234567890\",\"aud\":\"x-clientid-x\",\"azp\":\"x-clientid-y\",\"iss\":\"http://mobileconnect.io\",\"exp\":2147483647,\"auth_time\":2147483647,\"iat\":\"1471007327\"}";
+
+        final IdTokenClaims claims =
+            this.jsonService.deserialize(json.getBytes(UTF8), IdTokenClaims.class);
+
+        assertEquals(claims.getNonce(), "1234567890");
+        assertEquals(claims.getAudience(), "x-clientid-x");
+        assertEquals(claims.getAuthorizedParty(), "x-clientid-y");
+        assertEquals(claims.getIssuer(), "http://mobileconnect.io");
+        assertEquals(claims.getExpiry(), Long.valueOf(2147483647L));
+        assertEquals(claims.getIssuedAt(), Long.valueOf(1471007327L));
+    }
+
+    @Test
+    public void idTokenClaimsShouldSkipOtherAndStructuredClaims()
+        throws JsonDeserializationException
+    {
+        final String json =
+            "{\"amr\":[\"SIM_PIN\"],\"address\":{\"nonce\":\"nested\"},\"aud\":[\"x-clientid-x\"],\"nonce\":null,\"iss\":\"http://mobileconnect.io\"}";
+
+        final IdTokenClaims claims =
+            this.jsonService.deserialize(json.getBytes(UTF8), IdTokenClaims.class);
+
+        assertNull(claims.getNonce());
+        assertNull(claims.getAudience());
+        assertNull(claims.getExpiry());
+        assertEquals(claims.getIssuer(), "http://mobileconnect.io");
+    }
+
+    @Test(expectedExceptions = JsonDeserializationException.class)
+    public void idTokenClaimsShouldFailOnInvalidTime() throws JsonDeserializationException
+    {
+        this.jsonService.deserialize("{\"exp\":\"tomorrow\"}".getBytes(UTF8),
+            IdTokenClaims.class);
+    }
+
+    @Test(expectedExceptions = JsonDeserializationException.class)
+    public void idTokenClaimsShouldFailOnNonObject() throws JsonDeserializationException
+    {
+        this.jsonService.deserialize("[\"nonce\"]".getBytes(UTF8), IdTokenClaims.class);
+    }
+}
@@ -1,10 +1,23 @@
 package com.gsma.mobileconnect.r2.validation;
 
+import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
+import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import org.apache.commons.codec.binary.Base64;
 import org.testng.annotations.Test;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 /**
@@ -65,4 +78,93 @@ public class JWKeyTest
         assertFalse(jwKeyHmac.isRsa());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testVerifyEcc() throws Exception
+    {
+        assertEccVerifies("P-256", "secp256r1", "ES256", "SHA256withECDSA", 32);
+        assertEccVerifies("P-384", "secp384r1", "ES384", "SHA384withECDSA", 48);
+        assertEccVerifies("P-521", "secp521r1", "ES512", "SHA512withECDSA", 66);
+    }
+
+    @Test
+    public void testVerifyHmac() throws Exception
+    {
+        final IMobileConnectEncodeDecoder encodeDecoder = new DefaultEncodeDecoder();
+        final byte[] secret = "a secret of at least two hundred and fifty six bits".getBytes("UTF-8");
+        final byte[] input = "header.claims".getBytes("UTF-8");
+
+        final Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+        final byte[] signature = mac.doFinal(input);
+
+        final JWKey jwKey = new JacksonJsonService().deserialize(
+            "{\"alg\":\"HS256\",\"kty\":\"oct\",\"use\":\"sig\",\"k\":\""
+                + Base64.encodeBase64URLSafeString(secret) + "\"}", JWKey.class);
+
+        assertTrue(jwKey.verify(input, signature, "HS256", encodeDecoder));
+        assertFalse(jwKey.verify("header.other".getBytes("UTF-8"), signature, "HS256",
+            encodeDecoder));
+        assertFalse(jwKey.verify(input, signature, "RS256", encodeDecoder));
+        assertSame(jwKey.getSecretKey("HmacSHA256", encodeDecoder),
+            jwKey.getSecretKey("HmacSHA256", encodeDecoder));
+    }
+
+    private static void assertEccVerifies(final String curve, final String curveName,
+        final String algorithm, final String jcaName, final int size) throws Exception
+    {
+        final IMobileConnectEncodeDecoder encodeDecoder = new DefaultEncodeDecoder();
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec(curveName));
+        final KeyPair keyPair = generator.generateKeyPair();
+        final ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic();
+
+        final byte[] input = "header.claims".getBytes("UTF-8");
+        final Signature signer = Signature.getInstance(jcaName);
+        signer.initSign(keyPair.getPrivate());
+        signer.update(input);
+        final byte[] signature = toJoseSignature(signer.sign(), size);
+
+        final JWKey jwKey = new JacksonJsonService().deserialize(
+            "{\"alg\":\"" + algorithm + "\",\"kty\":\"EC\",\"use\":\"sig\",\"crv\":\"" + curve
+                + "\",\"x\":\"" + encodeCoordinate(publicKey.getW().getAffineX().toByteArray(),
+                size) + "\",\"y\":\"" + encodeCoordinate(
+                publicKey.getW().getAffineY().toByteArray(), size) + "\"}", JWKey.class);
+
+        assertTrue(jwKey.verify(input, signature, algorithm, encodeDecoder));
+        assertFalse(jwKey.verify("header.other".getBytes("UTF-8"), signature, algorithm,
+            encodeDecoder));
+        assertFalse(jwKey.verify(input, Arrays.copyOf(signature, size), algorithm,
+            encodeDecoder));
+        assertSame(jwKey.getPublicKey(encodeDecoder), jwKey.getPublicKey(encodeDecoder));
+    }
+
+    private static String encodeCoordinate(final byte[] value, final int size)
+    {
+        return Base64.encodeBase64URLSafeString(toFixedLength(value, 0, value.length, size));
+    }
+
+    /**
+     * Convert a DER encoded ECDSA signature to the concatenated R and S values used by JWS.
+     */
+    private static byte[] toJoseSignature(final byte[] der, final int size)
+    {
+        int offset = der[1] == (byte) 0x81 ? 3 : 2;
+        final int rLength = der[offset + 1];
+        final byte[] r = toFixedLength(der, offset + 2, rLength, size);
+        offset += 2 + rLength;
+        final byte[] s = toFixedLength(der, offset + 2, der[offset + 1], size);
+
+        final byte[] result = Arrays.copyOf(r, 2 * size);
+        System.arraycopy(s, 0, result, size, size);
+        return result;
+    }
+
+    private static byte[] toFixedLength(final byte[] value, final int offset, final int length,
+        final int size)
+    {
+        final byte[] result = new byte[size];
+        final int copied = Math.min(length, size);
+        System.arraycopy(value, offset + length - copied, result, size - copied, copied);
+        return result;
+    }
+}
@@ -17,28 +17,41 @@
 package com.gsma.mobileconnect.r2.validation;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.gsma.mobileconnect.r2.cache.ConcurrentCache;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.rest.RestClient;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
 import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.apache.http.HttpHeaders;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * @since 2.0
@@ -54,17 +67,19 @@ public class JWKeysetServiceTest
         .put("multi", new RestResponse.Builder()
             .withStatusCode(200)
             .withContent(
-                "{keys:[{kty:\"RSA\",alg:\"RS256\",use:\"sig\",kid:\"e27d33093814b052594840219c8f4b0070ee5a3a\",n:\"vNSQ2tMH7T20JgWCUMhQb2ofkE5oG0TFqXb-eOa3ap-BdujTeKUgS-ZZj7Apw_X3Bvf-yTkY_cFuH3paqUkKHy0BNQCo_Y4qPVa8u_57n2bFntHAz0Qi4YeXGxVTwgFa7X0gLFbhWjZBPmlj44vWUsFujqfARiWJRN-dUhKPaxcc7hUBnzRIs2Ll3tYZ2nYw9DT_l1qC9-b2zikWyZ_5bqv7l5Njq2Naf5GZug2m2OgH5lrnaxNU5eQhvMyajeld36GGAzn5a76Rr1fB3F-NaurzUDuw7mgmRjZU6aCjx-OqUwHsgnS3IY5a0EEuI6Hzc6T-GCmUBqUy85kko8595Q\",e:\"AQAB\"},{kty:\"RSA\",alg:\"RS256\",use:\"sig\",kid:\"136510045208f4b17448036e7da1bce8cd8ef856\",n:\"sbi3CNplTFmPN5HslnSKGW80piY0tZW9FQf1T_l4f2-JEKLJWfqzROQ-oSR7LMK-atIZ4dbl3xRH09F4ceAGJ5n6wWBUIDUuWqzgz9GH2vpy609oYT_kyQ9rmjk4n4nCA-NQ7-pk-sN9vx5xhuSOTuU-RBwexTHYKMTMsHNAOmUxfupv5EnnEL99mNybbZlbIUORZ6J1ue7_apoqhcW-4LcF_rq-oDEANc_t3MzbmBoBXxtCSzcOKftH3YwY6F86gh3mlyar5wSQdIAfTUl7v2MaYJaDQnlbpADvqYSPULvnxv-JfsKupkMcl6_5nd7WS6rw3TYN4G6DfU1iB8e6GQ\",e:\"AQAB\"},{kty:\"RSA\",alg:\"RS256\",use:\"sig\",kid:\"6192a6b061685321732c4ba10c010969ae2f55bc\",n:\"sTlBZpLI8NxRVHsDMRNMuiUONPpthV-wQ6iPH5GgjICtZZL9qha4JVy1e7gILOWLRp4madr8qKbi5ii0rEaNSC1KGY8xQjcsqoO_WNpT_quWdSZ6Qk4HLS05uO0fD00QVNj_ZOrYdfOPciMcnWP5lZVihKq_itFe6Rz79v9ibxljaPLe74eLaker55sUwXrbSVqWkM_QM2dzdPVvnSE4-iH5j69tMUaf6NeRwCAFUmy8GyuO-1fJDpzMELVB3MonJ_3Ny6FSMYykPMEEHWKBV6Wdb86nSefTWhQfAMNtm4nvkn-F77HPKJHKNHCUjYpotR0C4by5Sjy8vbDDW5Wo6w\",e:\"AQAB\"},{kty:\"RSA\",alg:\"RS256\",use:\"sig\",kid:\"d0ec514a32b6f88c0abd12a2840699bdd3deba9d\",n:\"yecH_BNaZW3vuU2jepfqUVeXrGzRKQo6CvAI4lqOFdfYjXtj7VAg64Q7-VtCO-VDovnXsQ2f_ytts3B3UI9j8v8nNDlrNSL7vwekgu-FNfsCDV8ktmNivES9ounsL1xbg5u6Amvyp4p8fQ_QJmp0GHaUy4m2BsU9dp-kpoO7ByKqbpbjHHiSvxyST5JZk1_PV9lzsmpm5pyXw28w-l6lVrdG9in82Kao4LciOspOMserCBguag0abrSE19vE5n_36ZStqUqR-IdOsGTq3BehJP7OmX21BcqSpRep4uo5Y61qZvFBcOXLyk0YGZ4x7ksvzFHzjpl6pi_Awv3-VWfC-w\",e:\"AQAB\"}]}")
+                "{\"keys\":[{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"e27d33093814b052594840219c8f4b0070ee5a3a\",\"n\":\"vNSQ2tMH7T20JgWCUMhQb2ofkE5oG0TFqXb-eOa3ap-BdujTeKUgS-ZZj7Apw_X3Bvf-yTkY_cFuH3paqUkKHy0BNQCo_Y4qPVa8u_57n2bFntHAz0Qi4YeXGxVTwgFa7X0gLFbhWjZBPmlj44vWUsFujqfARiWJRN-dUhKPaxcc7hUBnzRIs2Ll3tYZ2nYw9DT_l1qC9-b2zikWyZ_5bqv7l5Njq2Naf5GZug2m2OgH5lrnaxNU5eQhvMyajeld36GGAzn5a76Rr1fB3F-NaurzUDuw7mgmRjZU6aCjx-OqUwHsgnS3IY5a0EEuI6Hzc6T-GCmUBqUy85kko8595Q\",\"e\":\"AQAB\"},{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"136510045208f4b17448036e7da1bce8cd8ef856\",\"n\":\"sbi3CNplTFmPN5HslnSKGW80piY0tZW9FQf1T_l4f2-JEKLJWfqzROQ-oSR7LMK-atIZ4dbl3xRH09F4ceAGJ5n6wWBUIDUuWqzgz9GH2vpy609oYT_kyQ9rmjk4n4nCA-NQ7-pk-sN9vx5xhuSOTuU-RBwexTHYKMTMsHNAOmUxfupv5EnnEL99mNybbZlbIUORZ6J1ue7_apoqhcW-4LcF_rq-oDEANc_t3MzbmBoBXxtCSzcOKftH3YwY6F86gh3mlyar5wSQdIAfTUl7v2MaYJaDQnlbpADvqYSPULvnxv-JfsKupkMcl6_5nd7WS6rw3TYN4G6DfU1iB8e6GQ\",\"e\":\"AQAB\"},{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"6192a6b061685321732c4ba10c010969ae2f55bc\",\"n\":\"sTlBZpLI8NxRVHsDMRNMuiUONPpthV-wQ6iPH5GgjICtZZL9qha4JVy1e7gILOWLRp4madr8qKbi5ii0rEaNSC1KGY8xQjcsqoO_WNpT_quWdSZ6Qk4HLS05uO0fD00QVNj_ZOrYdfOPciMcnWP5lZVihKq_itFe6Rz79v9ibxljaPLe74eLaker55sUwXrbSVqWkM_QM2dzdPVvnSE4-iH5j69tMUaf6NeRwCAFUmy8GyuO-1fJDpzMELVB3MonJ_3Ny6FSMYykPMEEHWKBV6Wdb86nSefTWhQfAMNtm4nvkn-F77HPKJHKNHCUjYpotR0C4by5Sjy8vbDDW5Wo6w\",\"e\":\"AQAB\"},{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"d0ec514a32b6f88c0abd12a2840699bdd3deba9d\",\"n\":\"yecH_BNaZW3vuU2jepfqUVeXrGzRKQo6CvAI4lqOFdfYjXtj7VAg64Q7-VtCO-VDovnXsQ2f_ytts3B3UI9j8v8nNDlrNSL7vwekgu-FNfsCDV8ktmNivES9ounsL1xbg5u6Amvyp4p8fQ_QJmp0GHaUy4m2BsU9dp-kpoO7ByKqbpbjHHiSvxyST5JZk1_PV9lzsmpm5pyXw28w-l6lVrdG9in82Kao4LciOspOMserCBguag0abrSE19vE5n_36ZStqUqR-IdOsGTq3BehJP7OmX21BcqSpRep4uo5Y61qZvFBcOXLyk0YGZ4x7ksvzFHzjpl6pi_Awv3-VWfC-w\",\"e\":\"AQAB\"}]}")
             .build())
         .build();
 
-    private RestClient mockRestClient = Mockito.mock(RestClient.class);
+    private RestClient mockRestClient;
     private IJWKeysetService jwKeysetServiceWithCache;
     private IJWKeysetService jwKeysetServiceWithoutCache;
 
     @BeforeMethod
     public void beforeMethod()
     {
+        this.mockRestClient = Mockito.mock(RestClient.class);
+
         this.jwKeysetServiceWithCache = new JWKeysetService.Builder()
             .withRestClient(this.mockRestClient)
             .withICache(
@@ -129,6 +144,53 @@ public class JWKeysetServiceTest
         assertEquals(jwKey.getKeyId(), "PHPOP-00");
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void retrieveJWKSStageCanBeChained()
+        throws RequestFailedException, ExecutionException, InterruptedException
+    {
+        when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(), anyString(),
+            anyListOf(KeyValuePair.class), any(Iterable.class))).thenReturn(
+            responses.get("single"));
+
+        final Integer keyCount = jwKeysetServiceWithCache.retrieveJwksStage("http://jwks.com/jwks")
+            .thenApply(new Function<JWKeyset, Integer>()
+            {
+                @Override
+                public Integer apply(final JWKeyset jwKeyset)
+                {
+                    return jwKeyset.getKeys().size();
+                }
+            })
+            .toCompletableFuture()
+            .get();
+
+        assertEquals(keyCount.intValue(), 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void retrieveJWKSStageCompletesExceptionallyOnRequestFailure()
+        throws RequestFailedException, InterruptedException
+    {
+        final RequestFailedException failure = new RequestFailedException(HttpUtils.HttpMethod.GET,
+            URI.create("http://jwks.com/jwks"), new Exception("failed"));
+        when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(), anyString(),
+            anyListOf(KeyValuePair.class), any(Iterable.class))).thenThrow(failure);
+
+        try
+        {
+            jwKeysetServiceWithoutCache.retrieveJwksStage("http://jwks.com/jwks")
+                .toCompletableFuture()
+                .get();
+            fail("expected ExecutionException");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertSame(ee.getCause(), failure);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void retrieveJWKSAsyncReturnsJWKSWithoutCache()
@@ -172,4 +234,168 @@ public class JWKeysetServiceTest
 
         assertFalse(cachedJwKeyset.isCached());
     }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void retrieveJWKSSharesConcurrentFetch() throws Exception
+    {
+        final String jwksUrl = "http://jwks.com/jwks";
+        final AtomicReference<Future<JWKeyset>> follower = new AtomicReference<Future<JWKeyset>>();
+        when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(), anyString(),
+            anyListOf(KeyValuePair.class), any(Iterable.class))).thenAnswer(new Answer<RestResponse>()
+        {
+            @Override
+            public RestResponse answer(final InvocationOnMock invocation) throws Throwable
+            {
+                final Thread leader = Thread.currentThread();
+                final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5L);
+                follower.set(jwKeysetServiceWithoutCache.retrieveJwksAsync(jwksUrl));
+                // wait for the follower to block on the fetch already in flight
+                while (!hasWaitingWorker(leader) && System.currentTimeMillis() < deadline)
+                {
+                    Thread.sleep(5L);
+                }
+                return responses.get("single");
+            }
+        });
+
+        final JWKeyset jwKeyset = jwKeysetServiceWithoutCache.retrieveJwks(jwksUrl);
+
+        assertSame(follower.get().get(), jwKeyset);
+        verify(mockRestClient, times(1)).get(any(URI.class), any(RestAuthentication.class),
+            anyString(), anyString(), anyListOf(KeyValuePair.class), any(Iterable.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void retrieveJWKSRefreshesAheadOfExpiry() throws Exception
+    {
+        final IJWKeysetService jwKeysetService = new JWKeysetService.Builder()
+            .withRestClient(this.mockRestClient)
+            .withICache(
+                new ConcurrentCache.Builder().withJsonService(new JacksonJsonService()).build())
+            .withExecutorService(MoreExecutors.newDirectExecutorService())
+            .withRefreshAhead(1L, TimeUnit.MILLISECONDS)
+            .build();
+        when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(), anyString(),
+            anyListOf(KeyValuePair.class), any(Iterable.class))).thenReturn(
+            responses.get("single"), responses.get("multi"));
+
+        final String jwksUrl = "http://jwks.com/jwks";
+        assertEquals(jwKeysetService.retrieveJwks(jwksUrl).getKeys().size(), 1);
+        Thread.sleep(10L);
+
+        final JWKeyset refreshing = jwKeysetService.retrieveJwks(jwksUrl);
+
+        assertTrue(refreshing.isCached());
+        assertEquals(refreshing.getKeys().size(), 1);
+        verify(mockRestClient, times(2)).get(any(URI.class), any(RestAuthentication.class),
+            anyString(), anyString(), anyListOf(KeyValuePair.class), any(Iterable.class));
+        assertEquals(jwKeysetService.retrieveJwks(jwksUrl).getKeys().size(), 4);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void retrieveJWKSRefetchesOnUnknownKeyId() throws Exception
+    {
+        when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(), anyString(),
+            anyListOf(KeyValuePair.class), any(Iterable.class))).thenReturn(
+            responses.get("single"), responses.get("multi"));
+
+        final String jwksUrl = "http://jwks.com/jwks";
+        assertEquals(jwKeysetServiceWithCache.retrieveJwks(jwksUrl, "PHPOP-00").getKeys().size(), 1);
+
+        final JWKeyset rotated = jwKeysetServiceWithCache.retrieveJwks(jwksUrl,
+            "e27d33093814b052594840219c8f4b0070ee5a3a");
+
+        assertEquals(rotated.getKeys().size(), 4);
+        verify(mockRestClient, times(2)).get(any(URI.class), any(RestAuthentication.class),
+            anyString(), anyString(), anyListOf(KeyValuePair.class), any(Iterable.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void retrieveJWKSRateLimitsRefetchesForUnknownKeyIds() throws Exception
+    {
+        when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(), anyString(),
+            anyListOf(KeyValuePair.class), any(Iterable.class))).thenReturn(
+            responses.get("single"));
+
+        final String jwksUrl = "http://jwks.com/jwks";
+        assertEquals(jwKeysetServiceWithCache.retrieveJwks(jwksUrl, "missing").getKeys().size(), 1);
+        assertEquals(jwKeysetServiceWithCache.retrieveJwks(jwksUrl, "missing").getKeys().size(), 1);
+        assertEquals(jwKeysetServiceWithCache.retrieveJwks(jwksUrl, "other").getKeys().size(), 1);
+
+        verify(mockRestClient, times(2)).get(any(URI.class), any(RestAuthentication.class),
+            anyString(), anyString(), anyListOf(KeyValuePair.class), any(Iterable.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void retrieveJWKSRevalidatesWithConditionalRequest() throws Exception
+    {
+        when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(), anyString(),
+            anyListOf(KeyValuePair.class), any(Iterable.class))).thenReturn(
+            new RestResponse.Builder()
+                .withStatusCode(200)
+                .withHeaders(new KeyValuePair.ListBuilder().add(HttpHeaders.ETAG, "\"v1\"").build())
+                .withContent(responses.get("single").getContent())
+                .build());
+        when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(), anyString(),
+            anyListOf(KeyValuePair.class), any(Iterable.class), anyListOf(KeyValuePair.class)))
+            .thenReturn(new RestResponse.Builder().withStatusCode(304).build());
+
+        // the unknown key id triggers a refetch, which the server answers as not modified
+        final String jwksUrl = "http://jwks.com/jwks";
+        assertEquals(jwKeysetServiceWithCache.retrieveJwks(jwksUrl, "missing").getKeys().size(), 1);
+
+        final JWKeyset revalidated = jwKeysetServiceWithCache.retrieveJwks(jwksUrl);
+
+        assertTrue(revalidated.isCached());
+        assertEquals(revalidated.getKeys().size(), 1);
+        assertEquals(revalidated.getEtag(), "\"v1\"");
+        verify(mockRestClient, times(1)).get(any(URI.class), any(RestAuthentication.class),
+            anyString(), anyString(), anyListOf(KeyValuePair.class), any(Iterable.class));
+        verify(mockRestClient, times(1)).get(any(URI.class), any(RestAuthentication.class),
+            anyString(), anyString(), anyListOf(KeyValuePair.class), any(Iterable.class),
+            eq(HttpUtils.conditionalRequestHeaders("\"v1\"", null)));
+    }
+
+    private static boolean hasWaitingWorker(final Thread leader)
+    {
+        for (final Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet())
+        {
+            final Thread thread = entry.getKey();
+            if (thread != leader && thread.getName().startsWith("mobileconnect-worker")
+                && thread.getState() == Thread.State.WAITING)
+            {
+                for (final StackTraceElement element : entry.getValue())
+                {
+                    if ("awaitFetch".equals(element.getMethodName()))
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void retrieveJwksStageDefaultsToAdaptingRetrieveJwksAsync()
+    {
+        final IJWKeysetService service =
+            Mockito.mock(AsyncOnlyJWKeysetService.class, Mockito.CALLS_REAL_METHODS);
+        final CompletableFuture<JWKeyset> future = CompletableFuture.completedFuture(null);
+        Mockito.doReturn(future).when(service).retrieveJwksAsync("http://jwks");
+
+        assertSame(service.retrieveJwksStage("http://jwks"), future);
+    }
+
+    /**
+     * Implements only the methods of {@link IJWKeysetService} without a default implementation.
+     */
+    abstract static class AsyncOnlyJWKeysetService implements IJWKeysetService
+    {
+    }
 }
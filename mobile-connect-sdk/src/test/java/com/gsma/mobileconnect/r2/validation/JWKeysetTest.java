@@ -1,10 +1,12 @@
 package com.gsma.mobileconnect.r2.validation;
 
+import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.utils.Predicate;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.security.PublicKey;
 import java.util.Iterator;
 
 import static org.testng.Assert.*;
@@ -102,4 +104,36 @@ public class JWKeysetTest
         jwKeysetMatching.next();
         assertFalse(jwKeysetMatching.hasNext());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetKeyMatchesKeyIdAndAlgorithm() throws Exception
+    {
+        final String jwksJson =
+            "{\"keys\":[{\"alg\":\"RS512\",\"kid\":\"a\",\"e\":\"AQAB\",\"n\":\"hzr2li5ABVbbQ4BvdDskl6hejaVw0tIDYO\",\"kty\":\"RSA\"},"
+                + "{\"alg\":\"RS256\",\"kid\":\"a\",\"e\":\"AQAB\",\"n\":\"hzr2li5ABVbbQ4BvdDskl6hejaVw0tIDYO\",\"kty\":\"RSA\"},"
+                + "{\"e\":\"AQAB\",\"n\":\"hzr2li5ABVbbQ4BvdDskl6hejaVw0tIDYO\",\"kty\":\"RSA\"}]}";
+        final JWKeyset jwKeyset = jacksonJsonService.deserialize(jwksJson, JWKeyset.class);
+
+        assertSame(jwKeyset.getKey("a", "RS256"), jwKeyset.getKeys().get(1));
+        assertSame(jwKeyset.getKey("a", "RS512"), jwKeyset.getKeys().get(0));
+        assertSame(jwKeyset.getKey(null, "RS256"), jwKeyset.getKeys().get(2));
+        assertNull(jwKeyset.getKey("a", "RS384"));
+        assertNull(jwKeyset.getKey("b", "RS256"));
+    }
+
+    @Test
+    public void testPublicKeyIsMaterializedOnceAndSharedBySnapshots() throws Exception
+    {
+        final String jwksJson =
+            "{\"keys\":[{\"alg\":\"RS256\",\"kid\":\"a\",\"e\":\"AQAB\",\"n\":\"hzr2li5ABVbbQ4BvdDskl6hejaVw0tIDYO-C0GBr5lRA-AXtmCO7bh0CEC9-R6mqctkzUhVnU22Vrj-B1J0JtJoaya9VTC3DdhzI_-7kxtIc5vrHq-ss5wo8-tK7UqtKLSRf9DcyZA0H9FEABbO5Qfvh-cfK4EI_ytA5UBZgO322RVYgQ9Do0D_-jf90dcuUgoxz_JTAOpVNc0u_m9LxGnGL3GhMbxLaX3eUublD40aK0nS2k37dOYOpQHxuAS8BZxLvS6900qqaZ6z0kwZ2WFq-hhk3Imd6fweS724fzqVslY7rHpM5n7z5m7s1ArurU1dBC1Dxw1Hzn6ZeJkEaZQ\",\"kty\":\"RSA\"}]}";
+        final JWKeyset jwKeyset = jacksonJsonService.deserialize(jwksJson, JWKeyset.class);
+        final DefaultEncodeDecoder encodeDecoder = new DefaultEncodeDecoder();
+
+        final PublicKey publicKey = jwKeyset.getKey("a", "RS256").getPublicKey(encodeDecoder);
+
+        assertNotNull(publicKey);
+        assertSame(jwKeyset.getKey("a", "RS256").getPublicKey(encodeDecoder), publicKey);
+        assertSame(jwKeyset.snapshot().getKey("a", "RS256").getPublicKey(encodeDecoder),
+            publicKey);
+    }
+}